@@ -0,0 +1,193 @@
+package uk.gov.di.ipv.cri.address.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.address.library.exception.AddressProcessingException;
+import uk.gov.di.ipv.cri.address.library.persistence.item.AddressItem;
+import uk.gov.di.ipv.cri.address.library.service.AddressService;
+import uk.gov.di.ipv.cri.address.library.service.ProcessedAddresses;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+import uk.gov.di.ipv.cri.common.library.util.deserializers.PiiRedactingDeserializer;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.di.ipv.cri.address.library.util.CountryCode.isCountryCodeAbsentForAny;
+import static uk.gov.di.ipv.cri.address.library.util.CountryCode.isGreatBritain;
+
+/**
+ * Parsing of the address lambda request body, configured as in the address handler, and the
+ * single-pass pipeline the handler runs over the addresses compared with the separate passes it
+ * used to make. The data store and event probe are stubs so only the in-process work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AddressParsingBenchmark {
+    private static final String CURRENT_ADDRESS =
+            """
+            {"uprn":"10022812929","organisationName":"FINCH GROUP",\
+            "departmentName":"TEST DEPARTMENT","subBuildingName":"UNIT 2B",\
+            "buildingNumber":"16","buildingName":"COY POND BUSINESS PARK",\
+            "dependentStreetName":"KINGS PARK","streetName":"BIG STREET",\
+            "doubleDependentAddressLocality":"SOME DISTRICT",\
+            "dependentAddressLocality":"LONG EATON","addressLocality":"GREAT MISSENDEN",\
+            "postalCode":"HP16 0AL","addressCountry":"GB","validFrom":"2020-01-01"}""";
+    private static final String PREVIOUS_ADDRESS =
+            """
+            {"uprn":"10022812930","buildingNumber":"8","streetName":"HADLEY ROAD",\
+            "addressLocality":"BATH","postalCode":"BA2 5AA","addressCountry":"GB"}""";
+
+    private static final UUID SESSION_ID = UUID.randomUUID();
+    private static final long TTL = 1730197212L;
+
+    @Param({"1", "2"})
+    private int addressCount;
+
+    private AddressService addressService;
+    private ObjectReader addressReader;
+    private DataStore<AddressItem> dataStore;
+    private EventProbe eventProbe;
+    private String addressBody;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper =
+                new ObjectMapper()
+                        .registerModule(new JavaTimeModule())
+                        .registerModule(
+                                new SimpleModule()
+                                        .addDeserializer(
+                                                CanonicalAddress.class,
+                                                new PiiRedactingDeserializer<>(
+                                                        CanonicalAddress.class)));
+        dataStore = new DiscardingDataStore();
+        addressService = new AddressService(dataStore, objectMapper);
+        addressReader =
+                objectMapper
+                        .readerForListOf(CanonicalAddress.class)
+                        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        eventProbe =
+                new EventProbe() {
+                    @Override
+                    public EventProbe counterMetric(String key) {
+                        return this;
+                    }
+                };
+        addressBody =
+                addressCount == 1
+                        ? "[" + CURRENT_ADDRESS + "]"
+                        : "[" + CURRENT_ADDRESS + "," + PREVIOUS_ADDRESS + "]";
+    }
+
+    @Benchmark
+    public ProcessedAddresses processAddresses() throws AddressProcessingException {
+        return addressService.processAddresses(addressBody);
+    }
+
+    @Benchmark
+    public AddressItem singlePassPipeline() throws AddressProcessingException {
+        ProcessedAddresses addresses = addressService.processAddresses(addressBody);
+        return addressService.saveAddresses(SESSION_ID, addresses, TTL, eventProbe);
+    }
+
+    // The handler before the single pass: parse, check country codes, link, normalize while
+    // saving and classify for the metrics, each walking the addresses again
+    @Benchmark
+    public AddressItem baselineMultiPassPipeline() throws Exception {
+        List<CanonicalAddress> addresses = addressReader.readValue(addressBody);
+        if (isCountryCodeAbsentForAny(addresses)) {
+            throw new AddressProcessingException("Country code not present for address");
+        }
+
+        if (addresses.size() == 2) {
+            linkBaselineAddresses(addresses.get(0), addresses.get(1));
+        } else if (addresses.size() == 1 && addressService.isNotCurrentAddress(addresses.get(0))) {
+            throw new AddressProcessingException("Single address is not a CURRENT address");
+        }
+
+        AddressItem addressItem = new AddressItem();
+        addressItem.setSessionId(SESSION_ID);
+        addressItem.setExpiryDate(TTL);
+        addressItem.setAddresses(
+                addresses.stream()
+                        .filter(Objects::nonNull)
+                        .map(AddressParsingBenchmark::normalizeBaselinePostcode)
+                        .toList());
+        dataStore.create(addressItem);
+
+        for (CanonicalAddress address : addresses) {
+            eventProbe.counterMetric(
+                    address.getUprn() != null
+                            ? "pre-populated-address-entry"
+                            : "manual-address-entry");
+        }
+        return addressItem;
+    }
+
+    private void linkBaselineAddresses(CanonicalAddress address0, CanonicalAddress address1)
+            throws AddressProcessingException {
+        if (addressService.isInvalidAddress(address0)
+                || addressService.isInvalidAddress(address1)) {
+            throw new AddressProcessingException("Address validFrom and validUntil are equal");
+        }
+
+        CanonicalAddress currentAddress;
+        CanonicalAddress previousAddress;
+        if (addressService.isCurrentAddress(address0)
+                && addressService.isNotCurrentAddress(address1)) {
+            currentAddress = address0;
+            previousAddress = address1;
+        } else if (addressService.isCurrentAddress(address1)
+                && addressService.isNotCurrentAddress(address0)) {
+            currentAddress = address1;
+            previousAddress = address0;
+        } else if (addressService.isCurrentAddress(address0)
+                && addressService.isCurrentAddress(address1)) {
+            return;
+        } else {
+            throw new AddressProcessingException("Could not determine the CURRENT address");
+        }
+        previousAddress.setValidUntil(currentAddress.getValidFrom());
+    }
+
+    private static CanonicalAddress normalizeBaselinePostcode(CanonicalAddress address) {
+        if (isGreatBritain(address.getAddressCountry())) {
+            address.setPostalCode(address.getPostalCode().replace(" ", "").toUpperCase());
+        }
+        return address;
+    }
+
+    // Drops every write, so DynamoDB is never reached and no client is needed
+    private static final class DiscardingDataStore extends DataStore<AddressItem> {
+        DiscardingDataStore() {
+            super("address-benchmark", AddressItem.class, null);
+        }
+
+        @Override
+        public void create(AddressItem item) {
+            // Not stored
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.di.ipv.cri.address.benchmarks;
+
+/** Builds Ordnance Survey postcode responses shaped like the real API, with every DPA field. */
+final class OrdnanceSurveyPayloads {
+    private static final String DPA_TEMPLATE =
+            """
+            {"DPA":{"UPRN":"%1$d","UDPRN":"%2$d",\
+            "ADDRESS":"%3$d, TEST STREET, TESTTOWN, ZZ1 1ZZ",\
+            "BUILDING_NUMBER":"%3$d","THOROUGHFARE_NAME":"TEST STREET","POST_TOWN":"TESTTOWN",\
+            "POSTCODE":"ZZ1 1ZZ","RPC":"1","X_COORDINATE":123456.78,"Y_COORDINATE":234567.89,\
+            "STATUS":"APPROVED","LOGICAL_STATUS_CODE":"1","CLASSIFICATION_CODE":"RD03",\
+            "CLASSIFICATION_CODE_DESCRIPTION":"Semi-Detached","LOCAL_CUSTODIAN_CODE":1234,\
+            "LOCAL_CUSTODIAN_CODE_DESCRIPTION":"TESTTOWN","COUNTRY_CODE":"E",\
+            "COUNTRY_CODE_DESCRIPTION":"This record is within England",\
+            "POSTAL_ADDRESS_CODE":"D",\
+            "POSTAL_ADDRESS_CODE_DESCRIPTION":"A record which is linked to PAF",\
+            "BLPU_STATE_CODE":"2","BLPU_STATE_CODE_DESCRIPTION":"In use",\
+            "TOPOGRAPHY_LAYER_TOID":"osgb100000%1$d","LAST_UPDATE_DATE":"10/02/2016",\
+            "ENTRY_DATE":"12/01/2000","BLPU_STATE_DATE":"15/06/2009","LANGUAGE":"EN",\
+            "MATCH":1.0,"MATCH_DESCRIPTION":"EXACT","DELIVERY_POINT_SUFFIX":"1A"}}""";
+
+    private OrdnanceSurveyPayloads() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static String create(int resultCount) {
+        StringBuilder payload =
+                new StringBuilder(
+                        """
+                        {"header":{"uri":"https://api.os.uk/search/places/v1/postcode",\
+                        "query":"postcode=ZZ11ZZ","offset":0,"totalresults":%d,"format":"JSON",\
+                        "dataset":"DPA","lr":"EN,CY","maxresults":%d,"epoch":"90",\
+                        "output_srs":"EPSG:27700"},"results":["""
+                                .formatted(resultCount, Math.max(resultCount, 100)));
+
+        for (int i = 0; i < resultCount; i++) {
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append(DPA_TEMPLATE.formatted(10000000L + i, 20000000L + i, i + 1));
+        }
+        return payload.append("]}").toString();
+    }
+}
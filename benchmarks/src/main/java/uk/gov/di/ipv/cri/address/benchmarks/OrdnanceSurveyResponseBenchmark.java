@@ -0,0 +1,71 @@
+package uk.gov.di.ipv.cri.address.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.address.api.models.Dpa;
+import uk.gov.di.ipv.cri.address.api.models.OrdnanceSurveyPostcodeResponse;
+import uk.gov.di.ipv.cri.address.api.models.Result;
+import uk.gov.di.ipv.cri.address.api.service.OrdnanceSurveyResponseParser;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a successful Ordnance Survey response, as done by {@code
+ * PostcodeLookupService.processOrdnanceSurveySuccessResponse}. {@code streamingParser} is the path
+ * the service uses, {@code dpaBinding} binds the full response model as the service used to and is
+ * kept as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrdnanceSurveyResponseBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int resultCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private OrdnanceSurveyResponseParser parser;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        parser = new OrdnanceSurveyResponseParser(objectMapper.getFactory());
+        payload = OrdnanceSurveyPayloads.create(resultCount).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<CanonicalAddress> streamingParser() throws IOException {
+        return parser.parseAddresses(new ByteArrayInputStream(payload)).orElseThrow();
+    }
+
+    @Benchmark
+    public List<CanonicalAddress> dpaBinding() throws IOException {
+        return objectMapper
+                .readValue(new ByteArrayInputStream(payload), OrdnanceSurveyPostcodeResponse.class)
+                .getResults()
+                .stream()
+                .map(Result::getDpa)
+                .filter(Objects::nonNull)
+                .map(Dpa::toCanonicalAddress)
+                .toList();
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.di.ipv.cri.address.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.address.api.pii.PiiPostcodeMasker;
+
+import java.util.concurrent.TimeUnit;
+
+/** Masking of postcodes in Ordnance Survey error messages before they are logged. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PiiPostcodeMaskerBenchmark {
+
+    @Param({
+        "Requested postcode must contain a minimum of the sector plus 1 digit of the district e.g. SO1. Requested postcode was 5WF12LZ",
+        "{\"error\":{\"statuscode\":500,\"message\":\"Internal server error\"}}",
+        "SW1A 1AA"
+    })
+    private String message;
+
+    @Benchmark
+    public String sanitize() {
+        return PiiPostcodeMasker.sanitize(message);
+    }
+}
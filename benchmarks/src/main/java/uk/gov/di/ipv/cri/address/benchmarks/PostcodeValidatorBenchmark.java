@@ -0,0 +1,44 @@
+package uk.gov.di.ipv.cri.address.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.ipv.cri.address.api.validation.PostcodeValidator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Checking the shape of the request postcode with the state machine validator compared with
+ * matching the postcode expression {@code PiiPostcodeMasker} uses to find postcodes in messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PostcodeValidatorBenchmark {
+    private static final Pattern POSTCODE_PATTERN =
+            Pattern.compile("[0-9A-Z]{1,4}\\d[A-Z\\d]?\\s?\\d[A-Z]{2}", Pattern.CASE_INSENSITIVE);
+
+    @Param({"SW1A 1AA", "ls11ba", "GIR 0AA", "5WF12LZ", "not a postcode"})
+    private String postcode;
+
+    @Benchmark
+    public boolean stateMachine() {
+        return PostcodeValidator.isValid(postcode);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return POSTCODE_PATTERN.matcher(postcode).matches();
+    }
+}
@@ -0,0 +1,164 @@
+package uk.gov.di.ipv.cri.address.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.lambda.powertools.parameters.secrets.SecretsProvider;
+import software.amazon.lambda.powertools.parameters.ssm.SSMProvider;
+import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialService;
+import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialTemplate;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.common.library.util.SignedJWTFactory;
+import uk.gov.di.ipv.cri.common.library.util.VerifiableCredentialClaimsSetBuilder;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.di.ipv.cri.address.api.objectmapper.CustomObjectMapper.getMapperWithCustomSerializers;
+
+/**
+ * Issuing an address VC: building the claims set, serializing it with the custom serializers and
+ * signing it. A local ES256 signer stands in for KMS so only the in-process work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VerifiableCredentialBenchmark {
+    private static final String SUBJECT = "urn:fdc:gov.uk:2022:benchmark-subject";
+
+    @Param({"1", "3"})
+    private int addressCount;
+
+    private VerifiableCredentialService verifiableCredentialService;
+    private VerifiableCredentialTemplate template;
+    private ObjectMapper objectMapper;
+    private List<CanonicalAddress> addresses;
+    private JWTClaimsSet claimsSet;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ECPrivateKey privateKey = (ECPrivateKey) keyPairGenerator.generateKeyPair().getPrivate();
+
+        ConfigurationService configurationService = new BenchmarkConfiguration();
+
+        objectMapper = getMapperWithCustomSerializers();
+        template = new VerifiableCredentialTemplate(objectMapper, ChronoUnit.MINUTES);
+        verifiableCredentialService =
+                new VerifiableCredentialService(
+                        new SignedJWTFactory(new ECDSASigner(privateKey)),
+                        configurationService,
+                        objectMapper,
+                        new VerifiableCredentialClaimsSetBuilder(
+                                configurationService, Clock.systemUTC()));
+
+        addresses = new ArrayList<>();
+        for (int i = 0; i < addressCount; i++) {
+            addresses.add(createAddress(i));
+        }
+        claimsSet =
+                new JWTClaimsSet.Builder()
+                        .issuer("https://review-a.account.gov.uk")
+                        .subject(SUBJECT)
+                        .notBeforeTime(new Date())
+                        .expirationTime(new Date(System.currentTimeMillis() + 600_000))
+                        .jwtID("urn:uuid:4d0e0d1e-8d6c-4b5e-9b7b-0f6a3c1d2e3f")
+                        .claim(
+                                "vc",
+                                Map.of(
+                                        "type",
+                                        new String[] {"VerifiableCredential", "AddressCredential"},
+                                        "@context",
+                                        new String[] {
+                                            "https://www.w3.org/2018/credentials/v1",
+                                            "https://vocab.account.gov.uk/contexts/identity-v1.jsonld"
+                                        },
+                                        "credentialSubject",
+                                        Map.of(
+                                                "address",
+                                                addresses.stream()
+                                                        .map(
+                                                                address ->
+                                                                        objectMapper.convertValue(
+                                                                                address, Map.class))
+                                                        .toList())))
+                        .build();
+    }
+
+    @Benchmark
+    public SignedJWT generateSignedVerifiableCredentialJwt() throws Exception {
+        return verifiableCredentialService.generateSignedVerifiableCredentialJwt(
+                SUBJECT, addresses);
+    }
+
+    @Benchmark
+    public String serializeClaimsSet() throws Exception {
+        return objectMapper.writeValueAsString(claimsSet);
+    }
+
+    @Benchmark
+    public Object[] convertAddressesToClaims() {
+        return template.toAddressClaims(addresses);
+    }
+
+    private static CanonicalAddress createAddress(int index) {
+        CanonicalAddress address = new CanonicalAddress();
+        address.setUprn(100120012077L + index);
+        address.setBuildingNumber(String.valueOf(8 + index));
+        address.setBuildingName("");
+        address.setStreetName("HADLEY ROAD");
+        address.setAddressLocality("BATH");
+        address.setPostalCode("BA2 5AA");
+        address.setAddressCountry("GB");
+        address.setValidFrom(LocalDate.of(2000, 1, 1).plusYears(index));
+        return address;
+    }
+
+    // Answers the three values the credential service reads; SSM and Secrets Manager are unused
+    private static final class BenchmarkConfiguration extends ConfigurationService {
+        BenchmarkConfiguration() {
+            super((SSMProvider) null, (SecretsProvider) null);
+        }
+
+        @Override
+        public String getVerifiableCredentialIssuer() {
+            return "https://review-a.account.gov.uk";
+        }
+
+        @Override
+        public long getMaxJwtTtl() {
+            return 10L;
+        }
+
+        @Override
+        public String getVerifiableCredentialKmsSigningKeyId() {
+            return "benchmark-signing-key";
+        }
+    }
+}
@@ -10,12 +10,16 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import org.apache.logging.log4j.Level;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.lambda.powertools.logging.CorrelationIdPaths;
 import software.amazon.lambda.powertools.logging.Logging;
 import software.amazon.lambda.powertools.metrics.FlushMetrics;
 import uk.gov.di.ipv.cri.address.library.exception.AddressProcessingException;
+import uk.gov.di.ipv.cri.address.library.persistence.item.AddressItem;
 import uk.gov.di.ipv.cri.address.library.service.AddressService;
+import uk.gov.di.ipv.cri.address.library.service.ProcessedAddresses;
+import uk.gov.di.ipv.cri.address.library.util.SnapStartHooks;
 import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
 import uk.gov.di.ipv.cri.common.library.exception.SessionExpiredException;
 import uk.gov.di.ipv.cri.common.library.exception.SessionNotFoundException;
@@ -29,7 +33,6 @@ import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 import uk.gov.di.ipv.cri.common.library.util.TempCleaner;
 import uk.gov.di.ipv.cri.common.library.util.deserializers.PiiRedactingDeserializer;
 
-import java.util.List;
 import java.util.UUID;
 
 import static uk.gov.di.ipv.cri.common.library.error.ErrorResponse.SESSION_EXPIRED;
@@ -40,11 +43,17 @@ public class AddressHandler
 
     protected static final String SESSION_ID = "session_id";
     protected static final String LAMBDA_NAME = "address";
+    private static final String PRIMING_ADDRESSES =
+            """
+            [{"uprn":"100120012077","buildingNumber":"8","streetName":"HADLEY ROAD",\
+            "addressLocality":"BATH","postalCode":"BA2 5AA","addressCountry":"GB",\
+            "validFrom":"2000-01-01"}]""";
 
     private final AddressService addressService;
     private final SessionService sessionService;
     private final ConfigurationService configurationService;
     private final EventProbe eventProbe;
+    private final SnapStartHooks snapStartHooks;
 
     @ExcludeFromGeneratedCoverageReport
     public AddressHandler() {
@@ -74,6 +83,11 @@ public class AddressHandler
         this.addressService =
                 new AddressService(objectMapper, clientProviderFactory.getDynamoDbEnhancedClient());
         this.eventProbe = new EventProbe();
+        this.snapStartHooks =
+                SnapStartHooks.register(
+                        this::primeRequestHandling,
+                        addressService::warmUpDataStoreConnection,
+                        eventProbe);
     }
 
     public AddressHandler(
@@ -85,6 +99,7 @@ public class AddressHandler
         this.addressService = addressService;
         this.eventProbe = eventProbe;
         this.configurationService = configurationService;
+        this.snapStartHooks = SnapStartHooks.disabled();
     }
 
     @Override
@@ -92,24 +107,31 @@ public class AddressHandler
     @FlushMetrics(namespace = "di-ipv-cri-address-api", captureColdStart = true)
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        long startTime = System.nanoTime();
+        try {
+            return saveAddresses(input);
+        } finally {
+            snapStartHooks.recordInvocation(startTime);
+        }
+    }
 
+    private APIGatewayProxyResponseEvent saveAddresses(APIGatewayProxyRequestEvent input) {
         String sessionId = input.getHeaders().get(SESSION_ID);
         try {
-            List<CanonicalAddress> addresses = addressService.parseAddresses(input.getBody());
+            // Validates, normalizes and classifies the addresses in one pass over the body
+            ProcessedAddresses addresses = addressService.processAddresses(input.getBody());
 
             // If we have at least one address, we can return a 201 with the authorization code
             if (!addresses.isEmpty()) {
                 SessionItem session = sessionService.validateSessionId(sessionId);
                 eventProbe.log(Level.INFO, "found session");
 
-                // Links validUntil in a PREVIOUS address to validFrom in a CURRENT
-                addressService.setAddressValidity(addresses);
                 long addressTtl = configurationService.getSessionExpirationEpoch();
 
-                // Save our addresses to the address table
-                addressService.saveAddresses(UUID.fromString(sessionId), addresses, addressTtl);
-
-                addressService.storeAddressEntryTypeMetric(eventProbe, addresses);
+                // Links validUntil in a PREVIOUS address to validFrom in a CURRENT, saves our
+                // addresses to the address table and records their entry types
+                addressService.saveAddresses(
+                        UUID.fromString(sessionId), addresses, addressTtl, eventProbe);
 
                 // Now we've saved our address, we need to create an authorization code for the
                 // session
@@ -142,4 +164,20 @@ public class AddressHandler
                     HttpStatusCode.INTERNAL_SERVER_ERROR, e.getMessage());
         }
     }
+
+    // Runs before the SnapStart snapshot so request parsing, the address item schema and the
+    // session TTL parameter are already loaded when the first request arrives
+    @ExcludeFromGeneratedCoverageReport
+    private void primeRequestHandling() throws AddressProcessingException {
+        ProcessedAddresses addresses = addressService.processAddresses(PRIMING_ADDRESSES);
+        addressService.linkAddressValidity(addresses);
+
+        AddressItem addressItem = new AddressItem();
+        addressItem.setSessionId(UUID.randomUUID());
+        addressItem.setAddresses(addresses.getAddresses());
+        addressItem.setExpiryDate(configurationService.getSessionExpirationEpoch());
+        TableSchema.fromBean(AddressItem.class).itemToMap(addressItem, true);
+
+        ApiGatewayResponseGenerator.proxyJsonResponse(HttpStatusCode.NO_CONTENT, "");
+    }
 }
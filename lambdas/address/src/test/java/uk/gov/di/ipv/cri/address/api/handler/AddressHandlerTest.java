@@ -11,19 +11,15 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.http.HttpStatusCode;
 import uk.gov.di.ipv.cri.address.library.exception.AddressProcessingException;
-import uk.gov.di.ipv.cri.address.library.persistence.item.AddressItem;
 import uk.gov.di.ipv.cri.address.library.service.AddressService;
+import uk.gov.di.ipv.cri.address.library.service.ProcessedAddresses;
 import uk.gov.di.ipv.cri.common.library.exception.SessionExpiredException;
 import uk.gov.di.ipv.cri.common.library.exception.SessionNotFoundException;
-import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.persistence.item.SessionItem;
 import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.common.library.service.SessionService;
 import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -44,6 +40,8 @@ class AddressHandlerTest {
     @Mock private AddressService mockAddressService;
     @Mock private ConfigurationService mockConfigurationService;
 
+    @Mock private ProcessedAddresses mockProcessedAddresses;
+
     @Mock private APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent;
 
     @Mock private EventProbe eventProbe;
@@ -70,12 +68,8 @@ class AddressHandlerTest {
         when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(Map.of("session_id", SESSION_ID));
         when(apiGatewayProxyRequestEvent.getBody()).thenReturn("some json");
 
-        List<CanonicalAddress> canonicalAddresses = new ArrayList<>();
-        CanonicalAddress canonicalAddress = new CanonicalAddress();
-        canonicalAddress.setUprn(Long.valueOf("12345"));
-        canonicalAddresses.add(canonicalAddress);
-
-        when(mockAddressService.parseAddresses(anyString())).thenReturn(canonicalAddresses);
+        when(mockProcessedAddresses.isEmpty()).thenReturn(false);
+        when(mockAddressService.processAddresses(anyString())).thenReturn(mockProcessedAddresses);
         when(mockSessionService.validateSessionId(SESSION_ID)).thenThrow(exception);
 
         APIGatewayProxyResponseEvent responseEvent =
@@ -95,26 +89,22 @@ class AddressHandlerTest {
         when(apiGatewayProxyRequestEvent.getBody()).thenReturn("some json");
         SessionItem sessionItem = new SessionItem();
 
-        List<CanonicalAddress> canonicalAddresses = new ArrayList<>();
-        CanonicalAddress canonicalAddress = new CanonicalAddress();
-        canonicalAddress.setValidFrom(LocalDate.of(2013, 8, 9));
-        canonicalAddress.setUprn(Long.valueOf("12345"));
-        canonicalAddresses.add(canonicalAddress);
-
-        AddressItem addressItem = new AddressItem();
-        addressItem.setAddresses(canonicalAddresses);
-        addressItem.setExpiryDate(ADDRESS_TTL);
-
         when(mockSessionService.validateSessionId(SESSION_ID)).thenReturn(sessionItem);
-        when(mockAddressService.parseAddresses(anyString())).thenReturn(canonicalAddresses);
+        when(mockConfigurationService.getSessionExpirationEpoch()).thenReturn(ADDRESS_TTL);
+        when(mockProcessedAddresses.isEmpty()).thenReturn(false);
+        when(mockAddressService.processAddresses(anyString())).thenReturn(mockProcessedAddresses);
 
         APIGatewayProxyResponseEvent responseEvent =
                 addressHandler.handleRequest(apiGatewayProxyRequestEvent, null);
         assertEquals(HttpStatusCode.NO_CONTENT, responseEvent.getStatusCode());
 
         verify(mockSessionService).createAuthorizationCode(sessionItem);
-        verify(mockAddressService).setAddressValidity(canonicalAddresses);
-        verify(mockAddressService).storeAddressEntryTypeMetric(eventProbe, canonicalAddresses);
+        verify(mockAddressService)
+                .saveAddresses(
+                        UUID.fromString(SESSION_ID),
+                        mockProcessedAddresses,
+                        ADDRESS_TTL,
+                        eventProbe);
         verify(eventProbe).log(Level.INFO, "found session");
         verify(eventProbe).counterMetric("address");
         verifyNoMoreInteractions(eventProbe);
@@ -126,9 +116,8 @@ class AddressHandlerTest {
         when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(Map.of("session_id", SESSION_ID));
         when(apiGatewayProxyRequestEvent.getBody()).thenReturn("some json");
 
-        List<CanonicalAddress> canonicalAddresses = new ArrayList<>();
-
-        when(mockAddressService.parseAddresses(anyString())).thenReturn(canonicalAddresses);
+        when(mockProcessedAddresses.isEmpty()).thenReturn(true);
+        when(mockAddressService.processAddresses(anyString())).thenReturn(mockProcessedAddresses);
 
         APIGatewayProxyResponseEvent responseEvent =
                 addressHandler.handleRequest(apiGatewayProxyRequestEvent, null);
@@ -146,7 +135,8 @@ class AddressHandlerTest {
 
         when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(Map.of("session_id", SESSION_ID));
         when(apiGatewayProxyRequestEvent.getBody()).thenReturn("some json");
-        when(mockAddressService.parseAddresses(anyString())).thenThrow(addressProcessingException);
+        when(mockAddressService.processAddresses(anyString()))
+                .thenThrow(addressProcessingException);
 
         APIGatewayProxyResponseEvent responseEvent =
                 addressHandler.handleRequest(apiGatewayProxyRequestEvent, null);
@@ -8,6 +8,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.OAuth2Error;
 import com.nimbusds.oauth2.sdk.ParseException;
@@ -15,15 +18,23 @@ import com.nimbusds.oauth2.sdk.token.AccessToken;
 import com.nimbusds.oauth2.sdk.token.AccessTokenType;
 import org.apache.logging.log4j.Level;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.http.HttpStatusCode;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.GetPublicKeyRequest;
 import software.amazon.lambda.powertools.logging.CorrelationIdPaths;
 import software.amazon.lambda.powertools.logging.Logging;
 import software.amazon.lambda.powertools.metrics.FlushMetrics;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
 import uk.gov.di.ipv.cri.address.api.exception.CredentialRequestException;
 import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialService;
+import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier;
 import uk.gov.di.ipv.cri.address.library.exception.AddressNotFoundException;
 import uk.gov.di.ipv.cri.address.library.persistence.item.AddressItem;
 import uk.gov.di.ipv.cri.address.library.service.AddressService;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventBatch;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventDispatcher;
+import uk.gov.di.ipv.cri.address.library.util.SnapStartHooks;
 import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventType;
@@ -33,6 +44,7 @@ import uk.gov.di.ipv.cri.common.library.exception.AccessTokenExpiredException;
 import uk.gov.di.ipv.cri.common.library.exception.SessionExpiredException;
 import uk.gov.di.ipv.cri.common.library.exception.SessionNotFoundException;
 import uk.gov.di.ipv.cri.common.library.exception.SqsException;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.persistence.item.SessionItem;
 import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
 import uk.gov.di.ipv.cri.common.library.service.AuditService;
@@ -49,6 +61,8 @@ import uk.gov.di.ipv.cri.common.library.util.VerifiableCredentialClaimsSetBuilde
 
 import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -68,11 +82,14 @@ public class IssueCredentialHandler
             "The algorithm name provided is incorrect or misspelled, should be ES256.";
     public static final String ADDRESS_NOT_FOUND_TEMPLATE = " - %d: %s";
     public static final int ADDR_NOT_FOUND_ERR_CODE = 2008;
+    public static final String VC_SERIALIZE_DURATION_METRIC = "vc_serialize_duration";
     private final VerifiableCredentialService verifiableCredentialService;
     private final AddressService addressService;
     private final SessionService sessionService;
     private final EventProbe eventProbe;
     private final AuditService auditService;
+    private final AuditEventDispatcher auditEventDispatcher;
+    private final SnapStartHooks snapStartHooks;
 
     public IssueCredentialHandler(
             VerifiableCredentialService verifiableCredentialService,
@@ -80,17 +97,36 @@ public class IssueCredentialHandler
             SessionService sessionService,
             EventProbe eventProbe,
             AuditService auditService) {
+        this(
+                verifiableCredentialService,
+                addressService,
+                sessionService,
+                eventProbe,
+                auditService,
+                AuditEventDispatcher.disabled());
+    }
+
+    public IssueCredentialHandler(
+            VerifiableCredentialService verifiableCredentialService,
+            AddressService addressService,
+            SessionService sessionService,
+            EventProbe eventProbe,
+            AuditService auditService,
+            AuditEventDispatcher auditEventDispatcher) {
         this.verifiableCredentialService = verifiableCredentialService;
         this.addressService = addressService;
         this.sessionService = sessionService;
         this.eventProbe = eventProbe;
         this.auditService = auditService;
+        this.auditEventDispatcher = auditEventDispatcher;
+        this.snapStartHooks = SnapStartHooks.disabled();
     }
 
     @ExcludeFromGeneratedCoverageReport
     public IssueCredentialHandler() {
         TempCleaner.clean();
 
+        Map<String, String> environment = System.getenv();
         ClientProviderFactory clientProviderFactory = new ClientProviderFactory();
 
         ConfigurationService config =
@@ -104,29 +140,51 @@ public class IssueCredentialHandler
                         .registerModule(new JavaTimeModule());
 
         String kmsSigningKeyId = config.getVerifiableCredentialKmsSigningKeyId();
+        this.eventProbe = new EventProbe();
 
-        SignedJWTFactory signedJWTFactory =
-                new SignedJWTFactory(
-                        new KMSSigner(kmsSigningKeyId, clientProviderFactory.getKMSClient()));
+        KmsClient kmsClient = clientProviderFactory.getKMSClient();
+        KMSSigner kmsSigner = new KMSSigner(kmsSigningKeyId, kmsClient);
+        SignedJWTFactory signedJWTFactory = new SignedJWTFactory(kmsSigner);
 
         this.verifiableCredentialService =
                 new VerifiableCredentialService(
                         signedJWTFactory,
                         config,
                         getMapperWithCustomSerializers(),
-                        new VerifiableCredentialClaimsSetBuilder(config, Clock.systemUTC()));
+                        new VerifiableCredentialClaimsSetBuilder(config, Clock.systemUTC()),
+                        VerifiableCredentialSignatureVerifier.fromEnvironment(
+                                environment, kmsClient, kmsSigningKeyId, eventProbe),
+                        eventProbe);
 
         this.addressService =
                 new AddressService(objectMapper, clientProviderFactory.getDynamoDbEnhancedClient());
         this.sessionService =
                 new SessionService(config, clientProviderFactory.getDynamoDbEnhancedClient());
-        this.eventProbe = new EventProbe();
+        AuditEventFactory auditEventFactory = new AuditEventFactory(config, Clock.systemUTC());
         this.auditService =
                 new AuditService(
                         clientProviderFactory.getSqsClient(),
                         config,
                         objectMapper,
-                        new AuditEventFactory(config, Clock.systemUTC()));
+                        auditEventFactory);
+        this.auditEventDispatcher =
+                AuditEventDispatcher.fromEnvironment(
+                        environment,
+                        clientProviderFactory.getSqsClient(),
+                        objectMapper,
+                        auditEventFactory,
+                        eventProbe);
+        this.snapStartHooks =
+                SnapStartHooks.register(
+                        () -> primeCredentialIssuance(config),
+                        () -> {
+                            addressService.warmUpDataStoreConnection();
+                            // Reconnects to KMS without signing, so no signature exists over
+                            // anything but an issued credential
+                            kmsClient.getPublicKey(
+                                    GetPublicKeyRequest.builder().keyId(kmsSigningKeyId).build());
+                        },
+                        eventProbe);
     }
 
     @Override
@@ -134,7 +192,15 @@ public class IssueCredentialHandler
     @FlushMetrics(namespace = "di-ipv-cri-address-api", captureColdStart = true)
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        long startTime = System.nanoTime();
+        try {
+            return issueCredential(input);
+        } finally {
+            snapStartHooks.recordInvocation(startTime);
+        }
+    }
 
+    private APIGatewayProxyResponseEvent issueCredential(APIGatewayProxyRequestEvent input) {
         try {
             var accessToken = validateInputHeaderBearerToken(input.getHeaders());
             var sessionItem = this.sessionService.getSessionByAccessToken(accessToken);
@@ -147,12 +213,17 @@ public class IssueCredentialHandler
                     verifiableCredentialService.generateSignedVerifiableCredentialJwt(
                             sessionItem.getSubject(), addressItem.getAddresses());
 
+            if (auditEventDispatcher.isEnabled()) {
+                return issueCredentialWithBatchedAudit(
+                        input.getHeaders(), addressItem, sessionItem, signedJWT);
+            }
+
             sendVcIssuedAuditEvent(input.getHeaders(), addressItem, sessionItem);
             eventProbe.counterMetric(ADDRESS_CREDENTIAL_ISSUER);
             sendEndAuditEvent(input.getHeaders(), sessionItem);
 
             return ApiGatewayResponseGenerator.proxyJwtResponse(
-                    HttpStatusCode.OK, signedJWT.serialize());
+                    HttpStatusCode.OK, serializeCredential(signedJWT));
         } catch (AwsServiceException ex) {
             eventProbe.log(ERROR, ex).counterMetric(ADDRESS_CREDENTIAL_ISSUER, 0d);
 
@@ -219,6 +290,37 @@ public class IssueCredentialHandler
         }
     }
 
+    // Both events go out in one SendMessageBatch, overlapping JWT serialization in async mode
+    private APIGatewayProxyResponseEvent issueCredentialWithBatchedAudit(
+            Map<String, String> headers,
+            AddressItem addressItem,
+            SessionItem sessionItem,
+            SignedJWT signedJWT)
+            throws SqsException {
+        AuditEventBatch auditEvents = auditEventDispatcher.newBatch();
+        auditEvents.add(
+                AuditEventType.VC_ISSUED,
+                createVcIssuedAuditEventContext(headers, addressItem, sessionItem),
+                verifiableCredentialService.getAuditEventExtensions(addressItem.getAddresses()));
+        eventProbe.counterMetric(ADDRESS_CREDENTIAL_ISSUER);
+        auditEvents.add(AuditEventType.END, new AuditEventContext(headers, sessionItem));
+
+        return auditEvents.dispatch(
+                () ->
+                        ApiGatewayResponseGenerator.proxyJwtResponse(
+                                HttpStatusCode.OK, serializeCredential(signedJWT)));
+    }
+
+    private String serializeCredential(SignedJWT signedJWT) {
+        long startTime = System.nanoTime();
+        String credential = signedJWT.serialize();
+        eventProbe.counterMetric(
+                VC_SERIALIZE_DURATION_METRIC,
+                (System.nanoTime() - startTime) / 1_000_000d,
+                MetricUnit.MILLISECONDS);
+        return credential;
+    }
+
     private void sendEndAuditEvent(Map<String, String> headers, SessionItem sessionItem)
             throws SqsException {
         auditService.sendAuditEvent(
@@ -228,23 +330,57 @@ public class IssueCredentialHandler
     private void sendVcIssuedAuditEvent(
             Map<String, String> headers, AddressItem addressItem, SessionItem sessionItem)
             throws SqsException {
-        AuditEventContext auditEventContext =
-                new AuditEventContext(
-                        PersonIdentityDetailedBuilder.builder()
-                                .withAddresses(
-                                        addressItem.getAddresses().stream()
-                                                .map(Address::new)
-                                                .toList())
-                                .build(),
-                        headers,
-                        sessionItem);
-
         auditService.sendAuditEvent(
                 AuditEventType.VC_ISSUED,
-                auditEventContext,
+                createVcIssuedAuditEventContext(headers, addressItem, sessionItem),
                 verifiableCredentialService.getAuditEventExtensions(addressItem.getAddresses()));
     }
 
+    // Runs before the SnapStart snapshot. Issues a VC for a synthetic address, signed with a
+    // throwaway key rather than KMS, so claims building, address conversion, Nimbus signing and
+    // the address item schema are already loaded when the first request arrives
+    @ExcludeFromGeneratedCoverageReport
+    private static void primeCredentialIssuance(ConfigurationService config) throws Exception {
+        CanonicalAddress address = new CanonicalAddress();
+        address.setUprn(100120012077L);
+        address.setBuildingNumber("8");
+        address.setStreetName("HADLEY ROAD");
+        address.setAddressLocality("BATH");
+        address.setPostalCode("BA2 5AA");
+        address.setAddressCountry("GB");
+        address.setValidFrom(LocalDate.of(2000, 1, 1));
+
+        AddressItem addressItem = new AddressItem();
+        addressItem.setAddresses(List.of(address));
+        TableSchema<AddressItem> addressItemSchema = TableSchema.fromBean(AddressItem.class);
+        addressItemSchema.mapToItem(addressItemSchema.itemToMap(addressItem, true));
+
+        VerifiableCredentialService primingService =
+                new VerifiableCredentialService(
+                        new SignedJWTFactory(
+                                new ECDSASigner(new ECKeyGenerator(Curve.P_256).generate())),
+                        config,
+                        getMapperWithCustomSerializers(),
+                        new VerifiableCredentialClaimsSetBuilder(config, Clock.systemUTC()));
+        SignedJWT signedJWT =
+                primingService.generateSignedVerifiableCredentialJwt(
+                        "urn:fdc:gov.uk:2022:snapstart-priming", addressItem.getAddresses());
+        getMapperWithCustomSerializers().writeValueAsString(signedJWT.getJWTClaimsSet());
+        signedJWT.serialize();
+        primingService.getAuditEventExtensions(addressItem.getAddresses());
+    }
+
+    private AuditEventContext createVcIssuedAuditEventContext(
+            Map<String, String> headers, AddressItem addressItem, SessionItem sessionItem) {
+        return new AuditEventContext(
+                PersonIdentityDetailedBuilder.builder()
+                        .withAddresses(
+                                addressItem.getAddresses().stream().map(Address::new).toList())
+                        .build(),
+                headers,
+                sessionItem);
+    }
+
     private AccessToken validateInputHeaderBearerToken(Map<String, String> headers)
             throws CredentialRequestException, ParseException {
         var token =
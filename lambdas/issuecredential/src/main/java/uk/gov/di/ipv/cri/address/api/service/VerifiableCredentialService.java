@@ -3,79 +3,141 @@ package uk.gov.di.ipv.cri.address.api.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jwt.SignedJWT;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.address.library.config.RefreshingSnapshot;
 import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 import uk.gov.di.ipv.cri.common.library.util.SignedJWTFactory;
 import uk.gov.di.ipv.cri.common.library.util.VerifiableCredentialClaimsSetBuilder;
 
 import java.security.NoSuchAlgorithmException;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.nimbusds.jwt.JWTClaimNames.ISSUER;
-import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.ADDRESS_CREDENTIAL_TYPE;
-import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.DI_CONTEXT;
 import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.VC_ADDRESS_KEY;
-import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.W3_BASE_CONTEXT;
 import static uk.gov.di.ipv.cri.address.library.util.CountryCode.isGbAndCrownDependency;
 
 public class VerifiableCredentialService {
-    private static final String JWT_TTL_UNIT = System.getenv("JWT_TTL_UNIT");
+    public static final String VC_CLAIMS_BUILD_DURATION_METRIC = "vc_claims_build_duration";
+    public static final String VC_KMS_SIGN_DURATION_METRIC = "vc_kms_sign_duration";
 
     private final VerifiableCredentialClaimsSetBuilder vcClaimsSetBuilder;
     private final SignedJWTFactory signedJwtFactory;
     private final ConfigurationService configurationService;
-    private final ObjectMapper objectMapper;
+    private final RefreshingSnapshot<VerifiableCredentialConfiguration> configuration;
+    private final VerifiableCredentialTemplate template;
+    private final VerifiableCredentialSignatureVerifier signatureVerifier;
+    private final EventProbe eventProbe;
 
     public VerifiableCredentialService(
             SignedJWTFactory signedClaimSetJwt,
             ConfigurationService configurationService,
             ObjectMapper objectMapper,
             VerifiableCredentialClaimsSetBuilder vcClaimsSetBuilder) {
+        this(
+                signedClaimSetJwt,
+                configurationService,
+                objectMapper,
+                vcClaimsSetBuilder,
+                VerifiableCredentialSignatureVerifier.disabled(),
+                null);
+    }
+
+    public VerifiableCredentialService(
+            SignedJWTFactory signedClaimSetJwt,
+            ConfigurationService configurationService,
+            ObjectMapper objectMapper,
+            VerifiableCredentialClaimsSetBuilder vcClaimsSetBuilder,
+            VerifiableCredentialSignatureVerifier signatureVerifier,
+            EventProbe eventProbe) {
+        this(
+                signedClaimSetJwt,
+                configurationService,
+                objectMapper,
+                vcClaimsSetBuilder,
+                signatureVerifier,
+                eventProbe,
+                loader -> RefreshingSnapshot.fromEnvironment(System.getenv(), loader, eventProbe));
+    }
+
+    VerifiableCredentialService(
+            SignedJWTFactory signedClaimSetJwt,
+            ConfigurationService configurationService,
+            ObjectMapper objectMapper,
+            VerifiableCredentialClaimsSetBuilder vcClaimsSetBuilder,
+            VerifiableCredentialSignatureVerifier signatureVerifier,
+            EventProbe eventProbe,
+            Function<
+                            Supplier<VerifiableCredentialConfiguration>,
+                            RefreshingSnapshot<VerifiableCredentialConfiguration>>
+                    configurationSnapshot) {
         this.signedJwtFactory = signedClaimSetJwt;
         this.configurationService = configurationService;
-        this.objectMapper = objectMapper;
+        this.configuration = configurationSnapshot.apply(this::loadConfiguration);
+        this.template = VerifiableCredentialTemplate.fromEnvironment(System.getenv(), objectMapper);
         this.vcClaimsSetBuilder = vcClaimsSetBuilder;
+        this.signatureVerifier = signatureVerifier;
+        this.eventProbe = eventProbe;
     }
 
     public SignedJWT generateSignedVerifiableCredentialJwt(
             String subject, List<CanonicalAddress> canonicalAddresses)
             throws NoSuchAlgorithmException, JOSEException {
-        ChronoUnit jwtTtlUnit = ChronoUnit.valueOf(JWT_TTL_UNIT);
+        long startTime = System.nanoTime();
+        VerifiableCredentialConfiguration currentConfiguration = configuration.get();
         var claimsSet =
                 this.vcClaimsSetBuilder
                         .subject(subject)
-                        .timeToLive(configurationService.getMaxJwtTtl(), jwtTtlUnit)
-                        .verifiableCredentialType(ADDRESS_CREDENTIAL_TYPE)
-                        .verifiableCredentialContext(new String[] {W3_BASE_CONTEXT, DI_CONTEXT})
+                        .timeToLive(currentConfiguration.maxJwtTtl(), template.getTtlUnit())
+                        .verifiableCredentialType(template.getCredentialType())
+                        .verifiableCredentialContext(template.getContext())
                         .verifiableCredentialSubject(
-                                Map.of(VC_ADDRESS_KEY, convertAddresses(canonicalAddresses)))
+                                Map.of(
+                                        VC_ADDRESS_KEY,
+                                        template.toAddressClaims(canonicalAddresses)))
                         .build();
+        long claimsBuiltTime = recordDuration(VC_CLAIMS_BUILD_DURATION_METRIC, startTime);
 
-        return signedJwtFactory.createSignedJwt(
-                claimsSet,
-                configurationService.getVerifiableCredentialIssuer(),
-                configurationService.getVerifiableCredentialKmsSigningKeyId());
+        SignedJWT signedJWT =
+                signedJwtFactory.createSignedJwt(
+                        claimsSet,
+                        currentConfiguration.issuer(),
+                        currentConfiguration.kmsSigningKeyId());
+        recordDuration(VC_KMS_SIGN_DURATION_METRIC, claimsBuiltTime);
+
+        signatureVerifier.verify(signedJWT);
+        return signedJWT;
     }
 
     public Map<String, Object> getAuditEventExtensions(List<CanonicalAddress> addresses) {
         return Map.of(
                 ISSUER,
-                Objects.requireNonNull(
-                        configurationService.getVerifiableCredentialIssuer(),
-                        "VC issuer must not be null"),
+                Objects.requireNonNull(configuration.get().issuer(), "VC issuer must not be null"),
                 "addressesEntered",
                 Objects.nonNull(addresses) ? addresses.size() : 0,
                 "isUkAddress",
                 isGbAndCrownDependency(getFirstAddressCountryCode(addresses)));
     }
 
-    private Object[] convertAddresses(List<CanonicalAddress> addresses) {
-        return addresses.stream()
-                .map(address -> objectMapper.convertValue(address, Map.class))
-                .toArray();
+    private VerifiableCredentialConfiguration loadConfiguration() {
+        return new VerifiableCredentialConfiguration(
+                configurationService.getVerifiableCredentialIssuer(),
+                configurationService.getMaxJwtTtl(),
+                configurationService.getVerifiableCredentialKmsSigningKeyId());
+    }
+
+    private long recordDuration(String metric, long startTime) {
+        long endTime = System.nanoTime();
+        if (eventProbe != null) {
+            eventProbe.counterMetric(
+                    metric, (endTime - startTime) / 1_000_000d, MetricUnit.MILLISECONDS);
+        }
+        return endTime;
     }
 
     private String getFirstAddressCountryCode(final List<CanonicalAddress> addresses) {
@@ -86,4 +148,7 @@ public class VerifiableCredentialService {
         }
         return addresses.get(0).getAddressCountry();
     }
+
+    record VerifiableCredentialConfiguration(
+            String issuer, long maxJwtTtl, String kmsSigningKeyId) {}
 }
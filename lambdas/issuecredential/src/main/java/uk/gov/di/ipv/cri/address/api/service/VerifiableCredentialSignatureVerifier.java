@@ -0,0 +1,171 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.GetPublicKeyRequest;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Checks a signed VC against the public half of the KMS signing key before it is returned, so a
+ * bad signature is caught here rather than by the relying party. The public key is fetched from
+ * KMS on first use and kept for the lifetime of the container.
+ *
+ * <p>In {@link Mode#SAMPLED} mode only a fraction of credentials are checked. If the public key
+ * cannot be fetched the check is skipped rather than failing the issuance.
+ */
+public class VerifiableCredentialSignatureVerifier {
+    public static final String VC_SIGNATURE_VERIFIED_METRIC = "vc_signature_verified";
+    public static final String VC_SIGNATURE_INVALID_METRIC = "vc_signature_invalid";
+    public static final String VC_SIGNATURE_VERIFICATION_SKIPPED_METRIC =
+            "vc_signature_verification_skipped";
+    public static final String VC_SIGNATURE_VERIFICATION_DURATION_METRIC =
+            "vc_signature_verification_duration";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public enum Mode {
+        OFF,
+        SAMPLED,
+        FULL
+    }
+
+    private final KmsClient kmsClient;
+    private final String signingKeyId;
+    private final Mode mode;
+    private final double sampleRate;
+    private final DoubleSupplier random;
+    private final EventProbe eventProbe;
+    private volatile JWSVerifier verifier;
+
+    public VerifiableCredentialSignatureVerifier(
+            KmsClient kmsClient,
+            String signingKeyId,
+            Mode mode,
+            double sampleRate,
+            DoubleSupplier random,
+            EventProbe eventProbe) {
+        this.kmsClient = kmsClient;
+        this.signingKeyId = signingKeyId;
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+        this.random = random;
+        this.eventProbe = eventProbe;
+    }
+
+    public static VerifiableCredentialSignatureVerifier disabled() {
+        return new VerifiableCredentialSignatureVerifier(null, null, Mode.OFF, 0d, null, null);
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static VerifiableCredentialSignatureVerifier fromEnvironment(
+            Map<String, String> environment,
+            KmsClient kmsClient,
+            String signingKeyId,
+            EventProbe eventProbe) {
+        Mode mode =
+                Mode.valueOf(
+                        Optional.ofNullable(environment.get("VC_SIGNATURE_VERIFICATION_MODE"))
+                                .orElse(Mode.OFF.name())
+                                .toUpperCase(Locale.ROOT));
+        double sampleRate =
+                Double.parseDouble(
+                        Optional.ofNullable(
+                                        environment.get("VC_SIGNATURE_VERIFICATION_SAMPLE_RATE"))
+                                .orElse("0.1"));
+
+        return new VerifiableCredentialSignatureVerifier(
+                kmsClient,
+                signingKeyId,
+                mode,
+                sampleRate,
+                () -> ThreadLocalRandom.current().nextDouble(),
+                eventProbe);
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * @throws JOSEException if the signature does not verify against the KMS signing key
+     */
+    public void verify(SignedJWT signedJWT) throws JOSEException {
+        if (!shouldVerify()) {
+            return;
+        }
+
+        JWSVerifier jwsVerifier;
+        try {
+            jwsVerifier = getVerifier();
+        } catch (SdkException | GeneralSecurityException | JOSEException e) {
+            LOGGER.warn("Skipping VC signature verification, public key unavailable", e);
+            eventProbe.counterMetric(VC_SIGNATURE_VERIFICATION_SKIPPED_METRIC);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        boolean valid = signedJWT.verify(jwsVerifier);
+        eventProbe.counterMetric(
+                VC_SIGNATURE_VERIFICATION_DURATION_METRIC,
+                (System.nanoTime() - startTime) / 1_000_000d,
+                MetricUnit.MILLISECONDS);
+
+        if (!valid) {
+            eventProbe.counterMetric(VC_SIGNATURE_INVALID_METRIC);
+            throw new JOSEException("VC signature failed verification against the signing key");
+        }
+        eventProbe.counterMetric(VC_SIGNATURE_VERIFIED_METRIC);
+    }
+
+    private boolean shouldVerify() {
+        return switch (mode) {
+            case FULL -> true;
+            case SAMPLED -> random.getAsDouble() < sampleRate;
+            case OFF -> false;
+        };
+    }
+
+    private JWSVerifier getVerifier() throws GeneralSecurityException, JOSEException {
+        JWSVerifier current = verifier;
+        if (current == null) {
+            synchronized (this) {
+                if (verifier == null) {
+                    verifier = createVerifier();
+                }
+                current = verifier;
+            }
+        }
+        return current;
+    }
+
+    private JWSVerifier createVerifier() throws GeneralSecurityException, JOSEException {
+        byte[] publicKey =
+                kmsClient
+                        .getPublicKey(GetPublicKeyRequest.builder().keyId(signingKeyId).build())
+                        .publicKey()
+                        .asByteArray();
+
+        return new ECDSAVerifier(
+                (ECPublicKey)
+                        KeyFactory.getInstance("EC")
+                                .generatePublic(new X509EncodedKeySpec(publicKey)));
+    }
+}
@@ -0,0 +1,94 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.ADDRESS_CREDENTIAL_TYPE;
+import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.DI_CONTEXT;
+import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.W3_BASE_CONTEXT;
+
+/**
+ * The parts of an address credential that never change between requests, worked out once per
+ * container: the context array, the credential type and the TTL unit, along with the cached
+ * writer and reader used to turn the addresses into claims. It does not template the payload
+ * bytes, the claims set is still serialized by Nimbus when it is signed.
+ */
+public class VerifiableCredentialTemplate {
+    private static final String[] CONTEXT = {W3_BASE_CONTEXT, DI_CONTEXT};
+    private static final TypeReference<List<CanonicalAddress>> ADDRESS_LIST_TYPE =
+            new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter addressWriter;
+    private final ObjectReader addressClaimsReader;
+    private final ChronoUnit ttlUnit;
+
+    public VerifiableCredentialTemplate(ObjectMapper objectMapper, ChronoUnit ttlUnit) {
+        this.objectMapper = objectMapper;
+        this.addressWriter = objectMapper.writerFor(ADDRESS_LIST_TYPE);
+        this.addressClaimsReader = objectMapper.readerFor(Object[].class);
+        this.ttlUnit = ttlUnit;
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static VerifiableCredentialTemplate fromEnvironment(
+            Map<String, String> environment, ObjectMapper objectMapper) {
+        return new VerifiableCredentialTemplate(
+                objectMapper, parseTtlUnit(environment.get("JWT_TTL_UNIT")));
+    }
+
+    public ChronoUnit getTtlUnit() {
+        return ttlUnit;
+    }
+
+    /** The shared context array; callers must not modify it. */
+    public String[] getContext() {
+        return CONTEXT;
+    }
+
+    public String getCredentialType() {
+        return ADDRESS_CREDENTIAL_TYPE;
+    }
+
+    /**
+     * Converts the addresses into the plain maps the claims set builder expects. All of them go
+     * through a single token buffer with a cached writer and reader, giving the same maps as
+     * converting each address on its own.
+     */
+    public Object[] toAddressClaims(List<CanonicalAddress> addresses) {
+        TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+        try {
+            addressWriter.writeValue(buffer, addresses);
+            try (JsonParser parser = buffer.asParser(objectMapper)) {
+                return addressClaimsReader.readValue(parser);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    // Checked when the service is built, so a missing unit fails the cold start, not each request
+    static ChronoUnit parseTtlUnit(String ttlUnit) {
+        if (ttlUnit == null || ttlUnit.isBlank()) {
+            throw new IllegalStateException(
+                    "JWT_TTL_UNIT is not set, it must name a ChronoUnit such as MINUTES");
+        }
+        try {
+            return ChronoUnit.valueOf(ttlUnit);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(
+                    "JWT_TTL_UNIT must name a ChronoUnit such as MINUTES, not " + ttlUnit, e);
+        }
+    }
+}
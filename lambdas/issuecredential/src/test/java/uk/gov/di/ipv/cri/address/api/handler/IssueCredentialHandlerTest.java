@@ -29,10 +29,13 @@ import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
 import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialService;
 import uk.gov.di.ipv.cri.address.library.exception.AddressNotFoundException;
 import uk.gov.di.ipv.cri.address.library.persistence.item.AddressItem;
 import uk.gov.di.ipv.cri.address.library.service.AddressService;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventBatch;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventDispatcher;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventType;
 import uk.gov.di.ipv.cri.common.library.domain.personidentity.Address;
@@ -64,6 +67,7 @@ import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static org.apache.logging.log4j.Level.ERROR;
@@ -72,15 +76,18 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.di.ipv.cri.address.api.handler.IssueCredentialHandler.ADDRESS_CREDENTIAL_ISSUER;
 import static uk.gov.di.ipv.cri.address.api.handler.IssueCredentialHandler.NO_SUCH_ALGORITHM_ERROR;
+import static uk.gov.di.ipv.cri.address.api.handler.IssueCredentialHandler.VC_SERIALIZE_DURATION_METRIC;
 import static uk.gov.di.ipv.cri.address.api.objectmapper.CustomObjectMapper.getMapperWithCustomSerializers;
 import static uk.gov.di.ipv.cri.address.api.service.fixtures.TestFixtures.EC_PRIVATE_KEY_1;
 import static uk.gov.di.ipv.cri.common.library.error.ErrorResponse.VERIFIABLE_CREDENTIAL_ERROR;
@@ -94,6 +101,8 @@ class IssueCredentialHandlerTest {
     @Mock private AddressService mockAddressService;
     @Mock private EventProbe mockEventProbe;
     @Mock private AuditService mockAuditService;
+    @Mock private AuditEventDispatcher mockAuditEventDispatcher;
+    @Mock private AuditEventBatch mockAuditEventBatch;
 
     @InjectMocks private IssueCredentialHandler handler;
 
@@ -153,6 +162,11 @@ class IssueCredentialHandlerTest {
                 .generateSignedVerifiableCredentialJwt(SUBJECT, canonicalAddresses);
         verify(mockEventProbe).counterMetric(ADDRESS_CREDENTIAL_ISSUER);
         verify(mockEventProbe).log(INFO, "found session");
+        verify(mockEventProbe)
+                .counterMetric(
+                        eq(VC_SERIALIZE_DURATION_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
         verifyNoMoreInteractions(mockEventProbe);
 
         verify(mockAuditService)
@@ -187,6 +201,59 @@ class IssueCredentialHandlerTest {
         }
     }
 
+    @Test
+    void shouldSendVcIssuedAndEndEventsInOneBatchWhenBatchingIsEnabled()
+            throws JOSEException, SqsException, NoSuchAlgorithmException {
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent();
+        AccessToken accessToken = new BearerAccessToken();
+        event.withHeaders(
+                Map.of(
+                        IssueCredentialHandler.AUTHORIZATION_HEADER_KEY,
+                        accessToken.toAuthorizationHeader()));
+
+        SessionItem sessionItem = new SessionItem();
+        sessionItem.setSubject(SUBJECT);
+        sessionItem.setSessionId(UUID.randomUUID());
+
+        CanonicalAddress address = new CanonicalAddress();
+        address.setPostalCode("LS1 1BA");
+        AddressItem addressItem = new AddressItem();
+        List<CanonicalAddress> canonicalAddresses = List.of(address);
+        addressItem.setAddresses(canonicalAddresses);
+        Map<String, Object> auditEventExtensions = Map.of("iss", "issuer");
+
+        SignedJWT signedJWT = mock(SignedJWT.class);
+        when(signedJWT.serialize()).thenReturn("serialized.jwt");
+        when(mockSessionService.getSessionByAccessToken(accessToken)).thenReturn(sessionItem);
+        when(mockAddressService.getAddressItemWithRetries(sessionItem)).thenReturn(addressItem);
+        when(mockVerifiableCredentialService.generateSignedVerifiableCredentialJwt(
+                        SUBJECT, canonicalAddresses))
+                .thenReturn(signedJWT);
+        when(mockVerifiableCredentialService.getAuditEventExtensions(canonicalAddresses))
+                .thenReturn(auditEventExtensions);
+        when(mockAuditEventDispatcher.isEnabled()).thenReturn(true);
+        when(mockAuditEventDispatcher.newBatch()).thenReturn(mockAuditEventBatch);
+        when(mockAuditEventBatch.dispatch(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
+        APIGatewayProxyResponseEvent response = getApiGatewayProxyResponseEvent(event);
+
+        verify(mockAuditEventBatch)
+                .add(eq(AuditEventType.VC_ISSUED), any(), eq(auditEventExtensions));
+        verify(mockAuditEventBatch).add(eq(AuditEventType.END), any());
+        verify(mockAuditEventBatch).dispatch(any());
+        verifyNoInteractions(mockAuditService);
+        verify(mockEventProbe).counterMetric(ADDRESS_CREDENTIAL_ISSUER);
+        verify(mockEventProbe)
+                .counterMetric(
+                        eq(VC_SERIALIZE_DURATION_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
+
+        assertEquals(HttpStatusCode.OK, response.getStatusCode());
+        assertEquals("serialized.jwt", response.getBody());
+    }
+
     @Test
     void shouldReturn200OkWhenIssueCredentialRequestGeneratesClaimsSetJwt()
             throws JOSEException, SqsException, InvalidKeySpecException, NoSuchAlgorithmException {
@@ -252,6 +319,11 @@ class IssueCredentialHandlerTest {
         verify(mockAddressService).getAddressItemWithRetries(sessionItem);
         verify(mockEventProbe).counterMetric(ADDRESS_CREDENTIAL_ISSUER);
         verify(mockEventProbe).log(INFO, "found session");
+        verify(mockEventProbe)
+                .counterMetric(
+                        eq(VC_SERIALIZE_DURATION_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
         verifyNoMoreInteractions(mockEventProbe);
 
         Map<String, Object> auditEventExtensions =
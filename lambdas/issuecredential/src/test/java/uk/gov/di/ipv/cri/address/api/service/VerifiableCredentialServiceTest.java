@@ -16,9 +16,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
 import uk.gov.di.ipv.cri.address.api.service.fixtures.TestFixtures;
+import uk.gov.di.ipv.cri.address.library.config.RefreshingSnapshot;
 import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 import uk.gov.di.ipv.cri.common.library.util.SignedJWTFactory;
 import uk.gov.di.ipv.cri.common.library.util.VerifiableCredentialClaimsSetBuilder;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
@@ -28,6 +31,8 @@ import uk.org.webcompere.systemstubs.jupiter.SystemStubsExtension;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -39,8 +44,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,6 +55,8 @@ import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants
 import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.DI_CONTEXT;
 import static uk.gov.di.ipv.cri.address.api.domain.VerifiableCredentialConstants.W3_BASE_CONTEXT;
 import static uk.gov.di.ipv.cri.address.api.objectmapper.CustomObjectMapper.getMapperWithCustomSerializers;
+import static uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialService.VC_CLAIMS_BUILD_DURATION_METRIC;
+import static uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialService.VC_KMS_SIGN_DURATION_METRIC;
 
 @ExtendWith({MockitoExtension.class, SystemStubsExtension.class})
 class VerifiableCredentialServiceTest implements TestFixtures {
@@ -159,6 +168,66 @@ class VerifiableCredentialServiceTest implements TestFixtures {
                 });
     }
 
+    @Test
+    void shouldVerifyTheSignatureAndRecordStageTimingsWhenConfigured()
+            throws JOSEException, NoSuchAlgorithmException {
+        initMockVCClaimSetBuilder();
+        when(mockVcClaimSetBuilder.build()).thenReturn(TEST_CLAIMS_SET);
+        SignedJWT signedJWT = mock(SignedJWT.class);
+        when(mockSignedClaimSetJwt.createSignedJwt(any(), any(), any())).thenReturn(signedJWT);
+        VerifiableCredentialSignatureVerifier signatureVerifier =
+                mock(VerifiableCredentialSignatureVerifier.class);
+        EventProbe eventProbe = mock(EventProbe.class);
+
+        verifiableCredentialService =
+                new VerifiableCredentialService(
+                        mockSignedClaimSetJwt,
+                        mockConfigurationService,
+                        objectMapper,
+                        mockVcClaimSetBuilder,
+                        signatureVerifier,
+                        eventProbe);
+
+        assertEquals(
+                signedJWT,
+                verifiableCredentialService.generateSignedVerifiableCredentialJwt(
+                        SUBJECT, List.of(new CanonicalAddress())));
+        verify(signatureVerifier).verify(signedJWT);
+        verify(eventProbe)
+                .counterMetric(
+                        eq(VC_CLAIMS_BUILD_DURATION_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
+        verify(eventProbe)
+                .counterMetric(
+                        eq(VC_KMS_SIGN_DURATION_METRIC), anyDouble(), eq(MetricUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldRefreshTheConfigurationWithoutAnEventProbe() {
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L, 300_000L, 300_000L, 300_001L);
+        when(mockConfigurationService.getVerifiableCredentialIssuer())
+                .thenReturn(VC_ISSUER, "refreshedAddressComponentId");
+
+        // The legacy constructor has no event probe to count the refresh with
+        verifiableCredentialService =
+                new VerifiableCredentialService(
+                        mockSignedClaimSetJwt,
+                        mockConfigurationService,
+                        objectMapper,
+                        mockVcClaimSetBuilder,
+                        VerifiableCredentialSignatureVerifier.disabled(),
+                        null,
+                        loader ->
+                                new RefreshingSnapshot<>(
+                                        loader, Duration.ofMinutes(5), clock, Runnable::run, null));
+
+        assertEquals(VC_ISSUER, getIssuerFromAuditEventExtensions());
+        assertEquals(VC_ISSUER, getIssuerFromAuditEventExtensions());
+        assertEquals("refreshedAddressComponentId", getIssuerFromAuditEventExtensions());
+    }
+
     @Test
     void shouldThrowNoSuchAlgorithmExceptionWhenTheWrongKeyAlgorithmIsUsed()
             throws NoSuchAlgorithmException, JOSEException {
@@ -195,6 +264,10 @@ class VerifiableCredentialServiceTest implements TestFixtures {
                                 SUBJECT, canonicalAddresses));
     }
 
+    private Object getIssuerFromAuditEventExtensions() {
+        return verifiableCredentialService.getAuditEventExtensions(null).get("iss");
+    }
+
     private void initMockVCClaimSetBuilder() {
         when(mockVcClaimSetBuilder.subject(anyString())).thenReturn(mockVcClaimSetBuilder);
         when(mockVcClaimSetBuilder.timeToLive(anyLong(), any(ChronoUnit.class)))
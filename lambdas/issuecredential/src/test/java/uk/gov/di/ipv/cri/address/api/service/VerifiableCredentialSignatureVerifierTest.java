@@ -0,0 +1,130 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.GetPublicKeyRequest;
+import software.amazon.awssdk.services.kms.model.GetPublicKeyResponse;
+import software.amazon.awssdk.services.kms.model.KmsException;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier.Mode;
+import uk.gov.di.ipv.cri.address.api.service.fixtures.TestFixtures;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier.VC_SIGNATURE_INVALID_METRIC;
+import static uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier.VC_SIGNATURE_VERIFICATION_DURATION_METRIC;
+import static uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier.VC_SIGNATURE_VERIFICATION_SKIPPED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier.VC_SIGNATURE_VERIFIED_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiableCredentialSignatureVerifierTest implements TestFixtures {
+    private static final String SIGNING_KEY_ID = "signing-key-id";
+
+    @Mock private KmsClient kmsClient;
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldVerifyAgainstTheKmsPublicKeyAndFetchItOnlyOnce() throws Exception {
+        stubPublicKey();
+        VerifiableCredentialSignatureVerifier verifier = createVerifier(Mode.FULL, 0d);
+
+        verifier.verify(signWith(new ECDSASigner(getPrivateKey())));
+        verifier.verify(signWith(new ECDSASigner(getPrivateKey())));
+
+        verify(kmsClient, times(1)).getPublicKey(any(GetPublicKeyRequest.class));
+        verify(eventProbe, times(2)).counterMetric(VC_SIGNATURE_VERIFIED_METRIC);
+        verify(eventProbe, times(2))
+                .counterMetric(
+                        eq(VC_SIGNATURE_VERIFICATION_DURATION_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldThrowWhenTheSignatureWasNotMadeWithTheKmsKey() throws Exception {
+        stubPublicKey();
+        VerifiableCredentialSignatureVerifier verifier = createVerifier(Mode.FULL, 0d);
+        SignedJWT signedWithAnotherKey =
+                signWith(new ECDSASigner(new ECKeyGenerator(Curve.P_256).generate()));
+
+        assertThrows(JOSEException.class, () -> verifier.verify(signedWithAnotherKey));
+        verify(eventProbe).counterMetric(VC_SIGNATURE_INVALID_METRIC);
+    }
+
+    @Test
+    void shouldOnlyVerifyTheSampledFractionInSampledMode() throws Exception {
+        VerifiableCredentialSignatureVerifier verifier =
+                new VerifiableCredentialSignatureVerifier(
+                        kmsClient, SIGNING_KEY_ID, Mode.SAMPLED, 0.1d, () -> 0.5d, eventProbe);
+
+        verifier.verify(signWith(new ECDSASigner(getPrivateKey())));
+
+        verifyNoInteractions(kmsClient, eventProbe);
+    }
+
+    @Test
+    void shouldSkipVerificationWhenThePublicKeyCannotBeFetched() throws Exception {
+        when(kmsClient.getPublicKey(any(GetPublicKeyRequest.class)))
+                .thenThrow(KmsException.builder().message("AccessDenied").build());
+        VerifiableCredentialSignatureVerifier verifier = createVerifier(Mode.FULL, 0d);
+        SignedJWT signedJWT = signWith(new ECDSASigner(getPrivateKey()));
+
+        assertDoesNotThrow(() -> verifier.verify(signedJWT));
+        verify(eventProbe).counterMetric(VC_SIGNATURE_VERIFICATION_SKIPPED_METRIC);
+    }
+
+    @Test
+    void disabledVerifierShouldNotVerify() {
+        VerifiableCredentialSignatureVerifier verifier =
+                VerifiableCredentialSignatureVerifier.disabled();
+
+        assertFalse(verifier.isEnabled());
+        assertDoesNotThrow(() -> verifier.verify(null));
+    }
+
+    private VerifiableCredentialSignatureVerifier createVerifier(Mode mode, double random) {
+        return new VerifiableCredentialSignatureVerifier(
+                kmsClient, SIGNING_KEY_ID, mode, 0.1d, () -> random, eventProbe);
+    }
+
+    private void stubPublicKey() throws Exception {
+        byte[] publicKey = ECKey.parse(EC_PUBLIC_JWK_1).toECPublicKey().getEncoded();
+        when(kmsClient.getPublicKey(any(GetPublicKeyRequest.class)))
+                .thenReturn(
+                        GetPublicKeyResponse.builder()
+                                .keyId(SIGNING_KEY_ID)
+                                .publicKey(SdkBytes.fromByteArray(publicKey))
+                                .build());
+    }
+
+    private static SignedJWT signWith(ECDSASigner signer) throws JOSEException {
+        SignedJWT signedJWT =
+                new SignedJWT(
+                        new JWSHeader(JWSAlgorithm.ES256),
+                        new JWTClaimsSet.Builder().subject("subject").issuer("issuer").build());
+        signedJWT.sign(signer);
+        return signedJWT;
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.gov.di.ipv.cri.address.api.objectmapper.CustomObjectMapper.getMapperWithCustomSerializers;
+
+class VerifiableCredentialTemplateTest {
+    private final ObjectMapper objectMapper = getMapperWithCustomSerializers();
+
+    private VerifiableCredentialTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        template = new VerifiableCredentialTemplate(objectMapper, ChronoUnit.MINUTES);
+    }
+
+    @Test
+    void shouldConvertAddressesToTheSameClaimsAsConvertingEachAddress() {
+        CanonicalAddress previousAddress = createAddress(3, "GRANGE FIELDS WAY", "LEEDS");
+        previousAddress.setBuildingName("\"THE LODGE\" – FLAT ½");
+        previousAddress.setValidUntil(LocalDate.of(2021, 1, 16));
+        List<CanonicalAddress> addresses =
+                List.of(createAddress(8, "HADLEY ROAD", "BATH"), previousAddress);
+
+        Object[] addressClaims = template.toAddressClaims(addresses);
+
+        assertEquals(2, addressClaims.length);
+        for (int i = 0; i < addresses.size(); i++) {
+            assertEquals(objectMapper.convertValue(addresses.get(i), Map.class), addressClaims[i]);
+        }
+    }
+
+    @Test
+    void shouldParseTheTtlUnit() {
+        assertEquals(ChronoUnit.MINUTES, VerifiableCredentialTemplate.parseTtlUnit("MINUTES"));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"minutes", "FORTNIGHTS"})
+    void shouldExplainAMissingOrUnknownTtlUnit(String ttlUnit) {
+        IllegalStateException exception =
+                assertThrows(
+                        IllegalStateException.class,
+                        () -> VerifiableCredentialTemplate.parseTtlUnit(ttlUnit));
+
+        assertTrue(exception.getMessage().startsWith("JWT_TTL_UNIT"));
+    }
+
+    private static CanonicalAddress createAddress(
+            int buildingNumber, String streetName, String addressLocality) {
+        CanonicalAddress address = new CanonicalAddress();
+        address.setUprn(100120012077L);
+        address.setBuildingNumber(String.valueOf(buildingNumber));
+        address.setBuildingName("");
+        address.setStreetName(streetName);
+        address.setAddressLocality(addressLocality);
+        address.setPostalCode("BA2 5AA");
+        address.setAddressCountry("GB");
+        address.setValidFrom(LocalDate.of(2010, 2, 26));
+        return address;
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers postcodes Ordnance Survey answered with a 404 or a 400, so repeated typos and bot
+ * traffic are not sent to OS again until the entry expires. Kept apart from {@link
+ * PostcodeResultCache} so a burst of unknown postcodes cannot evict real results, and given a much
+ * shorter TTL as a newly allocated postcode should not stay unknown for long.
+ */
+public class NegativePostcodeCache {
+    public static final String NEGATIVE_CACHE_HIT_METRIC = "postcode_negative_cache_hit";
+    public static final String NEGATIVE_CACHE_EVICTION_METRIC = "postcode_negative_cache_eviction";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final EventProbe eventProbe;
+    private final LinkedHashMap<String, Long> expiries;
+
+    public NegativePostcodeCache(int maxEntries, Duration ttl, Clock clock, EventProbe eventProbe) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.eventProbe = eventProbe;
+        this.expiries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static NegativePostcodeCache disabled() {
+        return new NegativePostcodeCache(0, Duration.ZERO, Clock.systemUTC(), null);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlMillis > 0;
+    }
+
+    /** A hit is an Ordnance Survey call avoided, and is counted as one. */
+    public synchronized boolean contains(ParsedPostcode postcode, String clientId) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        String key = postcode.cacheKey(clientId);
+        Long expiresAt = expiries.get(key);
+
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= clock.millis()) {
+            expiries.remove(key);
+            return false;
+        }
+
+        eventProbe.counterMetric(NEGATIVE_CACHE_HIT_METRIC);
+        return true;
+    }
+
+    public synchronized void put(ParsedPostcode postcode, String clientId) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        expiries.put(postcode.cacheKey(clientId), clock.millis() + ttlMillis);
+
+        while (expiries.size() > maxEntries) {
+            Map.Entry<String, Long> eldest = expiries.entrySet().iterator().next();
+            expiries.remove(eldest.getKey());
+            eventProbe.counterMetric(NEGATIVE_CACHE_EVICTION_METRIC);
+        }
+    }
+
+    public synchronized int size() {
+        return expiries.size();
+    }
+}
@@ -0,0 +1,131 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-memory cache of mapped Ordnance Survey results, keyed by normalised postcode and
+ * client id. Entries expire after a fixed TTL and the least recently used entry is evicted once the
+ * cache is full. The cache is held by the handler so it survives across invocations in a warm
+ * container.
+ *
+ * <p>An entry can be kept for a stale period after its TTL, its hard expiry. A stale entry is still
+ * returned, flagged as stale, so the caller can serve it straight away while it refreshes the
+ * entry, and can keep serving it while Ordnance Survey is failing.
+ */
+public class PostcodeResultCache {
+    public static final String CACHE_HIT_METRIC = "postcode_cache_hit";
+    public static final String CACHE_MISS_METRIC = "postcode_cache_miss";
+    public static final String CACHE_EVICTION_METRIC = "postcode_cache_eviction";
+    public static final String CACHE_EXPIRED_METRIC = "postcode_cache_expired";
+    public static final String CACHE_STALE_HIT_METRIC = "postcode_cache_stale_hit";
+    public static final String CACHE_REFRESH_FAILURE_METRIC = "postcode_cache_refresh_failure";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final Clock clock;
+    private final EventProbe eventProbe;
+    private final LinkedHashMap<String, CacheEntry> entries;
+
+    public PostcodeResultCache(int maxEntries, Duration ttl, Clock clock, EventProbe eventProbe) {
+        this(maxEntries, ttl, Duration.ZERO, clock, eventProbe);
+    }
+
+    public PostcodeResultCache(
+            int maxEntries,
+            Duration ttl,
+            Duration stalePeriod,
+            Clock clock,
+            EventProbe eventProbe) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = stalePeriod.toMillis();
+        this.clock = clock;
+        this.eventProbe = eventProbe;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static PostcodeResultCache disabled() {
+        return new PostcodeResultCache(0, Duration.ZERO, Clock.systemUTC(), null);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlMillis > 0;
+    }
+
+    public Optional<List<CanonicalAddress>> get(ParsedPostcode postcode, String clientId) {
+        return lookup(postcode, clientId).map(CachedResults::addresses);
+    }
+
+    /** Returns the entry until its hard expiry, flagging it as stale once its TTL has passed. */
+    public synchronized Optional<CachedResults> lookup(ParsedPostcode postcode, String clientId) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        String key = postcode.cacheKey(clientId);
+        CacheEntry entry = entries.get(key);
+
+        if (entry == null) {
+            eventProbe.counterMetric(CACHE_MISS_METRIC);
+            return Optional.empty();
+        }
+        long now = clock.millis();
+        if (entry.expiresAt() + staleMillis <= now) {
+            entries.remove(key);
+            eventProbe.counterMetric(CACHE_EXPIRED_METRIC);
+            eventProbe.counterMetric(CACHE_MISS_METRIC);
+            return Optional.empty();
+        }
+        if (entry.expiresAt() <= now) {
+            eventProbe.counterMetric(CACHE_STALE_HIT_METRIC);
+            return Optional.of(new CachedResults(entry.addresses(), true));
+        }
+
+        eventProbe.counterMetric(CACHE_HIT_METRIC);
+        return Optional.of(new CachedResults(entry.addresses(), false));
+    }
+
+    public synchronized void put(
+            ParsedPostcode postcode, String clientId, List<CanonicalAddress> addresses) {
+        if (!isEnabled() || addresses == null) {
+            return;
+        }
+
+        entries.put(
+                postcode.cacheKey(clientId),
+                new CacheEntry(List.copyOf(addresses), clock.millis() + ttlMillis));
+
+        evictEldestEntries();
+    }
+
+    /** Drops the entry, e.g. when a refresh finds Ordnance Survey no longer knows the postcode. */
+    public synchronized void remove(ParsedPostcode postcode, String clientId) {
+        entries.remove(postcode.cacheKey(clientId));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictEldestEntries() {
+        while (entries.size() > maxEntries) {
+            Map.Entry<String, CacheEntry> eldest = entries.entrySet().iterator().next();
+            entries.remove(eldest.getKey());
+            eventProbe.counterMetric(CACHE_EVICTION_METRIC);
+        }
+    }
+
+    public record CachedResults(List<CanonicalAddress> addresses, boolean stale) {}
+
+    private record CacheEntry(List<CanonicalAddress> addresses, long expiresAt) {}
+}
@@ -0,0 +1,233 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cross-container cache of Ordnance Survey results held in DynamoDB. Reads happen on the request
+ * path before the OS call, writes are handed to a background executor so they overlap building the
+ * response, and are then awaited with {@link #flush} before the invocation returns, as Lambda
+ * freezes the container as soon as it does. Any failure talking to the table is treated as a cache
+ * miss.
+ */
+public class SharedPostcodeCache {
+    public static final String SHARED_CACHE_HIT_METRIC = "postcode_shared_cache_hit";
+    public static final String SHARED_CACHE_MISS_METRIC = "postcode_shared_cache_miss";
+    public static final String SHARED_CACHE_ERROR_METRIC = "postcode_shared_cache_error";
+    public static final String SHARED_CACHE_OVERSIZED_METRIC = "postcode_shared_cache_oversized";
+    public static final String SHARED_CACHE_FLUSH_TIMEOUT_METRIC =
+            "postcode_shared_cache_flush_timeout";
+
+    // DynamoDB rejects items over 400KB, which the largest multi-occupancy postcodes can reach
+    static final int MAX_ITEM_SIZE_BYTES = 400 * 1024;
+    private static final TableSchema<PostcodeCacheItem> ITEM_SCHEMA =
+            TableSchema.fromBean(PostcodeCacheItem.class);
+
+    private final DataStore<PostcodeCacheItem> dataStore;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Executor writeExecutor;
+    private final EventProbe eventProbe;
+    private final Logger log;
+    private final Set<CompletableFuture<Void>> pendingWrites = ConcurrentHashMap.newKeySet();
+
+    public SharedPostcodeCache(
+            DataStore<PostcodeCacheItem> dataStore,
+            Duration ttl,
+            Clock clock,
+            Executor writeExecutor,
+            EventProbe eventProbe,
+            Logger log) {
+        this.dataStore = dataStore;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.writeExecutor = writeExecutor;
+        this.eventProbe = eventProbe;
+        this.log = log;
+    }
+
+    public static SharedPostcodeCache disabled() {
+        return new SharedPostcodeCache(null, Duration.ZERO, Clock.systemUTC(), null, null, null);
+    }
+
+    public boolean isEnabled() {
+        return dataStore != null && !ttl.isZero() && !ttl.isNegative();
+    }
+
+    public Optional<List<CanonicalAddress>> get(ParsedPostcode postcode, String clientId) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        try {
+            PostcodeCacheItem item = dataStore.getItem(createHashKey(postcode, clientId));
+
+            // DynamoDB TTL deletion is lazy, so expired items may still be returned
+            if (item == null || item.getExpiryDate() <= clock.instant().getEpochSecond()) {
+                eventProbe.counterMetric(SHARED_CACHE_MISS_METRIC);
+                return Optional.empty();
+            }
+
+            eventProbe.counterMetric(SHARED_CACHE_HIT_METRIC);
+            return Optional.of(List.copyOf(item.getAddresses()));
+        } catch (RuntimeException e) {
+            log.warn("Unable to read postcode results from the shared cache", e);
+            eventProbe.counterMetric(SHARED_CACHE_ERROR_METRIC);
+            return Optional.empty();
+        }
+    }
+
+    public CompletableFuture<Void> putAsync(
+            ParsedPostcode postcode, String clientId, List<CanonicalAddress> addresses) {
+        if (!isEnabled() || addresses == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PostcodeCacheItem item = new PostcodeCacheItem();
+        item.setPostcodeHash(createHashKey(postcode, clientId));
+        item.setExpiryDate(clock.instant().plus(ttl).getEpochSecond());
+        item.setAddresses(addresses);
+
+        return submit(() -> write(item), "Unable to write postcode results to the shared cache");
+    }
+
+    /**
+     * Deletes the postcode's results, e.g. once Ordnance Survey no longer knows it, so they are not
+     * served again after the negative cache entry expires. Flushed like a write.
+     */
+    public CompletableFuture<Void> removeAsync(ParsedPostcode postcode, String clientId) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String hashKey = createHashKey(postcode, clientId);
+        return submit(
+                () -> dataStore.delete(hashKey),
+                "Unable to remove postcode results from the shared cache");
+    }
+
+    private CompletableFuture<Void> submit(Runnable change, String failureMessage) {
+        CompletableFuture<Void> pending =
+                CompletableFuture.runAsync(change, writeExecutor)
+                        .exceptionally(
+                                e -> {
+                                    log.warn(failureMessage, e);
+                                    return null;
+                                });
+        pendingWrites.add(pending);
+        pending.whenComplete((ignored, e) -> pendingWrites.remove(pending));
+        return pending;
+    }
+
+    /**
+     * Waits for the writes still in flight, giving up after the timeout rather than holding the
+     * response back. A write left running may be lost when the container is frozen.
+     */
+    public void flush(Duration timeout) {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        try {
+            CompletableFuture.allOf(pendingWrites.toArray(new CompletableFuture<?>[0]))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Shared cache writes still pending after {}ms", timeout.toMillis());
+            eventProbe.counterMetric(SHARED_CACHE_FLUSH_TIMEOUT_METRIC);
+        } catch (ExecutionException e) {
+            // Write failures are already logged and swallowed by putAsync
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Results too big for one item are left to the in-memory cache rather than truncated
+    private void write(PostcodeCacheItem item) {
+        if (itemSize(item) > MAX_ITEM_SIZE_BYTES) {
+            log.warn(
+                    "Postcode results with {} addresses are too large for the shared cache",
+                    item.getAddresses().size());
+            eventProbe.counterMetric(SHARED_CACHE_OVERSIZED_METRIC);
+            return;
+        }
+        dataStore.create(item);
+    }
+
+    static int itemSize(PostcodeCacheItem item) {
+        return attributesSize(ITEM_SCHEMA.itemToMap(item, true));
+    }
+
+    private static int attributesSize(Map<String, AttributeValue> attributes) {
+        int size = 0;
+        for (Map.Entry<String, AttributeValue> attribute : attributes.entrySet()) {
+            size += utf8Length(attribute.getKey()) + attributeSize(attribute.getValue());
+        }
+        return size;
+    }
+
+    // Follows the DynamoDB item size rules, counting a number as its length in characters
+    private static int attributeSize(AttributeValue value) {
+        if (value.s() != null) {
+            return utf8Length(value.s());
+        }
+        if (value.n() != null) {
+            return value.n().length();
+        }
+        if (value.b() != null) {
+            return value.b().asByteArray().length;
+        }
+        if (value.hasM()) {
+            return 3 + value.m().size() + attributesSize(value.m());
+        }
+        if (value.hasL()) {
+            int size = 3 + value.l().size();
+            for (AttributeValue element : value.l()) {
+                size += attributeSize(element);
+            }
+            return size;
+        }
+        if (value.hasSs()) {
+            return value.ss().stream().mapToInt(SharedPostcodeCache::utf8Length).sum();
+        }
+        return 1;
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public static String createHashKey(ParsedPostcode postcode, String clientId) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of()
+                    .formatHex(
+                            digest.digest(
+                                    postcode.cacheKey(clientId).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -8,4 +8,5 @@ public class OrdnanceSurveyConstants {
     }
 
     public static final String LOG_RESPONSE_PREFIX = "Ordnance Survey Responded with ";
+    public static final String ORDNANCE_SURVEY_BASE_URL = "https://api.os.uk/";
 }
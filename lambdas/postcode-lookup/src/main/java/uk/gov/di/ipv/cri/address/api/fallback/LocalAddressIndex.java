@@ -0,0 +1,207 @@
+package uk.gov.di.ipv.cri.address.api.fallback;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A read-only index of addresses by postcode, built offline from a local address extract by
+ * {@link LocalAddressIndexBuilder} and memory-mapped at init. Lookups fall back to it when
+ * Ordnance Survey cannot answer, i.e. the circuit breaker is open or the request timed out, so
+ * users can still pick their address during an outage.
+ *
+ * <p>The file is a header, a table of fixed width entries sorted by postcode and the address
+ * records those entries point to. A lookup binary searches the table and decodes the matching
+ * records straight from the mapping, nothing else is read onto the heap. The index only holds the
+ * extract it was built from, so a postcode it does not have is reported as missing rather than as
+ * having no addresses.
+ */
+public class LocalAddressIndex {
+    public static final String FALLBACK_SERVED_METRIC = "postcode_fallback_served";
+    public static final String FALLBACK_MISSED_METRIC = "postcode_fallback_missed";
+
+    static final int MAGIC = 0x50434149;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 3 * Integer.BYTES;
+    static final int ENTRY_SIZE = Long.BYTES + 2 * Integer.BYTES;
+    static final int MAX_KEY_LENGTH = Long.BYTES;
+    static final int NULL_TEXT = 0xFFFF;
+    static final long NO_UPRN = -1;
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ByteBuffer index;
+    private final int postcodeCount;
+    private final int recordsStart;
+    private final EventProbe eventProbe;
+
+    LocalAddressIndex(ByteBuffer index, EventProbe eventProbe) throws IOException {
+        this.index = index;
+        this.eventProbe = eventProbe;
+        if (index.capacity() < HEADER_SIZE
+                || index.getInt(0) != MAGIC
+                || index.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " local address index");
+        }
+        this.postcodeCount = index.getInt(2 * Integer.BYTES);
+        if (postcodeCount < 0 || postcodeCount > (index.capacity() - HEADER_SIZE) / ENTRY_SIZE) {
+            throw new IOException("Local address index is truncated");
+        }
+        this.recordsStart = HEADER_SIZE + postcodeCount * ENTRY_SIZE;
+    }
+
+    private LocalAddressIndex() {
+        this.index = null;
+        this.postcodeCount = 0;
+        this.recordsStart = HEADER_SIZE;
+        this.eventProbe = null;
+    }
+
+    public static LocalAddressIndex disabled() {
+        return new LocalAddressIndex();
+    }
+
+    /** Opens the index at the path if one is given, and is disabled if it cannot be read. */
+    @ExcludeFromGeneratedCoverageReport
+    public static LocalAddressIndex openIfPresent(String path, EventProbe eventProbe) {
+        if (path == null || path.isBlank()) {
+            return disabled();
+        }
+
+        try {
+            return open(Path.of(path), eventProbe);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to open the local address index", e);
+            return disabled();
+        }
+    }
+
+    public static LocalAddressIndex open(Path path, EventProbe eventProbe) throws IOException {
+        // The mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new LocalAddressIndex(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), eventProbe);
+        }
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    public int postcodeCount() {
+        return postcodeCount;
+    }
+
+    /**
+     * @return the addresses for the postcode, or empty if the index does not have it
+     */
+    public Optional<List<CanonicalAddress>> lookup(ParsedPostcode postcode) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+
+        int entry = findEntry(postcode.normalised());
+        if (entry < 0) {
+            eventProbe.counterMetric(FALLBACK_MISSED_METRIC);
+            return Optional.empty();
+        }
+
+        int entryPosition = HEADER_SIZE + entry * ENTRY_SIZE + Long.BYTES;
+        int recordOffset = index.getInt(entryPosition);
+        int recordCount = index.getInt(entryPosition + Integer.BYTES);
+
+        // A duplicate shares the mapping but has its own position, so lookups can run in parallel
+        ByteBuffer records = index.duplicate().position(recordsStart + recordOffset);
+        List<CanonicalAddress> addresses = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            addresses.add(readAddress(records));
+        }
+        eventProbe.counterMetric(FALLBACK_SERVED_METRIC);
+        return Optional.of(addresses);
+    }
+
+    /**
+     * Packs a normalised postcode into a long, one ASCII character per byte from the most
+     * significant and padded with zeros, so comparing keys orders them as the postcodes.
+     *
+     * @return the key, or -1 if the postcode is too long to be a key
+     */
+    static long toKey(CharSequence normalisedPostcode) {
+        int length = normalisedPostcode.length();
+        if (length > MAX_KEY_LENGTH) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < MAX_KEY_LENGTH; i++) {
+            key = key << Byte.SIZE | (i < length ? normalisedPostcode.charAt(i) & 0x7F : 0);
+        }
+        return key;
+    }
+
+    private int findEntry(String normalisedPostcode) {
+        long key = toKey(normalisedPostcode);
+        if (key < 0) {
+            return -1;
+        }
+
+        int low = 0;
+        int high = postcodeCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = index.getLong(HEADER_SIZE + middle * ENTRY_SIZE);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    // Field order must match LocalAddressIndexBuilder#writeAddress
+    private static CanonicalAddress readAddress(ByteBuffer records) {
+        CanonicalAddress address = new CanonicalAddress();
+        long uprn = records.getLong();
+        if (uprn != NO_UPRN) {
+            address.setUprn(uprn);
+        }
+        address.setOrganisationName(readText(records));
+        address.setDepartmentName(readText(records));
+        address.setSubBuildingName(readText(records));
+        address.setBuildingName(readText(records));
+        address.setBuildingNumber(readText(records));
+        address.setDependentStreetName(readText(records));
+        address.setStreetName(readText(records));
+        address.setDoubleDependentAddressLocality(readText(records));
+        address.setDependentAddressLocality(readText(records));
+        address.setAddressLocality(readText(records));
+        address.setPostalCode(readText(records));
+        address.setAddressCountry("GB");
+        return address;
+    }
+
+    private static String readText(ByteBuffer records) {
+        int length = Short.toUnsignedInt(records.getShort());
+        if (length == NULL_TEXT) {
+            return null;
+        }
+        int start = records.position();
+        records.position(start + length);
+        return StandardCharsets.UTF_8.decode(records.slice(start, length)).toString();
+    }
+}
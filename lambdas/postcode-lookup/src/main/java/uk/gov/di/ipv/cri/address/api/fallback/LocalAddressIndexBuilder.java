@@ -0,0 +1,191 @@
+package uk.gov.di.ipv.cri.address.api.fallback;
+
+import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Compiles a local address extract into a {@link LocalAddressIndex}. Run by the {@code
+ * buildLocalAddressIndex} Gradle task rather than at runtime.
+ *
+ * <p>Reads a CSV file with a header row naming its columns as in the Ordnance Survey DPA response,
+ * e.g. {@code UPRN}, {@code BUILDING_NUMBER}, {@code THOROUGHFARE_NAME}, {@code POST_TOWN} and
+ * {@code POSTCODE}. Columns it does not use are ignored and rows without a valid postcode are
+ * skipped. Addresses keep the order they have in the extract.
+ */
+public final class LocalAddressIndexBuilder {
+    static final String UPRN_COLUMN = "UPRN";
+    static final String POSTCODE_COLUMN = "POSTCODE";
+    // In the order LocalAddressIndex reads them, ending with the postcode
+    static final List<String> TEXT_COLUMNS =
+            List.of(
+                    "ORGANISATION_NAME",
+                    "DEPARTMENT_NAME",
+                    "SUB_BUILDING_NAME",
+                    "BUILDING_NAME",
+                    "BUILDING_NUMBER",
+                    "DEPENDENT_THOROUGHFARE_NAME",
+                    "THOROUGHFARE_NAME",
+                    "DOUBLE_DEPENDENT_LOCALITY",
+                    "DEPENDENT_LOCALITY",
+                    "POST_TOWN",
+                    POSTCODE_COLUMN);
+
+    private LocalAddressIndexBuilder() {
+        throw new IllegalStateException("This class is not meant to be instantiated");
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Expected <address csv> <output file>");
+        }
+
+        SortedMap<String, List<String[]>> addresses = readAddresses(Path.of(args[0]));
+
+        Path output = Path.of(args[1]);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (OutputStream out = Files.newOutputStream(output)) {
+            write(addresses, out);
+        }
+        System.out.printf("Wrote %d postcodes to %s%n", addresses.size(), output);
+    }
+
+    /**
+     * @return each address as its UPRN followed by the {@link #TEXT_COLUMNS}, by normalised
+     *     postcode
+     */
+    static SortedMap<String, List<String[]>> readAddresses(Path extract) throws IOException {
+        SortedMap<String, List<String[]>> addresses = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(extract, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return addresses;
+            }
+            List<String> columns = splitCsvLine(header);
+            int[] columnIndexes = new int[TEXT_COLUMNS.size() + 1];
+            columnIndexes[0] = columns.indexOf(UPRN_COLUMN);
+            for (int i = 0; i < TEXT_COLUMNS.size(); i++) {
+                columnIndexes[i + 1] = columns.indexOf(TEXT_COLUMNS.get(i));
+            }
+            if (!columns.contains(POSTCODE_COLUMN)) {
+                throw new IOException("Address extract has no " + POSTCODE_COLUMN + " column");
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> values = splitCsvLine(line);
+                String[] address = new String[columnIndexes.length];
+                for (int i = 0; i < columnIndexes.length; i++) {
+                    int index = columnIndexes[i];
+                    address[i] = index >= 0 && index < values.size() ? values.get(index) : null;
+                }
+                try {
+                    ParsedPostcode postcode = ParsedPostcode.parse(address[TEXT_COLUMNS.size()]);
+                    addresses
+                            .computeIfAbsent(postcode.normalised(), key -> new ArrayList<>())
+                            .add(address);
+                } catch (PostcodeValidationException e) {
+                    // No usable postcode, so the address could never be looked up
+                }
+            }
+        }
+        return addresses;
+    }
+
+    static void write(SortedMap<String, List<String[]>> addresses, OutputStream output)
+            throws IOException {
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(LocalAddressIndex.MAGIC);
+        data.writeInt(LocalAddressIndex.VERSION);
+        data.writeInt(addresses.size());
+
+        for (Map.Entry<String, List<String[]>> entry : addresses.entrySet()) {
+            long key = LocalAddressIndex.toKey(entry.getKey());
+            if (key < 0) {
+                throw new IOException("Postcode too long for the index: " + entry.getKey());
+            }
+            data.writeLong(key);
+            data.writeInt(records.size());
+            data.writeInt(entry.getValue().size());
+            for (String[] address : entry.getValue()) {
+                writeAddress(records, address);
+            }
+            // DataOutputStream stops counting at Integer.MAX_VALUE
+            if (records.size() == Integer.MAX_VALUE) {
+                throw new IOException("Address extract is too large for a single index");
+            }
+        }
+
+        recordBytes.writeTo(data);
+        data.flush();
+    }
+
+    // Field order must match LocalAddressIndex#readAddress
+    private static void writeAddress(DataOutputStream records, String[] address)
+            throws IOException {
+        String uprn = address[0];
+        records.writeLong(
+                uprn == null || uprn.isBlank()
+                        ? LocalAddressIndex.NO_UPRN
+                        : Long.parseLong(uprn.trim()));
+        for (int i = 1; i < address.length; i++) {
+            writeText(records, address[i]);
+        }
+    }
+
+    private static void writeText(DataOutputStream records, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            records.writeShort(LocalAddressIndex.NULL_TEXT);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= LocalAddressIndex.NULL_TEXT) {
+            throw new IOException("Address field too long for the index: " + value);
+        }
+        records.writeShort(bytes.length);
+        records.write(bytes);
+    }
+
+    // Splits on commas outside double quotes, where a doubled quote is a literal quote
+    static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
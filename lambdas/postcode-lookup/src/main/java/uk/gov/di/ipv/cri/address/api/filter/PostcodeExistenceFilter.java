@@ -0,0 +1,198 @@
+package uk.gov.di.ipv.cri.address.api.filter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A Bloom filter of every postcode in a published postcode list such as Code-Point Open, bundled
+ * with the lambda so a postcode that does not exist is answered with no results without calling
+ * Ordnance Survey. A postcode the filter has never seen is definitely not in the list, a postcode
+ * it has seen may still be a false positive at roughly the rate it was built for.
+ *
+ * <p>The filter is built offline by {@link PostcodeExistenceFilterBuilder} and loaded once when
+ * the handler is created. It only knows the postcodes in the list it was built from, so it has to
+ * be rebuilt with each release of the list or new postcodes will be rejected.
+ */
+public class PostcodeExistenceFilter {
+    public static final String FILTER_REJECTED_METRIC = "postcode_filter_rejected";
+    public static final String FILTER_FALSE_POSITIVE_METRIC = "postcode_filter_false_positive";
+    public static final String FILTER_SIZE_METRIC = "postcode_filter_size";
+    public static final String FILTER_EXPECTED_FALSE_POSITIVE_RATE_METRIC =
+            "postcode_filter_expected_false_positive_rate";
+
+    static final String RESOURCE_NAME = "/postcode-existence-filter.bin";
+    static final int MAGIC = 0x50434246;
+    static final int VERSION = 1;
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final double expectedFalsePositiveRate;
+    private final EventProbe eventProbe;
+    private final AtomicBoolean sizeReported = new AtomicBoolean(false);
+
+    PostcodeExistenceFilter(
+            long[] bits, int hashCount, double expectedFalsePositiveRate, EventProbe eventProbe) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length * Long.SIZE;
+        this.hashCount = hashCount;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.eventProbe = eventProbe;
+    }
+
+    /** An empty filter sized for the given number of postcodes and false positive rate. */
+    static PostcodeExistenceFilter create(
+            int expectedPostcodes, double falsePositiveRate, EventProbe eventProbe) {
+        double hashesNeeded = -Math.log(falsePositiveRate) / Math.log(2);
+        double bitsNeeded = expectedPostcodes * hashesNeeded / Math.log(2);
+        int words = (int) Math.max(1, Math.ceil(bitsNeeded / Long.SIZE));
+        int hashCount = (int) Math.max(1, Math.round(hashesNeeded));
+        return new PostcodeExistenceFilter(
+                new long[words], hashCount, falsePositiveRate, eventProbe);
+    }
+
+    public static PostcodeExistenceFilter disabled() {
+        return new PostcodeExistenceFilter(new long[0], 0, 0, null);
+    }
+
+    /** Loads the filter bundled at build time, and is disabled if none was. */
+    @ExcludeFromGeneratedCoverageReport
+    public static PostcodeExistenceFilter loadBundled(EventProbe eventProbe) {
+        try (InputStream resource =
+                PostcodeExistenceFilter.class.getResourceAsStream(RESOURCE_NAME)) {
+            if (resource == null) {
+                LOGGER.warn("Postcode existence filter is enabled but was not bundled");
+                return disabled();
+            }
+            return read(resource, eventProbe);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load the postcode existence filter", e);
+            return disabled();
+        }
+    }
+
+    public static PostcodeExistenceFilter read(InputStream input, EventProbe eventProbe)
+            throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a version " + VERSION + " postcode existence filter");
+        }
+        int hashCount = data.readInt();
+        double expectedFalsePositiveRate = data.readDouble();
+        long[] bits = new long[data.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = data.readLong();
+        }
+        return new PostcodeExistenceFilter(bits, hashCount, expectedFalsePositiveRate, eventProbe);
+    }
+
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(hashCount);
+        data.writeDouble(expectedFalsePositiveRate);
+        data.writeInt(bits.length);
+        for (long word : bits) {
+            data.writeLong(word);
+        }
+        data.flush();
+    }
+
+    public boolean isEnabled() {
+        return hashCount > 0;
+    }
+
+    /**
+     * Returns false only when the postcode is definitely not in the list the filter was built
+     * from, counting it as an Ordnance Survey call saved.
+     */
+    public boolean mightExist(ParsedPostcode postcode) {
+        if (!isEnabled()) {
+            return true;
+        }
+        reportSize();
+
+        if (mightContain(postcode.normalised())) {
+            return true;
+        }
+        eventProbe.counterMetric(FILTER_REJECTED_METRIC);
+        return false;
+    }
+
+    /**
+     * Called when Ordnance Survey answers 404 for a postcode the filter let through. A 200 with no
+     * results is not counted, as the postcode exists.
+     */
+    public void recordFalsePositive() {
+        if (isEnabled()) {
+            eventProbe.counterMetric(FILTER_FALSE_POSITIVE_METRIC);
+        }
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    boolean mightContain(CharSequence normalisedPostcode) {
+        long hash = hash(normalisedPostcode);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(firstHash + (long) i * secondHash, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void put(CharSequence normalisedPostcode) {
+        long hash = hash(normalisedPostcode);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(firstHash + (long) i * secondHash, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    // Reported once per container, from a request so the metrics are flushed with it
+    private void reportSize() {
+        if (sizeReported.compareAndSet(false, true)) {
+            eventProbe.counterMetric(FILTER_SIZE_METRIC, sizeInBytes(), MetricUnit.BYTES);
+            eventProbe.counterMetric(
+                    FILTER_EXPECTED_FALSE_POSITIVE_RATE_METRIC,
+                    expectedFalsePositiveRate * 100,
+                    MetricUnit.PERCENT);
+        }
+    }
+
+    // 64 bit FNV-1a with a final mix, split into the two hashes of the double hashing scheme
+    private static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.di.ipv.cri.address.api.filter;
+
+import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a postcode list into the {@link PostcodeExistenceFilter} bundled with the lambda. Run by
+ * the {@code buildPostcodeExistenceFilter} Gradle task rather than at runtime.
+ *
+ * <p>Reads CSV files with the postcode in the first column, as in Code-Point Open. Given a
+ * directory it reads every {@code .csv} file in it. Lines whose first column is not a postcode,
+ * such as headers, are skipped.
+ */
+public final class PostcodeExistenceFilterBuilder {
+
+    private PostcodeExistenceFilterBuilder() {
+        throw new IllegalStateException("This class is not meant to be instantiated");
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException(
+                    "Expected <postcode csv or directory> <output file> <false positive rate>");
+        }
+
+        Set<String> postcodes = readPostcodes(Path.of(args[0]));
+        PostcodeExistenceFilter filter = build(postcodes, Double.parseDouble(args[2]));
+
+        Path output = Path.of(args[1]);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (OutputStream out = Files.newOutputStream(output)) {
+            filter.write(out);
+        }
+        System.out.printf("Wrote %d postcodes to %s%n", postcodes.size(), output);
+    }
+
+    static PostcodeExistenceFilter build(Set<String> postcodes, double falsePositiveRate) {
+        PostcodeExistenceFilter filter =
+                PostcodeExistenceFilter.create(postcodes.size(), falsePositiveRate, null);
+        postcodes.forEach(filter::put);
+        return filter;
+    }
+
+    static Set<String> readPostcodes(Path source) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> paths = Files.list(source)) {
+                files = paths.filter(path -> path.toString().endsWith(".csv")).sorted().toList();
+            }
+        } else {
+            files = List.of(source);
+        }
+
+        Set<String> postcodes = new HashSet<>();
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    addPostcode(postcodes, line);
+                }
+            }
+        }
+        return postcodes;
+    }
+
+    private static void addPostcode(Set<String> postcodes, String csvLine) {
+        int endOfColumn = csvLine.indexOf(',');
+        String column = endOfColumn < 0 ? csvLine : csvLine.substring(0, endOfColumn);
+        try {
+            postcodes.add(ParsedPostcode.parse(column.replace("\"", "")).normalised());
+        } catch (PostcodeValidationException e) {
+            // Not a postcode, e.g. a header line
+        }
+    }
+}
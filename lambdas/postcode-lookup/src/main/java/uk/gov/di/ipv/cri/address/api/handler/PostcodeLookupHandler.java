@@ -17,12 +17,25 @@ import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupBadRequestExceptio
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupProcessingException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupTimeoutException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+import uk.gov.di.ipv.cri.address.api.http.ResponseCaching;
+import uk.gov.di.ipv.cri.address.api.http.ResponseCompression;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
 import uk.gov.di.ipv.cri.address.api.models.Postcode;
+import uk.gov.di.ipv.cri.address.api.pii.PiiPostcodeMasker;
+import uk.gov.di.ipv.cri.address.api.service.OrdnanceSurveyResponseParser;
+import uk.gov.di.ipv.cri.address.api.service.PostcodeLookupOptions;
 import uk.gov.di.ipv.cri.address.api.service.PostcodeLookupService;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventBatch;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventDispatcher;
+import uk.gov.di.ipv.cri.address.library.util.SnapStartHooks;
 import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventType;
 import uk.gov.di.ipv.cri.common.library.exception.SessionExpiredException;
 import uk.gov.di.ipv.cri.common.library.exception.SessionNotFoundException;
+import uk.gov.di.ipv.cri.common.library.exception.SqsException;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
 import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.persistence.item.SessionItem;
 import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
@@ -34,12 +47,19 @@ import uk.gov.di.ipv.cri.common.library.util.ClientProviderFactory;
 import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 import uk.gov.di.ipv.cri.common.library.util.TempCleaner;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import static com.nimbusds.oauth2.sdk.OAuth2Error.ACCESS_DENIED;
 import static software.amazon.awssdk.http.HttpStatusCode.BAD_REQUEST;
@@ -48,6 +68,7 @@ import static software.amazon.awssdk.http.HttpStatusCode.NOT_FOUND;
 import static software.amazon.awssdk.http.HttpStatusCode.OK;
 import static software.amazon.awssdk.http.HttpStatusCode.REQUEST_TIMEOUT;
 import static software.amazon.awssdk.http.HttpStatusCode.UNAUTHORIZED;
+import static uk.gov.di.ipv.cri.address.api.constants.OrdnanceSurveyConstants.ORDNANCE_SURVEY_BASE_URL;
 import static uk.gov.di.ipv.cri.address.library.error.ErrorResponse.LOOKUP_SERVER;
 import static uk.gov.di.ipv.cri.address.library.error.ErrorResponse.LOOKUP_TIMEOUT;
 import static uk.gov.di.ipv.cri.address.library.error.ErrorResponse.LOOK_ERROR;
@@ -63,6 +84,10 @@ public class PostcodeLookupHandler
     private final SessionService sessionService;
     private final EventProbe eventProbe;
     private final AuditService auditService;
+    private final AuditEventDispatcher auditEventDispatcher;
+    private final ResponseCaching responseCaching;
+    private final ResponseCompression responseCompression;
+    private final SnapStartHooks snapStartHooks;
     protected static final String SESSION_ID = "session_id";
     protected static final String LAMBDA_NAME = "postcode_lookup";
     protected static final String POSTCODE_ERROR = "postcode_lookup_error";
@@ -70,7 +95,17 @@ public class PostcodeLookupHandler
     protected static final String POSTCODE_ERROR_MESSAGE = "postcode_lookup_error_message";
 
     public static final long CONNECTION_TIMEOUT_SECONDS = 15;
+    // Shared cache writes may hold the response back this long at most, and never into the last
+    // part of the invocation the response itself needs
+    static final Duration MAX_BACKGROUND_WORK_WAIT = Duration.ofMillis(300);
+    private static final long RESPONSE_RESERVE_MILLIS = 500;
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String PRIMING_REQUEST_BODY = "{\"postcode\":\"BA2 5AA\"}";
+    private static final String PRIMING_ORDNANCE_SURVEY_RESPONSE =
+            """
+            {"header":{"totalresults":1},"results":[{"DPA":{"UPRN":"100120012077",\
+            "BUILDING_NUMBER":"8","THOROUGHFARE_NAME":"HADLEY ROAD","POST_TOWN":"BATH",\
+            "POSTCODE":"BA2 5AA"}}]}""";
 
     @ExcludeFromGeneratedCoverageReport
     public PostcodeLookupHandler() {
@@ -90,25 +125,57 @@ public class PostcodeLookupHandler
                         .build();
 
         this.eventProbe = new EventProbe();
+        Map<String, String> environment = System.getenv();
 
+        PostcodeLookupOptions lookupOptions =
+                PostcodeLookupOptions.fromEnvironment(
+                                environment,
+                                configurationService,
+                                eventProbe,
+                                tableName ->
+                                        new DataStore<>(
+                                                tableName,
+                                                PostcodeCacheItem.class,
+                                                clientProviderFactory.getDynamoDbEnhancedClient()),
+                                createCacheWriteExecutor())
+                        .build();
         this.postcodeLookupService =
                 new PostcodeLookupService(
                         configurationService,
                         httpClient,
                         LogManager.getLogger(),
                         eventProbe,
-                        OBJECT_MAPPER);
+                        OBJECT_MAPPER,
+                        lookupOptions);
 
         this.sessionService =
                 new SessionService(
                         configurationService, clientProviderFactory.getDynamoDbEnhancedClient());
 
+        AuditEventFactory auditEventFactory =
+                new AuditEventFactory(configurationService, Clock.systemDefaultZone());
         this.auditService =
                 new AuditService(
                         clientProviderFactory.getSqsClient(),
                         configurationService,
                         OBJECT_MAPPER,
-                        new AuditEventFactory(configurationService, Clock.systemDefaultZone()));
+                        auditEventFactory);
+        this.auditEventDispatcher =
+                AuditEventDispatcher.fromEnvironment(
+                        environment,
+                        clientProviderFactory.getSqsClient(),
+                        OBJECT_MAPPER,
+                        auditEventFactory,
+                        eventProbe);
+        this.responseCaching = ResponseCaching.fromEnvironment(environment, eventProbe);
+        this.responseCompression = ResponseCompression.fromEnvironment(environment, eventProbe);
+        this.snapStartHooks =
+                SnapStartHooks.register(
+                        PostcodeLookupHandler::primeRequestHandling,
+                        () ->
+                                postcodeLookupService.warmUpConnection(
+                                        URI.create(ORDNANCE_SURVEY_BASE_URL)),
+                        eventProbe);
     }
 
     public PostcodeLookupHandler(
@@ -116,10 +183,32 @@ public class PostcodeLookupHandler
             SessionService sessionService,
             EventProbe eventProbe,
             AuditService auditService) {
+        this(
+                postcodeLookupService,
+                sessionService,
+                eventProbe,
+                auditService,
+                AuditEventDispatcher.disabled(),
+                ResponseCaching.disabled(),
+                ResponseCompression.disabled());
+    }
+
+    public PostcodeLookupHandler(
+            PostcodeLookupService postcodeLookupService,
+            SessionService sessionService,
+            EventProbe eventProbe,
+            AuditService auditService,
+            AuditEventDispatcher auditEventDispatcher,
+            ResponseCaching responseCaching,
+            ResponseCompression responseCompression) {
         this.postcodeLookupService = postcodeLookupService;
         this.sessionService = sessionService;
         this.eventProbe = eventProbe;
         this.auditService = auditService;
+        this.auditEventDispatcher = auditEventDispatcher;
+        this.responseCaching = responseCaching;
+        this.responseCompression = responseCompression;
+        this.snapStartHooks = SnapStartHooks.disabled();
     }
 
     @Override
@@ -127,29 +216,32 @@ public class PostcodeLookupHandler
     @FlushMetrics(namespace = "di-ipv-cri-address-api", captureColdStart = true)
     public APIGatewayProxyResponseEvent handleRequest(
             APIGatewayProxyRequestEvent input, Context context) {
+        long startTime = System.nanoTime();
+        try {
+            return lookupPostcode(input, context);
+        } finally {
+            snapStartHooks.recordInvocation(startTime);
+        }
+    }
+
+    private APIGatewayProxyResponseEvent lookupPostcode(
+            APIGatewayProxyRequestEvent input, Context context) {
         String sessionId = input.getHeaders().get(SESSION_ID);
 
         try {
-            String postcode = getPostcodeFromRequest(input);
+            // Parsed once, then shared by the audit events, the cache lookups and the OS request.
+            // A malformed postcode is rejected here, before the session, SQS or OS are called.
+            ParsedPostcode parsedPostcode = ParsedPostcode.parse(getPostcodeFromRequest(input));
 
             SessionItem sessionItem = sessionService.validateSessionId(sessionId);
             eventProbe.log(Level.INFO, "found session");
 
-            auditService.sendAuditEvent(
-                    AuditEventType.REQUEST_SENT,
-                    postcodeLookupService.getAuditEventContext(
-                            postcode, input.getHeaders(), sessionItem));
-
-            List<CanonicalAddress> results =
-                    postcodeLookupService.lookupPostcode(postcode, sessionItem.getClientId());
-
-            eventProbe.counterMetric(LAMBDA_NAME);
-            auditService.sendAuditEvent(
-                    AuditEventType.RESPONSE_RECEIVED,
-                    postcodeLookupService.getAuditEventContext(
-                            postcode, input.getHeaders(), sessionItem));
-
-            return ApiGatewayResponseGenerator.proxyJsonResponse(OK, results);
+            try {
+                return auditAndLookupPostcode(input, parsedPostcode, sessionItem);
+            } finally {
+                // Lambda freezes the container once we return, stalling any cache writes left
+                postcodeLookupService.awaitBackgroundWork(backgroundWorkWait(context));
+            }
         } catch (PostcodeValidationException | PostcodeLookupBadRequestException e) {
             return handleException(e, INVALID_POSTCODE.getMessage(), BAD_REQUEST);
         } catch (PostcodeLookupTimeoutException e) {
@@ -167,6 +259,147 @@ public class PostcodeLookupHandler
         }
     }
 
+    static Duration backgroundWorkWait(Context context) {
+        if (context == null) {
+            return MAX_BACKGROUND_WORK_WAIT;
+        }
+        long remainingMillis = context.getRemainingTimeInMillis() - RESPONSE_RESERVE_MILLIS;
+        return Duration.ofMillis(
+                Math.max(0, Math.min(MAX_BACKGROUND_WORK_WAIT.toMillis(), remainingMillis)));
+    }
+
+    private APIGatewayProxyResponseEvent auditAndLookupPostcode(
+            APIGatewayProxyRequestEvent input, ParsedPostcode postcode, SessionItem sessionItem)
+            throws SqsException, JsonProcessingException {
+        AuditEventContext auditEventContext =
+                postcodeLookupService.getAuditEventContext(
+                        postcode, input.getHeaders(), sessionItem);
+
+        if (auditEventDispatcher.isEnabled()) {
+            return lookupPostcodeWithBatchedAudit(input, postcode, auditEventContext, sessionItem);
+        }
+
+        List<CanonicalAddress> results =
+                postcodeLookupService.isAsyncLookupEnabled()
+                        ? lookupPostcodeWhileAuditing(
+                                postcode,
+                                sessionItem,
+                                () ->
+                                        auditService.sendAuditEvent(
+                                                AuditEventType.REQUEST_SENT, auditEventContext))
+                        : sendRequestSentAndLookupPostcode(
+                                postcode, auditEventContext, sessionItem);
+
+        eventProbe.counterMetric(LAMBDA_NAME);
+        auditService.sendAuditEvent(AuditEventType.RESPONSE_RECEIVED, auditEventContext);
+
+        return createSuccessResponse(input, results);
+    }
+
+    private List<CanonicalAddress> sendRequestSentAndLookupPostcode(
+            ParsedPostcode postcode, AuditEventContext auditEventContext, SessionItem sessionItem)
+            throws SqsException, JsonProcessingException {
+        auditService.sendAuditEvent(AuditEventType.REQUEST_SENT, auditEventContext);
+
+        return postcodeLookupService.lookupPostcode(postcode, sessionItem.getClientId());
+    }
+
+    // Starts the OS request first so the REQUEST_SENT audit event is sent while it is in flight.
+    // Session validation has to finish beforehand as the OS url is selected by the client id.
+    private List<CanonicalAddress> lookupPostcodeWhileAuditing(
+            ParsedPostcode postcode, SessionItem sessionItem, RequestSentAudit requestSentAudit)
+            throws SqsException, JsonProcessingException {
+        CompletableFuture<List<CanonicalAddress>> pendingLookup =
+                postcodeLookupService.lookupPostcodeAsync(postcode, sessionItem.getClientId());
+        try {
+            requestSentAudit.send();
+
+            return PostcodeLookupService.awaitLookup(pendingLookup);
+        } finally {
+            // No-op once complete, otherwise stops waiting on a lookup nobody will read
+            pendingLookup.cancel(true);
+        }
+    }
+
+    // REQUEST_SENT and RESPONSE_RECEIVED always go out together in one SendMessageBatch after the
+    // lookup, overlapping response serialization and compression in async mode. With the async
+    // lookup REQUEST_SENT is only created while OS is working. The trade-off is that REQUEST_SENT
+    // is lost if the invocation times out waiting for the lookup; a lookup that fails still
+    // delivers it. Turn batching off to send REQUEST_SENT before the lookup completes.
+    private APIGatewayProxyResponseEvent lookupPostcodeWithBatchedAudit(
+            APIGatewayProxyRequestEvent input,
+            ParsedPostcode postcode,
+            AuditEventContext auditEventContext,
+            SessionItem sessionItem)
+            throws SqsException, JsonProcessingException {
+        AuditEventBatch auditEvents = auditEventDispatcher.newBatch();
+
+        List<CanonicalAddress> results;
+        try {
+            if (postcodeLookupService.isAsyncLookupEnabled()) {
+                results =
+                        lookupPostcodeWhileAuditing(
+                                postcode,
+                                sessionItem,
+                                () ->
+                                        auditEvents.add(
+                                                AuditEventType.REQUEST_SENT, auditEventContext));
+            } else {
+                auditEvents.add(AuditEventType.REQUEST_SENT, auditEventContext);
+                results = postcodeLookupService.lookupPostcode(postcode, sessionItem.getClientId());
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            try {
+                auditEvents.send();
+            } catch (SqsException sendFailure) {
+                e.addSuppressed(sendFailure);
+            }
+            throw e;
+        }
+
+        eventProbe.counterMetric(LAMBDA_NAME);
+        auditEvents.add(AuditEventType.RESPONSE_RECEIVED, auditEventContext);
+
+        return auditEvents.dispatch(() -> createSuccessResponse(input, results));
+    }
+
+    // Tags the serialized addresses for caching, then compresses them if the caller accepts it
+    private APIGatewayProxyResponseEvent createSuccessResponse(
+            APIGatewayProxyRequestEvent input, List<CanonicalAddress> results) {
+        return responseCompression.apply(
+                input,
+                responseCaching.apply(
+                        input, ApiGatewayResponseGenerator.proxyJsonResponse(OK, results)));
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    private static Executor createCacheWriteExecutor() {
+        return Executors.newSingleThreadExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "postcode-cache-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Runs before the SnapStart snapshot so request and OS response parsing, postcode masking and
+    // response serialization are already loaded when the first request arrives
+    @ExcludeFromGeneratedCoverageReport
+    private static void primeRequestHandling() throws IOException {
+        String postcode = OBJECT_MAPPER.readValue(PRIMING_REQUEST_BODY, Postcode.class).getValue();
+        ParsedPostcode.parse(postcode).cacheKey("priming");
+        PiiPostcodeMasker.sanitize("Requested postcode was " + postcode);
+
+        List<CanonicalAddress> addresses =
+                new OrdnanceSurveyResponseParser(OBJECT_MAPPER.getFactory())
+                        .parseAddresses(
+                                new ByteArrayInputStream(
+                                        PRIMING_ORDNANCE_SURVEY_RESPONSE.getBytes(
+                                                StandardCharsets.UTF_8)))
+                        .orElseThrow();
+        ApiGatewayResponseGenerator.proxyJsonResponse(OK, addresses);
+    }
+
     private String getPostcodeFromRequest(APIGatewayProxyRequestEvent input)
             throws PostcodeLookupBadRequestException {
         try {
@@ -211,4 +444,9 @@ public class PostcodeLookupHandler
                         POSTCODE_ERROR_MESSAGE,
                         EventProbe.clean(e.getMessage())));
     }
+
+    @FunctionalInterface
+    private interface RequestSentAudit {
+        void send() throws SqsException;
+    }
 }
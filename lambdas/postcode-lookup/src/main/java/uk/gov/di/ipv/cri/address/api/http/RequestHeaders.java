@@ -0,0 +1,23 @@
+package uk.gov.di.ipv.cri.address.api.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.util.Map;
+
+final class RequestHeaders {
+    private RequestHeaders() {
+        throw new IllegalStateException("This class is not meant to be instantiated");
+    }
+
+    // API Gateway passes header names as the client sent them
+    static String get(APIGatewayProxyRequestEvent request, String name) {
+        if (request.getHeaders() == null) {
+            return null;
+        }
+        return request.getHeaders().entrySet().stream()
+                .filter(header -> name.equalsIgnoreCase(header.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+}
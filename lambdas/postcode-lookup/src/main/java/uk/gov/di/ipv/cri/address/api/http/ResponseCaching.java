@@ -0,0 +1,129 @@
+package uk.gov.di.ipv.cri.address.api.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static software.amazon.awssdk.http.HttpStatusCode.OK;
+
+/**
+ * Adds HTTP caching headers to successful postcode lookup responses. The strong {@code ETag} is a
+ * SHA-256 of the serialized addresses, so the same list always gets the same tag, and a request
+ * whose {@code If-None-Match} already holds it is answered with a bodyless 304. {@code
+ * Cache-Control: private, max-age} lets the caller reuse the list for the configured time without
+ * asking again; shared caches must not store it as it is per user.
+ */
+public class ResponseCaching {
+    public static final String NOT_MODIFIED_METRIC = "postcode_lookup_not_modified";
+    public static final String ETAG_HEADER = "ETag";
+    public static final String CACHE_CONTROL_HEADER = "Cache-Control";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final int NOT_MODIFIED = 304;
+
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String WEAK_PREFIX = "W/";
+
+    private final String cacheControl;
+    private final EventProbe eventProbe;
+
+    public ResponseCaching(Duration maxAge, EventProbe eventProbe) {
+        this.cacheControl = "private, max-age=" + maxAge.toSeconds();
+        this.eventProbe = eventProbe;
+    }
+
+    private ResponseCaching() {
+        this.cacheControl = null;
+        this.eventProbe = null;
+    }
+
+    /** Leaves every response as it is. */
+    public static ResponseCaching disabled() {
+        return new ResponseCaching();
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static ResponseCaching fromEnvironment(
+            Map<String, String> environment, EventProbe eventProbe) {
+        String maxAgeSeconds = environment.get("POSTCODE_LOOKUP_RESPONSE_MAX_AGE_SECONDS");
+        if (maxAgeSeconds == null || maxAgeSeconds.isBlank()) {
+            return disabled();
+        }
+        return new ResponseCaching(Duration.ofSeconds(Long.parseLong(maxAgeSeconds)), eventProbe);
+    }
+
+    public boolean isEnabled() {
+        return cacheControl != null;
+    }
+
+    /**
+     * @return the response with caching headers, or a 304 in its place if the request already has
+     *     the same body; anything other than a 200 is returned unchanged
+     */
+    public APIGatewayProxyResponseEvent apply(
+            APIGatewayProxyRequestEvent request, APIGatewayProxyResponseEvent response) {
+        if (!isEnabled() || response.getStatusCode() != OK || response.getBody() == null) {
+            return response;
+        }
+
+        String entityTag = entityTag(response.getBody());
+        Map<String, String> headers = new HashMap<>();
+        if (response.getHeaders() != null) {
+            headers.putAll(response.getHeaders());
+        }
+        headers.put(ETAG_HEADER, entityTag);
+        headers.put(CACHE_CONTROL_HEADER, cacheControl);
+
+        if (matchesAny(RequestHeaders.get(request, IF_NONE_MATCH_HEADER), entityTag)) {
+            eventProbe.counterMetric(NOT_MODIFIED_METRIC);
+            headers.remove(CONTENT_TYPE_HEADER);
+            // A 304 has to carry the Vary the 200 would have, or a cache in between could update
+            // the stored entry of the other encoding with it
+            headers.put(
+                    ResponseCompression.VARY_HEADER, ResponseCompression.ACCEPT_ENCODING_HEADER);
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(NOT_MODIFIED)
+                    .withHeaders(headers);
+        }
+        return response.withHeaders(headers);
+    }
+
+    static String entityTag(String body) {
+        try {
+            byte[] digest =
+                    MessageDigest.getInstance("SHA-256")
+                            .digest(body.getBytes(StandardCharsets.UTF_8));
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix added by a proxy still matches, as
+    // does the tag of the gzipped body
+    private static boolean matchesAny(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(WEAK_PREFIX)) {
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals("*")
+                    || tag.equals(entityTag)
+                    || tag.equals(ResponseCompression.gzipEntityTag(entityTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+package uk.gov.di.ipv.cri.address.api.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static software.amazon.awssdk.http.HttpStatusCode.OK;
+
+/**
+ * Gzips successful postcode lookup responses above a size threshold when the request's {@code
+ * Accept-Encoding} allows it. The address lists of large postcodes repeat the same street,
+ * locality and postcode in every entry, so they shrink several times over. API Gateway's proxy
+ * integration only carries text, so the compressed body is base64 encoded and flagged as such for
+ * API Gateway to decode.
+ *
+ * <p>Records the compression ratio and the CPU time spent compressing, to check the smaller
+ * response is worth the extra work at the lambda's memory size.
+ */
+public class ResponseCompression {
+    public static final String COMPRESSION_RATIO_METRIC = "postcode_lookup_compression_ratio";
+    public static final String COMPRESSION_CPU_TIME_METRIC = "postcode_lookup_compression_cpu_time";
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String VARY_HEADER = "Vary";
+    public static final String GZIP = "gzip";
+
+    private static final String GZIP_ETAG_SUFFIX = "-" + GZIP + "\"";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final int minBytes;
+    private final EventProbe eventProbe;
+
+    public ResponseCompression(int minBytes, EventProbe eventProbe) {
+        this.minBytes = minBytes;
+        this.eventProbe = eventProbe;
+    }
+
+    /** Leaves every response uncompressed. */
+    public static ResponseCompression disabled() {
+        return new ResponseCompression(-1, null);
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static ResponseCompression fromEnvironment(
+            Map<String, String> environment, EventProbe eventProbe) {
+        if (!Boolean.parseBoolean(environment.get("POSTCODE_LOOKUP_COMPRESSION_ENABLED"))) {
+            return disabled();
+        }
+        String minBytes = environment.get("POSTCODE_LOOKUP_COMPRESSION_MIN_BYTES");
+        return new ResponseCompression(
+                Integer.parseInt(Optional.ofNullable(minBytes).orElse("2048")), eventProbe);
+    }
+
+    public boolean isEnabled() {
+        return minBytes >= 0;
+    }
+
+    /**
+     * @return the response gzipped, or unchanged if it is not a 200, is below the threshold or the
+     *     request does not accept gzip
+     */
+    public APIGatewayProxyResponseEvent apply(
+            APIGatewayProxyRequestEvent request, APIGatewayProxyResponseEvent response) {
+        if (!isEnabled()
+                || response.getStatusCode() != OK
+                || response.getBody() == null
+                || Boolean.TRUE.equals(response.getIsBase64Encoded())) {
+            return response;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        if (response.getHeaders() != null) {
+            headers.putAll(response.getHeaders());
+        }
+        // Any cache in between has to keep the encodings apart, compressed or not
+        headers.put(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        response.withHeaders(headers);
+
+        byte[] body = response.getBody().getBytes(StandardCharsets.UTF_8);
+        if (body.length < minBytes
+                || !acceptsGzip(RequestHeaders.get(request, ACCEPT_ENCODING_HEADER))) {
+            return response;
+        }
+
+        long startCpuTime = currentThreadCpuTime();
+        byte[] compressed = gzip(body);
+        long cpuTimeNanos = currentThreadCpuTime() - startCpuTime;
+        double ratio = (double) body.length / compressed.length;
+        eventProbe.counterMetric(COMPRESSION_RATIO_METRIC, ratio, MetricUnit.NONE);
+        eventProbe.counterMetric(
+                COMPRESSION_CPU_TIME_METRIC, cpuTimeNanos / 1000d, MetricUnit.MICROSECONDS);
+        if (compressed.length >= body.length) {
+            return response;
+        }
+
+        headers.put(CONTENT_ENCODING_HEADER, GZIP);
+        headers.computeIfPresent(ResponseCaching.ETAG_HEADER, (name, tag) -> gzipEntityTag(tag));
+        return response.withBody(Base64.getEncoder().encodeToString(compressed))
+                .withIsBase64Encoded(true);
+    }
+
+    /**
+     * A strong entity tag has to differ between encodings of the same body, so the gzipped body
+     * gets the tag of the uncompressed body with a suffix.
+     */
+    static String gzipEntityTag(String entityTag) {
+        return entityTag.endsWith("\"")
+                ? entityTag.substring(0, entityTag.length() - 1) + GZIP_ETAG_SUFFIX
+                : entityTag;
+    }
+
+    // Any q value other than zero accepts the coding; "*" covers gzip unless it is listed itself
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        boolean wildcard = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parameters = element.split(";");
+            String coding = parameters[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = isNonZeroQuality(parameters);
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isNonZeroQuality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static long currentThreadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported()
+                ? THREADS.getCurrentThreadCpuTime()
+                : System.nanoTime();
+    }
+}
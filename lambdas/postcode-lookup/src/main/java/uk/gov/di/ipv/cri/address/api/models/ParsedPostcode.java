@@ -0,0 +1,79 @@
+package uk.gov.di.ipv.cri.address.api.models;
+
+import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+import uk.gov.di.ipv.cri.address.api.validation.PostcodeValidator;
+
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * A postcode from the request, decoded and normalised once so the audit event, the Ordnance Survey
+ * request and the caches all reuse the same forms rather than each decoding the raw value again.
+ *
+ * <p>Parsing rejects a postcode that does not have the shape of a UK postcode, see {@link
+ * PostcodeValidator}.
+ */
+public final class ParsedPostcode {
+    private final String decoded;
+    private final String normalised;
+
+    private ParsedPostcode(String decoded, String normalised) {
+        this.decoded = decoded;
+        this.normalised = normalised;
+    }
+
+    public static ParsedPostcode parse(String postcode) {
+        if (postcode == null || postcode.isBlank()) {
+            throw new PostcodeValidationException("Postcode must not be null or blank");
+        }
+
+        String decoded = URLDecoder.decode(postcode, Charset.defaultCharset());
+        if (!PostcodeValidator.isValid(decoded)) {
+            throw new PostcodeValidationException("Postcode is not a valid UK postcode");
+        }
+        return new ParsedPostcode(decoded, normalise(decoded));
+    }
+
+    /** The postcode as sent by the user, URL decoded. This is what is sent to Ordnance Survey. */
+    public String decoded() {
+        return decoded;
+    }
+
+    /** Upper case with all whitespace removed, e.g. {@code SW1A1AA}. */
+    public String normalised() {
+        return normalised;
+    }
+
+    public String cacheKey(String clientId) {
+        return normalised + "|" + clientId;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ParsedPostcode parsedPostcode
+                && decoded.equals(parsedPostcode.decoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return decoded.hashCode();
+    }
+
+    /** Safe to log, every character of the decoded postcode replaced with {@code *}. */
+    @Override
+    public String toString() {
+        return "*".repeat(decoded.length());
+    }
+
+    private static String normalise(String decoded) {
+        StringBuilder normalised = new StringBuilder(decoded.length());
+        for (int i = 0; i < decoded.length(); i++) {
+            char c = decoded.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalised.append(c);
+            }
+        }
+        return normalised.toString().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,241 @@
+package uk.gov.di.ipv.cri.address.api.resilience;
+
+import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupTimeoutException;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.CONNECTION_TIMEOUT_SECONDS;
+
+/**
+ * Guards the calls to Ordnance Survey from a warm container. The outcome of the most recent calls
+ * is kept in a rolling window; once enough of them have failed the circuit opens and lookups fail
+ * straight away with a {@link PostcodeLookupTimeoutException} rather than each waiting for OS to
+ * time out. After the open period a single trial call is let through, which closes the circuit if
+ * it succeeds and reopens it if it fails.
+ *
+ * <p>While closed, the request timeout follows the p99 latency of recent responses, with headroom,
+ * between a configured minimum and {@link
+ * uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler#CONNECTION_TIMEOUT_SECONDS}. A
+ * request that times out counts as taking the timeout it hit, so the timeout grows when OS slows
+ * down rather than failing every request, and opening the circuit drops the recent latencies so
+ * it starts again from the maximum once closed.
+ */
+public class CircuitBreaker {
+    public static final String CIRCUIT_OPENED_METRIC = "postcode_lookup_circuit_opened";
+    public static final String CIRCUIT_HALF_OPENED_METRIC = "postcode_lookup_circuit_half_opened";
+    public static final String CIRCUIT_CLOSED_METRIC = "postcode_lookup_circuit_closed";
+    public static final String CIRCUIT_REJECTED_METRIC = "postcode_lookup_circuit_rejected";
+
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+
+    private static final double TIMEOUT_PERCENTILE = 99;
+    private static final long TIMEOUT_HEADROOM = 2;
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final long minTimeoutMillis;
+    private final long maxTimeoutMillis;
+    private final Clock clock;
+    private final EventProbe eventProbe;
+    private final LatencyWindow latencies;
+
+    private State state = State.CLOSED;
+    private int nextCall;
+    private int callCount;
+    private int failureCount;
+    private long openedAt;
+    private long trialStartedAt;
+    private Duration requestTimeout;
+
+    public CircuitBreaker(
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            Duration openDuration,
+            Duration minTimeout,
+            Duration maxTimeout,
+            Clock clock,
+            EventProbe eventProbe) {
+        this.failures = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.minTimeoutMillis = minTimeout.toMillis();
+        this.maxTimeoutMillis = maxTimeout.toMillis();
+        this.clock = clock;
+        this.eventProbe = eventProbe;
+        this.latencies = new LatencyWindow(windowSize);
+        this.requestTimeout = maxTimeout;
+    }
+
+    public static CircuitBreaker disabled() {
+        Duration timeout = Duration.ofSeconds(CONNECTION_TIMEOUT_SECONDS);
+        return new CircuitBreaker(
+                0, 0, 1, Duration.ZERO, timeout, timeout, Clock.systemUTC(), null);
+    }
+
+    public boolean isEnabled() {
+        return failures.length > 0;
+    }
+
+    /**
+     * Returns the timeout to give the next Ordnance Survey request, or throws when the circuit is
+     * open. The trial call made after the open period is given the full timeout, as there are no
+     * recent latencies to go on.
+     */
+    public synchronized Duration permitRequest() {
+        if (!isEnabled()) {
+            return requestTimeout;
+        }
+
+        long now = clock.millis();
+        switch (state) {
+            case OPEN -> {
+                if (now < openedAt + openMillis) {
+                    throw reject();
+                }
+                transitionTo(State.HALF_OPEN, CIRCUIT_HALF_OPENED_METRIC);
+                trialStartedAt = now;
+                return Duration.ofMillis(maxTimeoutMillis);
+            }
+            case HALF_OPEN -> {
+                // A trial that never reported back, e.g. from a frozen container, is replaced
+                if (now < trialStartedAt + maxTimeoutMillis) {
+                    throw reject();
+                }
+                trialStartedAt = now;
+                return Duration.ofMillis(maxTimeoutMillis);
+            }
+            default -> {
+                return requestTimeout;
+            }
+        }
+    }
+
+    /**
+     * Returns the timeout for a background request such as a cache refresh, or empty unless the
+     * circuit is closed. It never takes the trial call, and its outcome is not recorded, as it can
+     * finish in a later invocation after the container was frozen and time out on thaw.
+     */
+    public synchronized Optional<Duration> permitBackgroundRequest() {
+        if (isEnabled() && state != State.CLOSED) {
+            return Optional.empty();
+        }
+        return Optional.of(requestTimeout);
+    }
+
+    /** Records a response from Ordnance Survey that shows it is working, including 400 and 404. */
+    public synchronized void recordSuccess(long latencyMillis) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        latencies.record(latencyMillis);
+        if (state == State.HALF_OPEN) {
+            resetCalls();
+            transitionTo(State.CLOSED, CIRCUIT_CLOSED_METRIC);
+        } else if (state == State.CLOSED) {
+            recordCall(false);
+        }
+        updateRequestTimeout();
+    }
+
+    /**
+     * Records a request Ordnance Survey did not answer within the timeout it was given, as a
+     * failure and as a latency of at least that timeout.
+     */
+    public synchronized void recordTimeout(Duration timeout) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        latencies.record(timeout.toMillis());
+        recordFailure();
+        if (state == State.CLOSED) {
+            updateRequestTimeout();
+        }
+    }
+
+    /** Records a connection failure, rate limit or server error from Ordnance Survey. */
+    public synchronized void recordFailure() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            recordCall(true);
+            if (callCount >= minimumCalls && failureCount >= failureRateThreshold * callCount) {
+                open();
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    private PostcodeLookupTimeoutException reject() {
+        eventProbe.counterMetric(CIRCUIT_REJECTED_METRIC);
+        return new PostcodeLookupTimeoutException(
+                "Ordnance Survey circuit breaker is open, not waiting for postcode lookup");
+    }
+
+    private void open() {
+        openedAt = clock.millis();
+        resetCalls();
+        latencies.clear();
+        requestTimeout = Duration.ofMillis(maxTimeoutMillis);
+        transitionTo(State.OPEN, CIRCUIT_OPENED_METRIC);
+    }
+
+    private void transitionTo(State newState, String metric) {
+        state = newState;
+        eventProbe.counterMetric(metric);
+    }
+
+    private void recordCall(boolean failed) {
+        if (callCount == failures.length && failures[nextCall]) {
+            failureCount--;
+        }
+        failures[nextCall] = failed;
+        if (failed) {
+            failureCount++;
+        }
+        nextCall = (nextCall + 1) % failures.length;
+        callCount = Math.min(callCount + 1, failures.length);
+    }
+
+    private void resetCalls() {
+        nextCall = 0;
+        callCount = 0;
+        failureCount = 0;
+    }
+
+    private void updateRequestTimeout() {
+        if (latencies.size() < minimumCalls) {
+            return;
+        }
+        long timeoutMillis = latencies.percentile(TIMEOUT_PERCENTILE) * TIMEOUT_HEADROOM;
+        requestTimeout =
+                Duration.ofMillis(
+                        Math.max(minTimeoutMillis, Math.min(maxTimeoutMillis, timeoutMillis)));
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.di.ipv.cri.address.api.resilience;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of the most recent calls to a dependency, so percentiles follow how it is
+ * behaving now rather than over the life of the container. Once full, each new sample replaces
+ * the oldest.
+ */
+public class LatencyWindow {
+    private final long[] samples;
+    private final long[] sortedSamples;
+    private int nextSample;
+    private int sampleCount;
+
+    public LatencyWindow(int size) {
+        this.samples = new long[size];
+        this.sortedSamples = new long[size];
+    }
+
+    public synchronized void record(long latencyMillis) {
+        if (samples.length == 0) {
+            return;
+        }
+        samples[nextSample] = latencyMillis;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return sampleCount;
+    }
+
+    /**
+     * The nearest-rank percentile of the samples in the window, e.g. {@code percentile(99)}, or
+     * zero when nothing has been recorded.
+     */
+    public synchronized long percentile(double percentile) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        System.arraycopy(samples, 0, sortedSamples, 0, sampleCount);
+        Arrays.sort(sortedSamples, 0, sampleCount);
+        int rank = (int) Math.ceil(percentile / 100 * sampleCount);
+        return sortedSamples[Math.max(0, Math.min(rank, sampleCount) - 1)];
+    }
+
+    public synchronized void clear() {
+        nextSample = 0;
+        sampleCount = 0;
+    }
+}
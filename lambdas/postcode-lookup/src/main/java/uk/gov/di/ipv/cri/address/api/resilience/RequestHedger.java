@@ -0,0 +1,186 @@
+package uk.gov.di.ipv.cri.address.api.resilience;
+
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second, identical request when the first has not completed within a percentile of
+ * recent latency, and uses whichever response arrives first. The slower request is cancelled, or
+ * its response discarded if it has already arrived.
+ *
+ * <p>Every request earns a fraction of a hedge and every hedge spends a whole one, so hedging
+ * never adds more than that fraction of extra requests however slow the dependency gets. Hedging
+ * starts once enough latencies have been recorded to know what slow is. Only primaries that
+ * complete normally are recorded, since a cancelled or failed request says nothing about how long
+ * a response takes.
+ */
+public class RequestHedger {
+    public static final String HEDGE_FIRED_METRIC = "postcode_lookup_hedge_fired";
+    public static final String HEDGE_WON_METRIC = "postcode_lookup_hedge_won";
+
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_SAMPLES = 20;
+
+    private static final double MAX_SAVED_HEDGES = 10;
+
+    private final LatencyWindow latencies;
+    private final int minimumSamples;
+    private final double percentile;
+    private final double budget;
+    private final EventProbe eventProbe;
+    private double availableHedges;
+
+    public RequestHedger(
+            int windowSize,
+            int minimumSamples,
+            double percentile,
+            double budget,
+            EventProbe eventProbe) {
+        this.latencies = new LatencyWindow(windowSize);
+        this.minimumSamples = minimumSamples;
+        this.percentile = percentile;
+        this.budget = budget;
+        this.eventProbe = eventProbe;
+    }
+
+    public static RequestHedger disabled() {
+        return new RequestHedger(0, 0, 0, 0, null);
+    }
+
+    public boolean isEnabled() {
+        return budget > 0;
+    }
+
+    /**
+     * Sends the request, hedging it if it is still outstanding after the hedge delay.
+     *
+     * @param request sends the request, called a second time to hedge. A hedge it refuses to send,
+     *     by throwing, leaves the primary to answer
+     * @param discard releases a response that lost the race but arrived anyway
+     */
+    public <T> CompletableFuture<T> send(
+            Supplier<CompletableFuture<T>> request, Consumer<T> discard) {
+        if (!isEnabled()) {
+            return request.get();
+        }
+
+        Optional<Long> hedgeDelay = earnHedgeAndGetDelay();
+        long startTime = System.nanoTime();
+        CompletableFuture<T> primary = request.get();
+        primary.whenComplete(
+                (response, failure) -> {
+                    if (failure == null) {
+                        latencies.record((System.nanoTime() - startTime) / 1_000_000);
+                    }
+                });
+        if (hedgeDelay.isEmpty()) {
+            return primary;
+        }
+
+        HedgedRequest<T> hedgedRequest = new HedgedRequest<>(primary, discard);
+        Executor delayedExecutor =
+                CompletableFuture.delayedExecutor(hedgeDelay.get(), TimeUnit.MILLISECONDS);
+        delayedExecutor.execute(() -> hedgedRequest.hedge(request));
+        return hedgedRequest.result;
+    }
+
+    private synchronized Optional<Long> earnHedgeAndGetDelay() {
+        availableHedges = Math.min(MAX_SAVED_HEDGES, availableHedges + budget);
+        if (latencies.size() < minimumSamples) {
+            return Optional.empty();
+        }
+        return Optional.of(latencies.percentile(percentile));
+    }
+
+    private synchronized boolean spendHedge() {
+        if (availableHedges < 1) {
+            return false;
+        }
+        availableHedges--;
+        return true;
+    }
+
+    private final class HedgedRequest<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final CompletableFuture<T> primary;
+        private final Consumer<T> discard;
+        private CompletableFuture<T> hedge;
+        private int inFlight = 1;
+        private boolean settled;
+
+        private HedgedRequest(CompletableFuture<T> primary, Consumer<T> discard) {
+            this.primary = primary;
+            this.discard = discard;
+            primary.whenComplete((response, failure) -> complete(primary, response, failure));
+        }
+
+        private void hedge(Supplier<CompletableFuture<T>> request) {
+            synchronized (this) {
+                if (settled || !spendHedge()) {
+                    return;
+                }
+                inFlight++;
+            }
+
+            CompletableFuture<T> hedgeRequest = sendHedge(request);
+            synchronized (this) {
+                hedge = hedgeRequest;
+                if (settled) {
+                    hedgeRequest.cancel(true);
+                }
+            }
+            hedgeRequest.whenComplete(
+                    (response, failure) -> complete(hedgeRequest, response, failure));
+        }
+
+        // A hedge that could not be sent counts as a failed one, so it never settles the result
+        // while the primary is still in flight
+        private CompletableFuture<T> sendHedge(Supplier<CompletableFuture<T>> request) {
+            try {
+                CompletableFuture<T> hedgeRequest = request.get();
+                eventProbe.counterMetric(HEDGE_FIRED_METRIC);
+                return hedgeRequest;
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        // The first response wins. A failure only completes the result once nothing else is in
+        // flight, so a hedge can still rescue a primary that fails after it was sent.
+        private void complete(CompletableFuture<T> source, T response, Throwable failure) {
+            CompletableFuture<T> loser;
+            synchronized (this) {
+                inFlight--;
+                if (settled) {
+                    if (failure == null) {
+                        discard.accept(response);
+                    }
+                    return;
+                }
+                if (failure != null && inFlight > 0) {
+                    return;
+                }
+                settled = true;
+                loser = source == primary ? hedge : primary;
+            }
+
+            if (failure != null) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            result.complete(response);
+            if (loser != null) {
+                loser.cancel(true);
+            }
+            if (source != primary) {
+                eventProbe.counterMetric(HEDGE_WON_METRIC);
+            }
+        }
+    }
+}
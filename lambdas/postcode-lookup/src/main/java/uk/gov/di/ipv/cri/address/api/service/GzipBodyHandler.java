@@ -0,0 +1,76 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Hands over an Ordnance Survey response body as a stream, inflating it as it is read when OS has
+ * gzipped it. Requests ask for gzip with {@link #ACCEPT_ENCODING}; the body is never held
+ * decompressed, the response parser reads the addresses straight out of the inflater.
+ */
+public final class GzipBodyHandler implements HttpResponse.BodyHandler<InputStream> {
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String ACCEPT_ENCODING = "gzip";
+
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final int INFLATER_BUFFER_SIZE = 8192;
+
+    @Override
+    public HttpResponse.BodySubscriber<InputStream> apply(HttpResponse.ResponseInfo responseInfo) {
+        HttpResponse.BodySubscriber<InputStream> body =
+                HttpResponse.BodySubscribers.ofInputStream();
+        boolean gzipped =
+                responseInfo
+                        .headers()
+                        .firstValue(CONTENT_ENCODING_HEADER)
+                        .map(encoding -> ACCEPT_ENCODING.equalsIgnoreCase(encoding.trim()))
+                        .orElse(false);
+        return gzipped
+                ? HttpResponse.BodySubscribers.mapping(body, InflatingInputStream::new)
+                : body;
+    }
+
+    // Mapping runs on the client's thread before any of the body has arrived, so the gzip header
+    // is only read, blocking, by the first read of the body
+    private static final class InflatingInputStream extends InputStream {
+        private final InputStream compressed;
+        private InputStream inflated;
+
+        private InflatingInputStream(InputStream compressed) {
+            this.compressed = compressed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return inflated().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return inflated().read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return inflated == null ? 0 : inflated.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (inflated == null) {
+                compressed.close();
+            } else {
+                inflated.close();
+            }
+        }
+
+        private InputStream inflated() throws IOException {
+            if (inflated == null) {
+                inflated = new GZIPInputStream(compressed, INFLATER_BUFFER_SIZE);
+            }
+            return inflated;
+        }
+    }
+}
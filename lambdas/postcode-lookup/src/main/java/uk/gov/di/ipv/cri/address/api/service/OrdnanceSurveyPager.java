@@ -0,0 +1,101 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * Fetches the rest of a postcode's addresses when Ordnance Survey returns them over several pages,
+ * as it does for large multi-occupancy postcodes. Once the first page says how many addresses
+ * there are, the remaining pages are requested together, at most a few at a time, over the
+ * lookup's HTTP/2 connection and merged back in page order.
+ */
+public class OrdnanceSurveyPager {
+    public static final String PAGES_FETCHED_METRIC = "postcode_lookup_pages_fetched";
+    public static final String RESULTS_TRUNCATED_METRIC = "postcode_lookup_results_truncated";
+
+    private final int concurrency;
+    private final int maxResults;
+    private final EventProbe eventProbe;
+
+    public OrdnanceSurveyPager(int concurrency, int maxResults, EventProbe eventProbe) {
+        this.concurrency = concurrency;
+        this.maxResults = maxResults;
+        this.eventProbe = eventProbe;
+    }
+
+    /** Only ever reads the first page. */
+    public static OrdnanceSurveyPager disabled() {
+        return new OrdnanceSurveyPager(0, 0, null);
+    }
+
+    public boolean isEnabled() {
+        return concurrency > 0;
+    }
+
+    /**
+     * A page short of {@code maxresults} is the last one whatever the total says, so a header
+     * without paging fields is never followed up.
+     */
+    public boolean hasMorePages(OrdnanceSurveyResponseParser.Page firstPage) {
+        int pageSize = firstPage.addresses().size();
+        return isEnabled()
+                && pageSize > 0
+                && pageSize >= firstPage.maxResults()
+                && firstPage.offset() + pageSize < firstPage.totalResults();
+    }
+
+    /**
+     * Fetches every page after the first, up to the configured maximum number of results, and
+     * returns those addresses in order. Fails if any page fails, rather than returning a partial
+     * list.
+     *
+     * @param fetchPage requests the page starting at the given offset
+     */
+    public CompletableFuture<List<CanonicalAddress>> fetchRemainingPages(
+            OrdnanceSurveyResponseParser.Page firstPage,
+            IntFunction<CompletableFuture<List<CanonicalAddress>>> fetchPage) {
+        int pageSize = firstPage.addresses().size();
+        int lastResult = Math.min(firstPage.totalResults(), maxResults);
+        if (firstPage.totalResults() > maxResults) {
+            eventProbe.counterMetric(RESULTS_TRUNCATED_METRIC);
+        }
+
+        List<Integer> offsets = new ArrayList<>();
+        for (int offset = firstPage.offset() + pageSize; offset < lastResult; offset += pageSize) {
+            offsets.add(offset);
+        }
+
+        // Each lane fetches every concurrency-th page in turn, bounding the requests in flight
+        List<CompletableFuture<List<CanonicalAddress>>> pages = new ArrayList<>(offsets.size());
+        for (int page = 0; page < offsets.size(); page++) {
+            int offset = offsets.get(page);
+            CompletableFuture<List<CanonicalAddress>> fetched =
+                    page < concurrency
+                            ? fetchPage.apply(offset)
+                            : pages.get(page - concurrency)
+                                    .thenCompose(previous -> fetchPage.apply(offset));
+            pages.add(fetched);
+        }
+
+        return CompletableFuture.allOf(pages.toArray(CompletableFuture[]::new))
+                .thenApply(
+                        allFetched -> {
+                            eventProbe.counterMetric(
+                                    PAGES_FETCHED_METRIC, pages.size(), MetricUnit.COUNT);
+                            List<CanonicalAddress> addresses =
+                                    new ArrayList<>(firstPage.addresses());
+                            pages.forEach(page -> addresses.addAll(page.join()));
+                            // The last page is requested whole, so can run past the maximum
+                            if (addresses.size() > maxResults) {
+                                addresses.subList(maxResults, addresses.size()).clear();
+                            }
+                            return addresses;
+                        });
+    }
+}
@@ -0,0 +1,172 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads an Ordnance Survey postcode response straight from the response body stream, walking
+ * {@code results[].DPA} and building {@link CanonicalAddress}es from the handful of DPA fields we
+ * use. Only the paging fields of the header are read, everything else (coordinates,
+ * classifications, TOIDs) is skipped without being bound. Produces the same addresses as {@link
+ * uk.gov.di.ipv.cri.address.api.models.Dpa#toCanonicalAddress()}.
+ */
+public class OrdnanceSurveyResponseParser {
+    private final JsonFactory jsonFactory;
+
+    /**
+     * One page of a postcode response: the addresses from {@code offset} onwards, out of {@code
+     * totalResults} for the postcode, in pages of at most {@code maxResults}. A header field OS
+     * leaves out is 0.
+     */
+    public record Page(
+            List<CanonicalAddress> addresses, int offset, int totalResults, int maxResults) {}
+
+    public OrdnanceSurveyResponseParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @return the mapped addresses, or empty if the response has no {@code results} field
+     */
+    public Optional<List<CanonicalAddress>> parseAddresses(InputStream body) throws IOException {
+        return parsePage(body).map(Page::addresses);
+    }
+
+    /**
+     * @return the page, or empty if the response has no {@code results} field
+     */
+    public Optional<Page> parsePage(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a postcode response object");
+            }
+
+            List<CanonicalAddress> addresses = null;
+            Paging paging = new Paging(0, 0, 0);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("results".equals(fieldName) && value == JsonToken.START_ARRAY) {
+                    addresses = parseResults(parser);
+                } else if ("header".equals(fieldName) && value == JsonToken.START_OBJECT) {
+                    paging = parseHeader(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (addresses == null) {
+                return Optional.empty();
+            }
+            return Optional.of(
+                    new Page(
+                            addresses,
+                            paging.offset(),
+                            paging.totalResults(),
+                            paging.maxResults()));
+        }
+    }
+
+    private static Paging parseHeader(JsonParser parser) throws IOException {
+        int offset = 0;
+        int totalResults = 0;
+        int maxResults = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (fieldName) {
+                case "offset" -> offset = parser.getValueAsInt();
+                case "totalresults" -> totalResults = parser.getValueAsInt();
+                case "maxresults" -> maxResults = parser.getValueAsInt();
+                default -> {
+                    // Not needed for paging
+                }
+            }
+        }
+        return new Paging(offset, totalResults, maxResults);
+    }
+
+    private List<CanonicalAddress> parseResults(JsonParser parser) throws IOException {
+        List<CanonicalAddress> addresses = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("DPA".equals(fieldName) && value == JsonToken.START_OBJECT) {
+                    addresses.add(parseDpa(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return addresses;
+    }
+
+    private CanonicalAddress parseDpa(JsonParser parser) throws IOException {
+        CanonicalAddress address = new CanonicalAddress();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (fieldName) {
+                case "UPRN" -> setUprn(address, parser.getValueAsString());
+                case "ORGANISATION_NAME" -> address.setOrganisationName(parser.getValueAsString());
+                case "DEPARTMENT_NAME" -> address.setDepartmentName(parser.getValueAsString());
+                case "SUB_BUILDING_NAME" -> address.setSubBuildingName(parser.getValueAsString());
+                case "BUILDING_NUMBER" -> address.setBuildingNumber(parser.getValueAsString());
+                case "DEPENDENT_THOROUGHFARE_NAME" ->
+                        address.setDependentStreetName(parser.getValueAsString());
+                case "DOUBLE_DEPENDENT_LOCALITY" ->
+                        address.setDoubleDependentAddressLocality(parser.getValueAsString());
+                case "DEPENDENT_LOCALITY" ->
+                        address.setDependentAddressLocality(parser.getValueAsString());
+                case "BUILDING_NAME" -> address.setBuildingName(parser.getValueAsString());
+                case "THOROUGHFARE_NAME" -> address.setStreetName(parser.getValueAsString());
+                case "POST_TOWN" -> address.setAddressLocality(parser.getValueAsString());
+                case "POSTCODE" -> address.setPostalCode(parser.getValueAsString());
+                default -> {
+                    // Not part of the canonical address
+                }
+            }
+        }
+
+        // All addresses returned by this service can only possibly
+        // exist within the United Kingdom, so set to GB
+        address.setAddressCountry("GB");
+        return address;
+    }
+
+    private static void setUprn(CanonicalAddress address, String uprn) {
+        if (uprn != null && !uprn.isEmpty()) {
+            address.setUprn(Long.parseLong(uprn));
+        }
+    }
+
+    private record Paging(int offset, int totalResults, int maxResults) {}
+}
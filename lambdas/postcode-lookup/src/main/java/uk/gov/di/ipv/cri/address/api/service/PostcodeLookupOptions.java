@@ -0,0 +1,293 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import org.apache.logging.log4j.LogManager;
+import uk.gov.di.ipv.cri.address.api.cache.NegativePostcodeCache;
+import uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache;
+import uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache;
+import uk.gov.di.ipv.cri.address.api.fallback.LocalAddressIndex;
+import uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter;
+import uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker;
+import uk.gov.di.ipv.cri.address.api.resilience.RequestHedger;
+import uk.gov.di.ipv.cri.address.api.service.PostcodeLookupService.OrdnanceSurveyConfiguration;
+import uk.gov.di.ipv.cri.address.library.config.ClientConfigurationSnapshots;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.CONNECTION_TIMEOUT_SECONDS;
+
+/**
+ * The optional parts of a {@link PostcodeLookupService}: its caches, the circuit breaker and
+ * hedger guarding Ordnance Survey, the existence filter, fallback index and pager, and the
+ * snapshots of each client's Ordnance Survey configuration. Anything not set on the builder is
+ * disabled, so a test only sets up the parts it exercises.
+ *
+ * <p>{@link #fromEnvironment} and the factories it calls read settings only from the map they are
+ * given; the handler and the local runtime pass {@code System.getenv()}.
+ */
+public class PostcodeLookupOptions {
+    private final PostcodeResultCache resultCache;
+    private final SharedPostcodeCache sharedCache;
+    private final NegativePostcodeCache negativeCache;
+    private final boolean asyncLookupEnabled;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestHedger requestHedger;
+    private final PostcodeExistenceFilter existenceFilter;
+    private final LocalAddressIndex fallbackIndex;
+    private final OrdnanceSurveyPager pager;
+    private final ClientConfigurationSnapshots<OrdnanceSurveyConfiguration> clientConfigurations;
+
+    private PostcodeLookupOptions(Builder builder) {
+        this.resultCache = builder.resultCache;
+        this.sharedCache = builder.sharedCache;
+        this.negativeCache = builder.negativeCache;
+        this.asyncLookupEnabled = builder.asyncLookupEnabled;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.requestHedger = builder.requestHedger;
+        this.existenceFilter = builder.existenceFilter;
+        this.fallbackIndex = builder.fallbackIndex;
+        this.pager = builder.pager;
+        this.clientConfigurations = builder.clientConfigurations;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Every part disabled, the lookup as it was before any of them were added. */
+    public static PostcodeLookupOptions disabled() {
+        return builder().build();
+    }
+
+    /**
+     * Reads the lookup settings from the environment. The shared cache table is opened with the
+     * given factory, and written to on the given executor, only when {@code POSTCODE_CACHE_TABLE}
+     * is set. Client configuration is refreshed as {@link ClientConfigurationSnapshots} reads it
+     * from the environment.
+     */
+    public static Builder fromEnvironment(
+            Map<String, String> environment,
+            ConfigurationService configurationService,
+            EventProbe eventProbe,
+            Function<String, DataStore<PostcodeCacheItem>> cacheTables,
+            Executor cacheWriteExecutor) {
+        Settings settings = new Settings(environment);
+        Builder builder =
+                builder()
+                        .resultCache(
+                                new PostcodeResultCache(
+                                        settings.getInt("POSTCODE_CACHE_MAX_ENTRIES", 1000),
+                                        settings.getSeconds("POSTCODE_CACHE_TTL_SECONDS", 3600),
+                                        settings.getSeconds("POSTCODE_CACHE_STALE_SECONDS", 0),
+                                        Clock.systemUTC(),
+                                        eventProbe))
+                        .negativeCache(
+                                new NegativePostcodeCache(
+                                        settings.getInt(
+                                                "POSTCODE_NEGATIVE_CACHE_MAX_ENTRIES", 1000),
+                                        settings.getSeconds(
+                                                "POSTCODE_NEGATIVE_CACHE_TTL_SECONDS", 0),
+                                        Clock.systemUTC(),
+                                        eventProbe))
+                        .asyncLookupEnabled(settings.getBoolean("POSTCODE_LOOKUP_ASYNC_ENABLED"))
+                        .pager(
+                                new OrdnanceSurveyPager(
+                                        settings.getInt("POSTCODE_LOOKUP_PAGE_CONCURRENCY", 4),
+                                        settings.getInt("POSTCODE_LOOKUP_MAX_RESULTS", 1000),
+                                        eventProbe))
+                        .fallbackIndex(
+                                LocalAddressIndex.openIfPresent(
+                                        environment.get("POSTCODE_FALLBACK_INDEX_PATH"),
+                                        eventProbe))
+                        .clientConfigurations(
+                                ClientConfigurationSnapshots.fromEnvironment(
+                                        environment,
+                                        PostcodeLookupService.configurationLoader(
+                                                configurationService,
+                                                LogManager.getLogger(PostcodeLookupService.class)),
+                                        eventProbe));
+
+        String cacheTableName = environment.get("POSTCODE_CACHE_TABLE");
+        if (cacheTableName != null) {
+            builder.sharedCache(
+                    new SharedPostcodeCache(
+                            cacheTables.apply(cacheTableName),
+                            settings.getSeconds("POSTCODE_SHARED_CACHE_TTL_SECONDS", 86400),
+                            Clock.systemUTC(),
+                            cacheWriteExecutor,
+                            eventProbe,
+                            LogManager.getLogger(SharedPostcodeCache.class)));
+        }
+        if (settings.getBoolean("POSTCODE_CIRCUIT_BREAKER_ENABLED")) {
+            builder.circuitBreaker(
+                    new CircuitBreaker(
+                            CircuitBreaker.DEFAULT_WINDOW_SIZE,
+                            CircuitBreaker.DEFAULT_MINIMUM_CALLS,
+                            settings.getDouble("POSTCODE_CIRCUIT_BREAKER_FAILURE_RATE", 0.5),
+                            settings.getSeconds("POSTCODE_CIRCUIT_BREAKER_OPEN_SECONDS", 30),
+                            Duration.ofMillis(
+                                    settings.getLong("POSTCODE_MIN_REQUEST_TIMEOUT_MILLIS", 1000)),
+                            Duration.ofSeconds(CONNECTION_TIMEOUT_SECONDS),
+                            Clock.systemUTC(),
+                            eventProbe));
+        }
+        if (settings.getBoolean("POSTCODE_HEDGING_ENABLED")) {
+            builder.requestHedger(
+                    new RequestHedger(
+                            RequestHedger.DEFAULT_WINDOW_SIZE,
+                            RequestHedger.DEFAULT_MINIMUM_SAMPLES,
+                            settings.getDouble("POSTCODE_HEDGE_PERCENTILE", 95),
+                            settings.getDouble("POSTCODE_HEDGE_BUDGET_PERCENT", 5) / 100,
+                            eventProbe));
+        }
+        if (settings.getBoolean("POSTCODE_EXISTENCE_FILTER_ENABLED")) {
+            builder.existenceFilter(PostcodeExistenceFilter.loadBundled(eventProbe));
+        }
+        return builder;
+    }
+
+    public PostcodeResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public SharedPostcodeCache getSharedCache() {
+        return sharedCache;
+    }
+
+    public NegativePostcodeCache getNegativeCache() {
+        return negativeCache;
+    }
+
+    public boolean isAsyncLookupEnabled() {
+        return asyncLookupEnabled;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RequestHedger getRequestHedger() {
+        return requestHedger;
+    }
+
+    public PostcodeExistenceFilter getExistenceFilter() {
+        return existenceFilter;
+    }
+
+    public LocalAddressIndex getFallbackIndex() {
+        return fallbackIndex;
+    }
+
+    public OrdnanceSurveyPager getPager() {
+        return pager;
+    }
+
+    /** The client configuration snapshots, or null for the service to load on every lookup. */
+    public ClientConfigurationSnapshots<OrdnanceSurveyConfiguration> getClientConfigurations() {
+        return clientConfigurations;
+    }
+
+    public static class Builder {
+        private PostcodeResultCache resultCache = PostcodeResultCache.disabled();
+        private SharedPostcodeCache sharedCache = SharedPostcodeCache.disabled();
+        private NegativePostcodeCache negativeCache = NegativePostcodeCache.disabled();
+        private boolean asyncLookupEnabled;
+        private CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
+        private RequestHedger requestHedger = RequestHedger.disabled();
+        private PostcodeExistenceFilter existenceFilter = PostcodeExistenceFilter.disabled();
+        private LocalAddressIndex fallbackIndex = LocalAddressIndex.disabled();
+        private OrdnanceSurveyPager pager = OrdnanceSurveyPager.disabled();
+        private ClientConfigurationSnapshots<OrdnanceSurveyConfiguration> clientConfigurations;
+
+        private Builder() {}
+
+        public Builder resultCache(PostcodeResultCache resultCache) {
+            this.resultCache = resultCache;
+            return this;
+        }
+
+        public Builder sharedCache(SharedPostcodeCache sharedCache) {
+            this.sharedCache = sharedCache;
+            return this;
+        }
+
+        public Builder negativeCache(NegativePostcodeCache negativeCache) {
+            this.negativeCache = negativeCache;
+            return this;
+        }
+
+        public Builder asyncLookupEnabled(boolean asyncLookupEnabled) {
+            this.asyncLookupEnabled = asyncLookupEnabled;
+            return this;
+        }
+
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public Builder requestHedger(RequestHedger requestHedger) {
+            this.requestHedger = requestHedger;
+            return this;
+        }
+
+        public Builder existenceFilter(PostcodeExistenceFilter existenceFilter) {
+            this.existenceFilter = existenceFilter;
+            return this;
+        }
+
+        public Builder fallbackIndex(LocalAddressIndex fallbackIndex) {
+            this.fallbackIndex = fallbackIndex;
+            return this;
+        }
+
+        public Builder pager(OrdnanceSurveyPager pager) {
+            this.pager = pager;
+            return this;
+        }
+
+        public Builder clientConfigurations(
+                ClientConfigurationSnapshots<OrdnanceSurveyConfiguration> clientConfigurations) {
+            this.clientConfigurations = clientConfigurations;
+            return this;
+        }
+
+        public PostcodeLookupOptions build() {
+            return new PostcodeLookupOptions(this);
+        }
+    }
+
+    private record Settings(Map<String, String> environment) {
+        private String get(String name, String defaultValue) {
+            return Optional.ofNullable(environment.get(name)).orElse(defaultValue);
+        }
+
+        private boolean getBoolean(String name) {
+            return Boolean.parseBoolean(environment.get(name));
+        }
+
+        private int getInt(String name, int defaultValue) {
+            return Integer.parseInt(get(name, String.valueOf(defaultValue)));
+        }
+
+        private long getLong(String name, long defaultValue) {
+            return Long.parseLong(get(name, String.valueOf(defaultValue)));
+        }
+
+        private double getDouble(String name, double defaultValue) {
+            return Double.parseDouble(get(name, String.valueOf(defaultValue)));
+        }
+
+        private Duration getSeconds(String name, long defaultValue) {
+            return Duration.ofSeconds(getLong(name, defaultValue));
+        }
+    }
+}
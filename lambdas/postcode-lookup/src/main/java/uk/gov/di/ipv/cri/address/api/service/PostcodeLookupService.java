@@ -9,16 +9,22 @@ import software.amazon.awssdk.http.SdkHttpFullRequest;
 import software.amazon.awssdk.http.SdkHttpMethod;
 import software.amazon.awssdk.services.ssm.model.SsmException;
 import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.address.api.cache.NegativePostcodeCache;
+import uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache;
+import uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache;
 import uk.gov.di.ipv.cri.address.api.exceptions.ClientIdNotSupportedException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupBadRequestException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupProcessingException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupTimeoutException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
-import uk.gov.di.ipv.cri.address.api.models.Dpa;
+import uk.gov.di.ipv.cri.address.api.fallback.LocalAddressIndex;
+import uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter;
 import uk.gov.di.ipv.cri.address.api.models.OrdnanceSurveyPostcodeError;
-import uk.gov.di.ipv.cri.address.api.models.OrdnanceSurveyPostcodeResponse;
-import uk.gov.di.ipv.cri.address.api.models.Result;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
 import uk.gov.di.ipv.cri.address.api.pii.PiiPostcodeMasker;
+import uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker;
+import uk.gov.di.ipv.cri.address.api.resilience.RequestHedger;
+import uk.gov.di.ipv.cri.address.library.config.ClientConfigurationSnapshots;
 import uk.gov.di.ipv.cri.address.library.util.OpenTelemetryUtil;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
 import uk.gov.di.ipv.cri.common.library.domain.personidentity.Address;
@@ -29,21 +35,30 @@ import uk.gov.di.ipv.cri.common.library.service.PersonIdentityDetailedBuilder;
 import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URLDecoder;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpTimeoutException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 import static uk.gov.di.ipv.cri.address.api.constants.OrdnanceSurveyConstants.LOG_RESPONSE_PREFIX;
 import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.CONNECTION_TIMEOUT_SECONDS;
@@ -57,12 +72,25 @@ public class PostcodeLookupService {
             "Error occurred due to library incompatibility issues. "
                     + "A field was not found, indicating a potential version mismatch "
                     + "in your dependencies. Check your build configuration.";
+    private static final GzipBodyHandler BODY_HANDLER = new GzipBodyHandler();
     // Create our http client to enable asynchronous requests
     private final HttpClient client;
     private final Logger log;
     private final ObjectMapper objectMapper;
+    private final OrdnanceSurveyResponseParser responseParser;
     private final ConfigurationService configurationService;
     private final EventProbe eventProbe;
+    private final PostcodeResultCache resultCache;
+    private final SharedPostcodeCache sharedCache;
+    private final boolean asyncLookupEnabled;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestHedger requestHedger;
+    private final PostcodeExistenceFilter existenceFilter;
+    private final LocalAddressIndex fallbackIndex;
+    private final OrdnanceSurveyPager pager;
+    private final NegativePostcodeCache negativeCache;
+    private final ClientConfigurationSnapshots<OrdnanceSurveyConfiguration> clientConfigurations;
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
 
     public PostcodeLookupService(
             ConfigurationService configurationService,
@@ -70,11 +98,43 @@ public class PostcodeLookupService {
             Logger log,
             EventProbe eventProbe,
             ObjectMapper objectMapper) {
+        this(
+                configurationService,
+                client,
+                log,
+                eventProbe,
+                objectMapper,
+                PostcodeLookupOptions.disabled());
+    }
+
+    public PostcodeLookupService(
+            ConfigurationService configurationService,
+            HttpClient client,
+            Logger log,
+            EventProbe eventProbe,
+            ObjectMapper objectMapper,
+            PostcodeLookupOptions options) {
         this.configurationService = configurationService;
         this.client = client;
         this.log = log;
         this.eventProbe = eventProbe;
         this.objectMapper = objectMapper;
+        this.responseParser = new OrdnanceSurveyResponseParser(objectMapper.getFactory());
+        this.resultCache = options.getResultCache();
+        this.sharedCache = options.getSharedCache();
+        this.asyncLookupEnabled = options.isAsyncLookupEnabled();
+        this.circuitBreaker = options.getCircuitBreaker();
+        this.requestHedger = options.getRequestHedger();
+        this.existenceFilter = options.getExistenceFilter();
+        this.fallbackIndex = options.getFallbackIndex();
+        this.pager = options.getPager();
+        this.negativeCache = options.getNegativeCache();
+        this.clientConfigurations =
+                Optional.ofNullable(options.getClientConfigurations())
+                        .orElseGet(
+                                () ->
+                                        ClientConfigurationSnapshots.disabled(
+                                                configurationLoader(configurationService, log)));
     }
 
     public List<CanonicalAddress> lookupPostcode(String postcode, String clientId)
@@ -82,16 +142,302 @@ public class PostcodeLookupService {
                     PostcodeLookupProcessingException,
                     JsonProcessingException,
                     PostcodeLookupBadRequestException {
+        return lookupPostcode(ParsedPostcode.parse(postcode), clientId);
+    }
 
-        this.validatePostCode(postcode);
-        // Create our http request
-        HttpRequest request = createHttpRequest(postcode, clientId);
+    public List<CanonicalAddress> lookupPostcode(ParsedPostcode postcode, String clientId)
+            throws PostcodeLookupProcessingException,
+                    JsonProcessingException,
+                    PostcodeLookupBadRequestException {
 
+        // Hedging needs a second request in flight, so waits on the asynchronous lookup
+        if (requestHedger.isEnabled()) {
+            return awaitLookup(lookupPostcodeAsync(postcode, clientId));
+        }
+
+        if (isKnownNotToExist(postcode)) {
+            return Collections.emptyList();
+        }
+
+        Optional<List<CanonicalAddress>> cachedResults = getCachedResults(postcode, clientId);
+        if (cachedResults.isPresent()) {
+            return cachedResults.get();
+        }
+
+        HttpRequest.Builder requestBuilder = createHttpRequest(postcode, clientId);
+        try {
+            // Create our http request, failing fast if the circuit breaker is open
+            HttpRequest request = requestBuilder.timeout(circuitBreaker.permitRequest()).build();
+
+            Span span =
+                    OpenTelemetryUtil.createSpan(
+                            this.getClass(), "lookupPostcode", "GET", "api.os.uk");
+
+            long startTime = System.nanoTime();
+            HttpResponse<InputStream> response = sendHttpRequest(request);
+            recordResponse(response, recordResponseLatency(response, startTime, span));
+
+            return processResponse(response, postcode, clientId);
+        } catch (PostcodeLookupTimeoutException e) {
+            return lookupFallback(postcode, e);
+        }
+    }
+
+    /**
+     * Starts the Ordnance Survey lookup without blocking the caller, so the handler can do other
+     * request path work while the OS request is in flight. Validation, client id and request
+     * building failures, and an open circuit breaker the local address index cannot cover for, are
+     * thrown immediately, failures sending the request or processing the response complete the
+     * returned future exceptionally. Use {@link #awaitLookup} to collect the results with the same
+     * exceptions as {@link #lookupPostcode}.
+     */
+    public CompletableFuture<List<CanonicalAddress>> lookupPostcodeAsync(
+            String postcode, String clientId)
+            throws PostcodeValidationException,
+                    PostcodeLookupBadRequestException,
+                    ClientIdNotSupportedException {
+        return lookupPostcodeAsync(ParsedPostcode.parse(postcode), clientId);
+    }
+
+    public CompletableFuture<List<CanonicalAddress>> lookupPostcodeAsync(
+            ParsedPostcode postcode, String clientId)
+            throws PostcodeLookupBadRequestException, ClientIdNotSupportedException {
+
+        if (isKnownNotToExist(postcode)) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        Optional<List<CanonicalAddress>> cachedResults = getCachedResults(postcode, clientId);
+        if (cachedResults.isPresent()) {
+            return CompletableFuture.completedFuture(cachedResults.get());
+        }
+
+        HttpRequest.Builder requestBuilder = createHttpRequest(postcode, clientId);
         Span span =
-                OpenTelemetryUtil.createSpan(this.getClass(), "lookupPostcode", "GET", "api.os.uk");
+                OpenTelemetryUtil.createSpan(
+                        this.getClass(), "lookupPostcodeAsync", "GET", "api.os.uk");
+
+        long startTime = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> lookup;
+        try {
+            lookup = requestHedger.send(() -> sendPermitted(requestBuilder), this::closeBody);
+        } catch (PostcodeLookupTimeoutException e) {
+            OpenTelemetryUtil.endSpan(span);
+            return CompletableFuture.completedFuture(lookupFallback(postcode, e));
+        }
 
+        return lookup.handle(
+                (response, throwable) -> {
+                    if (throwable != null) {
+                        OpenTelemetryUtil.endSpan(span);
+                        RuntimeException failure = toLookupException(unwrap(throwable));
+                        if (failure instanceof PostcodeLookupTimeoutException timeout) {
+                            return lookupFallback(postcode, timeout);
+                        }
+                        throw failure;
+                    }
+                    recordResponseLatency(response, startTime, span);
+                    try {
+                        return processResponse(response, postcode, clientId);
+                    } catch (JsonProcessingException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    // Called for the primary request and again for any hedge, so each one is permitted by the
+    // circuit breaker and has its own outcome recorded. A request cancelled because the other
+    // answered first is not an outcome.
+    private CompletableFuture<HttpResponse<InputStream>> sendPermitted(
+            HttpRequest.Builder requestBuilder) {
+        HttpRequest request = requestBuilder.copy().timeout(circuitBreaker.permitRequest()).build();
         long startTime = System.nanoTime();
-        HttpResponse<String> response = sendHttpRequest(request);
+        CompletableFuture<HttpResponse<InputStream>> response =
+                client.sendAsync(request, BODY_HANDLER);
+        response.whenComplete(
+                (httpResponse, throwable) -> {
+                    if (throwable == null) {
+                        recordResponse(httpResponse, (System.nanoTime() - startTime) / 1_000_000);
+                    } else if (!(throwable instanceof CancellationException)) {
+                        recordFailure(request, unwrap(throwable));
+                    }
+                });
+        return response;
+    }
+
+    public boolean isAsyncLookupEnabled() {
+        return asyncLookupEnabled;
+    }
+
+    /**
+     * Waits up to the timeout for work started off the request path, such as shared cache writes,
+     * so it is not left frozen with the container once the invocation returns.
+     */
+    public void awaitBackgroundWork(Duration timeout) {
+        sharedCache.flush(timeout);
+    }
+
+    public static List<CanonicalAddress> awaitLookup(
+            CompletableFuture<List<CanonicalAddress>> pendingLookup)
+            throws JsonProcessingException {
+        try {
+            return pendingLookup.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof JsonProcessingException jsonProcessingException) {
+                throw jsonProcessingException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PostcodeLookupProcessingException(
+                    "Error sending request for postcode lookup", cause);
+        }
+    }
+
+    /**
+     * Opens a connection to Ordnance Survey ahead of the first lookup, e.g. after a SnapStart
+     * restore, so a user's request does not pay for the TLS handshake. The response is ignored.
+     */
+    public void warmUpConnection(URI uri) throws IOException {
+        HttpRequest request =
+                HttpRequest.newBuilder(uri)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .timeout(Duration.ofSeconds(CONNECTION_TIMEOUT_SECONDS))
+                        .build();
+        try {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public AuditEventContext getAuditEventContext(
+            String postcode, Map<String, String> requestHeaders, SessionItem sessionItem) {
+        return getAuditEventContext(ParsedPostcode.parse(postcode), requestHeaders, sessionItem);
+    }
+
+    /**
+     * Builds the context shared by the REQUEST_SENT and RESPONSE_RECEIVED audit events, so the
+     * handler only needs to build it once per request.
+     */
+    public AuditEventContext getAuditEventContext(
+            ParsedPostcode postcode, Map<String, String> requestHeaders, SessionItem sessionItem) {
+        Objects.requireNonNull(requestHeaders, "requestHeaders must not be null");
+        Objects.requireNonNull(sessionItem, "sessionItem must not be null");
+
+        Address address = new Address();
+        address.setPostalCode(postcode.decoded().toUpperCase(Locale.ROOT));
+
+        return new AuditEventContext(
+                PersonIdentityDetailedBuilder.builder().withAddresses(List.of(address)).build(),
+                requestHeaders,
+                sessionItem);
+    }
+
+    private boolean isKnownNotToExist(ParsedPostcode postcode) {
+        if (existenceFilter.mightExist(postcode)) {
+            return false;
+        }
+        log.info("Postcode is not in the postcode existence filter, skipping the OS lookup");
+        return true;
+    }
+
+    // While OS is unavailable, serves the postcode from the local address index if it has it
+    private List<CanonicalAddress> lookupFallback(
+            ParsedPostcode postcode, PostcodeLookupTimeoutException cause) {
+        Optional<List<CanonicalAddress>> fallbackResults = fallbackIndex.lookup(postcode);
+        if (fallbackResults.isEmpty()) {
+            throw cause;
+        }
+        log.warn("Ordnance Survey unavailable, postcode lookup served from local address index");
+        return fallbackResults.get();
+    }
+
+    private Optional<List<CanonicalAddress>> getCachedResults(
+            ParsedPostcode postcode, String clientId) {
+        Optional<PostcodeResultCache.CachedResults> cachedResults =
+                resultCache.lookup(postcode, clientId);
+        if (cachedResults.isPresent()) {
+            if (cachedResults.get().stale()) {
+                log.info("Postcode lookup served stale from cache, refreshing in the background");
+                refreshInBackground(postcode, clientId);
+            } else {
+                log.info("Postcode lookup served from cache");
+            }
+            return Optional.of(cachedResults.get().addresses());
+        }
+
+        if (negativeCache.contains(postcode, clientId)) {
+            log.info("Postcode was recently not found by OS, skipping the OS lookup");
+            return Optional.of(Collections.emptyList());
+        }
+
+        Optional<List<CanonicalAddress>> sharedResults = sharedCache.get(postcode, clientId);
+        if (sharedResults.isPresent()) {
+            log.info("Postcode lookup served from shared cache");
+            resultCache.put(postcode, clientId, sharedResults.get());
+        }
+        return sharedResults;
+    }
+
+    // Refreshes a stale entry without holding up the lookup that found it, once per entry at a
+    // time. While OS is failing the stale entry is left in place and served until its hard expiry.
+    // A refresh can be frozen with the container and time out on thaw, so it is kept out of the
+    // circuit breaker: it and any further pages it fetches only run while the circuit is closed
+    // and their outcomes are not recorded
+    private void refreshInBackground(ParsedPostcode postcode, String clientId) {
+        Optional<Duration> timeout = circuitBreaker.permitBackgroundRequest();
+        if (timeout.isEmpty()) {
+            log.info("Ordnance Survey circuit breaker is not closed, skipping the refresh");
+            return;
+        }
+
+        String key = postcode.cacheKey(clientId);
+        if (!refreshesInFlight.add(key)) {
+            return;
+        }
+
+        try {
+            HttpRequest request =
+                    createHttpRequest(postcode, clientId).timeout(timeout.get()).build();
+
+            client.sendAsync(request, BODY_HANDLER)
+                    .thenCompose(response -> processRefreshResponse(response, postcode, clientId))
+                    .whenComplete(
+                            (results, throwable) -> {
+                                refreshesInFlight.remove(key);
+                                if (throwable != null) {
+                                    recordRefreshFailure(unwrap(throwable));
+                                }
+                            });
+        } catch (RuntimeException e) {
+            refreshesInFlight.remove(key);
+            recordRefreshFailure(e);
+        }
+    }
+
+    // Further pages are chained rather than waited for, so the HttpClient thread is not blocked
+    private CompletableFuture<List<CanonicalAddress>> processRefreshResponse(
+            HttpResponse<InputStream> response, ParsedPostcode postcode, String clientId) {
+        try {
+            if (response.statusCode() != HttpStatusCode.OK) {
+                return CompletableFuture.completedFuture(
+                        processResponse(response, postcode, clientId));
+            }
+            return readAllPages(response, true)
+                    .thenApply(results -> storeResults(postcode, clientId, results));
+        } catch (JsonProcessingException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordRefreshFailure(Throwable cause) {
+        log.warn("Unable to refresh stale postcode results, serving them until they expire", cause);
+        eventProbe.counterMetric(PostcodeResultCache.CACHE_REFRESH_FAILURE_METRIC);
+    }
+
+    private long recordResponseLatency(HttpResponse<?> response, long startTime, Span span) {
         long endTime = System.nanoTime();
         long totalTimeInMs = (endTime - startTime) / 1000000;
         log.info(
@@ -102,59 +448,125 @@ public class PostcodeLookupService {
                 "lookup_postcode_duration", totalTimeInMs, MetricUnit.MILLISECONDS);
 
         OpenTelemetryUtil.endSpan(span);
+        return totalTimeInMs;
+    }
 
+    // Rate limiting and server errors count against OS, a 400 or 404 is OS working normally
+    private void recordResponse(HttpResponse<?> response, long latencyInMs) {
+        int statusCode = response.statusCode();
+        if (statusCode == HttpStatusCode.THROTTLING
+                || statusCode >= HttpStatusCode.INTERNAL_SERVER_ERROR) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess(latencyInMs);
+        }
+    }
+
+    // A request that timed out took at least its timeout, which lets the derived timeout grow
+    private void recordFailure(HttpRequest request, Throwable cause) {
+        if (cause instanceof HttpTimeoutException
+                && !(cause instanceof HttpConnectTimeoutException)
+                && request.timeout().isPresent()) {
+            circuitBreaker.recordTimeout(request.timeout().get());
+        } else {
+            circuitBreaker.recordFailure();
+        }
+    }
+
+    private List<CanonicalAddress> processResponse(
+            HttpResponse<InputStream> response, ParsedPostcode postcode, String clientId)
+            throws JsonProcessingException {
         switch (response.statusCode()) {
             case HttpStatusCode.OK:
-                return processOrdnanceSurveySuccessResponse(response.body());
+                return storeResults(
+                        postcode, clientId, awaitLookup(readAllPages(response, false)));
             case HttpStatusCode.BAD_REQUEST:
-                return processOrdnanceSurveyBadResponse(response.body());
+                recordUnknownPostcode(postcode, clientId);
+                return processOrdnanceSurveyBadResponse(readBody(response));
             case HttpStatusCode.NOT_FOUND:
+                existenceFilter.recordFalsePositive();
+                recordUnknownPostcode(postcode, clientId);
+                closeBody(response);
                 log.error("{}404: Not Found", LOG_RESPONSE_PREFIX);
                 return Collections.emptyList();
             default:
-                return processOrdnanceSurveyErrorResponse(response.body());
+                return processOrdnanceSurveyErrorResponse(readBody(response));
         }
     }
 
-    public AuditEventContext getAuditEventContext(
-            String postcode, Map<String, String> requestHeaders, SessionItem sessionItem) {
-        Objects.requireNonNull(requestHeaders, "requestHeaders must not be null");
-        Objects.requireNonNull(sessionItem, "sessionItem must not be null");
-        this.validatePostCode(postcode);
+    private List<CanonicalAddress> storeResults(
+            ParsedPostcode postcode, String clientId, List<CanonicalAddress> results) {
+        resultCache.put(postcode, clientId, results);
+        sharedCache.putAsync(postcode, clientId, results);
+        return results;
+    }
 
-        Address address = new Address();
-        address.setPostalCode(URLDecoder.decode(postcode, Charset.defaultCharset()).toUpperCase());
+    // A refresh can find OS no longer knows a postcode, so its stale results go too, from the
+    // shared cache as well or they would be served again once the negative entry expires
+    private void recordUnknownPostcode(ParsedPostcode postcode, String clientId) {
+        negativeCache.put(postcode, clientId);
+        resultCache.remove(postcode, clientId);
+        sharedCache.removeAsync(postcode, clientId);
+    }
 
-        return new AuditEventContext(
-                PersonIdentityDetailedBuilder.builder().withAddresses(List.of(address)).build(),
-                requestHeaders,
-                sessionItem);
+    // Error bodies are small and are logged whole, so they are still read into a String
+    private String readBody(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            return body == null ? null : new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw toLookupException(e);
+        }
     }
 
-    private HttpRequest createHttpRequest(String postcode, String clientId)
+    private void closeBody(HttpResponse<InputStream> response) {
+        InputStream body = response.body();
+        if (body == null) {
+            return;
+        }
+        try {
+            body.close();
+        } catch (IOException e) {
+            log.debug("Unable to close Ordnance Survey response body", e);
+        }
+    }
+
+    private HttpRequest.Builder createHttpRequest(ParsedPostcode postcode, String clientId)
+            throws PostcodeLookupBadRequestException, ClientIdNotSupportedException {
+        OrdnanceSurveyConfiguration configuration = clientConfigurations.get(clientId);
+
+        return HttpRequest.newBuilder()
+                .uri(
+                        SdkHttpFullRequest.builder()
+                                .uri(configuration.postcodeUri())
+                                .appendRawQueryParameter("postcode", postcode.decoded())
+                                .method(SdkHttpMethod.GET)
+                                .build()
+                                .getUri())
+                .header("Accept", "application/json")
+                .header(GzipBodyHandler.ACCEPT_ENCODING_HEADER, GzipBodyHandler.ACCEPT_ENCODING)
+                .header("key", configuration.apiKey())
+                .GET();
+    }
+
+    /**
+     * Loads a client's Ordnance Survey URL and API key. Read through {@link
+     * ClientConfigurationSnapshots} so the URL is parsed once per refresh rather than per lookup.
+     */
+    public static Function<String, OrdnanceSurveyConfiguration> configurationLoader(
+            ConfigurationService configurationService, Logger log) {
+        return clientId -> loadOrdnanceSurveyConfiguration(configurationService, log, clientId);
+    }
+
+    private static OrdnanceSurveyConfiguration loadOrdnanceSurveyConfiguration(
+            ConfigurationService configurationService, Logger log, String clientId)
             throws PostcodeLookupBadRequestException, ClientIdNotSupportedException {
         try {
             String urlParam =
                     configurationService.getParameterValue(
                             "OrdnanceSurveyAPIUrl/%s".formatted(clientId));
             String apiKey = configurationService.getSecretValue("OrdnanceSurveyAPIKey");
-            URI ordnanceSurveyAPIURL = new URI(urlParam);
-
-            return HttpRequest.newBuilder()
-                    .uri(
-                            SdkHttpFullRequest.builder()
-                                    .uri(ordnanceSurveyAPIURL)
-                                    .appendRawQueryParameter(
-                                            "postcode",
-                                            URLDecoder.decode(postcode, Charset.defaultCharset()))
-                                    .method(SdkHttpMethod.GET)
-                                    .build()
-                                    .getUri())
-                    .timeout(Duration.ofSeconds(CONNECTION_TIMEOUT_SECONDS))
-                    .header("Accept", "application/json")
-                    .header("key", apiKey)
-                    .GET()
-                    .build();
+
+            return new OrdnanceSurveyConfiguration(new URI(urlParam), apiKey);
         } catch (URISyntaxException e) {
             log.error("Error creating URI for OS postcode lookup", e);
 
@@ -170,13 +582,9 @@ public class PostcodeLookupService {
         }
     }
 
-    private HttpResponse<String> sendHttpRequest(HttpRequest request) {
+    private HttpResponse<InputStream> sendHttpRequest(HttpRequest request) {
         try {
-            return client.send(request, HttpResponse.BodyHandlers.ofString());
-        } catch (HttpTimeoutException | SocketTimeoutException e) {
-            log.error("Postcode lookup threw HTTP connection timeout exception", e);
-            throw new PostcodeLookupTimeoutException(
-                    "Error timed out waiting for postcode lookup response", e);
+            return client.send(request, BODY_HANDLER);
         } catch (InterruptedException e) {
             log.error("Postcode lookup threw interrupted exception", e);
             // Unblock the thread
@@ -184,15 +592,45 @@ public class PostcodeLookupService {
             // Now throw our prettier exception
             throw new PostcodeLookupProcessingException(
                     "Error sending request for postcode lookup - Interrupted exception", e);
-        } catch (NoSuchFieldError e) {
-            log.error(POSTCODE_LOOKUP_NO_SUCH_FIELD_ERROR, e);
-            throw new PostcodeLookupProcessingException(
-                    POSTCODE_LOOKUP_NO_SUCH_FIELD_ERROR_MESSAGE, e);
         } catch (IOException e) {
-            log.error("Postcode lookup threw an IO exception", e);
-            throw new PostcodeLookupProcessingException(
-                    "Error sending request for postcode lookup - IO exception", e);
+            recordFailure(request, e);
+            throw toLookupException(e);
+        } catch (NoSuchFieldError e) {
+            throw toLookupException(e);
+        }
+    }
+
+    private RuntimeException toLookupException(Throwable cause) {
+        if (cause instanceof HttpTimeoutException || cause instanceof SocketTimeoutException) {
+            log.error("Postcode lookup threw HTTP connection timeout exception", cause);
+            return new PostcodeLookupTimeoutException(
+                    "Error timed out waiting for postcode lookup response", cause);
+        }
+        if (cause instanceof NoSuchFieldError) {
+            log.error(POSTCODE_LOOKUP_NO_SUCH_FIELD_ERROR, cause);
+            return new PostcodeLookupProcessingException(
+                    POSTCODE_LOOKUP_NO_SUCH_FIELD_ERROR_MESSAGE, cause);
         }
+        if (cause instanceof IOException) {
+            log.error("Postcode lookup threw an IO exception", cause);
+            return new PostcodeLookupProcessingException(
+                    "Error sending request for postcode lookup - IO exception", cause);
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        log.error("Postcode lookup failed unexpectedly", cause);
+        return new PostcodeLookupProcessingException(
+                "Error sending request for postcode lookup", cause);
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
     }
 
     private List<CanonicalAddress> processOrdnanceSurveyErrorResponse(String response) {
@@ -239,35 +677,104 @@ public class PostcodeLookupService {
         return Collections.emptyList();
     }
 
-    private List<CanonicalAddress> processOrdnanceSurveySuccessResponse(String response)
+    // The first page is parsed straight away, any further pages complete the returned future
+    private CompletableFuture<List<CanonicalAddress>> readAllPages(
+            HttpResponse<InputStream> response, boolean background)
             throws JsonProcessingException {
-        // These responses are fine
-        // Otherwise, let's try to parse the response
-        OrdnanceSurveyPostcodeResponse postcodeResponse =
-                objectMapper.readValue(response, OrdnanceSurveyPostcodeResponse.class);
-        // Map the postcode response to our model
-        return Optional.ofNullable(postcodeResponse.getResults())
-                .map(
-                        results ->
-                                results.stream()
-                                        .map(Result::getDpa)
-                                        .filter(Objects::nonNull)
-                                        .map(Dpa::toCanonicalAddress)
-                                        .toList())
-                .orElseGet(
-                        () -> {
-                            log.warn("Postcode lookup returned no results");
-                            return Collections.emptyList();
+        Optional<OrdnanceSurveyResponseParser.Page> firstPage = parsePage(response.body());
+        if (firstPage.isEmpty()) {
+            log.warn("Postcode lookup returned no results");
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        if (!pager.hasMorePages(firstPage.get())) {
+            return CompletableFuture.completedFuture(firstPage.get().addresses());
+        }
+
+        log.info(
+                "Postcode lookup has {} results, fetching the remaining pages",
+                firstPage.get().totalResults());
+        return pager.fetchRemainingPages(
+                firstPage.get(), offset -> fetchPage(response.request(), offset, background));
+    }
+
+    // Asks for the page at the offset with the same headers as the first page, through the
+    // circuit breaker like any other request to OS. The pages of a background refresh are
+    // permitted and recorded as the refresh itself is
+    private CompletableFuture<List<CanonicalAddress>> fetchPage(
+            HttpRequest firstRequest, int offset, boolean background) {
+        HttpRequest request;
+        try {
+            request =
+                    HttpRequest.newBuilder(firstRequest, (name, value) -> true)
+                            .uri(
+                                    SdkHttpFullRequest.builder()
+                                            .uri(firstRequest.uri())
+                                            .appendRawQueryParameter(
+                                                    "offset", String.valueOf(offset))
+                                            .method(SdkHttpMethod.GET)
+                                            .build()
+                                            .getUri())
+                            .timeout(permitPageRequest(background))
+                            .build();
+        } catch (PostcodeLookupTimeoutException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long startTime = System.nanoTime();
+        return client.sendAsync(request, BODY_HANDLER)
+                .handle(
+                        (response, throwable) -> {
+                            if (throwable != null) {
+                                if (!background) {
+                                    recordFailure(request, unwrap(throwable));
+                                }
+                                throw toLookupException(unwrap(throwable));
+                            }
+                            if (!background) {
+                                recordResponse(
+                                        response, (System.nanoTime() - startTime) / 1_000_000);
+                            }
+                            if (response.statusCode() != HttpStatusCode.OK) {
+                                closeBody(response);
+                                throw new PostcodeLookupProcessingException(
+                                        LOG_RESPONSE_PREFIX
+                                                + response.statusCode()
+                                                + " fetching a further page of results");
+                            }
+                            try {
+                                return parsePage(response.body())
+                                        .map(OrdnanceSurveyResponseParser.Page::addresses)
+                                        .orElseGet(Collections::emptyList);
+                            } catch (JsonProcessingException e) {
+                                throw new CompletionException(e);
+                            }
                         });
     }
 
-    private void validatePostCode(String postcode) {
-        if (isBlank(postcode)) {
-            throw new PostcodeValidationException("Postcode must not be null or blank");
+    private Duration permitPageRequest(boolean background) {
+        if (!background) {
+            return circuitBreaker.permitRequest();
         }
+        return circuitBreaker
+                .permitBackgroundRequest()
+                .orElseThrow(
+                        () ->
+                                new PostcodeLookupTimeoutException(
+                                        "Ordnance Survey circuit breaker is not closed, "
+                                                + "not refreshing further pages"));
     }
 
-    private boolean isBlank(String value) {
-        return value == null || value.isBlank();
+    // Stream the DPA records straight into our model rather than binding the whole response
+    private Optional<OrdnanceSurveyResponseParser.Page> parsePage(InputStream body)
+            throws JsonProcessingException {
+        try {
+            return responseParser.parsePage(body);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw toLookupException(e);
+        }
     }
+
+    public record OrdnanceSurveyConfiguration(URI postcodeUri, String apiKey) {}
 }
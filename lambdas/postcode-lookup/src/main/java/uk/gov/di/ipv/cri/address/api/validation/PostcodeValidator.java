@@ -0,0 +1,158 @@
+package uk.gov.di.ipv.cri.address.api.validation;
+
+/**
+ * Checks a postcode has the shape of a UK postcode before it is looked up, so a malformed value is
+ * rejected without auditing it or calling Ordnance Survey. Hand written rather than a regex as it
+ * runs on every request, it makes a single pass over the characters and allocates nothing.
+ *
+ * <p>Accepts the six standard outward code shapes (A9, A99, AA9, AA99, A9A and AA9A) followed by a
+ * 9AA inward code, GIR 0AA, BFPO numbers and the overseas territories that use the UK format,
+ * e.g. ASCN 1ZZ. Letters may be either case and whitespace is ignored, as it is when the postcode
+ * is normalised. Only the shape is checked, not the letters allowed in each position, so a
+ * postcode Ordnance Survey knows about is never rejected here.
+ */
+public final class PostcodeValidator {
+    private static final String GIR_POSTCODE = "GIR0AA";
+    private static final String BFPO_PREFIX = "BFPO";
+    private static final int MAX_BFPO_DIGITS = 4;
+    private static final String[] OVERSEAS_TERRITORY_OUTWARD_CODES = {
+        "ASCN", "BBND", "BIQQ", "FIQQ", "PCRN", "SIQQ", "STHL", "TDCU", "TKCA"
+    };
+
+    // States of the standard format recogniser, named after the characters read so far, A for a
+    // letter and 9 for a digit. A99 and AA99 may also be A9 or AA9 followed by the inward digit.
+    private static final int START = 0;
+    private static final int A = 1;
+    private static final int AA = 2;
+    private static final int A9 = 3;
+    private static final int AA9 = 4;
+    private static final int A99 = 5;
+    private static final int AA99 = 6;
+    private static final int NEED_9AA = 7;
+    private static final int NEED_AA = 8;
+    private static final int NEED_A = 9;
+    private static final int ACCEPT = 10;
+    private static final int REJECT = -1;
+
+    private PostcodeValidator() {
+        throw new IllegalStateException("This class is not meant to be instantiated");
+    }
+
+    public static boolean isValid(CharSequence postcode) {
+        if (postcode == null) {
+            return false;
+        }
+        int afterGir = matchesLiteral(postcode, GIR_POSTCODE);
+        if (afterGir > 0) {
+            return isWhitespaceFrom(postcode, afterGir);
+        }
+
+        int afterBfpo = matchesLiteral(postcode, BFPO_PREFIX);
+        if (afterBfpo > 0) {
+            return isBfpoNumber(postcode, afterBfpo);
+        }
+
+        for (String outwardCode : OVERSEAS_TERRITORY_OUTWARD_CODES) {
+            int afterOutwardCode = matchesLiteral(postcode, outwardCode);
+            if (afterOutwardCode > 0) {
+                return recognise(postcode, afterOutwardCode, NEED_9AA);
+            }
+        }
+
+        return recognise(postcode, 0, START);
+    }
+
+    private static boolean recognise(CharSequence postcode, int from, int initialState) {
+        int state = initialState;
+        for (int i = from; i < postcode.length() && state != REJECT; i++) {
+            char c = postcode.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (isLetter(c)) {
+                state = afterLetter(state);
+            } else if (isDigit(c)) {
+                state = afterDigit(state);
+            } else {
+                state = REJECT;
+            }
+        }
+        return state == ACCEPT;
+    }
+
+    private static int afterLetter(int state) {
+        return switch (state) {
+            case START -> A;
+            case A -> AA;
+            case A9, AA9 -> NEED_9AA;
+            case A99, AA99, NEED_AA -> NEED_A;
+            case NEED_A -> ACCEPT;
+            default -> REJECT;
+        };
+    }
+
+    private static int afterDigit(int state) {
+        return switch (state) {
+            case A -> A9;
+            case AA -> AA9;
+            case A9 -> A99;
+            case AA9 -> AA99;
+            case A99, AA99, NEED_9AA -> NEED_AA;
+            default -> REJECT;
+        };
+    }
+
+    private static boolean isBfpoNumber(CharSequence postcode, int from) {
+        int digits = 0;
+        for (int i = from; i < postcode.length(); i++) {
+            char c = postcode.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (!isDigit(c) || ++digits > MAX_BFPO_DIGITS) {
+                return false;
+            }
+        }
+        return digits > 0;
+    }
+
+    private static boolean isWhitespaceFrom(CharSequence postcode, int from) {
+        for (int i = from; i < postcode.length(); i++) {
+            if (!Character.isWhitespace(postcode.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the index after a leading literal, ignoring case and whitespace, or -1 if it's absent
+    private static int matchesLiteral(CharSequence postcode, String literal) {
+        int i = 0;
+        for (int matched = 0; matched < literal.length(); i++) {
+            if (i == postcode.length()) {
+                return -1;
+            }
+            char c = postcode.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (toUpperCase(c) != literal.charAt(matched++)) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isLetter(char c) {
+        return toUpperCase(c) >= 'A' && toUpperCase(c) <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // ASCII only, so letters from other alphabets are not mistaken for postcode letters
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
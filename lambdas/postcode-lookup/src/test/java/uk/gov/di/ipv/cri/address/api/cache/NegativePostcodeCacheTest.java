@@ -0,0 +1,83 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.api.cache.NegativePostcodeCache.NEGATIVE_CACHE_EVICTION_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.NegativePostcodeCache.NEGATIVE_CACHE_HIT_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class NegativePostcodeCacheTest {
+    private static final String TEST_CLIENT_ID = "mock-client-id";
+
+    @Mock private EventProbe eventProbe;
+    @Mock private Clock clock;
+    private NegativePostcodeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NegativePostcodeCache(2, Duration.ofSeconds(60), clock, eventProbe);
+    }
+
+    @Test
+    void shouldRememberUnknownPostcodesAndCountHits() {
+        when(clock.millis()).thenReturn(0L);
+
+        cache.put(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID);
+
+        assertTrue(cache.contains(ParsedPostcode.parse("zz99zz"), TEST_CLIENT_ID));
+        assertTrue(cache.contains(ParsedPostcode.parse("ZZ9%209ZZ"), TEST_CLIENT_ID));
+        assertFalse(cache.contains(ParsedPostcode.parse("ZZ9 9ZZ"), "another-client-id"));
+        verify(eventProbe, times(2)).counterMetric(NEGATIVE_CACHE_HIT_METRIC);
+    }
+
+    @Test
+    void shouldForgetPostcodesAfterTtl() {
+        when(clock.millis()).thenReturn(0L, 60_000L);
+        cache.put(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID);
+
+        assertFalse(cache.contains(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID));
+        assertEquals(0, cache.size());
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPostcodeWhenFull() {
+        when(clock.millis()).thenReturn(0L);
+        cache.put(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID);
+        cache.put(ParsedPostcode.parse("ZZ9 9ZY"), TEST_CLIENT_ID);
+        cache.contains(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID);
+        cache.put(ParsedPostcode.parse("ZZ9 9ZX"), TEST_CLIENT_ID);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID));
+        assertFalse(cache.contains(ParsedPostcode.parse("ZZ9 9ZY"), TEST_CLIENT_ID));
+        verify(eventProbe).counterMetric(NEGATIVE_CACHE_EVICTION_METRIC);
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() {
+        NegativePostcodeCache disabledCache = NegativePostcodeCache.disabled();
+
+        disabledCache.put(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID);
+
+        assertFalse(disabledCache.isEnabled());
+        assertFalse(disabledCache.contains(ParsedPostcode.parse("ZZ9 9ZZ"), TEST_CLIENT_ID));
+        assertEquals(0, disabledCache.size());
+    }
+}
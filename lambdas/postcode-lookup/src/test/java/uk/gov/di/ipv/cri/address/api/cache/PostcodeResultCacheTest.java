@@ -0,0 +1,142 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache.CACHE_EVICTION_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache.CACHE_EXPIRED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache.CACHE_HIT_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache.CACHE_MISS_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache.CACHE_STALE_HIT_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class PostcodeResultCacheTest {
+    private static final String TEST_CLIENT_ID = "mock-client-id";
+    private static final ParsedPostcode LS1_1BA = ParsedPostcode.parse("LS1 1BA");
+    private static final ParsedPostcode SW1A_1AA = ParsedPostcode.parse("SW1A 1AA");
+    private static final ParsedPostcode EH1_9GP = ParsedPostcode.parse("EH1 9GP");
+
+    @Mock private EventProbe eventProbe;
+    @Mock private Clock clock;
+    private PostcodeResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PostcodeResultCache(2, Duration.ofSeconds(60), clock, eventProbe);
+    }
+
+    @Test
+    void shouldReturnCachedResultsForNormalisedPostcode() {
+        when(clock.millis()).thenReturn(0L);
+        List<CanonicalAddress> addresses = List.of(createAddress("LS1 1BA"));
+
+        cache.put(LS1_1BA, TEST_CLIENT_ID, addresses);
+
+        assertEquals(
+                addresses,
+                cache.get(ParsedPostcode.parse("ls11ba"), TEST_CLIENT_ID).orElseThrow());
+        assertEquals(
+                addresses,
+                cache.get(ParsedPostcode.parse("LS1%201BA"), TEST_CLIENT_ID).orElseThrow());
+        verify(eventProbe, times(2)).counterMetric(CACHE_HIT_METRIC);
+    }
+
+    @Test
+    void shouldKeepClientsSeparate() {
+        when(clock.millis()).thenReturn(0L);
+        cache.put(LS1_1BA, TEST_CLIENT_ID, List.of(createAddress("LS1 1BA")));
+
+        assertTrue(cache.get(LS1_1BA, "another-client-id").isEmpty());
+        verify(eventProbe).counterMetric(CACHE_MISS_METRIC);
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        when(clock.millis()).thenReturn(0L, 60_000L);
+        cache.put(LS1_1BA, TEST_CLIENT_ID, List.of(createAddress("LS1 1BA")));
+
+        assertTrue(cache.get(LS1_1BA, TEST_CLIENT_ID).isEmpty());
+        assertEquals(0, cache.size());
+        verify(eventProbe).counterMetric(CACHE_EXPIRED_METRIC);
+        verify(eventProbe).counterMetric(CACHE_MISS_METRIC);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        when(clock.millis()).thenReturn(0L);
+        cache.put(LS1_1BA, TEST_CLIENT_ID, List.of(createAddress("LS1 1BA")));
+        cache.put(SW1A_1AA, TEST_CLIENT_ID, List.of(createAddress("SW1A 1AA")));
+        cache.get(LS1_1BA, TEST_CLIENT_ID);
+        cache.put(EH1_9GP, TEST_CLIENT_ID, List.of(createAddress("EH1 9GP")));
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.get(LS1_1BA, TEST_CLIENT_ID).isEmpty());
+        assertTrue(cache.get(SW1A_1AA, TEST_CLIENT_ID).isEmpty());
+        verify(eventProbe).counterMetric(CACHE_EVICTION_METRIC);
+    }
+
+    @Test
+    void shouldServeEntriesAsStaleUntilTheirHardExpiry() {
+        PostcodeResultCache staleCache =
+                new PostcodeResultCache(
+                        2, Duration.ofSeconds(60), Duration.ofSeconds(60), clock, eventProbe);
+        List<CanonicalAddress> addresses = List.of(createAddress("LS1 1BA"));
+        when(clock.millis()).thenReturn(0L, 59_999L, 60_000L, 120_000L);
+        staleCache.put(LS1_1BA, TEST_CLIENT_ID, addresses);
+
+        assertFalse(staleCache.lookup(LS1_1BA, TEST_CLIENT_ID).orElseThrow().stale());
+        PostcodeResultCache.CachedResults staleResults =
+                staleCache.lookup(LS1_1BA, TEST_CLIENT_ID).orElseThrow();
+        assertTrue(staleResults.stale());
+        assertEquals(addresses, staleResults.addresses());
+        assertTrue(staleCache.lookup(LS1_1BA, TEST_CLIENT_ID).isEmpty());
+
+        verify(eventProbe).counterMetric(CACHE_HIT_METRIC);
+        verify(eventProbe).counterMetric(CACHE_STALE_HIT_METRIC);
+        verify(eventProbe).counterMetric(CACHE_EXPIRED_METRIC);
+        assertEquals(0, staleCache.size());
+    }
+
+    @Test
+    void shouldRemoveEntries() {
+        when(clock.millis()).thenReturn(0L);
+        cache.put(LS1_1BA, TEST_CLIENT_ID, List.of(createAddress("LS1 1BA")));
+
+        cache.remove(ParsedPostcode.parse("ls11ba"), TEST_CLIENT_ID);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disabledCacheShouldNeverStoreOrReportMetrics() {
+        PostcodeResultCache disabledCache = PostcodeResultCache.disabled();
+        disabledCache.put(LS1_1BA, TEST_CLIENT_ID, List.of(createAddress("LS1 1BA")));
+
+        assertFalse(disabledCache.isEnabled());
+        assertTrue(disabledCache.get(LS1_1BA, TEST_CLIENT_ID).isEmpty());
+        verifyNoInteractions(eventProbe);
+    }
+
+    private static CanonicalAddress createAddress(String postcode) {
+        CanonicalAddress address = new CanonicalAddress();
+        address.setPostalCode(postcode);
+        return address;
+    }
+}
@@ -0,0 +1,103 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the shared cache against DynamoDB Local, for example started with {@code docker run -p
+ * 8000:8000 amazon/dynamodb-local}. Skipped unless {@code DYNAMODB_LOCAL_ENDPOINT} is set.
+ */
+@ExtendWith(MockitoExtension.class)
+@EnabledIfEnvironmentVariable(named = "DYNAMODB_LOCAL_ENDPOINT", matches = ".+")
+class SharedPostcodeCacheDynamoDbLocalTest {
+    private static final String TEST_CLIENT_ID = "mock-client-id";
+    private static final ParsedPostcode POSTCODE = ParsedPostcode.parse("LS1 1BA");
+
+    @Mock private EventProbe eventProbe;
+    private DynamoDbClient dynamoDbClient;
+    private DynamoDbTable<PostcodeCacheItem> table;
+    private SharedPostcodeCache sharedCache;
+
+    @BeforeEach
+    void setUp() {
+        dynamoDbClient =
+                DynamoDbClient.builder()
+                        .endpointOverride(URI.create(System.getenv("DYNAMODB_LOCAL_ENDPOINT")))
+                        .region(Region.EU_WEST_2)
+                        .credentialsProvider(
+                                StaticCredentialsProvider.create(
+                                        AwsBasicCredentials.create("local", "local")))
+                        .build();
+        DynamoDbEnhancedClient enhancedClient =
+                DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+
+        String tableName = "postcode-cache-" + UUID.randomUUID();
+        table = enhancedClient.table(tableName, TableSchema.fromBean(PostcodeCacheItem.class));
+        table.createTable();
+
+        sharedCache =
+                new SharedPostcodeCache(
+                        new DataStore<>(tableName, PostcodeCacheItem.class, enhancedClient),
+                        Duration.ofHours(1),
+                        Clock.systemUTC(),
+                        Runnable::run,
+                        eventProbe,
+                        LogManager.getLogger());
+    }
+
+    @AfterEach
+    void tearDown() {
+        table.deleteTable();
+        dynamoDbClient.close();
+    }
+
+    @Test
+    void shouldRoundTripAddressesThroughTable() {
+        CanonicalAddress address = new CanonicalAddress();
+        address.setUprn(12345678L);
+        address.setBuildingNumber("1");
+        address.setStreetName("TEST STREET");
+        address.setAddressLocality("LEEDS");
+        address.setPostalCode("LS1 1BA");
+        address.setAddressCountry("GB");
+
+        assertTrue(sharedCache.get(POSTCODE, TEST_CLIENT_ID).isEmpty());
+
+        sharedCache.putAsync(POSTCODE, TEST_CLIENT_ID, List.of(address)).join();
+        List<CanonicalAddress> results =
+                sharedCache.get(ParsedPostcode.parse("ls11ba"), TEST_CLIENT_ID).orElseThrow();
+
+        assertEquals(1, results.size());
+        assertEquals(Long.valueOf(12345678L), results.get(0).getUprn());
+        assertEquals("TEST STREET", results.get(0).getStreetName());
+        assertEquals("LS1 1BA", results.get(0).getPostalCode());
+        assertTrue(sharedCache.get(POSTCODE, "another-client").isEmpty());
+    }
+}
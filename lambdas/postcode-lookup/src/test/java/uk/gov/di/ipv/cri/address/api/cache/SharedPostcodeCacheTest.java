@@ -0,0 +1,236 @@
+package uk.gov.di.ipv.cri.address.api.cache;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache.SHARED_CACHE_ERROR_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache.SHARED_CACHE_FLUSH_TIMEOUT_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache.SHARED_CACHE_HIT_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache.SHARED_CACHE_MISS_METRIC;
+import static uk.gov.di.ipv.cri.address.api.cache.SharedPostcodeCache.SHARED_CACHE_OVERSIZED_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class SharedPostcodeCacheTest {
+    private static final String TEST_CLIENT_ID = "mock-client-id";
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final ParsedPostcode POSTCODE = ParsedPostcode.parse("LS1 1BA");
+
+    @Mock private DataStore<PostcodeCacheItem> dataStore;
+    @Mock private EventProbe eventProbe;
+    @Mock private Logger log;
+    @Captor private ArgumentCaptor<PostcodeCacheItem> itemCaptor;
+    private SharedPostcodeCache sharedCache;
+
+    @BeforeEach
+    void setUp() {
+        sharedCache =
+                new SharedPostcodeCache(
+                        dataStore,
+                        Duration.ofHours(1),
+                        Clock.fixed(NOW, ZoneOffset.UTC),
+                        Runnable::run,
+                        eventProbe,
+                        log);
+    }
+
+    @Test
+    void shouldReturnUnexpiredItem() {
+        PostcodeCacheItem item = new PostcodeCacheItem();
+        item.setExpiryDate(NOW.getEpochSecond() + 1);
+        item.setAddresses(List.of(createAddress()));
+        when(dataStore.getItem(SharedPostcodeCache.createHashKey(POSTCODE, TEST_CLIENT_ID)))
+                .thenReturn(item);
+
+        ParsedPostcode lowerCase = ParsedPostcode.parse("ls1 1ba");
+        assertEquals(1, sharedCache.get(lowerCase, TEST_CLIENT_ID).orElseThrow().size());
+        verify(eventProbe).counterMetric(SHARED_CACHE_HIT_METRIC);
+    }
+
+    @Test
+    void shouldTreatExpiredItemAsMiss() {
+        PostcodeCacheItem item = new PostcodeCacheItem();
+        item.setExpiryDate(NOW.getEpochSecond());
+        when(dataStore.getItem(anyString())).thenReturn(item);
+
+        assertTrue(sharedCache.get(POSTCODE, TEST_CLIENT_ID).isEmpty());
+        verify(eventProbe).counterMetric(SHARED_CACHE_MISS_METRIC);
+    }
+
+    @Test
+    void shouldTreatDataStoreFailureAsMiss() {
+        when(dataStore.getItem(anyString())).thenThrow(new RuntimeException("throttled"));
+
+        assertTrue(sharedCache.get(POSTCODE, TEST_CLIENT_ID).isEmpty());
+        verify(eventProbe).counterMetric(SHARED_CACHE_ERROR_METRIC);
+    }
+
+    @Test
+    void shouldWriteItemWithTtl() {
+        sharedCache.putAsync(POSTCODE, TEST_CLIENT_ID, List.of(createAddress())).join();
+
+        verify(dataStore).create(itemCaptor.capture());
+        PostcodeCacheItem item = itemCaptor.getValue();
+        assertEquals(
+                SharedPostcodeCache.createHashKey(POSTCODE, TEST_CLIENT_ID),
+                item.getPostcodeHash());
+        assertEquals(NOW.plus(Duration.ofHours(1)).getEpochSecond(), item.getExpiryDate());
+        assertEquals(1, item.getAddresses().size());
+    }
+
+    @Test
+    void shouldRemoveItem() {
+        sharedCache.removeAsync(POSTCODE, TEST_CLIENT_ID).join();
+
+        verify(dataStore).delete(SharedPostcodeCache.createHashKey(POSTCODE, TEST_CLIENT_ID));
+    }
+
+    @Test
+    void shouldSwallowRemoveFailures() {
+        doThrow(new RuntimeException("throttled")).when(dataStore).delete(anyString());
+
+        sharedCache.removeAsync(POSTCODE, TEST_CLIENT_ID).join();
+
+        verify(log).warn(anyString(), any(Throwable.class));
+    }
+
+    @Test
+    void shouldSwallowWriteFailures() {
+        doThrow(new RuntimeException("throttled")).when(dataStore).create(any());
+
+        sharedCache.putAsync(POSTCODE, TEST_CLIENT_ID, List.of(createAddress())).join();
+
+        verify(log).warn(anyString(), any(Throwable.class));
+    }
+
+    @Test
+    void shouldSkipItemsTooLargeForDynamoDb() {
+        List<CanonicalAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            CanonicalAddress address = createAddress();
+            address.setBuildingName("Flat " + i + " " + "x".repeat(400));
+            addresses.add(address);
+        }
+
+        sharedCache.putAsync(POSTCODE, TEST_CLIENT_ID, addresses).join();
+
+        verify(dataStore, never()).create(any());
+        verify(eventProbe).counterMetric(SHARED_CACHE_OVERSIZED_METRIC);
+    }
+
+    @Test
+    void shouldEstimateItemSizeFromItsAttributes() {
+        PostcodeCacheItem item = new PostcodeCacheItem();
+        item.setPostcodeHash(SharedPostcodeCache.createHashKey(POSTCODE, TEST_CLIENT_ID));
+        item.setExpiryDate(NOW.getEpochSecond());
+        item.setAddresses(List.of(createAddress()));
+
+        assertTrue(SharedPostcodeCache.itemSize(item) > 64);
+        assertTrue(SharedPostcodeCache.itemSize(item) < SharedPostcodeCache.MAX_ITEM_SIZE_BYTES);
+    }
+
+    @Test
+    void flushShouldWaitForPendingWrites() {
+        ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+        SharedPostcodeCache backgroundCache =
+                new SharedPostcodeCache(
+                        dataStore,
+                        Duration.ofHours(1),
+                        Clock.fixed(NOW, ZoneOffset.UTC),
+                        writeExecutor,
+                        eventProbe,
+                        log);
+        doAnswer(
+                        invocation -> {
+                            Thread.sleep(50);
+                            return null;
+                        })
+                .when(dataStore)
+                .create(any());
+
+        try {
+            backgroundCache.putAsync(POSTCODE, TEST_CLIENT_ID, List.of(createAddress()));
+            backgroundCache.flush(Duration.ofSeconds(5));
+
+            verify(dataStore).create(any());
+            verify(eventProbe, never()).counterMetric(SHARED_CACHE_FLUSH_TIMEOUT_METRIC);
+        } finally {
+            writeExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void flushShouldGiveUpAfterTimeout() {
+        SharedPostcodeCache stalledCache =
+                new SharedPostcodeCache(
+                        dataStore,
+                        Duration.ofHours(1),
+                        Clock.fixed(NOW, ZoneOffset.UTC),
+                        command -> {},
+                        eventProbe,
+                        log);
+
+        stalledCache.putAsync(POSTCODE, TEST_CLIENT_ID, List.of(createAddress()));
+        stalledCache.flush(Duration.ofMillis(10));
+
+        verify(eventProbe).counterMetric(SHARED_CACHE_FLUSH_TIMEOUT_METRIC);
+        verify(dataStore, never()).create(any());
+    }
+
+    @Test
+    void shouldHashPostcodeAndClientTogether() {
+        String hash = SharedPostcodeCache.createHashKey(POSTCODE, TEST_CLIENT_ID);
+
+        assertEquals(64, hash.length());
+        assertEquals(
+                hash,
+                SharedPostcodeCache.createHashKey(ParsedPostcode.parse("ls11ba"), TEST_CLIENT_ID));
+        assertNotEquals(hash, SharedPostcodeCache.createHashKey(POSTCODE, "another-client"));
+    }
+
+    @Test
+    void disabledCacheShouldNotTouchDataStore() {
+        SharedPostcodeCache disabledCache = SharedPostcodeCache.disabled();
+
+        assertTrue(disabledCache.get(POSTCODE, TEST_CLIENT_ID).isEmpty());
+        disabledCache.putAsync(POSTCODE, TEST_CLIENT_ID, List.of(createAddress())).join();
+        disabledCache.removeAsync(POSTCODE, TEST_CLIENT_ID).join();
+        verifyNoInteractions(dataStore, eventProbe);
+    }
+
+    private static CanonicalAddress createAddress() {
+        CanonicalAddress address = new CanonicalAddress();
+        address.setPostalCode("LS1 1BA");
+        return address;
+    }
+}
@@ -0,0 +1,170 @@
+package uk.gov.di.ipv.cri.address.api.fallback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.address.api.service.OrdnanceSurveyResponseParser;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LocalAddressIndexTest {
+    private static final String OS_RESPONSE =
+            """
+            {
+              "results": [
+                {
+                  "DPA": {
+                    "UPRN": "100023336956",
+                    "ORGANISATION_NAME": "PRIME MINISTER & FIRST LORD OF THE TREASURY",
+                    "BUILDING_NUMBER": "10",
+                    "THOROUGHFARE_NAME": "DOWNING STREET",
+                    "POST_TOWN": "LONDON",
+                    "POSTCODE": "SW1A 2AA"
+                  }
+                },
+                {
+                  "DPA": {
+                    "UPRN": "10033544614",
+                    "ORGANISATION_NAME": "CABINET OFFICE, \\"NUMBER 11\\"",
+                    "SUB_BUILDING_NAME": "FLAT 2",
+                    "BUILDING_NAME": "THE OLD HOUSE",
+                    "DEPENDENT_THOROUGHFARE_NAME": "ST JAMES'S MEWS",
+                    "THOROUGHFARE_NAME": "DOWNING STREET",
+                    "DOUBLE_DEPENDENT_LOCALITY": "WHITEHALL",
+                    "DEPENDENT_LOCALITY": "WESTMINSTER",
+                    "POST_TOWN": "LONDON",
+                    "POSTCODE": "SW1A 2AA"
+                  }
+                }
+              ]
+            }""";
+    private static final String ADDRESS_EXTRACT =
+            """
+            UPRN,ORGANISATION_NAME,DEPARTMENT_NAME,SUB_BUILDING_NAME,BUILDING_NAME,BUILDING_NUMBER,DEPENDENT_THOROUGHFARE_NAME,THOROUGHFARE_NAME,DOUBLE_DEPENDENT_LOCALITY,DEPENDENT_LOCALITY,POST_TOWN,POSTCODE,RPC
+            100023336956,PRIME MINISTER & FIRST LORD OF THE TREASURY,,,,10,,DOWNING STREET,,,LONDON,SW1A 2AA,1
+            10033544614,"CABINET OFFICE, ""NUMBER 11""",,FLAT 2,THE OLD HOUSE,,ST JAMES'S MEWS,DOWNING STREET,WHITEHALL,WESTMINSTER,LONDON,SW1A 2AA,1
+            72614567,,,,,1,,PARK ROW,,,LEEDS,LS1 5JL,1
+            1,,,,,,,,,,,NOT A POSTCODE,1
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldDecodeTheSameAddressesAsOrdnanceSurveyReturns(@TempDir Path directory)
+            throws IOException {
+        LocalAddressIndex index = buildIndex(directory);
+
+        List<CanonicalAddress> expected =
+                new OrdnanceSurveyResponseParser(objectMapper.getFactory())
+                        .parseAddresses(
+                                new ByteArrayInputStream(
+                                        OS_RESPONSE.getBytes(StandardCharsets.UTF_8)))
+                        .orElseThrow();
+        List<CanonicalAddress> actual = index.lookup(ParsedPostcode.parse("sw1a2aa")).orElseThrow();
+
+        assertEquals(
+                objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+        verify(eventProbe).counterMetric(LocalAddressIndex.FALLBACK_SERVED_METRIC);
+    }
+
+    @Test
+    void shouldReportPostcodesNotInTheExtractAsMissing(@TempDir Path directory) throws IOException {
+        LocalAddressIndex index = buildIndex(directory);
+
+        assertEquals(2, index.postcodeCount());
+        assertTrue(index.lookup(ParsedPostcode.parse("LS1 5JL")).isPresent());
+        assertFalse(index.lookup(ParsedPostcode.parse("LS1 5JM")).isPresent());
+        assertFalse(index.lookup(ParsedPostcode.parse("AA1 1AA")).isPresent());
+        assertFalse(index.lookup(ParsedPostcode.parse("ZZ99 9ZZ")).isPresent());
+        assertFalse(index.lookup(ParsedPostcode.parse("BFPO 1234")).isPresent());
+        verify(eventProbe).counterMetric(LocalAddressIndex.FALLBACK_SERVED_METRIC);
+    }
+
+    @Test
+    void shouldFindEveryPostcodeInALargeIndex() throws IOException {
+        SortedMap<String, List<String[]>> addresses = new TreeMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            String postcode = "AB%d %d%cA".formatted(i / 100, i % 10, 'A' + i / 10 % 10);
+            String[] address = new String[LocalAddressIndexBuilder.TEXT_COLUMNS.size() + 1];
+            address[0] = String.valueOf(i);
+            address[address.length - 1] = postcode;
+            addresses
+                    .computeIfAbsent(
+                            ParsedPostcode.parse(postcode).normalised(), key -> new ArrayList<>())
+                    .add(address);
+        }
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        LocalAddressIndexBuilder.write(addresses, written);
+
+        LocalAddressIndex index =
+                new LocalAddressIndex(ByteBuffer.wrap(written.toByteArray()), eventProbe);
+
+        assertEquals(addresses.size(), index.postcodeCount());
+        for (var entry : addresses.entrySet()) {
+            List<CanonicalAddress> found =
+                    index.lookup(ParsedPostcode.parse(entry.getKey())).orElseThrow();
+            assertEquals(entry.getValue().size(), found.size());
+            assertEquals(Long.valueOf(entry.getValue().get(0)[0]), found.get(0).getUprn());
+        }
+    }
+
+    @Test
+    void shouldRefuseToOpenSomethingElse(@TempDir Path directory) throws IOException {
+        Path notAnIndex = Files.write(directory.resolve("index.bin"), new byte[16]);
+
+        assertThrows(IOException.class, () -> LocalAddressIndex.open(notAnIndex, eventProbe));
+    }
+
+    @Test
+    void shouldFindNothingWhenDisabled() {
+        LocalAddressIndex index = LocalAddressIndex.disabled();
+
+        assertFalse(index.isEnabled());
+        assertFalse(index.lookup(ParsedPostcode.parse("SW1A 2AA")).isPresent());
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldSplitQuotedCsvValues() {
+        assertEquals(
+                List.of("1", "CABINET OFFICE, \"NUMBER 11\"", "", "SW1A 2AA"),
+                LocalAddressIndexBuilder.splitCsvLine(
+                        "1,\"CABINET OFFICE, \"\"NUMBER 11\"\"\",,SW1A 2AA"));
+    }
+
+    private LocalAddressIndex buildIndex(Path directory) throws IOException {
+        Path extract = Files.writeString(directory.resolve("addresses.csv"), ADDRESS_EXTRACT);
+        Path indexFile = directory.resolve("index.bin");
+        try (OutputStream out = Files.newOutputStream(indexFile)) {
+            LocalAddressIndexBuilder.write(LocalAddressIndexBuilder.readAddresses(extract), out);
+        }
+        return LocalAddressIndex.open(indexFile, eventProbe);
+    }
+}
@@ -0,0 +1,140 @@
+package uk.gov.di.ipv.cri.address.api.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter.FILTER_EXPECTED_FALSE_POSITIVE_RATE_METRIC;
+import static uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter.FILTER_FALSE_POSITIVE_METRIC;
+import static uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter.FILTER_REJECTED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter.FILTER_SIZE_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class PostcodeExistenceFilterTest {
+    private static final int POSTCODES = 10_000;
+
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldNeverRejectAPostcodeItWasBuiltFrom() {
+        Set<String> postcodes = createPostcodes("LS");
+        PostcodeExistenceFilter filter = PostcodeExistenceFilterBuilder.build(postcodes, 0.01);
+
+        assertTrue(postcodes.stream().allMatch(filter::mightContain));
+    }
+
+    @Test
+    void shouldRejectPostcodesItWasNotBuiltFromAtAboutTheExpectedRate() {
+        PostcodeExistenceFilter filter =
+                PostcodeExistenceFilterBuilder.build(createPostcodes("LS"), 0.01);
+
+        long falsePositives = createPostcodes("SW").stream().filter(filter::mightContain).count();
+
+        assertTrue(falsePositives < POSTCODES * 0.02, falsePositives + " false positives");
+    }
+
+    @Test
+    void shouldReadTheFilterItWrote() throws IOException {
+        Set<String> postcodes = createPostcodes("LS");
+        PostcodeExistenceFilter filter = PostcodeExistenceFilterBuilder.build(postcodes, 0.01);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        filter.write(written);
+
+        PostcodeExistenceFilter read =
+                PostcodeExistenceFilter.read(
+                        new ByteArrayInputStream(written.toByteArray()), eventProbe);
+
+        assertEquals(filter.sizeInBytes(), read.sizeInBytes());
+        assertTrue(postcodes.stream().allMatch(read::mightContain));
+    }
+
+    @Test
+    void shouldRefuseToReadSomethingElse() {
+        ByteArrayInputStream notAFilter = new ByteArrayInputStream(new byte[8]);
+
+        assertThrows(IOException.class, () -> PostcodeExistenceFilter.read(notAFilter, eventProbe));
+    }
+
+    @Test
+    void shouldCountRejectedPostcodesAndReportSizeOnce() {
+        PostcodeExistenceFilter filter =
+                PostcodeExistenceFilter.create(POSTCODES, 0.01, eventProbe);
+        filter.put("LS11BA");
+
+        assertTrue(filter.mightExist(ParsedPostcode.parse("LS1 1BA")));
+        assertFalse(filter.mightExist(ParsedPostcode.parse("SW1A 1AA")));
+        filter.recordFalsePositive();
+
+        verify(eventProbe)
+                .counterMetric(FILTER_SIZE_METRIC, filter.sizeInBytes(), MetricUnit.BYTES);
+        verify(eventProbe)
+                .counterMetric(
+                        eq(FILTER_EXPECTED_FALSE_POSITIVE_RATE_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.PERCENT));
+        verify(eventProbe).counterMetric(FILTER_REJECTED_METRIC);
+        verify(eventProbe).counterMetric(FILTER_FALSE_POSITIVE_METRIC);
+        verifyNoMoreInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldLetEveryPostcodeThroughWhenDisabled() {
+        PostcodeExistenceFilter filter = PostcodeExistenceFilter.disabled();
+
+        assertTrue(filter.mightExist(ParsedPostcode.parse("SW1A 1AA")));
+        filter.recordFalsePositive();
+    }
+
+    @Test
+    void shouldReadPostcodesFromCodePointOpenCsvFiles(@TempDir Path directory) throws IOException {
+        Files.write(
+                directory.resolve("ls.csv"),
+                List.of(
+                        "\"Postcode\",\"Positional_quality_indicator\"",
+                        "\"LS1 1BA\",10,429888,433467",
+                        "\"LS1 1BB\",10,429912,433529"));
+        Files.write(directory.resolve("b.csv"), List.of("\"B1  1AA\",10,406689,286822"));
+        Files.write(directory.resolve("readme.txt"), List.of("\"SW1A 1AA\""));
+
+        assertEquals(
+                Set.of("LS11BA", "LS11BB", "B11AA"),
+                PostcodeExistenceFilterBuilder.readPostcodes(directory));
+    }
+
+    private static Set<String> createPostcodes(String area) {
+        Set<String> postcodes = new HashSet<>();
+        for (int i = 0; i < POSTCODES; i++) {
+            postcodes.add(
+                    "%s%d%d%c%c"
+                            .formatted(
+                                    area,
+                                    i / 1000 + 1,
+                                    i / 100 % 10,
+                                    (char) ('A' + i / 10 % 10),
+                                    (char) ('A' + i % 10)));
+        }
+        return postcodes;
+    }
+}
@@ -1,23 +1,35 @@
 package uk.gov.di.ipv.cri.address.api.handler;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.http.HttpStatusCode;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import uk.gov.di.ipv.cri.address.api.exceptions.ClientIdNotSupportedException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupBadRequestException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupProcessingException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupTimeoutException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+import uk.gov.di.ipv.cri.address.api.http.ResponseCaching;
+import uk.gov.di.ipv.cri.address.api.http.ResponseCompression;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
 import uk.gov.di.ipv.cri.address.api.service.PostcodeLookupService;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventBatch;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventDispatcher;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventType;
 import uk.gov.di.ipv.cri.common.library.exception.SessionExpiredException;
@@ -25,27 +37,38 @@ import uk.gov.di.ipv.cri.common.library.exception.SessionNotFoundException;
 import uk.gov.di.ipv.cri.common.library.exception.SqsException;
 import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.persistence.item.SessionItem;
+import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
 import uk.gov.di.ipv.cri.common.library.service.AuditService;
 import uk.gov.di.ipv.cri.common.library.service.SessionService;
 import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.apache.logging.log4j.Level.ERROR;
 import static org.apache.logging.log4j.Level.INFO;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.LAMBDA_NAME;
+import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.MAX_BACKGROUND_WORK_WAIT;
 import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.POSTCODE_ERROR;
 import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.POSTCODE_ERROR_MESSAGE;
 import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.POSTCODE_ERROR_TYPE;
@@ -55,6 +78,7 @@ import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.SESSIO
 class PostcodeLookupHandlerTest {
     private static final String TEST_POSTCODE = "LS1 1BA";
     private static final String TEST_POSTCODE_BODY = "{ \"postcode\": \"" + TEST_POSTCODE + "\" }";
+    private static final ParsedPostcode TEST_PARSED_POSTCODE = ParsedPostcode.parse(TEST_POSTCODE);
     private static final String TEST_SESSION_ID = String.valueOf(UUID.randomUUID());
     private static final Map<String, String> TEST_REQUEST_HEADERS =
             Map.of(SESSION_ID, TEST_SESSION_ID);
@@ -64,7 +88,10 @@ class PostcodeLookupHandlerTest {
     @Mock private SessionService sessionService;
     @Mock private APIGatewayProxyRequestEvent apiGatewayProxyRequestEvent;
     @Mock private AuditService auditService;
+    @Mock private AuditEventDispatcher auditEventDispatcher;
     @Mock private EventProbe eventProbe;
+    @Spy private ResponseCaching responseCaching = ResponseCaching.disabled();
+    @Spy private ResponseCompression responseCompression = ResponseCompression.disabled();
     @InjectMocks PostcodeLookupHandler postcodeLookupHandler;
     private ArgumentCaptor<Map<String, String>> argumentCaptorDimension =
             ArgumentCaptor.forClass(Map.class);
@@ -83,7 +110,7 @@ class PostcodeLookupHandlerTest {
             when(sessionService.validateSessionId(TEST_SESSION_ID)).thenReturn(mockSessionItem);
             when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
             when(postcodeLookupService.getAuditEventContext(
-                            TEST_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
+                            TEST_PARSED_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
                     .thenReturn(mockAuditEventContext);
         }
 
@@ -91,7 +118,7 @@ class PostcodeLookupHandlerTest {
         void postReturns200WithNoAddresses() throws JsonProcessingException {
             when(apiGatewayProxyRequestEvent.getBody()).thenReturn(TEST_POSTCODE_BODY);
             when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenReturn(Collections.emptyList());
 
             APIGatewayProxyResponseEvent responseEvent =
@@ -109,7 +136,7 @@ class PostcodeLookupHandlerTest {
             CanonicalAddress address = new CanonicalAddress();
             address.setPostalCode(TEST_POSTCODE);
             address.setBuildingName("Test Address");
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenReturn(Collections.singletonList(address));
 
             APIGatewayProxyResponseEvent responseEvent =
@@ -126,17 +153,18 @@ class PostcodeLookupHandlerTest {
             when(apiGatewayProxyRequestEvent.getBody())
                     .thenReturn("{ \"postcode\": \"" + TEST_POSTCODE + "\" }");
 
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenReturn(Collections.emptyList());
 
             APIGatewayProxyResponseEvent responseEvent =
                     postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
 
             verify(sessionService).validateSessionId(TEST_SESSION_ID);
-            verify(postcodeLookupService, times(2))
-                    .getAuditEventContext(TEST_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem);
+            verify(postcodeLookupService)
+                    .getAuditEventContext(
+                            TEST_PARSED_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem);
 
-            verify(postcodeLookupService).lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID);
+            verify(postcodeLookupService).lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID);
 
             assertEquals(HttpStatusCode.OK, responseEvent.getStatusCode());
             assertEquals("[]", responseEvent.getBody());
@@ -145,7 +173,7 @@ class PostcodeLookupHandlerTest {
         @Test
         void returns200AndAuditsEvents() throws SqsException, JsonProcessingException {
             when(apiGatewayProxyRequestEvent.getBody()).thenReturn(TEST_POSTCODE_BODY);
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenReturn(Collections.emptyList());
 
             APIGatewayProxyResponseEvent responseEvent =
@@ -163,42 +191,333 @@ class PostcodeLookupHandlerTest {
     }
 
     @Nested
-    class BadRequests {
+    class CachedResponses {
 
         @Mock private SessionItem mockSessionItem;
+        @Mock private AuditEventContext mockAuditEventContext;
+        private PostcodeLookupHandler cachingHandler;
+
+        @BeforeEach
+        void setup() {
+            cachingHandler =
+                    new PostcodeLookupHandler(
+                            postcodeLookupService,
+                            sessionService,
+                            eventProbe,
+                            auditService,
+                            AuditEventDispatcher.disabled(),
+                            new ResponseCaching(Duration.ofMinutes(5), eventProbe),
+                            ResponseCompression.disabled());
+            when(eventProbe.log(INFO, "found session")).thenReturn(eventProbe);
+            when(apiGatewayProxyRequestEvent.getBody()).thenReturn(TEST_POSTCODE_BODY);
+            when(sessionService.validateSessionId(TEST_SESSION_ID)).thenReturn(mockSessionItem);
+            when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
+            when(postcodeLookupService.getAuditEventContext(
+                            eq(TEST_PARSED_POSTCODE), any(), eq(mockSessionItem)))
+                    .thenReturn(mockAuditEventContext);
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenReturn(Collections.emptyList());
+        }
 
         @Test
-        void postReturns400WhenPostcodeBodyEmpty() throws JsonProcessingException {
+        void returns304WhenTheCallerAlreadyHasTheSameAddresses() {
+            when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(TEST_REQUEST_HEADERS);
+            APIGatewayProxyResponseEvent firstResponse =
+                    cachingHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+            String entityTag = firstResponse.getHeaders().get(ResponseCaching.ETAG_HEADER);
+
+            when(apiGatewayProxyRequestEvent.getHeaders())
+                    .thenReturn(Map.of(SESSION_ID, TEST_SESSION_ID, "if-none-match", entityTag));
+            APIGatewayProxyResponseEvent repeatResponse =
+                    cachingHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+
+            assertEquals(HttpStatusCode.OK, firstResponse.getStatusCode());
+            assertEquals("[]", firstResponse.getBody());
+            assertEquals(
+                    "private, max-age=300",
+                    firstResponse.getHeaders().get(ResponseCaching.CACHE_CONTROL_HEADER));
+            assertEquals(ResponseCaching.NOT_MODIFIED, repeatResponse.getStatusCode());
+            assertNull(repeatResponse.getBody());
+            assertEquals(entityTag, repeatResponse.getHeaders().get(ResponseCaching.ETAG_HEADER));
+            verify(eventProbe).counterMetric(ResponseCaching.NOT_MODIFIED_METRIC);
+        }
+    }
+
+    @Nested
+    class AsyncLookupRequests {
+
+        @Mock private SessionItem mockSessionItem;
+        @Mock private AuditEventContext mockAuditEventContext;
+
+        @BeforeEach
+        void setup() {
+            when(postcodeLookupService.isAsyncLookupEnabled()).thenReturn(true);
             when(eventProbe.log(INFO, "found session")).thenReturn(eventProbe);
+            when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(TEST_REQUEST_HEADERS);
+            when(apiGatewayProxyRequestEvent.getBody()).thenReturn(TEST_POSTCODE_BODY);
+            when(sessionService.validateSessionId(TEST_SESSION_ID)).thenReturn(mockSessionItem);
+            when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
+            when(postcodeLookupService.getAuditEventContext(
+                            TEST_PARSED_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
+                    .thenReturn(mockAuditEventContext);
+        }
+
+        @Test
+        void returns200WithResultsFromAsyncLookup() throws SqsException, JsonProcessingException {
+            when(eventProbe.counterMetric(LAMBDA_NAME)).thenReturn(eventProbe);
+
+            CanonicalAddress address = new CanonicalAddress();
+            address.setPostalCode(TEST_POSTCODE);
+            address.setBuildingName("Test Address");
+            when(postcodeLookupService.lookupPostcodeAsync(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenReturn(CompletableFuture.completedFuture(List.of(address)));
+
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+
+            verify(postcodeLookupService, never())
+                    .lookupPostcode(any(ParsedPostcode.class), anyString());
+            verify(auditService).sendAuditEvent(AuditEventType.REQUEST_SENT, mockAuditEventContext);
+            verify(auditService)
+                    .sendAuditEvent(AuditEventType.RESPONSE_RECEIVED, mockAuditEventContext);
+
+            assertEquals(HttpStatusCode.OK, responseEvent.getStatusCode());
+            assertEquals(
+                    "[{\"buildingName\":\"Test Address\",\"postalCode\":\"LS1 1BA\"}]",
+                    responseEvent.getBody());
+        }
+
+        @Test
+        void asyncLookupTimeoutReturns408() {
             setupEventProbeExpectedErrorBehaviour();
             doNothing().when(eventProbe).addDimensions(argumentCaptorDimension.capture());
 
-            when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(TEST_REQUEST_HEADERS);
-            when(apiGatewayProxyRequestEvent.getBody()).thenReturn("{ \"postcode\": \"\" }");
+            PostcodeLookupTimeoutException exception =
+                    new PostcodeLookupTimeoutException("Error Connection Timeout");
+            when(postcodeLookupService.lookupPostcodeAsync(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenReturn(CompletableFuture.failedFuture(exception));
 
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+
+            verifyErrorsLoggedByEventProbe(exception);
+            assertEquals(HttpStatusCode.REQUEST_TIMEOUT, responseEvent.getStatusCode());
+            assertEquals("\"Error Connection Timeout\"", responseEvent.getBody());
+        }
+
+        @Test
+        void cancelsPendingLookupWhenRequestSentAuditFails() throws SqsException {
+            setupEventProbeExpectedErrorBehaviour();
+            doNothing().when(eventProbe).addDimensions(argumentCaptorDimension.capture());
+
+            CompletableFuture<List<CanonicalAddress>> pendingLookup = new CompletableFuture<>();
+            when(postcodeLookupService.lookupPostcodeAsync(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenReturn(pendingLookup);
+            doThrow(new RuntimeException("Audit failed"))
+                    .when(auditService)
+                    .sendAuditEvent(AuditEventType.REQUEST_SENT, mockAuditEventContext);
+
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+
+            assertTrue(pendingLookup.isCancelled());
+            assertEquals(HttpStatusCode.UNAUTHORIZED, responseEvent.getStatusCode());
+        }
+    }
+
+    @Nested
+    class BatchedAuditRequests {
+
+        @Mock private SessionItem mockSessionItem;
+        @Mock private AuditEventContext mockAuditEventContext;
+        @Mock private AuditEventBatch mockAuditEventBatch;
+        @Mock private AuditEventFactory auditEventFactory;
+        @Mock private SqsClient sqsClient;
+
+        @BeforeEach
+        void setup() {
+            when(auditEventDispatcher.isEnabled()).thenReturn(true);
+            when(auditEventDispatcher.newBatch()).thenReturn(mockAuditEventBatch);
+            when(eventProbe.log(INFO, "found session")).thenReturn(eventProbe);
+            when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(TEST_REQUEST_HEADERS);
+            when(apiGatewayProxyRequestEvent.getBody()).thenReturn(TEST_POSTCODE_BODY);
             when(sessionService.validateSessionId(TEST_SESSION_ID)).thenReturn(mockSessionItem);
             when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
+            when(postcodeLookupService.getAuditEventContext(
+                            TEST_PARSED_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
+                    .thenReturn(mockAuditEventContext);
+        }
+
+        @Test
+        void sendsBothAuditEventsInOneBatch() throws SqsException, JsonProcessingException {
+            when(eventProbe.counterMetric(LAMBDA_NAME)).thenReturn(eventProbe);
+            when(mockAuditEventBatch.dispatch(any()))
+                    .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
 
-            PostcodeValidationException exception =
-                    new PostcodeValidationException("Postcode is empty");
-            when(postcodeLookupService.lookupPostcode("", TEST_CLIENT_ID)).thenThrow(exception);
+            CanonicalAddress address = new CanonicalAddress();
+            address.setPostalCode(TEST_POSTCODE);
+            address.setBuildingName("Test Address");
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenReturn(List.of(address));
 
             APIGatewayProxyResponseEvent responseEvent =
                     postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
-            var capturedDimension = argumentCaptorDimension.getValue();
+
+            InOrder inOrder = inOrder(mockAuditEventBatch);
+            inOrder.verify(mockAuditEventBatch)
+                    .add(AuditEventType.REQUEST_SENT, mockAuditEventContext);
+            inOrder.verify(mockAuditEventBatch)
+                    .add(AuditEventType.RESPONSE_RECEIVED, mockAuditEventContext);
+            inOrder.verify(mockAuditEventBatch).dispatch(any());
+            verify(mockAuditEventBatch, never()).send();
+            verifyNoInteractions(auditService);
+
+            assertEquals(HttpStatusCode.OK, responseEvent.getStatusCode());
+            assertEquals(
+                    "[{\"buildingName\":\"Test Address\",\"postalCode\":\"LS1 1BA\"}]",
+                    responseEvent.getBody());
+        }
+
+        @Test
+        void sendsBothAuditEventsInOneSqsCallAfterTheAsyncLookup() throws Exception {
+            when(postcodeLookupService.isAsyncLookupEnabled()).thenReturn(true);
+            when(eventProbe.counterMetric(LAMBDA_NAME)).thenReturn(eventProbe);
+
+            CanonicalAddress address = new CanonicalAddress();
+            address.setPostalCode(TEST_POSTCODE);
+            CompletableFuture<List<CanonicalAddress>> pendingLookup = new CompletableFuture<>();
+            when(postcodeLookupService.lookupPostcodeAsync(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenReturn(pendingLookup);
+            // OS only answers once REQUEST_SENT exists, so it must be created while in flight
+            when(auditEventFactory.create(anyString(), any(), any()))
+                    .thenAnswer(
+                            invocation -> {
+                                pendingLookup.complete(List.of(address));
+                                return null;
+                            });
+            when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                    .thenReturn(SendMessageBatchResponse.builder().build());
+            when(auditEventDispatcher.newBatch())
+                    .thenReturn(
+                            new AuditEventDispatcher(
+                                            sqsClient,
+                                            "audit-queue",
+                                            new ObjectMapper(),
+                                            auditEventFactory,
+                                            null,
+                                            eventProbe)
+                                    .newBatch());
+
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+
+            InOrder inOrder = inOrder(postcodeLookupService, auditEventFactory, sqsClient);
+            inOrder.verify(postcodeLookupService)
+                    .lookupPostcodeAsync(TEST_PARSED_POSTCODE, TEST_CLIENT_ID);
+            inOrder.verify(auditEventFactory)
+                    .create(AuditEventType.REQUEST_SENT.toString(), mockAuditEventContext, null);
+            inOrder.verify(auditEventFactory)
+                    .create(
+                            AuditEventType.RESPONSE_RECEIVED.toString(),
+                            mockAuditEventContext,
+                            null);
+            ArgumentCaptor<SendMessageBatchRequest> batchRequest =
+                    ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+            inOrder.verify(sqsClient).sendMessageBatch(batchRequest.capture());
+            verifyNoMoreInteractions(sqsClient);
+            assertEquals(2, batchRequest.getValue().entries().size());
+            verify(postcodeLookupService, never())
+                    .lookupPostcode(any(ParsedPostcode.class), anyString());
+            verifyNoInteractions(auditService);
+
+            assertEquals(HttpStatusCode.OK, responseEvent.getStatusCode());
+            assertEquals("[{\"postalCode\":\"LS1 1BA\"}]", responseEvent.getBody());
+        }
+
+        @Test
+        void stillSendsRequestSentEventWhenLookupFails()
+                throws SqsException, JsonProcessingException {
+            setupEventProbeExpectedErrorBehaviour();
+            doNothing().when(eventProbe).addDimensions(argumentCaptorDimension.capture());
+
+            PostcodeLookupTimeoutException exception =
+                    new PostcodeLookupTimeoutException("Error Connection Timeout");
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
+                    .thenThrow(exception);
+
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+
+            verify(mockAuditEventBatch).add(AuditEventType.REQUEST_SENT, mockAuditEventContext);
+            verify(mockAuditEventBatch).send();
+            verify(mockAuditEventBatch, never())
+                    .add(AuditEventType.RESPONSE_RECEIVED, mockAuditEventContext);
+            verifyNoInteractions(auditService);
 
             verifyErrorsLoggedByEventProbe(exception);
+            assertEquals(HttpStatusCode.REQUEST_TIMEOUT, responseEvent.getStatusCode());
+        }
+    }
+
+    @Nested
+    class BadRequests {
+
+        @Mock private SessionItem mockSessionItem;
+
+        @Test
+        void postReturns400WhenPostcodeBodyEmpty() {
+            setupEventProbeExpectedErrorBehaviour();
+            doNothing().when(eventProbe).addDimensions(argumentCaptorDimension.capture());
+
+            when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(TEST_REQUEST_HEADERS);
+            when(apiGatewayProxyRequestEvent.getBody()).thenReturn("{ \"postcode\": \"\" }");
+
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+            var capturedDimension = argumentCaptorDimension.getValue();
+
+            verify(eventProbe).log(eq(ERROR), any(PostcodeValidationException.class));
+            verify(eventProbe).counterMetric(POSTCODE_ERROR);
+            verifyNoMoreInteractions(eventProbe);
+            verifyNoInteractions(sessionService, postcodeLookupService);
+
+            assertEquals(
+                    Map.of(
+                            POSTCODE_ERROR_TYPE,
+                            "invalid_postcode_param",
+                            POSTCODE_ERROR_MESSAGE,
+                            "Postcode_must_not_be_null_or_blank"),
+                    capturedDimension);
+            assertEquals(HttpStatusCode.BAD_REQUEST, responseEvent.getStatusCode());
+            assertEquals("\"Postcode must not be null or blank\"", responseEvent.getBody());
+        }
+
+        @Test
+        void postReturns400WithoutAuditingOrLookupWhenPostcodeMalformed() {
+            setupEventProbeExpectedErrorBehaviour();
+            doNothing().when(eventProbe).addDimensions(argumentCaptorDimension.capture());
+
+            when(apiGatewayProxyRequestEvent.getHeaders()).thenReturn(TEST_REQUEST_HEADERS);
+            when(apiGatewayProxyRequestEvent.getBody()).thenReturn("{ \"postcode\": \"12345\" }");
+
+            APIGatewayProxyResponseEvent responseEvent =
+                    postcodeLookupHandler.handleRequest(apiGatewayProxyRequestEvent, null);
+            var capturedDimension = argumentCaptorDimension.getValue();
+
+            verify(eventProbe).log(eq(ERROR), any(PostcodeValidationException.class));
+            verify(eventProbe).counterMetric(POSTCODE_ERROR);
             verifyNoMoreInteractions(eventProbe);
+            verifyNoInteractions(sessionService, auditService, postcodeLookupService);
 
             assertEquals(
                     Map.of(
                             POSTCODE_ERROR_TYPE,
                             "invalid_postcode_param",
                             POSTCODE_ERROR_MESSAGE,
-                            "Postcode_is_empty"),
+                            "Postcode_is_not_a_valid_UK_postcode"),
                     capturedDimension);
             assertEquals(HttpStatusCode.BAD_REQUEST, responseEvent.getStatusCode());
-            assertEquals("\"Postcode is empty\"", responseEvent.getBody());
+            assertEquals("\"Postcode is not a valid UK postcode\"", responseEvent.getBody());
         }
 
         @Test
@@ -348,7 +667,7 @@ class PostcodeLookupHandlerTest {
             ClientIdNotSupportedException exception =
                     new ClientIdNotSupportedException(
                             "The Client ID provided for this session is not supported");
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenThrow(exception);
 
             APIGatewayProxyResponseEvent responseEvent =
@@ -422,12 +741,12 @@ class PostcodeLookupHandlerTest {
             when(sessionService.validateSessionId(TEST_SESSION_ID)).thenReturn(mockSessionItem);
             when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
             when(postcodeLookupService.getAuditEventContext(
-                            TEST_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
+                            TEST_PARSED_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
                     .thenReturn(testAuditEventContext);
 
             PostcodeLookupTimeoutException exception =
                     new PostcodeLookupTimeoutException("Error Connection Timeout");
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenThrow(exception);
 
             APIGatewayProxyResponseEvent responseEvent =
@@ -460,13 +779,13 @@ class PostcodeLookupHandlerTest {
             when(sessionService.validateSessionId(TEST_SESSION_ID)).thenReturn(mockSessionItem);
             when(mockSessionItem.getClientId()).thenReturn(TEST_CLIENT_ID);
             when(postcodeLookupService.getAuditEventContext(
-                            TEST_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
+                            TEST_PARSED_POSTCODE, TEST_REQUEST_HEADERS, mockSessionItem))
                     .thenReturn(testAuditEventContext);
 
             PostcodeLookupProcessingException exception =
                     new PostcodeLookupProcessingException(
                             "Error sending request for postcode lookup");
-            when(postcodeLookupService.lookupPostcode(TEST_POSTCODE, TEST_CLIENT_ID))
+            when(postcodeLookupService.lookupPostcode(TEST_PARSED_POSTCODE, TEST_CLIENT_ID))
                     .thenThrow(exception);
 
             APIGatewayProxyResponseEvent responseEvent =
@@ -489,6 +808,17 @@ class PostcodeLookupHandlerTest {
         }
     }
 
+    @Test
+    void shouldBoundBackgroundWorkWaitByRemainingTime() {
+        Context context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(10_000, 600, 100);
+
+        assertEquals(MAX_BACKGROUND_WORK_WAIT, PostcodeLookupHandler.backgroundWorkWait(null));
+        assertEquals(MAX_BACKGROUND_WORK_WAIT, PostcodeLookupHandler.backgroundWorkWait(context));
+        assertEquals(Duration.ofMillis(100), PostcodeLookupHandler.backgroundWorkWait(context));
+        assertEquals(Duration.ZERO, PostcodeLookupHandler.backgroundWorkWait(context));
+    }
+
     private void setupEventProbeExpectedErrorBehaviour() {
         when(eventProbe.log(eq(ERROR), any(Exception.class))).thenReturn(eventProbe);
         when(eventProbe.counterMetric(POSTCODE_ERROR)).thenReturn(eventProbe);
@@ -0,0 +1,145 @@
+package uk.gov.di.ipv.cri.address.api.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.http.HttpStatusCode;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseCachingTest {
+    private static final String ADDRESSES = "[{\"postalCode\":\"LS1 1BA\"}]";
+
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldTagSuccessfulResponsesAndAllowPrivateCaching() {
+        ResponseCaching responseCaching = new ResponseCaching(Duration.ofMinutes(10), eventProbe);
+
+        APIGatewayProxyResponseEvent response =
+                responseCaching.apply(new APIGatewayProxyRequestEvent(), ok(ADDRESSES));
+
+        assertEquals(HttpStatusCode.OK, response.getStatusCode());
+        assertEquals(ADDRESSES, response.getBody());
+        assertEquals("application/json", response.getHeaders().get("Content-Type"));
+        assertEquals(
+                ResponseCaching.entityTag(ADDRESSES),
+                response.getHeaders().get(ResponseCaching.ETAG_HEADER));
+        assertEquals(
+                "private, max-age=600",
+                response.getHeaders().get(ResponseCaching.CACHE_CONTROL_HEADER));
+    }
+
+    @Test
+    void shouldGiveTheSameTagToTheSameAddressesOnly() {
+        assertEquals(ResponseCaching.entityTag(ADDRESSES), ResponseCaching.entityTag(ADDRESSES));
+        assertNotEquals(ResponseCaching.entityTag(ADDRESSES), ResponseCaching.entityTag("[]"));
+    }
+
+    @Test
+    void shouldAnswerAMatchingIfNoneMatchWithNotModified() {
+        ResponseCaching responseCaching = new ResponseCaching(Duration.ofMinutes(10), eventProbe);
+        String entityTag = ResponseCaching.entityTag(ADDRESSES);
+
+        APIGatewayProxyResponseEvent response =
+                responseCaching.apply(
+                        request("if-none-match", "\"other\", W/" + entityTag), ok(ADDRESSES));
+
+        assertEquals(ResponseCaching.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(entityTag, response.getHeaders().get(ResponseCaching.ETAG_HEADER));
+        assertNull(response.getHeaders().get("Content-Type"));
+        assertEquals(
+                ResponseCompression.ACCEPT_ENCODING_HEADER,
+                response.getHeaders().get(ResponseCompression.VARY_HEADER));
+        verify(eventProbe).counterMetric(ResponseCaching.NOT_MODIFIED_METRIC);
+    }
+
+    @Test
+    void shouldReturnTheAddressesWhenTheTagHasChanged() {
+        ResponseCaching responseCaching = new ResponseCaching(Duration.ofMinutes(10), eventProbe);
+        String previousTag = ResponseCaching.entityTag("[]");
+
+        APIGatewayProxyResponseEvent response =
+                responseCaching.apply(
+                        request(ResponseCaching.IF_NONE_MATCH_HEADER, previousTag), ok(ADDRESSES));
+
+        assertEquals(HttpStatusCode.OK, response.getStatusCode());
+        assertEquals(ADDRESSES, response.getBody());
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldLeaveErrorResponsesAlone() {
+        ResponseCaching responseCaching = new ResponseCaching(Duration.ofMinutes(10), eventProbe);
+        APIGatewayProxyResponseEvent error =
+                new APIGatewayProxyResponseEvent()
+                        .withStatusCode(HttpStatusCode.NOT_FOUND)
+                        .withBody("\"Not found\"");
+
+        APIGatewayProxyResponseEvent response =
+                responseCaching.apply(request(ResponseCaching.IF_NONE_MATCH_HEADER, "*"), error);
+
+        assertSame(error, response);
+        assertNull(response.getHeaders());
+    }
+
+    @Test
+    void shouldLeaveResponsesAloneWhenDisabled() {
+        APIGatewayProxyResponseEvent ok = ok(ADDRESSES);
+
+        APIGatewayProxyResponseEvent response =
+                ResponseCaching.disabled()
+                        .apply(
+                                request(
+                                        ResponseCaching.IF_NONE_MATCH_HEADER,
+                                        ResponseCaching.entityTag(ADDRESSES)),
+                                ok);
+
+        assertSame(ok, response);
+        assertNull(response.getHeaders().get(ResponseCaching.ETAG_HEADER));
+    }
+
+    @Test
+    void shouldReadTheMaxAgeFromTheGivenEnvironmentOnly() {
+        APIGatewayProxyResponseEvent response =
+                ResponseCaching.fromEnvironment(
+                                Map.of("POSTCODE_LOOKUP_RESPONSE_MAX_AGE_SECONDS", "60"),
+                                eventProbe)
+                        .apply(new APIGatewayProxyRequestEvent(), ok(ADDRESSES));
+
+        assertEquals(
+                "private, max-age=60",
+                response.getHeaders().get(ResponseCaching.CACHE_CONTROL_HEADER));
+
+        APIGatewayProxyResponseEvent ok = ok(ADDRESSES);
+        assertSame(
+                ok,
+                ResponseCaching.fromEnvironment(Map.of(), eventProbe)
+                        .apply(new APIGatewayProxyRequestEvent(), ok));
+    }
+
+    private static APIGatewayProxyRequestEvent request(String header, String value) {
+        return new APIGatewayProxyRequestEvent().withHeaders(Map.of(header, value));
+    }
+
+    private static APIGatewayProxyResponseEvent ok(String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(HttpStatusCode.OK)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+}
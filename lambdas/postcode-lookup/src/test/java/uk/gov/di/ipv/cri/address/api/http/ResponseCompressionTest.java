@@ -0,0 +1,166 @@
+package uk.gov.di.ipv.cri.address.api.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.http.HttpStatusCode;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseCompressionTest {
+    private static final String ADDRESSES =
+            "[" + "{\"streetName\":\"PARK ROW\",\"postalCode\":\"LS1 5JL\"},".repeat(200) + "{}]";
+
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldGzipLargeResponsesWhenTheCallerAcceptsIt() throws IOException {
+        ResponseCompression compression = new ResponseCompression(1024, eventProbe);
+
+        APIGatewayProxyResponseEvent response =
+                compression.apply(request("accept-encoding", "gzip, deflate, br"), ok(ADDRESSES));
+
+        assertEquals(HttpStatusCode.OK, response.getStatusCode());
+        assertTrue(response.getIsBase64Encoded());
+        assertEquals(ADDRESSES, gunzip(response.getBody()));
+        assertEquals(
+                ResponseCompression.GZIP,
+                response.getHeaders().get(ResponseCompression.CONTENT_ENCODING_HEADER));
+        assertEquals(
+                ResponseCompression.ACCEPT_ENCODING_HEADER,
+                response.getHeaders().get(ResponseCompression.VARY_HEADER));
+        assertEquals("application/json", response.getHeaders().get("Content-Type"));
+        verify(eventProbe)
+                .counterMetric(
+                        eq(ResponseCompression.COMPRESSION_RATIO_METRIC),
+                        doubleThat(ratio -> ratio > 10),
+                        eq(MetricUnit.NONE));
+        verify(eventProbe)
+                .counterMetric(
+                        eq(ResponseCompression.COMPRESSION_CPU_TIME_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MICROSECONDS));
+    }
+
+    @Test
+    void shouldLeaveSmallResponsesUncompressed() {
+        ResponseCompression compression = new ResponseCompression(1024, eventProbe);
+
+        APIGatewayProxyResponseEvent response =
+                compression.apply(
+                        request(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip"), ok("[]"));
+
+        assertEquals("[]", response.getBody());
+        assertNull(response.getIsBase64Encoded());
+        assertNull(response.getHeaders().get(ResponseCompression.CONTENT_ENCODING_HEADER));
+        assertEquals(
+                ResponseCompression.ACCEPT_ENCODING_HEADER,
+                response.getHeaders().get(ResponseCompression.VARY_HEADER));
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldLeaveResponsesUncompressedWithoutAcceptEncoding() {
+        ResponseCompression compression = new ResponseCompression(1024, eventProbe);
+
+        APIGatewayProxyResponseEvent response =
+                compression.apply(new APIGatewayProxyRequestEvent(), ok(ADDRESSES));
+
+        assertEquals(ADDRESSES, response.getBody());
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldLeaveErrorsAndDisabledResponsesAlone() {
+        APIGatewayProxyResponseEvent error =
+                new APIGatewayProxyResponseEvent()
+                        .withStatusCode(HttpStatusCode.NOT_FOUND)
+                        .withBody(ADDRESSES);
+        APIGatewayProxyResponseEvent ok = ok(ADDRESSES);
+        APIGatewayProxyRequestEvent acceptsGzip =
+                request(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip");
+
+        assertSame(error, new ResponseCompression(0, eventProbe).apply(acceptsGzip, error));
+        assertNull(error.getHeaders());
+        assertSame(ok, ResponseCompression.disabled().apply(acceptsGzip, ok));
+        assertEquals(ADDRESSES, ok.getBody());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "GZIP;q=0.5", "br, x-gzip", "*", "identity, *;q=1"})
+    void shouldAcceptGzip(String acceptEncoding) {
+        assertTrue(ResponseCompression.acceptsGzip(acceptEncoding));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "br", "identity", "gzip;q=0", "*, gzip;q=0", "deflate, *;q=0"})
+    void shouldNotAcceptGzip(String acceptEncoding) {
+        assertFalse(ResponseCompression.acceptsGzip(acceptEncoding));
+    }
+
+    @Test
+    void shouldGiveTheGzippedBodyItsOwnTagThatStillValidatesTheCachedCopy() {
+        ResponseCaching caching = new ResponseCaching(Duration.ofMinutes(5), eventProbe);
+        ResponseCompression compression = new ResponseCompression(1024, eventProbe);
+        APIGatewayProxyRequestEvent acceptsGzip =
+                request(ResponseCompression.ACCEPT_ENCODING_HEADER, "gzip");
+
+        String gzipTag =
+                compression
+                        .apply(acceptsGzip, caching.apply(acceptsGzip, ok(ADDRESSES)))
+                        .getHeaders()
+                        .get(ResponseCaching.ETAG_HEADER);
+        APIGatewayProxyResponseEvent revalidated =
+                caching.apply(
+                        request(ResponseCaching.IF_NONE_MATCH_HEADER, gzipTag), ok(ADDRESSES));
+
+        assertEquals(
+                ResponseCompression.gzipEntityTag(ResponseCaching.entityTag(ADDRESSES)), gzipTag);
+        assertEquals(ResponseCaching.NOT_MODIFIED, revalidated.getStatusCode());
+    }
+
+    private static String gunzip(String base64Body) throws IOException {
+        try (InputStream body =
+                new GZIPInputStream(
+                        new ByteArrayInputStream(Base64.getDecoder().decode(base64Body)))) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static APIGatewayProxyRequestEvent request(String header, String value) {
+        return new APIGatewayProxyRequestEvent().withHeaders(Map.of(header, value));
+    }
+
+    private static APIGatewayProxyResponseEvent ok(String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(HttpStatusCode.OK)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+}
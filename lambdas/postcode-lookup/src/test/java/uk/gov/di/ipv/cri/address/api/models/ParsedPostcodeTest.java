@@ -0,0 +1,56 @@
+package uk.gov.di.ipv.cri.address.api.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParsedPostcodeTest {
+
+    @Test
+    void shouldParseEncodedPostcode() {
+        ParsedPostcode postcode = ParsedPostcode.parse("sw1a%201aa");
+
+        assertEquals("sw1a 1aa", postcode.decoded());
+        assertEquals("SW1A1AA", postcode.normalised());
+        assertEquals("SW1A1AA|ipv-core", postcode.cacheKey("ipv-core"));
+    }
+
+    @Test
+    void shouldShareCacheKeyAcrossFormsOfTheSamePostcode() {
+        assertEquals(
+                ParsedPostcode.parse("LS1 1BA").cacheKey("ipv-core"),
+                ParsedPostcode.parse(" ls11ba ").cacheKey("ipv-core"));
+        assertNotEquals(
+                ParsedPostcode.parse("LS1 1BA").cacheKey("ipv-core"),
+                ParsedPostcode.parse("LS1 1BA").cacheKey("another-client"));
+    }
+
+    @Test
+    void shouldNormaliseBfpoNumber() {
+        assertEquals("BFPO123", ParsedPostcode.parse("bfpo 123").normalised());
+    }
+
+    @Test
+    void shouldNotExposePostcodeThroughToString() {
+        assertEquals("*******", ParsedPostcode.parse("LS1 1BA").toString());
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"   ", "\t"})
+    void shouldRejectBlankPostcode(String postcode) {
+        assertThrows(PostcodeValidationException.class, () -> ParsedPostcode.parse(postcode));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"ABC", "12345", "LS1", "LS1 1BA1", "LS1%2B1BA"})
+    void shouldRejectMalformedPostcode(String postcode) {
+        assertThrows(PostcodeValidationException.class, () -> ParsedPostcode.parse(postcode));
+    }
+}
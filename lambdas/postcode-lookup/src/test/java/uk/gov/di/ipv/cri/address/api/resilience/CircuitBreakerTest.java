@@ -0,0 +1,196 @@
+package uk.gov.di.ipv.cri.address.api.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupTimeoutException;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker.CIRCUIT_CLOSED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker.CIRCUIT_HALF_OPENED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker.CIRCUIT_OPENED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker.CIRCUIT_REJECTED_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerTest {
+    private static final Duration MIN_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration MAX_TIMEOUT = Duration.ofSeconds(15);
+
+    @Mock private EventProbe eventProbe;
+    @Mock private Clock clock;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker =
+                new CircuitBreaker(
+                        10,
+                        4,
+                        0.5,
+                        Duration.ofSeconds(30),
+                        MIN_TIMEOUT,
+                        MAX_TIMEOUT,
+                        clock,
+                        eventProbe);
+    }
+
+    @Test
+    void shouldUseMaximumTimeoutUntilEnoughLatenciesAreRecorded() {
+        when(clock.millis()).thenReturn(0L);
+        circuitBreaker.recordSuccess(400);
+        circuitBreaker.recordSuccess(400);
+
+        assertEquals(MAX_TIMEOUT, circuitBreaker.permitRequest());
+    }
+
+    @Test
+    void shouldDeriveTimeoutFromP99Latency() {
+        when(clock.millis()).thenReturn(0L);
+        for (long latency : new long[] {100, 200, 300, 2000}) {
+            circuitBreaker.recordSuccess(latency);
+        }
+
+        assertEquals(Duration.ofMillis(4000), circuitBreaker.permitRequest());
+    }
+
+    @Test
+    void shouldKeepTimeoutWithinBounds() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordSuccess(10);
+        }
+        assertEquals(MIN_TIMEOUT, circuitBreaker.getRequestTimeout());
+
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.recordSuccess(60_000);
+        }
+        assertEquals(MAX_TIMEOUT, circuitBreaker.getRequestTimeout());
+    }
+
+    @Test
+    void shouldGrowTheTimeoutWhenLatencyStepsAboveIt() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordSuccess(300);
+        }
+        Duration timeout = circuitBreaker.getRequestTimeout();
+        assertEquals(Duration.ofMillis(600), timeout);
+
+        // OS now takes 800ms, so the next request times out at 600ms
+        circuitBreaker.recordTimeout(timeout);
+        assertEquals(Duration.ofMillis(1200), circuitBreaker.getRequestTimeout());
+
+        circuitBreaker.recordSuccess(800);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(Duration.ofMillis(1600), circuitBreaker.getRequestTimeout());
+    }
+
+    @Test
+    void shouldStartAgainFromTheMaximumTimeoutOnceReopenedAndClosed() {
+        when(clock.millis()).thenReturn(0L, 30_000L);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordSuccess(300);
+        }
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals(MAX_TIMEOUT, circuitBreaker.permitRequest());
+        circuitBreaker.recordSuccess(800);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(MAX_TIMEOUT, circuitBreaker.permitRequest());
+    }
+
+    @Test
+    void shouldOpenAndRejectOnceFailureRateIsReached() {
+        when(clock.millis()).thenReturn(0L, 1000L);
+        circuitBreaker.recordSuccess(100);
+        circuitBreaker.recordSuccess(100);
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(PostcodeLookupTimeoutException.class, circuitBreaker::permitRequest);
+        verify(eventProbe).counterMetric(CIRCUIT_OPENED_METRIC);
+        verify(eventProbe).counterMetric(CIRCUIT_REJECTED_METRIC);
+        verifyNoMoreInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldNotOpenBeforeMinimumCalls() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldCloseWhenTrialSucceeds() {
+        when(clock.millis()).thenReturn(0L, 30_000L, 30_000L);
+        openCircuit();
+
+        assertEquals(MAX_TIMEOUT, circuitBreaker.permitRequest());
+        assertThrows(PostcodeLookupTimeoutException.class, circuitBreaker::permitRequest);
+        circuitBreaker.recordSuccess(100);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        verify(eventProbe).counterMetric(CIRCUIT_HALF_OPENED_METRIC);
+        verify(eventProbe).counterMetric(CIRCUIT_CLOSED_METRIC);
+    }
+
+    @Test
+    void shouldReopenWhenTrialFails() {
+        when(clock.millis()).thenReturn(0L, 30_000L, 30_000L, 31_000L);
+        openCircuit();
+
+        circuitBreaker.permitRequest();
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(PostcodeLookupTimeoutException.class, circuitBreaker::permitRequest);
+    }
+
+    @Test
+    void shouldOnlyPermitBackgroundRequestsWhileClosed() {
+        when(clock.millis()).thenReturn(0L, 30_000L);
+        assertEquals(Optional.of(MAX_TIMEOUT), circuitBreaker.permitBackgroundRequest());
+
+        openCircuit();
+        assertTrue(circuitBreaker.permitBackgroundRequest().isEmpty());
+
+        circuitBreaker.permitRequest();
+        assertTrue(circuitBreaker.permitBackgroundRequest().isEmpty());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldAlwaysPermitWhenDisabled() {
+        CircuitBreaker disabledCircuitBreaker = CircuitBreaker.disabled();
+        for (int i = 0; i < 100; i++) {
+            disabledCircuitBreaker.recordFailure();
+        }
+
+        assertFalse(disabledCircuitBreaker.isEnabled());
+        assertEquals(MAX_TIMEOUT, disabledCircuitBreaker.permitRequest());
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.recordFailure();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package uk.gov.di.ipv.cri.address.api.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.gov.di.ipv.cri.address.api.resilience.RequestHedger.HEDGE_FIRED_METRIC;
+import static uk.gov.di.ipv.cri.address.api.resilience.RequestHedger.HEDGE_WON_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class RequestHedgerTest {
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldUseHedgeWhenItRespondsFirst() {
+        RequestHedger requestHedger = new RequestHedger(10, 2, 50, 1, eventProbe);
+        recordFastResponses(requestHedger);
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+
+        CompletableFuture<String> result =
+                requestHedger.send(requests(primary, hedge), response -> {});
+        verify(eventProbe, timeout(1000)).counterMetric(HEDGE_FIRED_METRIC);
+        hedge.complete("hedge");
+
+        assertEquals("hedge", result.join());
+        verify(eventProbe, timeout(1000)).counterMetric(HEDGE_WON_METRIC);
+        assertTrue(primary.isCancelled());
+    }
+
+    @Test
+    void shouldUseHedgeWhenPrimaryFailsAfterItWasSent() {
+        RequestHedger requestHedger = new RequestHedger(10, 2, 50, 1, eventProbe);
+        recordFastResponses(requestHedger);
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> hedge = new CompletableFuture<>();
+
+        CompletableFuture<String> result =
+                requestHedger.send(requests(primary, hedge), response -> {});
+        verify(eventProbe, timeout(1000)).counterMetric(HEDGE_FIRED_METRIC);
+        primary.completeExceptionally(new IOException("connection reset"));
+        assertFalse(result.isDone());
+        hedge.complete("hedge");
+
+        assertEquals("hedge", result.join());
+    }
+
+    @Test
+    void shouldNotRecordLatencyOfPrimariesThatAreCancelledOrFail() {
+        RequestHedger requestHedger = new RequestHedger(10, 2, 50, 1, eventProbe);
+        CompletableFuture<String> cancelled = new CompletableFuture<>();
+        requestHedger.send(requests(cancelled), response -> {});
+        cancelled.cancel(true);
+        requestHedger.send(
+                () -> CompletableFuture.failedFuture(new IOException("connection reset")),
+                response -> {});
+        CompletableFuture<String> primary = new CompletableFuture<>();
+
+        assertSame(primary, requestHedger.send(requests(primary), response -> {}));
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldLeavePrimaryToAnswerWhenHedgeIsRefused() {
+        RequestHedger requestHedger = new RequestHedger(10, 2, 50, 1, eventProbe);
+        recordFastResponses(requestHedger);
+        CompletableFuture<String> primary = new CompletableFuture<>();
+
+        // The hedge finds no request left to send and throws, as an open circuit breaker would
+        CompletableFuture<String> result = requestHedger.send(requests(primary), response -> {});
+        verify(eventProbe, after(200).never()).counterMetric(HEDGE_FIRED_METRIC);
+        assertFalse(result.isDone());
+        primary.complete("primary");
+
+        assertEquals("primary", result.join());
+    }
+
+    @Test
+    void shouldNotHedgeBeyondBudget() {
+        RequestHedger requestHedger = new RequestHedger(10, 2, 50, 0.1, eventProbe);
+        recordFastResponses(requestHedger);
+        CompletableFuture<String> primary = new CompletableFuture<>();
+
+        CompletableFuture<String> result = requestHedger.send(requests(primary), response -> {});
+        verify(eventProbe, after(200).never()).counterMetric(HEDGE_FIRED_METRIC);
+        primary.complete("primary");
+
+        assertEquals("primary", result.join());
+    }
+
+    @Test
+    void shouldNotHedgeUntilEnoughLatenciesAreRecorded() {
+        RequestHedger requestHedger = new RequestHedger(10, 2, 50, 1, eventProbe);
+        CompletableFuture<String> primary = new CompletableFuture<>();
+
+        assertSame(primary, requestHedger.send(requests(primary), response -> {}));
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldSendOnceWhenDisabled() {
+        CompletableFuture<String> primary = new CompletableFuture<>();
+
+        assertSame(primary, RequestHedger.disabled().send(requests(primary), response -> {}));
+    }
+
+    private static void recordFastResponses(RequestHedger requestHedger) {
+        for (int i = 0; i < 2; i++) {
+            requestHedger
+                    .send(() -> CompletableFuture.completedFuture("warm up"), response -> {})
+                    .join();
+        }
+    }
+
+    @SafeVarargs
+    private static Supplier<CompletableFuture<String>> requests(
+            CompletableFuture<String>... responses) {
+        Queue<CompletableFuture<String>> remaining = new ArrayDeque<>(List.of(responses));
+        return remaining::remove;
+    }
+}
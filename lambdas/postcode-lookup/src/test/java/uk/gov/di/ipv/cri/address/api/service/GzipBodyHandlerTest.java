@@ -0,0 +1,92 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GzipBodyHandlerTest {
+    private static final String ORDNANCE_SURVEY_RESPONSE =
+            "{\"header\":{},\"results\":["
+                    + "{\"DPA\":{\"UPRN\":\"1\",\"POST_TOWN\":\"LEEDS\",\"POSTCODE\":\"LS1 5JL\"}},"
+                            .repeat(500)
+                    + "{\"DPA\":{\"UPRN\":\"2\"}}]}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final OrdnanceSurveyResponseParser parser =
+            new OrdnanceSurveyResponseParser(new JsonFactory());
+    private HttpServer server;
+    private URI uri;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(
+                "/",
+                exchange -> {
+                    boolean gzip =
+                            GzipBodyHandler.ACCEPT_ENCODING.equals(
+                                    exchange.getRequestHeaders()
+                                            .getFirst(GzipBodyHandler.ACCEPT_ENCODING_HEADER));
+                    if (gzip) {
+                        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    }
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream body =
+                            gzip
+                                    ? new GZIPOutputStream(exchange.getResponseBody())
+                                    : exchange.getResponseBody()) {
+                        body.write(ORDNANCE_SURVEY_RESPONSE.getBytes(StandardCharsets.UTF_8));
+                    }
+                });
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldInflateAGzippedBodyAsItIsParsed() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response =
+                client.send(
+                        HttpRequest.newBuilder(uri)
+                                .header(
+                                        GzipBodyHandler.ACCEPT_ENCODING_HEADER,
+                                        GzipBodyHandler.ACCEPT_ENCODING)
+                                .build(),
+                        new GzipBodyHandler());
+
+        assertEquals(List.of("gzip"), response.headers().allValues("Content-Encoding"));
+        assertEquals(501, parser.parseAddresses(response.body()).orElseThrow().size());
+    }
+
+    @Test
+    void shouldPassAnUncompressedBodyThrough() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response =
+                client.send(HttpRequest.newBuilder(uri).build(), new GzipBodyHandler());
+
+        try (InputStream body = response.body()) {
+            assertEquals(
+                    ORDNANCE_SURVEY_RESPONSE,
+                    new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
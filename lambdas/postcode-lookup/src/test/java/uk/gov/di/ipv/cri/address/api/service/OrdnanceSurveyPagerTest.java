@@ -0,0 +1,137 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OrdnanceSurveyPagerTest {
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldOnlyFollowUpFullPagesWithMoreResultsToCome() {
+        OrdnanceSurveyPager pager = new OrdnanceSurveyPager(2, 1000, eventProbe);
+
+        assertTrue(pager.hasMorePages(page(0, 100, 250, 100)));
+        assertFalse(pager.hasMorePages(page(0, 99, 250, 100)));
+        assertFalse(pager.hasMorePages(page(200, 50, 250, 100)));
+        assertFalse(pager.hasMorePages(page(0, 1, 32, 1000)));
+        assertFalse(pager.hasMorePages(page(0, 0, 0, 0)));
+        assertFalse(OrdnanceSurveyPager.disabled().hasMorePages(page(0, 100, 250, 100)));
+    }
+
+    @Test
+    void shouldFetchTheRemainingPagesAFewAtATimeAndMergeThemInOrder() {
+        OrdnanceSurveyPager pager = new OrdnanceSurveyPager(2, 1000, eventProbe);
+        Map<Integer, CompletableFuture<List<CanonicalAddress>>> requested = new TreeMap<>();
+
+        CompletableFuture<List<CanonicalAddress>> merged =
+                pager.fetchRemainingPages(
+                        page(0, 10, 45, 10),
+                        offset -> {
+                            CompletableFuture<List<CanonicalAddress>> page =
+                                    new CompletableFuture<>();
+                            requested.put(offset, page);
+                            return page;
+                        });
+
+        assertEquals(List.of(10, 20), List.copyOf(requested.keySet()));
+        requested.get(20).complete(addresses(20, 10));
+        assertEquals(List.of(10, 20, 40), List.copyOf(requested.keySet()));
+        requested.get(40).complete(addresses(40, 5));
+        requested.get(10).complete(addresses(10, 10));
+        requested.get(30).complete(addresses(30, 10));
+
+        assertEquals(uprns(0, 45), uprns(merged.join()));
+        verify(eventProbe)
+                .counterMetric(OrdnanceSurveyPager.PAGES_FETCHED_METRIC, 4, MetricUnit.COUNT);
+    }
+
+    @Test
+    void shouldStopAtTheMaximumNumberOfResults() {
+        OrdnanceSurveyPager pager = new OrdnanceSurveyPager(4, 30, eventProbe);
+        List<Integer> requested = new ArrayList<>();
+
+        CompletableFuture<List<CanonicalAddress>> merged =
+                pager.fetchRemainingPages(
+                        page(0, 10, 100, 10),
+                        offset -> {
+                            requested.add(offset);
+                            return CompletableFuture.completedFuture(addresses(offset, 10));
+                        });
+
+        assertEquals(List.of(10, 20), requested);
+        assertEquals(uprns(0, 30), uprns(merged.join()));
+        verify(eventProbe).counterMetric(OrdnanceSurveyPager.RESULTS_TRUNCATED_METRIC);
+    }
+
+    @Test
+    void shouldTrimTheLastPageToTheMaximumNumberOfResults() {
+        OrdnanceSurveyPager pager = new OrdnanceSurveyPager(4, 25, eventProbe);
+
+        CompletableFuture<List<CanonicalAddress>> merged =
+                pager.fetchRemainingPages(
+                        page(0, 10, 100, 10),
+                        offset -> CompletableFuture.completedFuture(addresses(offset, 10)));
+
+        assertEquals(uprns(0, 25), uprns(merged.join()));
+    }
+
+    @Test
+    void shouldFailWhenAnyPageFails() {
+        OrdnanceSurveyPager pager = new OrdnanceSurveyPager(2, 1000, eventProbe);
+
+        CompletableFuture<List<CanonicalAddress>> merged =
+                pager.fetchRemainingPages(
+                        page(0, 10, 30, 10),
+                        offset ->
+                                offset == 20
+                                        ? CompletableFuture.failedFuture(
+                                                new IllegalStateException("page failed"))
+                                        : CompletableFuture.completedFuture(
+                                                addresses(offset, 10)));
+
+        assertTrue(merged.isCompletedExceptionally());
+    }
+
+    private static OrdnanceSurveyResponseParser.Page page(
+            int offset, int size, int totalResults, int maxResults) {
+        return new OrdnanceSurveyResponseParser.Page(
+                addresses(offset, size), offset, totalResults, maxResults);
+    }
+
+    private static List<Long> uprns(int offset, int count) {
+        return uprns(addresses(offset, count));
+    }
+
+    private static List<Long> uprns(List<CanonicalAddress> addresses) {
+        return addresses.stream().map(CanonicalAddress::getUprn).toList();
+    }
+
+    private static List<CanonicalAddress> addresses(int offset, int count) {
+        return IntStream.range(offset, offset + count)
+                .mapToObj(
+                        uprn -> {
+                            CanonicalAddress address = new CanonicalAddress();
+                            address.setUprn((long) uprn);
+                            return address;
+                        })
+                .toList();
+    }
+}
@@ -0,0 +1,139 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.ipv.cri.address.api.models.Dpa;
+import uk.gov.di.ipv.cri.address.api.models.OrdnanceSurveyPostcodeResponse;
+import uk.gov.di.ipv.cri.address.api.models.Result;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrdnanceSurveyResponseParserTest {
+    private static final String FULL_RESPONSE =
+            """
+            {
+              "header": {"uri": "http://localhost:8080/postcode", "totalresults": 2, "maxresults": 100},
+              "results": [
+                {
+                  "DPA": {
+                    "UPRN": "12345567",
+                    "UDPRN": "12345678",
+                    "ADDRESS": "FLAT 1, TEST HOUSE, 10, TEST STREET, TESTTOWN, ZZ1 1ZZ",
+                    "ORGANISATION_NAME": "TEST ORG",
+                    "DEPARTMENT_NAME": "TEST DEPT",
+                    "SUB_BUILDING_NAME": "FLAT 1",
+                    "BUILDING_NAME": "TEST HOUSE",
+                    "BUILDING_NUMBER": "10",
+                    "DEPENDENT_THOROUGHFARE_NAME": "TEST MEWS",
+                    "THOROUGHFARE_NAME": "TEST STREET",
+                    "DOUBLE_DEPENDENT_LOCALITY": "TEST HAMLET",
+                    "DEPENDENT_LOCALITY": "TEST VILLAGE",
+                    "POST_TOWN": "TESTTOWN",
+                    "POSTCODE": "ZZ1 1ZZ",
+                    "X_COORDINATE": 123456.78,
+                    "Y_COORDINATE": 234567.89,
+                    "LOCAL_CUSTODIAN_CODE": 1234,
+                    "CLASSIFICATION_CODE_DESCRIPTION": "Semi-Detached",
+                    "TOPOGRAPHY_LAYER_TOID": "osgb12345567890",
+                    "MATCH": 1.0
+                  }
+                },
+                {
+                  "DPA": {
+                    "UPRN": "",
+                    "BUILDING_NUMBER": "12",
+                    "THOROUGHFARE_NAME": "TEST STREET",
+                    "POST_TOWN": "TESTTOWN",
+                    "POSTCODE": "ZZ1 1ZZ"
+                  }
+                }
+              ]
+            }""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OrdnanceSurveyResponseParser parser =
+            new OrdnanceSurveyResponseParser(objectMapper.getFactory());
+
+    @Test
+    void shouldProduceTheSameAddressesAsTheDpaMapping() throws IOException {
+        List<CanonicalAddress> expected =
+                objectMapper
+                        .readValue(FULL_RESPONSE, OrdnanceSurveyPostcodeResponse.class)
+                        .getResults()
+                        .stream()
+                        .map(Result::getDpa)
+                        .filter(Objects::nonNull)
+                        .map(Dpa::toCanonicalAddress)
+                        .toList();
+
+        List<CanonicalAddress> actual = parser.parseAddresses(toBody(FULL_RESPONSE)).orElseThrow();
+
+        assertEquals(2, actual.size());
+        assertEquals(
+                objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+        assertEquals(Long.valueOf(12345567L), actual.get(0).getUprn());
+        assertEquals("GB", actual.get(1).getAddressCountry());
+    }
+
+    @Test
+    void shouldReadThePagingFieldsFromTheHeader() throws IOException {
+        OrdnanceSurveyResponseParser.Page page =
+                parser.parsePage(
+                                toBody(
+                                        "{\"header\":{\"offset\":100,\"totalresults\":250,\"maxresults\":100},\"results\":[{\"DPA\":{\"UPRN\":\"1\"}}]}"))
+                        .orElseThrow();
+
+        assertEquals(1, page.addresses().size());
+        assertEquals(100, page.offset());
+        assertEquals(250, page.totalResults());
+        assertEquals(100, page.maxResults());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenResultsAreMissing() throws IOException {
+        assertTrue(parser.parseAddresses(toBody("{\"header\":{}}")).isEmpty());
+    }
+
+    @Test
+    void shouldSkipResultsWithoutADpaRecord() throws IOException {
+        List<CanonicalAddress> addresses =
+                parser.parseAddresses(
+                                toBody(
+                                        "{\"results\":[{\"DPA\":null},{\"LPI\":{\"UPRN\":\"1\"}},null]}"))
+                        .orElseThrow();
+
+        assertTrue(addresses.isEmpty());
+    }
+
+    @Test
+    void shouldAcceptNumericUprn() throws IOException {
+        List<CanonicalAddress> addresses =
+                parser.parseAddresses(toBody("{\"results\":[{\"DPA\":{\"UPRN\":987654321}}]}"))
+                        .orElseThrow();
+
+        assertEquals(Long.valueOf(987654321L), addresses.get(0).getUprn());
+    }
+
+    @Test
+    void shouldThrowJsonProcessingExceptionForMalformedResponses() {
+        assertThrows(JsonProcessingException.class, () -> parser.parseAddresses(toBody("[]")));
+        assertThrows(
+                JsonProcessingException.class,
+                () -> parser.parseAddresses(toBody("{\"results\":[{\"DPA\":{")));
+    }
+
+    private static InputStream toBody(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
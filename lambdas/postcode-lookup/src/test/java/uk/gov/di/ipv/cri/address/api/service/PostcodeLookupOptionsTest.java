@@ -0,0 +1,101 @@
+package uk.gov.di.ipv.cri.address.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class PostcodeLookupOptionsTest {
+    @Mock private ConfigurationService configurationService;
+    @Mock private EventProbe eventProbe;
+    @Mock private DataStore<PostcodeCacheItem> dataStore;
+
+    @Test
+    void disabledOptionsShouldTurnEveryPartOff() {
+        PostcodeLookupOptions options = PostcodeLookupOptions.disabled();
+
+        assertFalse(options.getResultCache().isEnabled());
+        assertFalse(options.getSharedCache().isEnabled());
+        assertFalse(options.getNegativeCache().isEnabled());
+        assertFalse(options.isAsyncLookupEnabled());
+        assertFalse(options.getCircuitBreaker().isEnabled());
+        assertFalse(options.getRequestHedger().isEnabled());
+        assertFalse(options.getExistenceFilter().isEnabled());
+        assertFalse(options.getFallbackIndex().isEnabled());
+        assertFalse(options.getPager().isEnabled());
+        assertNull(options.getClientConfigurations());
+    }
+
+    @Test
+    void shouldUseDefaultsWhenTheEnvironmentIsEmpty() {
+        List<String> openedTables = new ArrayList<>();
+
+        PostcodeLookupOptions options =
+                PostcodeLookupOptions.fromEnvironment(
+                                Map.of(),
+                                configurationService,
+                                eventProbe,
+                                tableName -> {
+                                    openedTables.add(tableName);
+                                    return dataStore;
+                                },
+                                Runnable::run)
+                        .build();
+
+        assertTrue(options.getResultCache().isEnabled());
+        assertTrue(options.getPager().isEnabled());
+        assertFalse(options.getSharedCache().isEnabled());
+        assertFalse(options.getNegativeCache().isEnabled());
+        assertFalse(options.isAsyncLookupEnabled());
+        assertFalse(options.getCircuitBreaker().isEnabled());
+        assertFalse(options.getRequestHedger().isEnabled());
+        assertFalse(options.getFallbackIndex().isEnabled());
+        assertFalse(options.getClientConfigurations().isEnabled());
+        assertTrue(openedTables.isEmpty());
+    }
+
+    @Test
+    void shouldEnableThePartsTheEnvironmentTurnsOn() {
+        List<String> openedTables = new ArrayList<>();
+
+        PostcodeLookupOptions options =
+                PostcodeLookupOptions.fromEnvironment(
+                                Map.of(
+                                        "POSTCODE_CACHE_TABLE", "postcode-cache",
+                                        "POSTCODE_NEGATIVE_CACHE_TTL_SECONDS", "60",
+                                        "POSTCODE_LOOKUP_ASYNC_ENABLED", "true",
+                                        "POSTCODE_CIRCUIT_BREAKER_ENABLED", "true",
+                                        "POSTCODE_HEDGING_ENABLED", "true",
+                                        "POSTCODE_LOOKUP_PAGE_CONCURRENCY", "0"),
+                                configurationService,
+                                eventProbe,
+                                tableName -> {
+                                    openedTables.add(tableName);
+                                    return dataStore;
+                                },
+                                Runnable::run)
+                        .build();
+
+        assertTrue(options.getSharedCache().isEnabled());
+        assertTrue(options.getNegativeCache().isEnabled());
+        assertTrue(options.isAsyncLookupEnabled());
+        assertTrue(options.getCircuitBreaker().isEnabled());
+        assertTrue(options.getRequestHedger().isEnabled());
+        assertFalse(options.getPager().isEnabled());
+        assertEquals(List.of("postcode-cache"), openedTables);
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
@@ -18,23 +19,43 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import software.amazon.awssdk.http.HttpStatusCode;
 import software.amazon.awssdk.services.ssm.model.SsmException;
 import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.address.api.cache.NegativePostcodeCache;
+import uk.gov.di.ipv.cri.address.api.cache.PostcodeResultCache;
 import uk.gov.di.ipv.cri.address.api.exceptions.ClientIdNotSupportedException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupBadRequestException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupProcessingException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeLookupTimeoutException;
 import uk.gov.di.ipv.cri.address.api.exceptions.PostcodeValidationException;
+import uk.gov.di.ipv.cri.address.api.fallback.LocalAddressIndex;
+import uk.gov.di.ipv.cri.address.api.filter.PostcodeExistenceFilter;
+import uk.gov.di.ipv.cri.address.api.models.ParsedPostcode;
+import uk.gov.di.ipv.cri.address.api.resilience.CircuitBreaker;
+import uk.gov.di.ipv.cri.address.api.resilience.RequestHedger;
+import uk.gov.di.ipv.cri.address.library.config.ClientConfigurationSnapshots;
+import uk.gov.di.ipv.cri.address.library.config.RefreshingSnapshot;
 import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
 import uk.gov.di.ipv.cri.common.library.persistence.item.SessionItem;
 import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
 import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -43,10 +64,14 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -55,7 +80,7 @@ class PostcodeLookupServiceTest {
     private static final String TEST_API_KEY = "mock-api-key";
 
     @Mock private ConfigurationService mockConfigurationService;
-    @Mock private HttpResponse<String> mockResponse;
+    @Mock private HttpResponse<InputStream> mockResponse;
     @Spy private HttpClient httpClient;
     @Mock private Logger log;
     @Mock private EventProbe eventProbe;
@@ -81,10 +106,11 @@ class PostcodeLookupServiceTest {
         when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
         when(mockResponse.body())
                 .thenReturn(
-                        "{\"header\":{\"uri\":\"http://localhost:8080/postcode\",\"body\":\"{\\\"postcode\\\":\\\"ZZ1 1ZZ\\\"}\",\"offset\":0,\"totalresults\":32,\"format\":\"JSON\",\"dataset\":\"DPA\",\"lr\":\"EN,CY\",\"maxresults\":1000,\"epoch\":\"90\",\"output_srs\":\"EPSG:27700\"},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"UDPRN\":\"12345678\",\"ADDRESS\":\"TESTADDRESS,TESTSTREET,TESTTOWN,ZZ11ZZ\",\"POSTCODE\":\"ZZ11ZZ\"}}]}");
+                        toBody(
+                                "{\"header\":{\"uri\":\"http://localhost:8080/postcode\",\"body\":\"{\\\"postcode\\\":\\\"ZZ1 1ZZ\\\"}\",\"offset\":0,\"totalresults\":32,\"format\":\"JSON\",\"dataset\":\"DPA\",\"lr\":\"EN,CY\",\"maxresults\":1000,\"epoch\":\"90\",\"output_srs\":\"EPSG:27700\"},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"UDPRN\":\"12345678\",\"ADDRESS\":\"TESTADDRESS,TESTSTREET,TESTTOWN,ZZ11ZZ\",\"POSTCODE\":\"ZZ11ZZ\"}}]}"));
         when(httpClient.send(
                         any(HttpRequest.class),
-                        ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                        ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                 .thenReturn(mockResponse);
 
         postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
@@ -94,6 +120,24 @@ class PostcodeLookupServiceTest {
                         eq("lookup_postcode_duration"), anyDouble(), eq(MetricUnit.MILLISECONDS));
     }
 
+    @Test
+    void shouldSendAHeadRequestToWarmUpTheConnection() throws IOException, InterruptedException {
+        URI ordnanceSurveyUri = URI.create("https://api.os.uk/");
+        when(httpClient.send(
+                        any(HttpRequest.class), ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any()))
+                .thenReturn(null);
+
+        postcodeLookupService.warmUpConnection(ordnanceSurveyUri);
+
+        verify(httpClient)
+                .send(
+                        postCodeRequest.capture(),
+                        ArgumentMatchers.<HttpResponse.BodyHandler<Void>>any());
+        assertEquals("HEAD", postCodeRequest.getValue().method());
+        assertEquals(ordnanceSurveyUri, postCodeRequest.getValue().uri());
+        verifyNoInteractions(mockConfigurationService);
+    }
+
     @Nested
     class PostCodeLookUpServiceRequestExceptionTest {
         @ParameterizedTest
@@ -130,7 +174,7 @@ class PostcodeLookupServiceTest {
 
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenThrow(HttpConnectTimeoutException.class);
 
             assertThrows(
@@ -154,7 +198,7 @@ class PostcodeLookupServiceTest {
             // Simulate Http Client IO Failure
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenThrow(NoSuchFieldError.class);
             assertThrows(
                     PostcodeLookupProcessingException.class,
@@ -174,7 +218,7 @@ class PostcodeLookupServiceTest {
             // Simulate Http Client IO Failure
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenThrow(IOException.class);
             assertThrows(
                     PostcodeLookupProcessingException.class,
@@ -194,7 +238,7 @@ class PostcodeLookupServiceTest {
             // Simulate Http Client Interrupted
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenThrow(InterruptedException.class);
             assertThrows(
                     PostcodeLookupProcessingException.class,
@@ -214,7 +258,7 @@ class PostcodeLookupServiceTest {
             when(mockResponse.statusCode()).thenReturn(HttpStatusCode.INTERNAL_SERVER_ERROR);
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
             assertThrows(
                     PostcodeLookupProcessingException.class,
@@ -240,7 +284,7 @@ class PostcodeLookupServiceTest {
 
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
 
             assertEquals(
@@ -265,16 +309,17 @@ class PostcodeLookupServiceTest {
             // Simulate a sammple response body
             when(mockResponse.body())
                     .thenReturn(
-                            """
+                            toBody(
+                                    """
                                     {
                                       "error" : {
                                         "statuscode" : 400,
                                         "message" : "Requested postcode must contain a minimum of the sector plus 1 digit of the district e.g. SO1. Requested postcode was 5WF12LZ"
                                       }
-                                    }""");
+                                    }"""));
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
 
             assertEquals(
@@ -326,11 +371,12 @@ class PostcodeLookupServiceTest {
             when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
             when(mockResponse.body())
                     .thenReturn(
-                            "{\"header\":{\"uri\":\"http://localhost:8080/postcode\",\"body\":\"{\\\"postcode\\\":\\\"ZZ1 1ZZ\\\"}\",\"offset\":0,\"totalresults\":32,\"format\":\"JSON\",\"dataset\":\"DPA\",\"lr\":\"EN,CY\",\"maxresults\":1000,\"epoch\":\"90\",\"output_srs\":\"EPSG:27700\"},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"UDPRN\":\"12345678\",\"ADDRESS\":\"TESTADDRESS,TESTSTREET,TESTTOWN,ZZ11ZZ\",\"BUILDING_NUMBER\":\"TESTADDRESS\",\"THOROUGHFARE_NAME\":\"TESTSTREET\",\"POST_TOWN\":\"TESTTOWN\",\"POSTCODE\":\"ZZ11ZZ\",\"RPC\":\"1\",\"X_COORDINATE\":123456.78,\"Y_COORDINATE\":234567.89,\"STATUS\":\"APPROVED\",\"LOGICAL_STATUS_CODE\":\"1\",\"CLASSIFICATION_CODE\":\"RD03\",\"CLASSIFICATION_CODE_DESCRIPTION\":\"Semi-Detached\",\"LOCAL_CUSTODIAN_CODE\":1234,\"LOCAL_CUSTODIAN_CODE_DESCRIPTION\":\"TESTTOWN\",\"COUNTRY_CODE\":\"E\",\"COUNTRY_CODE_DESCRIPTION\":\"ThisrecordiswithinEngland\",\"POSTAL_ADDRESS_CODE\":\"D\",\"POSTAL_ADDRESS_CODE_DESCRIPTION\":\"ArecordwhichislinkedtoPAF\",\"BLPU_STATE_CODE\":\"2\",\"BLPU_STATE_CODE_DESCRIPTION\":\"Inuse\",\"TOPOGRAPHY_LAYER_TOID\":\"osgb12345567890\",\"LAST_UPDATE_DATE\":\"10/02/2016\",\"ENTRY_DATE\":\"12/01/2000\",\"BLPU_STATE_DATE\":\"15/06/2009\",\"LANGUAGE\":\"EN\",\"MATCH\":1.0,\"MATCH_DESCRIPTION\":\"EXACT\",\"DELIVERY_POINT_SUFFIX\":\"1A\"}}]}");
+                            toBody(
+                                    "{\"header\":{\"uri\":\"http://localhost:8080/postcode\",\"body\":\"{\\\"postcode\\\":\\\"ZZ1 1ZZ\\\"}\",\"offset\":0,\"totalresults\":32,\"format\":\"JSON\",\"dataset\":\"DPA\",\"lr\":\"EN,CY\",\"maxresults\":1000,\"epoch\":\"90\",\"output_srs\":\"EPSG:27700\"},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"UDPRN\":\"12345678\",\"ADDRESS\":\"TESTADDRESS,TESTSTREET,TESTTOWN,ZZ11ZZ\",\"BUILDING_NUMBER\":\"TESTADDRESS\",\"THOROUGHFARE_NAME\":\"TESTSTREET\",\"POST_TOWN\":\"TESTTOWN\",\"POSTCODE\":\"ZZ11ZZ\",\"RPC\":\"1\",\"X_COORDINATE\":123456.78,\"Y_COORDINATE\":234567.89,\"STATUS\":\"APPROVED\",\"LOGICAL_STATUS_CODE\":\"1\",\"CLASSIFICATION_CODE\":\"RD03\",\"CLASSIFICATION_CODE_DESCRIPTION\":\"Semi-Detached\",\"LOCAL_CUSTODIAN_CODE\":1234,\"LOCAL_CUSTODIAN_CODE_DESCRIPTION\":\"TESTTOWN\",\"COUNTRY_CODE\":\"E\",\"COUNTRY_CODE_DESCRIPTION\":\"ThisrecordiswithinEngland\",\"POSTAL_ADDRESS_CODE\":\"D\",\"POSTAL_ADDRESS_CODE_DESCRIPTION\":\"ArecordwhichislinkedtoPAF\",\"BLPU_STATE_CODE\":\"2\",\"BLPU_STATE_CODE_DESCRIPTION\":\"Inuse\",\"TOPOGRAPHY_LAYER_TOID\":\"osgb12345567890\",\"LAST_UPDATE_DATE\":\"10/02/2016\",\"ENTRY_DATE\":\"12/01/2000\",\"BLPU_STATE_DATE\":\"15/06/2009\",\"LANGUAGE\":\"EN\",\"MATCH\":1.0,\"MATCH_DESCRIPTION\":\"EXACT\",\"DELIVERY_POINT_SUFFIX\":\"1A\"}}]}"));
 
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
 
             assertFalse(postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
@@ -351,11 +397,11 @@ class PostcodeLookupServiceTest {
             when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
             String ok200payloadWithoutResults =
                     "{\"header\":{\"uri\":\"http://localhost:8080/postcode\",\"body\":\"{\\\"postcode\\\":\\\"ZZ1 1ZZ\\\"}\",\"offset\":0,\"totalresults\":32,\"format\":\"JSON\",\"dataset\":\"DPA\",\"lr\":\"EN,CY\",\"maxresults\":1000,\"epoch\":\"90\",\"output_srs\":\"EPSG:27700\"},\"results\":[{\"DPA\": null}]}";
-            when(mockResponse.body()).thenReturn(ok200payloadWithoutResults);
+            when(mockResponse.body()).thenReturn(toBody(ok200payloadWithoutResults));
 
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
 
             assertTrue(postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
@@ -372,10 +418,10 @@ class PostcodeLookupServiceTest {
                             "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
                     .thenReturn("http://localhost:8080/");
             when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
-            when(mockResponse.body()).thenReturn("{\"header\":{},\"results\":[]}");
+            when(mockResponse.body()).thenReturn(toBody("{\"header\":{},\"results\":[]}"));
             when(httpClient.send(
                             postCodeRequest.capture(),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
 
             postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
@@ -385,6 +431,25 @@ class PostcodeLookupServiceTest {
             assertFalse(capturedRequest.uri().getQuery().contains("key="));
         }
 
+        @Test
+        void shouldAskForAGzippedResponse() throws IOException, InterruptedException {
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body()).thenReturn(toBody("{\"header\":{},\"results\":[]}"));
+            when(httpClient.send(postCodeRequest.capture(), any(GzipBodyHandler.class)))
+                    .thenReturn(mockResponse);
+
+            postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            HttpRequest capturedRequest = postCodeRequest.getValue();
+            assertEquals(
+                    "gzip", capturedRequest.headers().firstValue("Accept-Encoding").orElse(null));
+        }
+
         @Test
         @DisplayName(
                 "it should return empty when response from Ordnance Survey is a 200 and no results provided")
@@ -402,11 +467,11 @@ class PostcodeLookupServiceTest {
 
             String ok200PayloadResultsEmpty =
                     "{\"header\":{\"uri\":\"http://localhost:8080/postcode\",\"body\":\"{\\\"postcode\\\":\\\"ZZ1 1ZZ\\\"}\",\"offset\":0,\"totalresults\":32,\"format\":\"JSON\",\"dataset\":\"DPA\",\"lr\":\"EN,CY\",\"maxresults\":1000,\"epoch\":\"90\",\"output_srs\":\"EPSG:27700\"},\"results\":[]}";
-            when(mockResponse.body()).thenReturn(ok200PayloadResultsEmpty);
+            when(mockResponse.body()).thenReturn(toBody(ok200PayloadResultsEmpty));
 
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
 
             assertTrue(postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
@@ -433,13 +498,917 @@ class PostcodeLookupServiceTest {
             when(mockResponse.statusCode()).thenReturn(HttpStatusCode.NOT_FOUND);
             when(httpClient.send(
                             any(HttpRequest.class),
-                            ArgumentMatchers.<HttpResponse.BodyHandler<String>>any()))
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
                     .thenReturn(mockResponse);
             assertTrue(postcodeLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
             verify(log).error(contains("404: Not Found"), any(String.class));
         }
     }
 
+    @Nested
+    class PostCodeLookUpServiceResultCacheTest {
+        @Mock private Clock clock;
+
+        @Test
+        void shouldServeRepeatLookupFromCache() throws IOException, InterruptedException {
+            PostcodeLookupService cachingLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .resultCache(
+                                            new PostcodeResultCache(
+                                                    10, Duration.ofMinutes(5), clock, eventProbe))
+                                    .build());
+
+            when(clock.millis()).thenReturn(0L);
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"POSTCODE\":\"ZZ1 1ZZ\"}}]}"));
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            var firstResults = cachingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            var secondResults = cachingLookupService.lookupPostcode("zz11zz", TEST_CLIENT_ID);
+
+            assertEquals(firstResults, secondResults);
+            verify(httpClient, times(1))
+                    .send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+            verify(eventProbe).counterMetric(PostcodeResultCache.CACHE_MISS_METRIC);
+            verify(eventProbe).counterMetric(PostcodeResultCache.CACHE_HIT_METRIC);
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceClientConfigurationTest {
+        @Mock private Clock clock;
+
+        @Test
+        void shouldLookUpWithRefreshedOrdnanceSurveyUrl() throws IOException, InterruptedException {
+            PostcodeLookupService refreshingLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .clientConfigurations(
+                                            new ClientConfigurationSnapshots<>(
+                                                    PostcodeLookupService.configurationLoader(
+                                                            mockConfigurationService, log),
+                                                    Duration.ofMinutes(5),
+                                                    clock,
+                                                    Runnable::run,
+                                                    eventProbe))
+                                    .build());
+
+            when(clock.millis()).thenReturn(0L, 300_000L, 300_000L, 300_001L);
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/", "http://localhost:9090/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenAnswer(invocation -> toBody("{\"header\":{},\"results\":[]}"));
+            when(httpClient.send(
+                            postCodeRequest.capture(),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            refreshingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            refreshingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            refreshingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(
+                    List.of(8080, 8080, 9090),
+                    postCodeRequest.getAllValues().stream()
+                            .map(request -> request.uri().getPort())
+                            .toList());
+            verify(eventProbe).counterMetric(RefreshingSnapshot.CONFIGURATION_REFRESH_METRIC);
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceStaleResultsTest {
+        @Mock private Clock clock;
+        @Mock private HttpResponse<InputStream> refreshResponse;
+        @Mock private HttpResponse<InputStream> refreshSecondPage;
+        @Mock private CircuitBreaker circuitBreaker;
+        private PostcodeLookupService staleServingLookupService;
+
+        @BeforeEach
+        void setUp() throws IOException, InterruptedException {
+            staleServingLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .resultCache(
+                                            new PostcodeResultCache(
+                                                    10,
+                                                    Duration.ofMinutes(1),
+                                                    Duration.ofMinutes(10),
+                                                    clock,
+                                                    eventProbe))
+                                    .build());
+
+            when(clock.millis()).thenReturn(0L, 61_000L);
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(toBody("{\"header\":{},\"results\":[{\"DPA\":{\"UPRN\":\"1\"}}]}"));
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+        }
+
+        @Test
+        void shouldServeStaleResultsWhileRefreshingThem() throws IOException {
+            when(refreshResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(refreshResponse.body())
+                    .thenReturn(toBody("{\"header\":{},\"results\":[{\"DPA\":{\"UPRN\":\"2\"}}]}"));
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(refreshResponse));
+
+            staleServingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            var staleResults = staleServingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            var refreshedResults =
+                    staleServingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(
+                    List.of(1L), staleResults.stream().map(CanonicalAddress::getUprn).toList());
+            assertEquals(
+                    List.of(2L), refreshedResults.stream().map(CanonicalAddress::getUprn).toList());
+            verify(eventProbe).counterMetric(PostcodeResultCache.CACHE_STALE_HIT_METRIC);
+            verify(eventProbe).counterMetric(PostcodeResultCache.CACHE_HIT_METRIC);
+        }
+
+        @Test
+        void shouldKeepServingStaleResultsWhileOrdnanceSurveyIsFailing() throws IOException {
+            when(refreshResponse.statusCode()).thenReturn(HttpStatusCode.INTERNAL_SERVER_ERROR);
+            when(refreshResponse.body()).thenReturn(toBody("{}"));
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(refreshResponse));
+
+            staleServingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            var staleResults = staleServingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            var stillStaleResults =
+                    staleServingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(
+                    List.of(1L), staleResults.stream().map(CanonicalAddress::getUprn).toList());
+            assertEquals(staleResults, stillStaleResults);
+            verify(eventProbe, times(2)).counterMetric(PostcodeResultCache.CACHE_STALE_HIT_METRIC);
+            verify(eventProbe, times(2))
+                    .counterMetric(PostcodeResultCache.CACHE_REFRESH_FAILURE_METRIC);
+            verify(log, times(2))
+                    .warn(
+                            eq("Unable to refresh stale postcode results, serving them until they expire"),
+                            any(Throwable.class));
+        }
+
+        @Test
+        void shouldKeepRefreshesOutOfTheCircuitBreaker() throws IOException {
+            PostcodeLookupService guardedLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .resultCache(
+                                            new PostcodeResultCache(
+                                                    10,
+                                                    Duration.ofMinutes(1),
+                                                    Duration.ofMinutes(10),
+                                                    clock,
+                                                    eventProbe))
+                                    .circuitBreaker(
+                                            new CircuitBreaker(
+                                                    10,
+                                                    1,
+                                                    0.5,
+                                                    Duration.ofSeconds(30),
+                                                    Duration.ofSeconds(1),
+                                                    Duration.ofSeconds(15),
+                                                    Clock.systemUTC(),
+                                                    eventProbe))
+                                    .build());
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(
+                            CompletableFuture.failedFuture(
+                                    new HttpTimeoutException("request timed out")));
+
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            verify(eventProbe, times(2))
+                    .counterMetric(PostcodeResultCache.CACHE_REFRESH_FAILURE_METRIC);
+            verify(eventProbe, never()).counterMetric(CircuitBreaker.CIRCUIT_OPENED_METRIC);
+        }
+
+        @Test
+        void shouldKeepFurtherPagesOfARefreshOutOfTheCircuitBreaker() throws IOException {
+            when(circuitBreaker.permitRequest()).thenReturn(Duration.ofSeconds(5));
+            when(circuitBreaker.permitBackgroundRequest())
+                    .thenReturn(Optional.of(Duration.ofSeconds(5)));
+            PostcodeLookupService guardedLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .resultCache(
+                                            new PostcodeResultCache(
+                                                    10,
+                                                    Duration.ofMinutes(1),
+                                                    Duration.ofMinutes(10),
+                                                    clock,
+                                                    eventProbe))
+                                    .circuitBreaker(circuitBreaker)
+                                    .pager(new OrdnanceSurveyPager(4, 1000, eventProbe))
+                                    .build());
+            when(refreshResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(refreshResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{\"offset\":0,\"totalresults\":3,\"maxresults\":2},\"results\":[{\"DPA\":{\"UPRN\":\"2\"}},{\"DPA\":{\"UPRN\":\"3\"}}]}"));
+            when(refreshResponse.request())
+                    .thenReturn(
+                            HttpRequest.newBuilder(
+                                            URI.create("http://localhost:8080/?postcode=ZZ11ZZ"))
+                                    .build());
+            when(refreshSecondPage.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(refreshSecondPage.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{\"offset\":2,\"totalresults\":3,\"maxresults\":2},\"results\":[{\"DPA\":{\"UPRN\":\"4\"}}]}"));
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(
+                            CompletableFuture.completedFuture(refreshResponse),
+                            CompletableFuture.completedFuture(refreshSecondPage));
+
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            var refreshedResults = guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(
+                    List.of(2L, 3L, 4L),
+                    refreshedResults.stream().map(CanonicalAddress::getUprn).toList());
+            verify(circuitBreaker).permitRequest();
+            verify(circuitBreaker, times(2)).permitBackgroundRequest();
+            verify(circuitBreaker).recordSuccess(anyLong());
+            verify(circuitBreaker, never()).recordFailure();
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceNegativeCacheTest {
+        @Mock private Clock clock;
+
+        @ParameterizedTest
+        @ValueSource(ints = {HttpStatusCode.BAD_REQUEST, HttpStatusCode.NOT_FOUND})
+        void shouldNotAskOrdnanceSurveyAgainForAnUnknownPostcode(int statusCode)
+                throws IOException, InterruptedException {
+            NegativePostcodeCache negativeCache =
+                    new NegativePostcodeCache(10, Duration.ofMinutes(5), clock, eventProbe);
+            PostcodeLookupService lookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder().negativeCache(negativeCache).build());
+
+            when(clock.millis()).thenReturn(0L);
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(statusCode);
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            assertTrue(lookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
+            assertTrue(lookupService.lookupPostcode("zz11zz", TEST_CLIENT_ID).isEmpty());
+
+            verify(httpClient, times(1))
+                    .send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+            verify(eventProbe).counterMetric(NegativePostcodeCache.NEGATIVE_CACHE_HIT_METRIC);
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceCircuitBreakerTest {
+        @Mock private Clock clock;
+        private PostcodeLookupService guardedLookupService;
+
+        @BeforeEach
+        void setUp() {
+            guardedLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .circuitBreaker(
+                                            new CircuitBreaker(
+                                                    10,
+                                                    2,
+                                                    0.5,
+                                                    Duration.ofSeconds(30),
+                                                    Duration.ofSeconds(1),
+                                                    Duration.ofSeconds(15),
+                                                    clock,
+                                                    eventProbe))
+                                    .build());
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+        }
+
+        @Test
+        void shouldFailFastOnceOrdnanceSurveyKeepsFailing()
+                throws IOException, InterruptedException {
+            when(clock.millis()).thenReturn(0L);
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.SERVICE_UNAVAILABLE);
+            when(mockResponse.body()).thenReturn(toBody("{}"));
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            for (int i = 0; i < 2; i++) {
+                assertThrows(
+                        PostcodeLookupProcessingException.class,
+                        () -> guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID));
+            }
+            assertThrows(
+                    PostcodeLookupTimeoutException.class,
+                    () -> guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID));
+
+            verify(httpClient, times(2))
+                    .send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+            verify(eventProbe).counterMetric(CircuitBreaker.CIRCUIT_OPENED_METRIC);
+            verify(eventProbe).counterMetric(CircuitBreaker.CIRCUIT_REJECTED_METRIC);
+        }
+
+        @Test
+        void shouldSetRequestTimeoutFromCircuitBreaker() throws IOException, InterruptedException {
+            when(clock.millis()).thenReturn(0L);
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.NOT_FOUND);
+            when(httpClient.send(
+                            postCodeRequest.capture(),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(
+                    Duration.ofSeconds(1), postCodeRequest.getValue().timeout().orElseThrow());
+        }
+
+        @Test
+        void shouldGiveTheNextRequestLongerOnceOneTimesOut()
+                throws IOException, InterruptedException {
+            when(clock.millis()).thenReturn(0L);
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.NOT_FOUND);
+            when(httpClient.send(
+                            postCodeRequest.capture(),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse, mockResponse)
+                    .thenThrow(new HttpTimeoutException("request timed out"))
+                    .thenReturn(mockResponse);
+
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+            assertThrows(
+                    PostcodeLookupTimeoutException.class,
+                    () -> guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID));
+            guardedLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(
+                    Duration.ofSeconds(2), postCodeRequest.getValue().timeout().orElseThrow());
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceHedgingTest {
+        @Mock private CircuitBreaker circuitBreaker;
+
+        @Test
+        void shouldUseHedgedRequestWhenPrimaryIsSlow() throws IOException {
+            PostcodeLookupService hedgingLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .requestHedger(new RequestHedger(10, 0, 95, 1, eventProbe))
+                                    .build());
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"POSTCODE\":\"ZZ1 1ZZ\"}}]}"));
+            CompletableFuture<HttpResponse<InputStream>> slowPrimary = new CompletableFuture<>();
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(slowPrimary, CompletableFuture.completedFuture(mockResponse));
+
+            var results = hedgingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(1, results.size());
+            verify(eventProbe).counterMetric(RequestHedger.HEDGE_FIRED_METRIC);
+            verify(eventProbe, timeout(1000)).counterMetric(RequestHedger.HEDGE_WON_METRIC);
+            assertTrue(slowPrimary.isCancelled());
+        }
+
+        @Test
+        void shouldPermitAndRecordTheHedgeInTheCircuitBreaker() throws IOException {
+            when(circuitBreaker.permitRequest()).thenReturn(Duration.ofSeconds(5));
+            stubOrdnanceSurveyResponse();
+            CompletableFuture<HttpResponse<InputStream>> slowPrimary = new CompletableFuture<>();
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(slowPrimary, CompletableFuture.completedFuture(mockResponse));
+
+            var results = createHedgingLookupService().lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(1, results.size());
+            verify(circuitBreaker, times(2)).permitRequest();
+            verify(circuitBreaker).recordSuccess(anyLong());
+            verify(circuitBreaker, never()).recordFailure();
+        }
+
+        @Test
+        void shouldLeaveThePrimaryToAnswerWhenTheCircuitBreakerRefusesTheHedge()
+                throws IOException {
+            when(circuitBreaker.permitRequest())
+                    .thenReturn(Duration.ofSeconds(5))
+                    .thenThrow(new PostcodeLookupTimeoutException("Circuit open"));
+            stubOrdnanceSurveyResponse();
+            CompletableFuture<HttpResponse<InputStream>> primary = new CompletableFuture<>();
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(primary);
+
+            var pendingLookup =
+                    createHedgingLookupService().lookupPostcodeAsync("ZZ1 1ZZ", TEST_CLIENT_ID);
+            verify(circuitBreaker, timeout(1000).times(2)).permitRequest();
+            primary.complete(mockResponse);
+
+            assertEquals(1, PostcodeLookupService.awaitLookup(pendingLookup).size());
+            verify(httpClient)
+                    .sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+            verify(circuitBreaker).recordSuccess(anyLong());
+            verify(eventProbe, never()).counterMetric(RequestHedger.HEDGE_FIRED_METRIC);
+        }
+
+        private PostcodeLookupService createHedgingLookupService() {
+            return new PostcodeLookupService(
+                    mockConfigurationService,
+                    httpClient,
+                    log,
+                    eventProbe,
+                    objectMapper,
+                    PostcodeLookupOptions.builder()
+                            .circuitBreaker(circuitBreaker)
+                            .requestHedger(new RequestHedger(10, 0, 95, 1, eventProbe))
+                            .build());
+        }
+
+        private void stubOrdnanceSurveyResponse() throws IOException {
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"POSTCODE\":\"ZZ1 1ZZ\"}}]}"));
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceExistenceFilterTest {
+        @Mock private PostcodeExistenceFilter existenceFilter;
+        private PostcodeLookupService filteredLookupService;
+
+        @BeforeEach
+        void setUp() {
+            filteredLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .existenceFilter(existenceFilter)
+                                    .build());
+        }
+
+        @Test
+        void shouldNotCallOrdnanceSurveyForAPostcodeTheFilterRejects()
+                throws IOException, InterruptedException {
+            when(existenceFilter.mightExist(any(ParsedPostcode.class))).thenReturn(false);
+
+            assertTrue(filteredLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
+
+            verify(httpClient, never())
+                    .send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+            verifyNoInteractions(mockConfigurationService);
+        }
+
+        @Test
+        void shouldRecordAFalsePositiveWhenOrdnanceSurveyCannotFindThePostcode()
+                throws IOException, InterruptedException {
+            when(existenceFilter.mightExist(any(ParsedPostcode.class))).thenReturn(true);
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.NOT_FOUND);
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            assertTrue(filteredLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
+
+            verify(existenceFilter).recordFalsePositive();
+        }
+
+        @Test
+        void shouldNotRecordAFalsePositiveWhenOrdnanceSurveyReturnsNoAddresses()
+                throws IOException, InterruptedException {
+            when(existenceFilter.mightExist(any(ParsedPostcode.class))).thenReturn(true);
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body()).thenReturn(toBody("{\"header\":{},\"results\":[]}"));
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+
+            assertTrue(filteredLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID).isEmpty());
+
+            verify(existenceFilter, never()).recordFalsePositive();
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceFallbackTest {
+        @Mock private CircuitBreaker openCircuitBreaker;
+        @Mock private LocalAddressIndex fallbackIndex;
+        private final List<CanonicalAddress> fallbackResults = List.of(new CanonicalAddress());
+
+        @BeforeEach
+        void setUp() {
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+        }
+
+        @Test
+        void shouldServeTheLocalIndexWhileTheCircuitIsOpen()
+                throws IOException, InterruptedException {
+            when(openCircuitBreaker.permitRequest())
+                    .thenThrow(new PostcodeLookupTimeoutException("Circuit open"));
+            when(fallbackIndex.lookup(any(ParsedPostcode.class)))
+                    .thenReturn(Optional.of(fallbackResults));
+
+            var results =
+                    createFallbackLookupService(openCircuitBreaker)
+                            .lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(fallbackResults, results);
+            verify(httpClient, never())
+                    .send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+        }
+
+        @Test
+        void shouldServeTheLocalIndexWhenOrdnanceSurveyTimesOut()
+                throws IOException, InterruptedException {
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenThrow(HttpConnectTimeoutException.class);
+            when(fallbackIndex.lookup(any(ParsedPostcode.class)))
+                    .thenReturn(Optional.of(fallbackResults));
+
+            var results =
+                    createFallbackLookupService(CircuitBreaker.disabled())
+                            .lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertEquals(fallbackResults, results);
+        }
+
+        @Test
+        void shouldServeTheLocalIndexWhenAnAsyncLookupTimesOut() throws IOException {
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.failedFuture(new HttpTimeoutException("timeout")));
+            when(fallbackIndex.lookup(any(ParsedPostcode.class)))
+                    .thenReturn(Optional.of(fallbackResults));
+
+            var results =
+                    PostcodeLookupService.awaitLookup(
+                            createFallbackLookupService(CircuitBreaker.disabled())
+                                    .lookupPostcodeAsync("ZZ1 1ZZ", TEST_CLIENT_ID));
+
+            assertEquals(fallbackResults, results);
+        }
+
+        @Test
+        void shouldSurfaceTheTimeoutWhenTheLocalIndexDoesNotHaveThePostcode()
+                throws IOException, InterruptedException {
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenThrow(HttpConnectTimeoutException.class);
+            when(fallbackIndex.lookup(any(ParsedPostcode.class))).thenReturn(Optional.empty());
+            PostcodeLookupService fallbackLookupService =
+                    createFallbackLookupService(CircuitBreaker.disabled());
+
+            assertThrows(
+                    PostcodeLookupTimeoutException.class,
+                    () -> fallbackLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID));
+        }
+
+        private PostcodeLookupService createFallbackLookupService(CircuitBreaker circuitBreaker) {
+            return new PostcodeLookupService(
+                    mockConfigurationService,
+                    httpClient,
+                    log,
+                    eventProbe,
+                    objectMapper,
+                    PostcodeLookupOptions.builder()
+                            .circuitBreaker(circuitBreaker)
+                            .fallbackIndex(fallbackIndex)
+                            .build());
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServicePaginationTest {
+        @Mock private HttpResponse<InputStream> secondPage;
+        @Mock private CircuitBreaker circuitBreaker;
+
+        @Test
+        void shouldFetchTheRemainingPagesAndReturnEveryResult()
+                throws IOException, InterruptedException {
+            PostcodeLookupService pagingLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .pager(new OrdnanceSurveyPager(4, 1000, eventProbe))
+                                    .build());
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{\"offset\":0,\"totalresults\":3,\"maxresults\":2},\"results\":[{\"DPA\":{\"UPRN\":\"1\"}},{\"DPA\":{\"UPRN\":\"2\"}}]}"));
+            when(mockResponse.request())
+                    .thenReturn(
+                            HttpRequest.newBuilder(
+                                            URI.create("http://localhost:8080/?postcode=ZZ11ZZ"))
+                                    .build());
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+            when(secondPage.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(secondPage.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{\"offset\":2,\"totalresults\":3,\"maxresults\":2},\"results\":[{\"DPA\":{\"UPRN\":\"3\"}}]}"));
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(secondPage));
+
+            var results = pagingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            verify(httpClient)
+                    .sendAsync(
+                            postCodeRequest.capture(),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any());
+            assertEquals(
+                    List.of(1L, 2L, 3L), results.stream().map(CanonicalAddress::getUprn).toList());
+            assertEquals(
+                    "http://localhost:8080/?postcode=ZZ11ZZ&offset=2",
+                    postCodeRequest.getValue().uri().toString());
+            verify(eventProbe)
+                    .counterMetric(OrdnanceSurveyPager.PAGES_FETCHED_METRIC, 1, MetricUnit.COUNT);
+        }
+
+        @Test
+        void shouldSendFurtherPagesThroughTheCircuitBreaker()
+                throws IOException, InterruptedException {
+            when(circuitBreaker.permitRequest()).thenReturn(Duration.ofSeconds(5));
+            PostcodeLookupService pagingLookupService =
+                    new PostcodeLookupService(
+                            mockConfigurationService,
+                            httpClient,
+                            log,
+                            eventProbe,
+                            objectMapper,
+                            PostcodeLookupOptions.builder()
+                                    .circuitBreaker(circuitBreaker)
+                                    .pager(new OrdnanceSurveyPager(4, 1000, eventProbe))
+                                    .build());
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{\"offset\":0,\"totalresults\":3,\"maxresults\":2},\"results\":[{\"DPA\":{\"UPRN\":\"1\"}},{\"DPA\":{\"UPRN\":\"2\"}}]}"));
+            when(mockResponse.request())
+                    .thenReturn(
+                            HttpRequest.newBuilder(
+                                            URI.create("http://localhost:8080/?postcode=ZZ1%201ZZ"))
+                                    .build());
+            when(httpClient.send(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(mockResponse);
+            when(secondPage.statusCode()).thenReturn(HttpStatusCode.SERVICE_UNAVAILABLE);
+            when(httpClient.sendAsync(
+                            postCodeRequest.capture(),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(secondPage));
+
+            assertThrows(
+                    PostcodeLookupProcessingException.class,
+                    () -> pagingLookupService.lookupPostcode("ZZ1 1ZZ", TEST_CLIENT_ID));
+
+            verify(circuitBreaker, times(2)).permitRequest();
+            verify(circuitBreaker).recordSuccess(anyLong());
+            verify(circuitBreaker).recordFailure();
+            assertEquals(
+                    "http://localhost:8080/?postcode=ZZ1%201ZZ&offset=2",
+                    postCodeRequest.getValue().uri().toString());
+            assertEquals(Optional.of(Duration.ofSeconds(5)), postCodeRequest.getValue().timeout());
+        }
+    }
+
+    @Nested
+    class PostCodeLookUpServiceAsyncLookupTest {
+        @BeforeEach
+        void setUp() {
+            when(mockConfigurationService.getSecretValue("OrdnanceSurveyAPIKey"))
+                    .thenReturn(TEST_API_KEY);
+            when(mockConfigurationService.getParameterValue(
+                            "OrdnanceSurveyAPIUrl/" + TEST_CLIENT_ID))
+                    .thenReturn("http://localhost:8080/");
+        }
+
+        @Test
+        void shouldCompleteWithResultsFromSendAsync() throws IOException {
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.OK);
+            when(mockResponse.body())
+                    .thenReturn(
+                            toBody(
+                                    "{\"header\":{},\"results\":[{\"DPA\":{\"UPRN\":\"12345567\",\"POSTCODE\":\"ZZ1 1ZZ\"}}]}"));
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+            var results =
+                    PostcodeLookupService.awaitLookup(
+                            postcodeLookupService.lookupPostcodeAsync("ZZ1 1ZZ", TEST_CLIENT_ID));
+
+            assertEquals(1, results.size());
+            assertEquals("ZZ1 1ZZ", results.get(0).getPostalCode());
+            verify(eventProbe, times(1))
+                    .counterMetric(
+                            eq("lookup_postcode_duration"),
+                            anyDouble(),
+                            eq(MetricUnit.MILLISECONDS));
+        }
+
+        @Test
+        void shouldSurfaceTimeoutFromSendAsync() {
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.failedFuture(new HttpTimeoutException("timeout")));
+
+            var pendingLookup = postcodeLookupService.lookupPostcodeAsync("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertThrows(
+                    PostcodeLookupTimeoutException.class,
+                    () -> PostcodeLookupService.awaitLookup(pendingLookup));
+        }
+
+        @Test
+        void shouldSurfaceOrdnanceSurveyErrorFromSendAsync() {
+            when(mockResponse.statusCode()).thenReturn(HttpStatusCode.INTERNAL_SERVER_ERROR);
+            when(httpClient.sendAsync(
+                            any(HttpRequest.class),
+                            ArgumentMatchers.<HttpResponse.BodyHandler<InputStream>>any()))
+                    .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+            var pendingLookup = postcodeLookupService.lookupPostcodeAsync("ZZ1 1ZZ", TEST_CLIENT_ID);
+
+            assertThrows(
+                    PostcodeLookupProcessingException.class,
+                    () -> PostcodeLookupService.awaitLookup(pendingLookup));
+        }
+    }
+
     @Nested
     class LookupServiceAuditEventTest {
         @Test
@@ -483,4 +1452,8 @@ class PostcodeLookupServiceTest {
                     "sessionItem must not be null");
         }
     }
+
+    private static InputStream toBody(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
 }
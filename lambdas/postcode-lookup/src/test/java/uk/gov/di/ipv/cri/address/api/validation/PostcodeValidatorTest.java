@@ -0,0 +1,38 @@
+package uk.gov.di.ipv.cri.address.api.validation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostcodeValidatorTest {
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "M1 1AE", "B33 8TH", "CR2 6XH", "DN55 1PT", "W1A 0AX", "EC1A 1BB", "LS1 1BA",
+                "ZZ1 1ZZ", "sw1a1aa", " SW1A 1AA ", "GX11 1AA"
+            })
+    void shouldAcceptStandardFormats(String postcode) {
+        assertTrue(PostcodeValidator.isValid(postcode));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"GIR 0AA", "gir0aa", "BFPO 1", "BFPO 1234", "ASCN 1ZZ", "STHL1ZZ"})
+    void shouldAcceptSpecialFormats(String postcode) {
+        assertTrue(PostcodeValidator.isValid(postcode));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(
+            strings = {
+                "ABC", "12345", "LS1", "LS1 1B", "LS1 1BA1", "1LS 1BA", "ABCD1 1AA", "LS1 1BA!",
+                "5WF12LZ", "GIR 0AB", "BFPO", "BFPO 12345", "ASCN", "😀", "ＬＳ1 1BA"
+            })
+    void shouldRejectMalformedPostcodes(String postcode) {
+        assertFalse(PostcodeValidator.isValid(postcode));
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.di.ipv.cri.address.library.config;
+
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A {@link RefreshingSnapshot} per client id, for configuration such as the Ordnance Survey URL
+ * that is held in SSM under the client id. Each client's value is loaded on its first read and
+ * refreshed independently of the others.
+ */
+public class ClientConfigurationSnapshots<T> {
+    private final Function<String, T> loader;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final Executor refreshExecutor;
+    private final EventProbe eventProbe;
+    private final Map<String, RefreshingSnapshot<T>> snapshots = new ConcurrentHashMap<>();
+
+    public ClientConfigurationSnapshots(
+            Function<String, T> loader,
+            Duration refreshInterval,
+            Clock clock,
+            Executor refreshExecutor,
+            EventProbe eventProbe) {
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+        this.eventProbe = eventProbe;
+    }
+
+    public static <T> ClientConfigurationSnapshots<T> disabled(Function<String, T> loader) {
+        return new ClientConfigurationSnapshots<>(
+                loader, Duration.ZERO, Clock.systemUTC(), null, null);
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static <T> ClientConfigurationSnapshots<T> fromEnvironment(
+            Map<String, String> environment, Function<String, T> loader, EventProbe eventProbe) {
+        Duration refreshInterval = RefreshingSnapshot.refreshInterval(environment);
+        if (refreshInterval.isZero() || refreshInterval.isNegative()) {
+            return disabled(loader);
+        }
+
+        return new ClientConfigurationSnapshots<>(
+                loader,
+                refreshInterval,
+                Clock.systemUTC(),
+                RefreshingSnapshot.REFRESH_EXECUTOR,
+                eventProbe);
+    }
+
+    public boolean isEnabled() {
+        return refreshInterval.toMillis() > 0;
+    }
+
+    public T get(String clientId) {
+        if (!isEnabled()) {
+            return loader.apply(clientId);
+        }
+
+        return snapshots
+                .computeIfAbsent(
+                        clientId,
+                        id ->
+                                new RefreshingSnapshot<>(
+                                        () -> loader.apply(id),
+                                        refreshInterval,
+                                        clock,
+                                        refreshExecutor,
+                                        eventProbe))
+                .get();
+    }
+}
@@ -0,0 +1,145 @@
+package uk.gov.di.ipv.cri.address.library.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * An immutable configuration value loaded once and then refreshed in the background, so requests
+ * read it without going through the SSM and Secrets Manager caches or re-parsing it. The first
+ * read loads the value on the calling thread. Once the refresh interval has passed, the next read
+ * still returns the current value and starts a refresh on the refresh executor.
+ *
+ * <p>A failed refresh, e.g. while SSM is throttling, keeps the last good value and is tried again
+ * after another interval. With no refresh interval configured every read calls the loader, and
+ * with no event probe, as the legacy service constructors pass, refreshes are not counted.
+ */
+public class RefreshingSnapshot<T> {
+    public static final String CONFIGURATION_REFRESH_METRIC = "configuration_refresh";
+    public static final String CONFIGURATION_REFRESH_FAILED_METRIC = "configuration_refresh_failed";
+
+    static final ExecutorService REFRESH_EXECUTOR =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "configuration-refresh");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Supplier<T> loader;
+    private final long refreshMillis;
+    private final Clock clock;
+    private final Executor refreshExecutor;
+    private final EventProbe eventProbe;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile Snapshot<T> snapshot;
+
+    public RefreshingSnapshot(
+            Supplier<T> loader,
+            Duration refreshInterval,
+            Clock clock,
+            Executor refreshExecutor,
+            EventProbe eventProbe) {
+        this.loader = loader;
+        this.refreshMillis = refreshInterval.toMillis();
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+        this.eventProbe = eventProbe;
+    }
+
+    public static <T> RefreshingSnapshot<T> disabled(Supplier<T> loader) {
+        return new RefreshingSnapshot<>(loader, Duration.ZERO, Clock.systemUTC(), null, null);
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static <T> RefreshingSnapshot<T> fromEnvironment(
+            Map<String, String> environment, Supplier<T> loader, EventProbe eventProbe) {
+        Duration refreshInterval = refreshInterval(environment);
+        if (refreshInterval.isZero() || refreshInterval.isNegative()) {
+            return disabled(loader);
+        }
+
+        return new RefreshingSnapshot<>(
+                loader, refreshInterval, Clock.systemUTC(), REFRESH_EXECUTOR, eventProbe);
+    }
+
+    // CONFIGURATION_REFRESH_SECONDS, with 0 or unset meaning every read calls the loader
+    static Duration refreshInterval(Map<String, String> environment) {
+        return Duration.ofSeconds(
+                Long.parseLong(
+                        Optional.ofNullable(environment.get("CONFIGURATION_REFRESH_SECONDS"))
+                                .orElse("0")));
+    }
+
+    public boolean isEnabled() {
+        return refreshMillis > 0;
+    }
+
+    public T get() {
+        if (!isEnabled()) {
+            return loader.get();
+        }
+
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            return loadFirstValue();
+        }
+        if (clock.millis() - current.loadedAt() >= refreshMillis
+                && refreshing.compareAndSet(false, true)) {
+            startRefresh();
+        }
+        return current.value();
+    }
+
+    // Only runs until the first value is loaded, after which reads never take the lock
+    private synchronized T loadFirstValue() {
+        if (snapshot == null) {
+            snapshot = new Snapshot<>(loader.get(), clock.millis());
+        }
+        return snapshot.value();
+    }
+
+    private void startRefresh() {
+        try {
+            refreshExecutor.execute(this::refresh);
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private void refresh() {
+        Snapshot<T> current = snapshot;
+        String outcome;
+        try {
+            snapshot = new Snapshot<>(loader.get(), clock.millis());
+            outcome = CONFIGURATION_REFRESH_METRIC;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to refresh configuration, keeping the last good value", e);
+            snapshot = new Snapshot<>(current.value(), clock.millis());
+            outcome = CONFIGURATION_REFRESH_FAILED_METRIC;
+        } finally {
+            refreshing.set(false);
+        }
+
+        // Counted once the snapshot is settled, so a failing metric cannot undo the refresh
+        if (eventProbe != null) {
+            eventProbe.counterMetric(outcome);
+        }
+    }
+
+    private record Snapshot<T>(T value, long loadedAt) {}
+}
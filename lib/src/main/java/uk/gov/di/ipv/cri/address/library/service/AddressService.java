@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.utils.StringUtils;
 import uk.gov.di.ipv.cri.address.library.exception.AddressNotFoundException;
 import uk.gov.di.ipv.cri.address.library.exception.AddressProcessingException;
 import uk.gov.di.ipv.cri.address.library.persistence.item.AddressItem;
@@ -18,13 +19,11 @@ import uk.gov.di.ipv.cri.common.library.util.EventProbe;
 import uk.gov.di.ipv.cri.common.library.util.retry.RetryConfig;
 import uk.gov.di.ipv.cri.common.library.util.retry.RetryManager;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
-import static uk.gov.di.ipv.cri.address.library.util.CountryCode.isCountryCodeAbsentForAny;
 import static uk.gov.di.ipv.cri.address.library.util.CountryCode.isGreatBritain;
 
 public class AddressService {
@@ -66,31 +65,34 @@ public class AddressService {
         this.objectMapper = objectMapper;
     }
 
-    public List<CanonicalAddress> parseAddresses(String addressBody)
+    /**
+     * Parses the request body and, in a single traversal of the parsed list, checks each address
+     * has a country code, normalizes UK postcodes, classifies CURRENT and PREVIOUS addresses for
+     * {@link #linkAddressValidity(ProcessedAddresses)} and counts the entry types for {@link
+     * #storeAddressEntryTypeMetric(EventProbe, ProcessedAddresses)}.
+     */
+    public ProcessedAddresses processAddresses(String addressBody)
             throws AddressProcessingException {
-        List<CanonicalAddress> addresses;
-        try {
-            addresses = getAddressReader().readValue(addressBody);
-        } catch (JsonProcessingException e) {
-            throw new AddressProcessingException("could not parse addresses..." + e.getMessage());
-        }
-
-        if (isCountryCodeAbsentForAny(addresses)) {
-            throw new AddressProcessingException(ERROR_COUNTRY_CODE_NOT_PRESENT);
-        }
-        return addresses;
+        return classifyAddresses(readAddresses(addressBody), true);
     }
 
+    /**
+     * Links the validity dates, saves the addresses and records their entry types. Everything it
+     * needs was worked out by {@link #processAddresses(String)}, so none of it walks the addresses
+     * again.
+     */
     public AddressItem saveAddresses(
-            UUID sessionId, List<CanonicalAddress> addresses, long ttlExpiryEpoch) {
+            UUID sessionId,
+            ProcessedAddresses processedAddresses,
+            long ttlExpiryEpoch,
+            EventProbe eventProbe)
+            throws AddressProcessingException {
+        linkAddressValidity(processedAddresses);
+
         AddressItem addressItem = new AddressItem();
         addressItem.setSessionId(sessionId);
         addressItem.setExpiryDate(ttlExpiryEpoch);
-        addressItem.setAddresses(
-                Optional.ofNullable(addresses).orElse(Collections.emptyList()).stream()
-                        .filter(Objects::nonNull)
-                        .map(this::normalizePostcodeUkAddresses)
-                        .toList());
+        addressItem.setAddresses(processedAddresses.getAddresses());
         dataStore.create(addressItem);
 
         LOGGER.info(
@@ -98,6 +100,7 @@ public class AddressService {
                 ttlExpiryEpoch,
                 addressItem.getAddresses().size());
 
+        storeAddressEntryTypeMetric(eventProbe, processedAddresses);
         return addressItem;
     }
 
@@ -132,22 +135,30 @@ public class AddressService {
         }
     }
 
+    /**
+     * Reads an item that will never exist so the DynamoDB client opens a connection before the
+     * first request needs one, e.g. after a SnapStart restore.
+     */
+    public void warmUpDataStoreConnection() {
+        dataStore.getItem(UUID.randomUUID().toString());
+    }
+
     // See https://govukverify.atlassian.net/wiki/spaces/PYI/pages/3178004485/Decision+Log
-    public void setAddressValidity(List<CanonicalAddress> addresses)
+    public void linkAddressValidity(ProcessedAddresses processedAddresses)
             throws AddressProcessingException {
 
-        switch (addresses.size()) {
+        switch (processedAddresses.size()) {
             case 0:
                 LOGGER.warn("No Addresses to Process.");
                 return;
             case 1:
-                if (isNotCurrentAddress(addresses.get(0))) {
+                if (processedAddresses.getCurrentAddressCount() == 0) {
                     throw new AddressProcessingException(ERROR_SINGLE_ADDRESS_NOT_CURRENT);
                 }
                 LOGGER.info("Found a Single CURRENT Address.");
                 return;
             case 2:
-                processAddresses(addresses);
+                linkProcessedAddresses(processedAddresses);
                 return;
             default:
                 // We cannot link multiple PREVIOUS address dates as they are null.
@@ -176,14 +187,15 @@ public class AddressService {
                 && (canonicalAddress.getValidFrom().isEqual(canonicalAddress.getValidUntil())));
     }
 
+    // One data point per address, so dashboards can keep counting entries with SampleCount
     public void storeAddressEntryTypeMetric(
-            EventProbe eventProbe, List<CanonicalAddress> addresses) {
-        for (CanonicalAddress address : addresses) {
-            if (address.getUprn() != null) {
-                eventProbe.counterMetric(PRE_POPULATED_ADDRESS_METRIC);
-            } else {
-                eventProbe.counterMetric(MANUAL_ADDRESS_METRIC);
-            }
+            EventProbe eventProbe, ProcessedAddresses processedAddresses) {
+        int prePopulatedAddressCount = processedAddresses.getPrePopulatedAddressCount();
+        for (int i = 0; i < prePopulatedAddressCount; i++) {
+            eventProbe.counterMetric(PRE_POPULATED_ADDRESS_METRIC);
+        }
+        for (int i = prePopulatedAddressCount; i < processedAddresses.size(); i++) {
+            eventProbe.counterMetric(MANUAL_ADDRESS_METRIC);
         }
     }
 
@@ -195,6 +207,15 @@ public class AddressService {
                 .build();
     }
 
+    private List<CanonicalAddress> readAddresses(String addressBody)
+            throws AddressProcessingException {
+        try {
+            return getAddressReader().readValue(addressBody);
+        } catch (JsonProcessingException e) {
+            throw new AddressProcessingException("could not parse addresses..." + e.getMessage());
+        }
+    }
+
     private ObjectReader getAddressReader() {
         if (Objects.isNull(this.addressReader)) {
             this.addressReader =
@@ -205,41 +226,77 @@ public class AddressService {
         return this.addressReader;
     }
 
-    private void processAddresses(List<CanonicalAddress> addresses)
+    // Checking and normalizing only applies to addresses straight from a request body, the
+    // unchecked form is for addresses built in memory
+    ProcessedAddresses classifyAddresses(List<CanonicalAddress> addresses)
             throws AddressProcessingException {
+        return classifyAddresses(addresses, false);
+    }
 
+    private ProcessedAddresses classifyAddresses(
+            List<CanonicalAddress> addresses, boolean checkAndNormalize)
+            throws AddressProcessingException {
+        int currentAddressCount = 0;
+        int prePopulatedAddressCount = 0;
         CanonicalAddress currentAddress = null;
         CanonicalAddress previousAddress = null;
+        boolean invalidDatesPresent = false;
 
-        CanonicalAddress address0 = addresses.get(0);
-        CanonicalAddress address1 = addresses.get(1);
+        for (CanonicalAddress address : addresses) {
+            if (checkAndNormalize) {
+                if (address == null || StringUtils.isEmpty(address.getAddressCountry())) {
+                    throw new AddressProcessingException(ERROR_COUNTRY_CODE_NOT_PRESENT);
+                }
+                normalizePostcodeUkAddresses(address);
+            }
 
-        // Check for a specific invalid case of the dates being equal
-        // This would fail against an addressType check in common-lib
-        if (isInvalidAddress(address0) || isInvalidAddress(address1)) {
-            throw new AddressProcessingException(ERROR_ADDRESS_DATE_IS_INVALID);
+            if (isCurrentAddress(address)) {
+                currentAddressCount++;
+                if (currentAddress == null) {
+                    currentAddress = address;
+                }
+            } else if (previousAddress == null) {
+                previousAddress = address;
+            }
+            invalidDatesPresent |= isInvalidAddress(address);
+            if (address.getUprn() != null) {
+                prePopulatedAddressCount++;
+            }
         }
 
-        if (isCurrentAddress(address0) && isNotCurrentAddress(address1)) {
-            currentAddress = address0;
-            previousAddress = address1;
-        } else if (isCurrentAddress(address1) && isNotCurrentAddress(address0)) {
-            currentAddress = address1;
-            previousAddress = address0;
-        } else if (isCurrentAddress(address0) && isCurrentAddress(address1)) {
+        return new ProcessedAddresses(
+                addresses,
+                currentAddressCount,
+                prePopulatedAddressCount,
+                currentAddress,
+                previousAddress,
+                invalidDatesPresent);
+    }
 
-            // This an edge case where there are two CURRENT address.
-            // Date linking is not performed.
+    private void linkProcessedAddresses(ProcessedAddresses processedAddresses)
+            throws AddressProcessingException {
 
-            LOGGER.info("Found two CURRENT Addresses.");
+        // Check for a specific invalid case of the dates being equal
+        // This would fail against an addressType check in common-lib
+        if (processedAddresses.isInvalidDatesPresent()) {
+            throw new AddressProcessingException(ERROR_ADDRESS_DATE_IS_INVALID);
+        }
 
-            return;
-        } else {
-            throw new AddressProcessingException(ERROR_COULD_NOT_DETERMINE_CURRENT_ADDRESS);
+        switch (processedAddresses.getCurrentAddressCount()) {
+            case 1:
+                break;
+            case 2:
+                // This an edge case where there are two CURRENT address.
+                // Date linking is not performed.
+                LOGGER.info("Found two CURRENT Addresses.");
+                return;
+            default:
+                throw new AddressProcessingException(ERROR_COULD_NOT_DETERMINE_CURRENT_ADDRESS);
         }
 
         // When AddressCRI Front is updated to set validUntil the linking needs to be removed
         // else it would trample the dates already set
+        CanonicalAddress previousAddress = processedAddresses.getPreviousAddress();
         if (Objects.nonNull(previousAddress.getValidUntil())) {
             // Not safe to automatically process dates in addresses
             throw new AddressProcessingException(ERROR_ADDRESS_LINKING_NOT_NEEDED);
@@ -247,7 +304,6 @@ public class AddressService {
 
         LOGGER.info("Found a CURRENT and PREVIOUS Address, linking validFrom with validUntil.");
 
-        // At this point the current address is known
-        previousAddress.setValidUntil(currentAddress.getValidFrom());
+        previousAddress.setValidUntil(processedAddresses.getCurrentAddress().getValidFrom());
     }
 }
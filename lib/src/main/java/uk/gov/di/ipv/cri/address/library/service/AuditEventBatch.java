@@ -0,0 +1,178 @@
+package uk.gov.di.ipv.cri.address.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
+import uk.gov.di.ipv.cri.common.library.domain.AuditEventType;
+import uk.gov.di.ipv.cri.common.library.exception.SqsException;
+import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The audit events raised while handling a single request. Events are created (and timestamped)
+ * when they are added, but nothing is sent to SQS until {@link #send()} or {@link
+ * #dispatch(Supplier)} is called.
+ */
+public class AuditEventBatch {
+    public static final String AUDIT_BATCH_SIZE_METRIC = "audit_event_batch_size";
+    public static final String AUDIT_BATCH_SEND_DURATION_METRIC = "audit_event_batch_send_duration";
+    // SendMessageBatch accepts at most 10 entries per call
+    static final int MAX_ENTRIES_PER_REQUEST = 10;
+
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+    private final ObjectMapper objectMapper;
+    private final AuditEventFactory auditEventFactory;
+    private final Executor sendExecutor;
+    private final EventProbe eventProbe;
+    private final List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+
+    AuditEventBatch(
+            SqsClient sqsClient,
+            String queueUrl,
+            ObjectMapper objectMapper,
+            AuditEventFactory auditEventFactory,
+            Executor sendExecutor,
+            EventProbe eventProbe) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.objectMapper = objectMapper;
+        this.auditEventFactory = auditEventFactory;
+        this.sendExecutor = sendExecutor;
+        this.eventProbe = eventProbe;
+    }
+
+    public AuditEventBatch add(AuditEventType eventType, AuditEventContext context)
+            throws SqsException {
+        return add(eventType, context, null);
+    }
+
+    public <T> AuditEventBatch add(
+            AuditEventType eventType, AuditEventContext context, T extensions)
+            throws SqsException {
+        try {
+            String messageBody =
+                    objectMapper.writeValueAsString(
+                            auditEventFactory.create(eventType.toString(), context, extensions));
+
+            synchronized (entries) {
+                entries.add(
+                        SendMessageBatchRequestEntry.builder()
+                                .id(String.valueOf(entries.size()))
+                                .messageBody(messageBody)
+                                .build());
+            }
+            return this;
+        } catch (JsonProcessingException e) {
+            throw new SqsException(e);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Sends every event added so far and clears the batch. */
+    public void send() throws SqsException {
+        List<SendMessageBatchRequestEntry> pending;
+        synchronized (entries) {
+            pending = List.copyOf(entries);
+            entries.clear();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            for (int from = 0; from < pending.size(); from += MAX_ENTRIES_PER_REQUEST) {
+                sendEntries(
+                        pending.subList(
+                                from, Math.min(from + MAX_ENTRIES_PER_REQUEST, pending.size())));
+            }
+        } catch (SdkException e) {
+            throw new SqsException(e);
+        } finally {
+            eventProbe.counterMetric(AUDIT_BATCH_SIZE_METRIC, pending.size());
+            eventProbe.counterMetric(
+                    AUDIT_BATCH_SEND_DURATION_METRIC,
+                    (System.nanoTime() - startTime) / 1000000d,
+                    MetricUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the batch and produces the response. In async mode the send runs on the dispatcher's
+     * executor while {@code response} is evaluated, and is joined before returning so the events
+     * are on the queue before the invocation completes.
+     */
+    public <T> T dispatch(Supplier<T> response) throws SqsException {
+        if (sendExecutor == null) {
+            send();
+            return response.get();
+        }
+
+        CompletableFuture<Void> pendingSend =
+                CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                send();
+                            } catch (SqsException e) {
+                                throw new CompletionException(e);
+                            }
+                        },
+                        sendExecutor);
+        try {
+            T result = response.get();
+            pendingSend.join();
+            return result;
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof SqsException sqsException) {
+                throw sqsException;
+            }
+            throw new SqsException(cause);
+        } catch (RuntimeException e) {
+            // Building the response failed, still make sure the events are delivered
+            pendingSend.exceptionally(sendFailure -> null).join();
+            throw e;
+        }
+    }
+
+    private void sendEntries(List<SendMessageBatchRequestEntry> batchEntries)
+            throws SqsException {
+        SendMessageBatchResponse response =
+                sqsClient.sendMessageBatch(
+                        SendMessageBatchRequest.builder()
+                                .queueUrl(queueUrl)
+                                .entries(batchEntries)
+                                .build());
+
+        if (response.hasFailed() && !response.failed().isEmpty()) {
+            throw new SqsException(
+                    new IllegalStateException(
+                            "Failed to send audit events: "
+                                    + response.failed().stream()
+                                            .map(BatchResultErrorEntry::code)
+                                            .collect(Collectors.joining(", "))));
+        }
+    }
+}
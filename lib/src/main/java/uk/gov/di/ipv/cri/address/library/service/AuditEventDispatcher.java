@@ -0,0 +1,91 @@
+package uk.gov.di.ipv.cri.address.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates per-request {@link AuditEventBatch}es that are delivered to the audit queue with a single
+ * SQS SendMessageBatch call rather than one SendMessage per event. When a send executor is
+ * supplied the batch is sent in the background while the handler builds its response, and is
+ * always awaited before the response is returned.
+ */
+public class AuditEventDispatcher {
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+    private final ObjectMapper objectMapper;
+    private final AuditEventFactory auditEventFactory;
+    private final Executor sendExecutor;
+    private final EventProbe eventProbe;
+
+    public AuditEventDispatcher(
+            SqsClient sqsClient,
+            String queueUrl,
+            ObjectMapper objectMapper,
+            AuditEventFactory auditEventFactory,
+            Executor sendExecutor,
+            EventProbe eventProbe) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.objectMapper = objectMapper;
+        this.auditEventFactory = auditEventFactory;
+        this.sendExecutor = sendExecutor;
+        this.eventProbe = eventProbe;
+    }
+
+    public static AuditEventDispatcher disabled() {
+        return new AuditEventDispatcher(null, null, null, null, null, null);
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static AuditEventDispatcher fromEnvironment(
+            Map<String, String> environment,
+            SqsClient sqsClient,
+            ObjectMapper objectMapper,
+            AuditEventFactory auditEventFactory,
+            EventProbe eventProbe) {
+        if (!Boolean.parseBoolean(environment.get("AUDIT_BATCHING_ENABLED"))) {
+            return disabled();
+        }
+
+        Executor sendExecutor =
+                Boolean.parseBoolean(environment.get("AUDIT_BATCH_ASYNC_SEND"))
+                        ? Executors.newSingleThreadExecutor(
+                                runnable -> {
+                                    Thread thread = new Thread(runnable, "audit-event-sender");
+                                    thread.setDaemon(true);
+                                    return thread;
+                                })
+                        : null;
+
+        return new AuditEventDispatcher(
+                sqsClient,
+                environment.get("SQS_AUDIT_EVENT_QUEUE_URL"),
+                objectMapper,
+                auditEventFactory,
+                sendExecutor,
+                eventProbe);
+    }
+
+    public boolean isEnabled() {
+        return sqsClient != null && queueUrl != null;
+    }
+
+    public boolean isAsync() {
+        return sendExecutor != null;
+    }
+
+    public AuditEventBatch newBatch() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Audit event batching is not enabled");
+        }
+        return new AuditEventBatch(
+                sqsClient, queueUrl, objectMapper, auditEventFactory, sendExecutor, eventProbe);
+    }
+}
@@ -0,0 +1,67 @@
+package uk.gov.di.ipv.cri.address.library.service;
+
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+
+import java.util.List;
+
+/**
+ * Addresses from a request body that have been through {@link
+ * AddressService#processAddresses(String)}: country codes checked, UK postcodes normalized and
+ * the CURRENT and PREVIOUS addresses needed to link validity dates, and the entry type counts
+ * for the metrics, worked out in the same pass.
+ */
+public class ProcessedAddresses {
+    private final List<CanonicalAddress> addresses;
+    private final int currentAddressCount;
+    private final int prePopulatedAddressCount;
+    private final CanonicalAddress currentAddress;
+    private final CanonicalAddress previousAddress;
+    private final boolean invalidDatesPresent;
+
+    ProcessedAddresses(
+            List<CanonicalAddress> addresses,
+            int currentAddressCount,
+            int prePopulatedAddressCount,
+            CanonicalAddress currentAddress,
+            CanonicalAddress previousAddress,
+            boolean invalidDatesPresent) {
+        this.addresses = addresses;
+        this.currentAddressCount = currentAddressCount;
+        this.prePopulatedAddressCount = prePopulatedAddressCount;
+        this.currentAddress = currentAddress;
+        this.previousAddress = previousAddress;
+        this.invalidDatesPresent = invalidDatesPresent;
+    }
+
+    public List<CanonicalAddress> getAddresses() {
+        return addresses;
+    }
+
+    public boolean isEmpty() {
+        return addresses.isEmpty();
+    }
+
+    public int size() {
+        return addresses.size();
+    }
+
+    int getCurrentAddressCount() {
+        return currentAddressCount;
+    }
+
+    int getPrePopulatedAddressCount() {
+        return prePopulatedAddressCount;
+    }
+
+    CanonicalAddress getCurrentAddress() {
+        return currentAddress;
+    }
+
+    CanonicalAddress getPreviousAddress() {
+        return previousAddress;
+    }
+
+    boolean isInvalidDatesPresent() {
+        return invalidDatesPresent;
+    }
+}
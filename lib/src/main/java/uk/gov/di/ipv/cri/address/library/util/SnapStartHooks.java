@@ -0,0 +1,102 @@
+package uk.gov.di.ipv.cri.address.library.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.annotations.ExcludeFromGeneratedCoverageReport;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SnapStart runtime hooks for a handler. Before the snapshot is taken the priming hook runs the
+ * handler's hot paths with synthetic data, so class loading and serializer discovery are captured
+ * in the snapshot rather than paid by the first request. After restore the reconnect hook
+ * re-establishes the network connections that did not survive the snapshot.
+ *
+ * <p>Also records how long each invocation took, reporting the first invocation in the execution
+ * environment separately depending on whether it followed a restore or an on-demand cold start.
+ *
+ * <p>CRaC only keeps weak references to registered resources, so the handler must hold on to the
+ * instance returned by {@link #register}.
+ */
+public class SnapStartHooks implements Resource {
+    public static final String FIRST_INVOCATION_AFTER_RESTORE_METRIC =
+            "first_invocation_duration_after_restore";
+    public static final String FIRST_INVOCATION_AFTER_COLD_START_METRIC =
+            "first_invocation_duration_after_cold_start";
+    public static final String WARM_INVOCATION_METRIC = "warm_invocation_duration";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Hook priming;
+    private final Hook reconnect;
+    private final EventProbe eventProbe;
+    private final AtomicBoolean restored = new AtomicBoolean(false);
+    private final AtomicBoolean firstInvocation = new AtomicBoolean(true);
+
+    @FunctionalInterface
+    public interface Hook {
+        void run() throws Exception;
+    }
+
+    SnapStartHooks(Hook priming, Hook reconnect, EventProbe eventProbe) {
+        this.priming = priming;
+        this.reconnect = reconnect;
+        this.eventProbe = eventProbe;
+    }
+
+    public static SnapStartHooks disabled() {
+        return new SnapStartHooks(null, null, null);
+    }
+
+    @ExcludeFromGeneratedCoverageReport
+    public static SnapStartHooks register(Hook priming, Hook reconnect, EventProbe eventProbe) {
+        SnapStartHooks hooks = new SnapStartHooks(priming, reconnect, eventProbe);
+        Core.getGlobalContext().register(hooks);
+        return hooks;
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        runQuietly("priming", priming);
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        restored.set(true);
+        runQuietly("reconnect", reconnect);
+    }
+
+    public void recordInvocation(long startNanos) {
+        if (eventProbe == null) {
+            return;
+        }
+
+        double durationMillis = (System.nanoTime() - startNanos) / 1_000_000d;
+        String metric = WARM_INVOCATION_METRIC;
+        if (firstInvocation.compareAndSet(true, false)) {
+            metric =
+                    restored.get()
+                            ? FIRST_INVOCATION_AFTER_RESTORE_METRIC
+                            : FIRST_INVOCATION_AFTER_COLD_START_METRIC;
+        }
+        eventProbe.counterMetric(metric, durationMillis, MetricUnit.MILLISECONDS);
+    }
+
+    // A failing hook must never fail the snapshot or the restore, the handler still works
+    // without it and only the first request pays the cost again
+    private static void runQuietly(String hookName, Hook hook) {
+        if (hook == null) {
+            return;
+        }
+        try {
+            hook.run();
+        } catch (Exception e) {
+            LOGGER.warn("SnapStart {} hook failed: {}", hookName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package uk.gov.di.ipv.cri.address.library.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.library.config.RefreshingSnapshot.CONFIGURATION_REFRESH_FAILED_METRIC;
+import static uk.gov.di.ipv.cri.address.library.config.RefreshingSnapshot.CONFIGURATION_REFRESH_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshingSnapshotTest {
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    @Mock private Clock clock;
+    @Mock private EventProbe eventProbe;
+    @Mock private Supplier<String> loader;
+    private final List<Runnable> pendingRefreshes = new ArrayList<>();
+    private final Executor refreshExecutor = pendingRefreshes::add;
+
+    @Test
+    void shouldLoadOnceWithinTheRefreshInterval() {
+        when(clock.millis()).thenReturn(0L, 299_999L);
+        when(loader.get()).thenReturn("https://api.os.uk");
+        RefreshingSnapshot<String> snapshot = createSnapshot();
+
+        assertEquals("https://api.os.uk", snapshot.get());
+        assertEquals("https://api.os.uk", snapshot.get());
+
+        verify(loader, times(1)).get();
+        assertEquals(List.of(), pendingRefreshes);
+    }
+
+    @Test
+    void shouldServeCurrentValueWhileRefreshing() {
+        when(clock.millis()).thenReturn(0L, 300_000L, 300_000L, 300_001L, 300_001L);
+        when(loader.get()).thenReturn("first", "second");
+        RefreshingSnapshot<String> snapshot = createSnapshot();
+        snapshot.get();
+
+        assertEquals("first", snapshot.get());
+        assertEquals("first", snapshot.get());
+        assertEquals(1, pendingRefreshes.size());
+
+        pendingRefreshes.get(0).run();
+        assertEquals("second", snapshot.get());
+        verify(eventProbe).counterMetric(CONFIGURATION_REFRESH_METRIC);
+    }
+
+    @Test
+    void shouldKeepLastGoodValueWhenRefreshFails() {
+        when(clock.millis()).thenReturn(0L, 300_000L, 300_000L, 300_001L);
+        when(loader.get())
+                .thenReturn("first")
+                .thenThrow(new IllegalStateException("Rate exceeded"));
+        RefreshingSnapshot<String> snapshot = createSnapshot();
+        snapshot.get();
+        snapshot.get();
+
+        pendingRefreshes.get(0).run();
+
+        assertEquals("first", snapshot.get());
+        assertEquals(1, pendingRefreshes.size());
+        verify(eventProbe).counterMetric(CONFIGURATION_REFRESH_FAILED_METRIC);
+    }
+
+    @Test
+    void shouldRefreshWithoutAnEventProbe() {
+        when(clock.millis()).thenReturn(0L, 300_000L, 300_000L, 300_001L);
+        when(loader.get()).thenReturn("first", "second");
+        RefreshingSnapshot<String> snapshot =
+                new RefreshingSnapshot<>(loader, REFRESH_INTERVAL, clock, refreshExecutor, null);
+        snapshot.get();
+        snapshot.get();
+
+        pendingRefreshes.get(0).run();
+
+        assertEquals("second", snapshot.get());
+        verifyNoInteractions(eventProbe);
+    }
+
+    @Test
+    void shouldKeepRefreshedValueWhenCountingTheRefreshFails() {
+        when(clock.millis()).thenReturn(0L, 300_000L, 300_000L, 300_001L);
+        when(loader.get()).thenReturn("first", "second");
+        doThrow(new IllegalStateException("Metrics unavailable"))
+                .when(eventProbe)
+                .counterMetric(CONFIGURATION_REFRESH_METRIC);
+        RefreshingSnapshot<String> snapshot = createSnapshot();
+        snapshot.get();
+        snapshot.get();
+
+        assertThrows(IllegalStateException.class, pendingRefreshes.get(0)::run);
+
+        assertEquals("second", snapshot.get());
+        verify(eventProbe, never()).counterMetric(CONFIGURATION_REFRESH_FAILED_METRIC);
+    }
+
+    @Test
+    void shouldSurfaceFailureOfFirstLoad() {
+        when(clock.millis()).thenReturn(0L);
+        when(loader.get())
+                .thenThrow(new IllegalStateException("Parameter not found"))
+                .thenReturn("first");
+        RefreshingSnapshot<String> snapshot = createSnapshot();
+
+        assertThrows(IllegalStateException.class, snapshot::get);
+        assertEquals("first", snapshot.get());
+    }
+
+    @Test
+    void shouldCallLoaderOnEveryReadWhenDisabled() {
+        when(loader.get()).thenReturn("first", "second");
+        RefreshingSnapshot<String> snapshot = RefreshingSnapshot.disabled(loader);
+
+        assertEquals("first", snapshot.get());
+        assertEquals("second", snapshot.get());
+        verifyNoInteractions(clock, eventProbe);
+    }
+
+    private RefreshingSnapshot<String> createSnapshot() {
+        return new RefreshingSnapshot<>(
+                loader, REFRESH_INTERVAL, clock, refreshExecutor, eventProbe);
+    }
+}
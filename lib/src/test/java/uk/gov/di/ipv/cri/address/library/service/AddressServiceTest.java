@@ -42,6 +42,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -78,6 +79,12 @@ class AddressServiceTest {
         this.addressService = new AddressService(mockDataStore, objectMapper);
     }
 
+    // Links addresses built in memory, which skip the checks applied to a request body
+    private void setAddressValidity(List<CanonicalAddress> addresses)
+            throws AddressProcessingException {
+        addressService.linkAddressValidity(addressService.classifyAddresses(addresses));
+    }
+
     @Nested
     @DisplayName("AddressService parses an Address")
     class AddressServiceParseAddresses {
@@ -119,7 +126,8 @@ class AddressServiceTest {
                                }
                             ]""";
 
-            List<CanonicalAddress> parsedAddresses = addressService.parseAddresses(addresses);
+            List<CanonicalAddress> parsedAddresses =
+                    addressService.processAddresses(addresses).getAddresses();
 
             assertThat(parsedAddresses.size(), equalTo(3));
             assertEquals("YORKSHIRE", parsedAddresses.getFirst().getAddressRegion());
@@ -146,7 +154,7 @@ class AddressServiceTest {
             AddressProcessingException addressProcessingException =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.parseAddresses(addresses));
+                            () -> addressService.processAddresses(addresses));
 
             assertThat(
                     addressProcessingException.getMessage(),
@@ -199,7 +207,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.parseAddresses(addresses));
+                            () -> addressService.processAddresses(addresses));
             assertEquals(ERROR_COUNTRY_CODE_NOT_PRESENT, exception.getMessage());
         }
 
@@ -243,13 +251,14 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.parseAddresses(addresses));
+                            () -> addressService.processAddresses(addresses));
             assertEquals(ERROR_COUNTRY_CODE_NOT_PRESENT, exception.getMessage());
         }
 
         @Test
         void shouldReturnEmptyListWhenBodyIsAnEmptyArray() throws AddressProcessingException {
-            List<CanonicalAddress> parsedAddresses = addressService.parseAddresses("[]");
+            List<CanonicalAddress> parsedAddresses =
+                    addressService.processAddresses("[]").getAddresses();
             assertTrue(parsedAddresses.isEmpty());
         }
     }
@@ -257,20 +266,11 @@ class AddressServiceTest {
     @Nested
     @DisplayName("AddressService saves an Address")
     class AddressServiceSaveAddresses {
+        @Mock private EventProbe eventProbe;
+
         @Test
-        void shouldPersistAddresses() {
+        void shouldPersistAddresses() throws AddressProcessingException {
             List<CanonicalAddress> addresses = new ArrayList<>();
-            CanonicalAddress address1 = new CanonicalAddress();
-            address1.setUprn(Long.valueOf("72262801"));
-            address1.setBuildingNumber("8");
-            address1.setStreetName("GRANGE FIELDS WAY");
-            address1.setAddressLocality("LEEDS");
-            address1.setPostalCode("LS10 4QL");
-            address1.setAddressCountry("GB");
-            address1.setAddressRegion("YORKSHIRE");
-            address1.setValidFrom(LocalDate.of(2010, 2, 26));
-            address1.setValidUntil(LocalDate.of(2021, 1, 16));
-
             CanonicalAddress address2 = new CanonicalAddress();
             address2.setUprn(Long.valueOf("63094965"));
             address2.setBuildingNumber("15");
@@ -280,7 +280,6 @@ class AddressServiceTest {
             address2.setPostalCode("WF3 3SE");
             address2.setAddressCountry("GB");
             address2.setValidFrom(LocalDate.of(2021, 1, 16));
-            address2.setValidUntil(LocalDate.of(2021, 8, 2));
 
             CanonicalAddress address3 = new CanonicalAddress();
             address3.setUprn(Long.valueOf("63042351"));
@@ -291,17 +290,19 @@ class AddressServiceTest {
             address3.setAddressCountry("GB");
             address3.setValidFrom(LocalDate.of(2021, 8, 2));
 
-            addresses.add(address1);
             addresses.add(address2);
             addresses.add(address3);
 
-            addressService.saveAddresses(SESSION_ID, addresses, ADDRESS_TTL);
+            ProcessedAddresses processedAddresses = addressService.classifyAddresses(addresses);
+            addressService.saveAddresses(SESSION_ID, processedAddresses, ADDRESS_TTL, eventProbe);
 
             ArgumentCaptor<AddressItem> addressItemArgumentCaptor =
                     ArgumentCaptor.forClass(AddressItem.class);
             verify(mockDataStore).create(addressItemArgumentCaptor.capture());
             MatcherAssert.assertThat(
                     addressItemArgumentCaptor.getValue().getAddresses(), equalTo(addresses));
+            assertEquals(LocalDate.of(2021, 8, 2), address2.getValidUntil());
+            verify(eventProbe, times(2)).counterMetric("pre-populated-address-entry");
             MatcherAssert.assertThat(
                     addressItemArgumentCaptor.getValue().getSessionId(), equalTo(SESSION_ID));
             MatcherAssert.assertThat(
@@ -309,8 +310,18 @@ class AddressServiceTest {
         }
 
         @Test
-        void shouldPersistAnEmptyListOfAddressesWhenNoListOfCanonicalAddressesIsSupplied() {
-            addressService.saveAddresses(SESSION_ID, null, ADDRESS_TTL);
+        void shouldOnlyReadFromTheDataStoreWhenWarmingUpTheConnection() {
+            addressService.warmUpDataStoreConnection();
+
+            verify(mockDataStore).getItem(anyString());
+            verifyNoMoreInteractions(mockDataStore);
+        }
+
+        @Test
+        void shouldPersistAnEmptyListOfAddressesWhenNoAddressesAreSupplied()
+                throws AddressProcessingException {
+            addressService.saveAddresses(
+                    SESSION_ID, addressService.processAddresses("[]"), ADDRESS_TTL, eventProbe);
 
             ArgumentCaptor<AddressItem> addressItemArgumentCaptor =
                     ArgumentCaptor.forClass(AddressItem.class);
@@ -337,17 +348,16 @@ class AddressServiceTest {
             "'   M25  4RT', 'M254RT'" // should remove leading spaces and normalize double space
         })
         void normalizesPostCodeWithoutSpacesWhileSavingWhenGivenAddressesWithPostcodeSpaces(
-                String inputPostcode, String expectedPostcode) {
-            CanonicalAddress address = new CanonicalAddress();
-            address.setUprn(1000000L);
-            address.setBuildingNumber("1");
-            address.setStreetName("TEST STREET");
-            address.setAddressLocality("TEST CITY");
-            address.setPostalCode(inputPostcode);
-            address.setAddressCountry("GB");
-            address.setValidFrom(LocalDate.of(2020, 1, 1));
+                String inputPostcode, String expectedPostcode) throws AddressProcessingException {
+            String address =
+                    """
+                    [{"uprn":"1000000","buildingNumber":"1","streetName":"TEST STREET",\
+                    "addressLocality":"TEST CITY","postalCode":"%s","addressCountry":"GB",\
+                    "validFrom":"2020-01-01"}]"""
+                            .formatted(inputPostcode);
 
-            addressService.saveAddresses(SESSION_ID, List.of(address), ADDRESS_TTL);
+            addressService.saveAddresses(
+                    SESSION_ID, addressService.processAddresses(address), ADDRESS_TTL, eventProbe);
 
             ArgumentCaptor<AddressItem> captor = ArgumentCaptor.forClass(AddressItem.class);
             verify(mockDataStore).create(captor.capture());
@@ -371,17 +381,16 @@ class AddressServiceTest {
             "'   M25  4RT', '   M25  4RT'" // leading spaces and double space in between
         })
         void ignoresNormalizingPostCodeWhileSavingAddressWhenAddressCountryIsNonGB(
-                String inputPostcode, String expectedPostcode) {
-            CanonicalAddress address = new CanonicalAddress();
-            address.setUprn(1000000L);
-            address.setBuildingNumber("1");
-            address.setStreetName("TEST STREET");
-            address.setAddressLocality("TEST CITY");
-            address.setPostalCode(inputPostcode);
-            address.setAddressCountry("KE");
-            address.setValidFrom(LocalDate.of(2020, 1, 1));
+                String inputPostcode, String expectedPostcode) throws AddressProcessingException {
+            String address =
+                    """
+                    [{"uprn":"1000000","buildingNumber":"1","streetName":"TEST STREET",\
+                    "addressLocality":"TEST CITY","postalCode":"%s","addressCountry":"KE",\
+                    "validFrom":"2020-01-01"}]"""
+                            .formatted(inputPostcode);
 
-            addressService.saveAddresses(SESSION_ID, List.of(address), ADDRESS_TTL);
+            addressService.saveAddresses(
+                    SESSION_ID, addressService.processAddresses(address), ADDRESS_TTL, eventProbe);
 
             ArgumentCaptor<AddressItem> captor = ArgumentCaptor.forClass(AddressItem.class);
             verify(mockDataStore).create(captor.capture());
@@ -399,7 +408,7 @@ class AddressServiceTest {
         @Test
         void shouldSucceedWithNoAddresses() {
             List<CanonicalAddress> canonicalAddresses = new ArrayList<>();
-            assertDoesNotThrow(() -> addressService.setAddressValidity(canonicalAddresses));
+            assertDoesNotThrow(() -> setAddressValidity(canonicalAddresses));
         }
 
         @Test
@@ -423,7 +432,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_ADDRESS_LINKING_NOT_NEEDED, exception.getMessage());
         }
@@ -438,7 +447,7 @@ class AddressServiceTest {
 
             List<CanonicalAddress> canonicalAddresses = List.of(currentAddress);
 
-            assertDoesNotThrow(() -> addressService.setAddressValidity(canonicalAddresses));
+            assertDoesNotThrow(() -> setAddressValidity(canonicalAddresses));
         }
 
         @Test
@@ -453,7 +462,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_SINGLE_ADDRESS_NOT_CURRENT, exception.getMessage());
         }
@@ -474,7 +483,7 @@ class AddressServiceTest {
 
             List<CanonicalAddress> canonicalAddresses = List.of(currentAddress, previousAddress);
 
-            assertDoesNotThrow(() -> addressService.setAddressValidity(canonicalAddresses));
+            assertDoesNotThrow(() -> setAddressValidity(canonicalAddresses));
 
             // Linking performed
             assertTrue(currentAddress.getValidFrom().isEqual(previousAddress.getValidUntil()));
@@ -494,7 +503,7 @@ class AddressServiceTest {
 
             List<CanonicalAddress> canonicalAddresses = List.of(currentAddress0, currentAddress1);
 
-            assertDoesNotThrow(() -> addressService.setAddressValidity(canonicalAddresses));
+            assertDoesNotThrow(() -> setAddressValidity(canonicalAddresses));
         }
 
         @Test
@@ -513,7 +522,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_COULD_NOT_DETERMINE_CURRENT_ADDRESS, exception.getMessage());
         }
@@ -536,7 +545,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_COULD_NOT_DETERMINE_CURRENT_ADDRESS, exception.getMessage());
         }
@@ -558,7 +567,7 @@ class AddressServiceTest {
             // Order Reversed
             List<CanonicalAddress> canonicalAddresses = List.of(previousAddress, currentAddress);
 
-            assertDoesNotThrow(() -> addressService.setAddressValidity(canonicalAddresses));
+            assertDoesNotThrow(() -> setAddressValidity(canonicalAddresses));
 
             // Linking performed
             assertTrue(currentAddress.getValidFrom().isEqual(previousAddress.getValidUntil()));
@@ -582,7 +591,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_ADDRESS_DATE_IS_INVALID, exception.getMessage());
         }
@@ -606,7 +615,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_ADDRESS_DATE_IS_INVALID, exception.getMessage());
         }
@@ -633,7 +642,7 @@ class AddressServiceTest {
             AddressProcessingException exception =
                     assertThrows(
                             AddressProcessingException.class,
-                            () -> addressService.setAddressValidity(canonicalAddresses));
+                            () -> setAddressValidity(canonicalAddresses));
 
             assertEquals(ERROR_TOO_MANY_ADDRESSES, exception.getMessage());
         }
@@ -820,55 +829,165 @@ class AddressServiceTest {
             prepopulatedAddress.setUprn(123L);
         }
 
+        private void storeAddressEntryTypeMetric(List<CanonicalAddress> addresses)
+                throws AddressProcessingException {
+            addressService.storeAddressEntryTypeMetric(
+                    eventProbe, addressService.classifyAddresses(addresses));
+        }
+
         @Test
-        void storesManualEntryMetric() {
-            addressService.storeAddressEntryTypeMetric(eventProbe, List.of(manualAddress));
+        void storesManualEntryMetric() throws AddressProcessingException {
+            storeAddressEntryTypeMetric(List.of(manualAddress));
 
             verify(eventProbe, times(1)).counterMetric(MANUAL_ADDRESS_METRIC);
             verify(eventProbe, times(0)).counterMetric(PRE_POPULATED_ADDRESS_METRIC);
         }
 
         @Test
-        void storesPrePopulatedEntryMetric() {
-            addressService.storeAddressEntryTypeMetric(eventProbe, List.of(prepopulatedAddress));
+        void storesPrePopulatedEntryMetric() throws AddressProcessingException {
+            storeAddressEntryTypeMetric(List.of(prepopulatedAddress));
 
             verify(eventProbe, times(0)).counterMetric(MANUAL_ADDRESS_METRIC);
             verify(eventProbe, times(1)).counterMetric(PRE_POPULATED_ADDRESS_METRIC);
         }
 
         @Test
-        void storesMultipleManualEntryMetrics() {
-            addressService.storeAddressEntryTypeMetric(
-                    eventProbe, List.of(manualAddress, manualAddress));
+        void storesMultipleManualEntryMetrics() throws AddressProcessingException {
+            storeAddressEntryTypeMetric(List.of(manualAddress, manualAddress));
 
             verify(eventProbe, times(2)).counterMetric(MANUAL_ADDRESS_METRIC);
             verify(eventProbe, times(0)).counterMetric(PRE_POPULATED_ADDRESS_METRIC);
         }
 
         @Test
-        void storesMultiplePrePopulatedEntryMetrics() {
-            addressService.storeAddressEntryTypeMetric(
-                    eventProbe, List.of(prepopulatedAddress, prepopulatedAddress));
+        void storesMultiplePrePopulatedEntryMetrics() throws AddressProcessingException {
+            storeAddressEntryTypeMetric(List.of(prepopulatedAddress, prepopulatedAddress));
 
             verify(eventProbe, times(0)).counterMetric(MANUAL_ADDRESS_METRIC);
             verify(eventProbe, times(2)).counterMetric(PRE_POPULATED_ADDRESS_METRIC);
         }
 
         @Test
-        void storesBothManualAnaPrepopulatedEntryMetrics() {
-            addressService.storeAddressEntryTypeMetric(
-                    eventProbe, List.of(prepopulatedAddress, manualAddress));
+        void storesBothManualAnaPrepopulatedEntryMetrics() throws AddressProcessingException {
+            storeAddressEntryTypeMetric(List.of(prepopulatedAddress, manualAddress));
 
             verify(eventProbe, times(1)).counterMetric(MANUAL_ADDRESS_METRIC);
             verify(eventProbe, times(1)).counterMetric(PRE_POPULATED_ADDRESS_METRIC);
         }
 
         @Test
-        void storesNoMetricsIfAddressesEmpty() {
-            addressService.storeAddressEntryTypeMetric(eventProbe, Collections.emptyList());
+        void storesNoMetricsIfAddressesEmpty() throws AddressProcessingException {
+            storeAddressEntryTypeMetric(Collections.emptyList());
 
             verify(eventProbe, times(0)).counterMetric(MANUAL_ADDRESS_METRIC);
             verify(eventProbe, times(0)).counterMetric(PRE_POPULATED_ADDRESS_METRIC);
         }
     }
+
+    @Nested
+    @DisplayName("AddressService processes Addresses in a single pass")
+    class AddressServiceProcessAddresses {
+        private static final String CURRENT_ADDRESS =
+                """
+                {"uprn":"72262801","buildingNumber":"8","streetName":"GRANGE FIELDS WAY",\
+                "addressLocality":"LEEDS","postalCode":"LS10 4QL","addressCountry":"GB",\
+                "validFrom":"2021-01-16"}""";
+        private static final String PREVIOUS_ADDRESS =
+                """
+                {"buildingNumber":"15","streetName":"RIDINGS LANE",\
+                "addressLocality":"WAKEFIELD","postalCode":"WF3 3SE","addressCountry":"GB"}""";
+
+        @Mock private EventProbe eventProbe;
+
+        @Test
+        void shouldNormalizeLinkAndSaveCurrentAndPreviousAddresses()
+                throws AddressProcessingException {
+            ProcessedAddresses processedAddresses =
+                    addressService.processAddresses(
+                            "[" + PREVIOUS_ADDRESS + "," + CURRENT_ADDRESS + "]");
+
+            addressService.saveAddresses(SESSION_ID, processedAddresses, ADDRESS_TTL, eventProbe);
+
+            ArgumentCaptor<AddressItem> captor = ArgumentCaptor.forClass(AddressItem.class);
+            verify(mockDataStore).create(captor.capture());
+            List<CanonicalAddress> savedAddresses = captor.getValue().getAddresses();
+            assertEquals("WF33SE", savedAddresses.get(0).getPostalCode());
+            assertEquals(LocalDate.of(2021, 1, 16), savedAddresses.get(0).getValidUntil());
+            assertEquals("LS104QL", savedAddresses.get(1).getPostalCode());
+            assertNull(savedAddresses.get(1).getValidUntil());
+            assertEquals(ADDRESS_TTL, captor.getValue().getExpiryDate());
+        }
+
+        @Test
+        void shouldRecordOneDataPointPerAddress() throws AddressProcessingException {
+            ProcessedAddresses processedAddresses =
+                    addressService.processAddresses(
+                            "["
+                                    + CURRENT_ADDRESS
+                                    + ","
+                                    + PREVIOUS_ADDRESS
+                                    + ","
+                                    + PREVIOUS_ADDRESS
+                                    + "]");
+
+            addressService.storeAddressEntryTypeMetric(eventProbe, processedAddresses);
+
+            verify(eventProbe).counterMetric("pre-populated-address-entry");
+            verify(eventProbe, times(2)).counterMetric("manual-address-entry");
+            verifyNoMoreInteractions(eventProbe);
+        }
+
+        @Test
+        void shouldThrowExceptionWhenAnAddressHasNoCountryCode() {
+            String addresses =
+                    "["
+                            + CURRENT_ADDRESS
+                            + ",{\"buildingNumber\":\"15\",\"postalCode\":\"WF3 3SE\"}]";
+
+            AddressProcessingException exception =
+                    assertThrows(
+                            AddressProcessingException.class,
+                            () -> addressService.processAddresses(addresses));
+
+            assertEquals(ERROR_COUNTRY_CODE_NOT_PRESENT, exception.getMessage());
+        }
+
+        @Test
+        void shouldApplyTheSameValidityRulesAsSetAddressValidity()
+                throws AddressProcessingException {
+            ProcessedAddresses twoPrevious =
+                    addressService.processAddresses(
+                            "[" + PREVIOUS_ADDRESS + "," + PREVIOUS_ADDRESS + "]");
+            ProcessedAddresses singlePrevious =
+                    addressService.processAddresses("[" + PREVIOUS_ADDRESS + "]");
+            ProcessedAddresses threeAddresses =
+                    addressService.processAddresses(
+                            "["
+                                    + CURRENT_ADDRESS
+                                    + ","
+                                    + PREVIOUS_ADDRESS
+                                    + ","
+                                    + PREVIOUS_ADDRESS
+                                    + "]");
+
+            assertEquals(
+                    ERROR_COULD_NOT_DETERMINE_CURRENT_ADDRESS,
+                    assertThrows(
+                                    AddressProcessingException.class,
+                                    () -> addressService.linkAddressValidity(twoPrevious))
+                            .getMessage());
+            assertEquals(
+                    ERROR_SINGLE_ADDRESS_NOT_CURRENT,
+                    assertThrows(
+                                    AddressProcessingException.class,
+                                    () -> addressService.linkAddressValidity(singlePrevious))
+                            .getMessage());
+            assertEquals(
+                    ERROR_TOO_MANY_ADDRESSES,
+                    assertThrows(
+                                    AddressProcessingException.class,
+                                    () -> addressService.linkAddressValidity(threeAddresses))
+                            .getMessage());
+        }
+    }
 }
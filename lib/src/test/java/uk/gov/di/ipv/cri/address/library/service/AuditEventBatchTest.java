@@ -0,0 +1,170 @@
+package uk.gov.di.ipv.cri.address.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.domain.AuditEventContext;
+import uk.gov.di.ipv.cri.common.library.domain.AuditEventType;
+import uk.gov.di.ipv.cri.common.library.exception.SqsException;
+import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.ipv.cri.address.library.service.AuditEventBatch.AUDIT_BATCH_SEND_DURATION_METRIC;
+import static uk.gov.di.ipv.cri.address.library.service.AuditEventBatch.AUDIT_BATCH_SIZE_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class AuditEventBatchTest {
+    private static final String QUEUE_URL = "https://sqs.eu-west-2.amazonaws.com/123/audit";
+
+    @Mock private SqsClient sqsClient;
+    @Mock private AuditEventFactory auditEventFactory;
+    @Mock private AuditEventContext auditEventContext;
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldSendAllEventsInASingleBatchRequest() throws Exception {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder().build());
+        AuditEventBatch batch = createDispatcher(null).newBatch();
+
+        batch.add(AuditEventType.VC_ISSUED, auditEventContext, "extensions")
+                .add(AuditEventType.END, auditEventContext);
+        batch.send();
+
+        ArgumentCaptor<SendMessageBatchRequest> requestCaptor =
+                ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(requestCaptor.capture());
+        assertEquals(QUEUE_URL, requestCaptor.getValue().queueUrl());
+        assertEquals(2, requestCaptor.getValue().entries().size());
+        assertEquals("0", requestCaptor.getValue().entries().get(0).id());
+        assertEquals("1", requestCaptor.getValue().entries().get(1).id());
+        verify(auditEventFactory)
+                .create(AuditEventType.VC_ISSUED.toString(), auditEventContext, "extensions");
+        verify(auditEventFactory).create(AuditEventType.END.toString(), auditEventContext, null);
+        verify(eventProbe).counterMetric(AUDIT_BATCH_SIZE_METRIC, 2);
+        verify(eventProbe)
+                .counterMetric(
+                        eq(AUDIT_BATCH_SEND_DURATION_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    void shouldSplitBatchesLargerThanTheSqsLimit() throws Exception {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder().build());
+        AuditEventBatch batch = createDispatcher(null).newBatch();
+
+        for (int i = 0; i < AuditEventBatch.MAX_ENTRIES_PER_REQUEST + 1; i++) {
+            batch.add(AuditEventType.REQUEST_SENT, auditEventContext);
+        }
+        batch.send();
+
+        verify(sqsClient, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void shouldNotCallSqsForAnEmptyBatch() throws Exception {
+        createDispatcher(null).newBatch().send();
+
+        verifyNoInteractions(sqsClient, eventProbe);
+    }
+
+    @Test
+    void shouldThrowWhenAnyEntryFails() throws Exception {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(
+                        SendMessageBatchResponse.builder()
+                                .failed(
+                                        BatchResultErrorEntry.builder()
+                                                .id("0")
+                                                .code("InternalError")
+                                                .build())
+                                .build());
+        AuditEventBatch batch = createDispatcher(null).newBatch();
+        batch.add(AuditEventType.END, auditEventContext);
+
+        assertThrows(SqsException.class, batch::send);
+    }
+
+    @Test
+    void shouldWrapSqsClientFailures() throws Exception {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenThrow(SdkClientException.create("unavailable"));
+        AuditEventBatch batch = createDispatcher(null).newBatch();
+        batch.add(AuditEventType.END, auditEventContext);
+
+        assertThrows(SqsException.class, () -> batch.dispatch(() -> "response"));
+    }
+
+    @Test
+    void dispatchShouldDeliverEventsBeforeReturningInAsyncMode() throws Exception {
+        AtomicBoolean sent = new AtomicBoolean(false);
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenAnswer(
+                        invocation -> {
+                            sent.set(true);
+                            return SendMessageBatchResponse.builder().build();
+                        });
+        List<Runnable> queuedSends = new ArrayList<>();
+        Executor deferredExecutor = queuedSends::add;
+        AuditEventBatch batch = createDispatcher(deferredExecutor).newBatch();
+        batch.add(AuditEventType.END, auditEventContext);
+
+        String response =
+                batch.dispatch(
+                        () -> {
+                            // The send is queued but has not run while the response is built
+                            assertFalse(sent.get());
+                            queuedSends.forEach(Runnable::run);
+                            return "response";
+                        });
+
+        assertEquals("response", response);
+        assertTrue(sent.get());
+    }
+
+    @Test
+    void disabledDispatcherShouldNotCreateBatches() {
+        AuditEventDispatcher dispatcher = AuditEventDispatcher.disabled();
+
+        assertFalse(dispatcher.isEnabled());
+        assertThrows(IllegalStateException.class, dispatcher::newBatch);
+    }
+
+    private AuditEventDispatcher createDispatcher(Executor sendExecutor) {
+        return new AuditEventDispatcher(
+                sqsClient,
+                QUEUE_URL,
+                new ObjectMapper(),
+                auditEventFactory,
+                sendExecutor,
+                eventProbe);
+    }
+}
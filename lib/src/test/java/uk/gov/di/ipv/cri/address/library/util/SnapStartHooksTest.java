@@ -0,0 +1,96 @@
+package uk.gov.di.ipv.cri.address.library.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.lambda.powertools.metrics.model.MetricUnit;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static uk.gov.di.ipv.cri.address.library.util.SnapStartHooks.FIRST_INVOCATION_AFTER_COLD_START_METRIC;
+import static uk.gov.di.ipv.cri.address.library.util.SnapStartHooks.FIRST_INVOCATION_AFTER_RESTORE_METRIC;
+import static uk.gov.di.ipv.cri.address.library.util.SnapStartHooks.WARM_INVOCATION_METRIC;
+
+@ExtendWith(MockitoExtension.class)
+class SnapStartHooksTest {
+    @Mock private EventProbe eventProbe;
+
+    @Test
+    void shouldRunThePrimingHookBeforeCheckpointAndTheReconnectHookAfterRestore() {
+        AtomicInteger primed = new AtomicInteger();
+        AtomicInteger reconnected = new AtomicInteger();
+        SnapStartHooks hooks =
+                new SnapStartHooks(
+                        primed::incrementAndGet, reconnected::incrementAndGet, eventProbe);
+
+        hooks.beforeCheckpoint(null);
+        assertEquals(1, primed.get());
+        assertEquals(0, reconnected.get());
+
+        hooks.afterRestore(null);
+        assertEquals(1, primed.get());
+        assertEquals(1, reconnected.get());
+    }
+
+    @Test
+    void shouldNotFailTheSnapshotOrRestoreWhenAHookFails() {
+        SnapStartHooks.Hook failingHook =
+                () -> {
+                    throw new IllegalStateException("no network");
+                };
+        SnapStartHooks hooks = new SnapStartHooks(failingHook, failingHook, eventProbe);
+
+        assertDoesNotThrow(() -> hooks.beforeCheckpoint(null));
+        assertDoesNotThrow(() -> hooks.afterRestore(null));
+    }
+
+    @Test
+    void shouldReportTheFirstInvocationAfterRestoreSeparatelyFromWarmInvocations() {
+        SnapStartHooks hooks = new SnapStartHooks(() -> {}, () -> {}, eventProbe);
+        hooks.afterRestore(null);
+
+        hooks.recordInvocation(System.nanoTime());
+        hooks.recordInvocation(System.nanoTime());
+
+        InOrder inOrder = inOrder(eventProbe);
+        inOrder.verify(eventProbe)
+                .counterMetric(
+                        eq(FIRST_INVOCATION_AFTER_RESTORE_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
+        inOrder.verify(eventProbe)
+                .counterMetric(
+                        eq(WARM_INVOCATION_METRIC), anyDouble(), eq(MetricUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldReportTheFirstInvocationAsAColdStartWhenNotRestored() {
+        SnapStartHooks hooks = new SnapStartHooks(() -> {}, () -> {}, eventProbe);
+
+        hooks.recordInvocation(System.nanoTime());
+
+        verify(eventProbe)
+                .counterMetric(
+                        eq(FIRST_INVOCATION_AFTER_COLD_START_METRIC),
+                        anyDouble(),
+                        eq(MetricUnit.MILLISECONDS));
+    }
+
+    @Test
+    void disabledHooksShouldDoNothing() {
+        SnapStartHooks hooks = SnapStartHooks.disabled();
+
+        assertDoesNotThrow(() -> hooks.beforeCheckpoint(null));
+        assertDoesNotThrow(() -> hooks.afterRestore(null));
+        assertDoesNotThrow(() -> hooks.recordInvocation(System.nanoTime()));
+    }
+}
@@ -0,0 +1,153 @@
+package uk.gov.di.ipv.cri.address.runtime;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adapts an HTTP exchange into the API Gateway proxy event a handler expects and writes the
+ * handler's response back, the same translation API Gateway performs in front of the lambdas.
+ *
+ * <p>Header names are matched case-insensitively, as {@code HttpServer} normalises their case and
+ * the handlers look them up by the names clients send.
+ */
+class LambdaHttpHandler implements HttpHandler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int INTERNAL_SERVER_ERROR = 500;
+    private static final byte[] INTERNAL_SERVER_ERROR_BODY =
+            "Some error occurred".getBytes(StandardCharsets.UTF_8);
+
+    private final String functionName;
+    private final RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder totalDurationNanos = new LongAdder();
+
+    LambdaHttpHandler(
+            String functionName,
+            RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler) {
+        this.functionName = functionName;
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long startTime = System.nanoTime();
+        int statusCode = INTERNAL_SERVER_ERROR;
+        try {
+            String requestId = UUID.randomUUID().toString();
+            APIGatewayProxyResponseEvent response =
+                    handler.handleRequest(
+                            translateRequest(exchange, requestId),
+                            new LocalLambdaContext(functionName, requestId));
+            statusCode = response.getStatusCode();
+            translateResponse(response, exchange);
+        } catch (RuntimeException e) {
+            LOGGER.error("Handler {} threw an exception", functionName, e);
+            exchange.sendResponseHeaders(INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR_BODY.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(INTERNAL_SERVER_ERROR_BODY);
+            }
+        } finally {
+            requests.increment();
+            if (statusCode >= INTERNAL_SERVER_ERROR) {
+                serverErrors.increment();
+            }
+            totalDurationNanos.add(System.nanoTime() - startTime);
+            exchange.close();
+        }
+    }
+
+    String summary() {
+        long count = requests.sum();
+        double meanMillis = count == 0 ? 0 : totalDurationNanos.sum() / 1_000_000d / count;
+        return "%s: %d requests, %d server errors, %.2f ms mean"
+                .formatted(functionName, count, serverErrors.sum(), meanMillis);
+    }
+
+    private static APIGatewayProxyRequestEvent translateRequest(
+            HttpExchange exchange, String requestId) throws IOException {
+        String body;
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            body = new String(requestBody.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        return new APIGatewayProxyRequestEvent()
+                .withBody(body)
+                .withHeaders(getHeaders(exchange.getRequestHeaders()))
+                .withHttpMethod(exchange.getRequestMethod())
+                .withPath(exchange.getRequestURI().getPath())
+                .withQueryStringParameters(
+                        getQueryStringParameters(exchange.getRequestURI().getRawQuery()))
+                .withRequestContext(
+                        new APIGatewayProxyRequestEvent.ProxyRequestContext()
+                                .withRequestId(requestId));
+    }
+
+    private static Map<String, String> getHeaders(Headers headers) {
+        Map<String, String> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.forEach((name, values) -> headerMap.put(name, String.join(", ", values)));
+        return headerMap;
+    }
+
+    private static Map<String, String> getQueryStringParameters(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(
+                    URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void translateResponse(
+            APIGatewayProxyResponseEvent response, HttpExchange exchange) throws IOException {
+        if (response.getHeaders() != null) {
+            response.getHeaders().forEach(exchange.getResponseHeaders()::set);
+        }
+
+        byte[] body = getBody(response);
+        if (body.length == 0) {
+            exchange.sendResponseHeaders(response.getStatusCode(), -1);
+            return;
+        }
+        exchange.sendResponseHeaders(response.getStatusCode(), body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private static byte[] getBody(APIGatewayProxyResponseEvent response) {
+        if (response.getBody() == null) {
+            return new byte[0];
+        }
+        if (Boolean.TRUE.equals(response.getIsBase64Encoded())) {
+            return Base64.getDecoder().decode(response.getBody());
+        }
+        return response.getBody().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+package uk.gov.di.ipv.cri.address.runtime;
+
+import software.amazon.awssdk.services.ssm.model.SsmException;
+import software.amazon.lambda.powertools.parameters.secrets.SecretsProvider;
+import software.amazon.lambda.powertools.parameters.ssm.SSMProvider;
+import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A {@link ConfigurationService} answering from a fixed set of parameters and secrets instead of
+ * SSM and Secrets Manager. Unknown parameters throw {@link SsmException} as a missing SSM
+ * parameter does, so an unsupported client id fails the same way it would when deployed.
+ */
+final class LocalConfiguration extends ConfigurationService {
+    static final String VERIFIABLE_CREDENTIAL_ISSUER = "https://address-cri.local";
+    static final String KMS_SIGNING_KEY_ID = "local-signing-key";
+    private static final long MAX_JWT_TTL = 10L;
+    private static final Duration EXPIRY = Duration.ofHours(1);
+
+    private final Map<String, String> parameters;
+
+    private LocalConfiguration(Map<String, String> parameters) {
+        // Every lookup is answered from the map, so the providers are never called
+        super((SSMProvider) null, (SecretsProvider) null);
+        this.parameters = Map.copyOf(parameters);
+    }
+
+    static ConfigurationService create(Map<String, String> parameters) {
+        return new LocalConfiguration(parameters);
+    }
+
+    @Override
+    public String getParameterValue(String parameterName) {
+        return getParameter(parameterName);
+    }
+
+    @Override
+    public String getParameterValueByAbsoluteName(String parameterName) {
+        return getParameter(parameterName);
+    }
+
+    @Override
+    public String getSecretValue(String secretName) {
+        return getParameter(secretName);
+    }
+
+    @Override
+    public String getVerifiableCredentialIssuer() {
+        return VERIFIABLE_CREDENTIAL_ISSUER;
+    }
+
+    @Override
+    public String getVerifiableCredentialKmsSigningKeyId() {
+        return KMS_SIGNING_KEY_ID;
+    }
+
+    @Override
+    public long getMaxJwtTtl() {
+        return MAX_JWT_TTL;
+    }
+
+    @Override
+    public long getSessionExpirationEpoch() {
+        return expirationEpoch();
+    }
+
+    @Override
+    public long getAuthorizationCodeExpirationEpoch() {
+        return expirationEpoch();
+    }
+
+    private static long expirationEpoch() {
+        return Instant.now().plus(EXPIRY).getEpochSecond();
+    }
+
+    private String getParameter(String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw SsmException.builder().message("Parameter " + name + " not found").build();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,311 @@
+package uk.gov.di.ipv.cri.address.runtime;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import uk.gov.di.ipv.cri.address.api.handler.AddressHandler;
+import uk.gov.di.ipv.cri.address.api.handler.IssueCredentialHandler;
+import uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler;
+import uk.gov.di.ipv.cri.address.api.http.ResponseCaching;
+import uk.gov.di.ipv.cri.address.api.http.ResponseCompression;
+import uk.gov.di.ipv.cri.address.api.service.PostcodeLookupOptions;
+import uk.gov.di.ipv.cri.address.api.service.PostcodeLookupService;
+import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialService;
+import uk.gov.di.ipv.cri.address.api.service.VerifiableCredentialSignatureVerifier;
+import uk.gov.di.ipv.cri.address.library.persistence.item.PostcodeCacheItem;
+import uk.gov.di.ipv.cri.address.library.service.AddressService;
+import uk.gov.di.ipv.cri.address.library.service.AuditEventDispatcher;
+import uk.gov.di.ipv.cri.address.runtime.aws.InMemoryDynamoDbClient;
+import uk.gov.di.ipv.cri.address.runtime.aws.InMemorySqsClient;
+import uk.gov.di.ipv.cri.address.runtime.aws.LocalKmsClient;
+import uk.gov.di.ipv.cri.address.runtime.ordnancesurvey.OrdnanceSurveyStubServer;
+import uk.gov.di.ipv.cri.common.library.persistence.DataStore;
+import uk.gov.di.ipv.cri.common.library.persistence.item.CanonicalAddress;
+import uk.gov.di.ipv.cri.common.library.persistence.item.SessionItem;
+import uk.gov.di.ipv.cri.common.library.service.AuditEventFactory;
+import uk.gov.di.ipv.cri.common.library.service.AuditService;
+import uk.gov.di.ipv.cri.common.library.service.ConfigurationService;
+import uk.gov.di.ipv.cri.common.library.service.SessionService;
+import uk.gov.di.ipv.cri.common.library.util.EventProbe;
+import uk.gov.di.ipv.cri.common.library.util.KMSSigner;
+import uk.gov.di.ipv.cri.common.library.util.SignedJWTFactory;
+import uk.gov.di.ipv.cri.common.library.util.VerifiableCredentialClaimsSetBuilder;
+import uk.gov.di.ipv.cri.common.library.util.deserializers.PiiRedactingDeserializer;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+import static uk.gov.di.ipv.cri.address.api.handler.PostcodeLookupHandler.CONNECTION_TIMEOUT_SECONDS;
+import static uk.gov.di.ipv.cri.address.api.objectmapper.CustomObjectMapper.getMapperWithCustomSerializers;
+
+/**
+ * Runs the address, postcode lookup and issue credential handlers behind a local HTTP server, one
+ * virtual thread per request, so load can be driven against the real request handling code
+ * without deploying. DynamoDB, SQS, KMS, SSM and Ordnance Survey are replaced by in-process
+ * stand-ins, and a set of sessions is seeded at startup and written out for the load generator.
+ *
+ * <p>Every {@link OrdnanceSurveyStubServer} profile is also a client id: a session seeded for
+ * client {@code flaky} looks postcodes up against the {@code flaky} profile. The default client,
+ * {@value #DEFAULT_CLIENT_ID}, uses the profile named by {@code LOCAL_OS_PROFILE}.
+ *
+ * <p>The handlers are built through the same constructors their tests use, so SnapStart priming
+ * is skipped, and the remaining configuration is read from the same environment variables as
+ * when deployed.
+ */
+public class LocalRuntime {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    static final String DEFAULT_CLIENT_ID = "ipv-core-stub";
+    private static final String CLIENT_ID = getEnv("LOCAL_RUNTIME_CLIENT_ID", DEFAULT_CLIENT_ID);
+    private static final int PORT = getIntEnv("LOCAL_RUNTIME_PORT", 8080);
+    private static final int BACKLOG = getIntEnv("LOCAL_RUNTIME_BACKLOG", 1024);
+    private static final int SESSION_COUNT = getIntEnv("LOCAL_RUNTIME_SESSIONS", 1000);
+    private static final Path SESSIONS_FILE =
+            Path.of(getEnv("LOCAL_RUNTIME_SESSIONS_FILE", "build/sessions.csv"));
+    private static final int OS_PORT = getIntEnv("LOCAL_OS_PORT", 0);
+    private static final String OS_PROFILE = getEnv("LOCAL_OS_PROFILE", "healthy");
+
+    private static final String SESSION_TABLE_NAME = getEnv("SESSION_TABLE", "session-local");
+    private static final String ADDRESS_TABLE_NAME =
+            getEnv("ADDRESS_TABLE", "address-address-cri-api-v1");
+    private static final String POSTCODE_CACHE_TABLE_NAME = System.getenv("POSTCODE_CACHE_TABLE");
+
+    private final InMemoryDynamoDbClient dynamoDbClient = new InMemoryDynamoDbClient();
+    private final DynamoDbEnhancedClient enhancedClient =
+            DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build();
+    private final InMemorySqsClient sqsClient = new InMemorySqsClient();
+    private final LocalKmsClient kmsClient = new LocalKmsClient();
+    private final EventProbe eventProbe = new EventProbe();
+    private final OrdnanceSurveyStubServer ordnanceSurveyServer;
+    private final ConfigurationService configurationService;
+    private final HttpServer server;
+    private final List<LambdaHttpHandler> handlers;
+
+    LocalRuntime() throws IOException {
+        dynamoDbClient.createTable(SESSION_TABLE_NAME, "sessionId");
+        dynamoDbClient.createTable(ADDRESS_TABLE_NAME, "sessionId");
+        if (POSTCODE_CACHE_TABLE_NAME != null) {
+            dynamoDbClient.createTable(POSTCODE_CACHE_TABLE_NAME, "postcodeHash");
+        }
+
+        this.ordnanceSurveyServer = new OrdnanceSurveyStubServer(OS_PORT);
+        this.configurationService = LocalConfiguration.create(createParameters());
+
+        this.server = HttpServer.create(new InetSocketAddress(PORT), BACKLOG);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.handlers =
+                List.of(
+                        route("/address", "address", createAddressHandler()),
+                        route("/postcode-lookup", "postcode-lookup", createPostcodeLookupHandler()),
+                        route(
+                                "/credential/issue",
+                                "issuecredential",
+                                createIssueCredentialHandler()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        LocalRuntime runtime = new LocalRuntime();
+        runtime.seedSessions();
+        runtime.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(runtime::stop));
+    }
+
+    void start() {
+        ordnanceSurveyServer.start();
+        server.start();
+        LOGGER.info(
+                "Serving /address, /postcode-lookup and /credential/issue on port {} for client {}",
+                server.getAddress().getPort(),
+                CLIENT_ID);
+    }
+
+    // Runs from a shutdown hook, after which log4j may already have stopped
+    void stop() {
+        server.stop(0);
+        ordnanceSurveyServer.stop();
+        handlers.forEach(handler -> System.out.println(handler.summary()));
+        System.out.println(ordnanceSurveyServer.summary());
+        System.out.println(sqsClient.getMessagesSent() + " audit events sent");
+    }
+
+    // Each row is a session id and the access token to send as "Authorization: Bearer <token>"
+    // once an address has been saved against that session
+    void seedSessions() throws IOException {
+        DynamoDbTable<SessionItem> sessionTable =
+                enhancedClient.table(SESSION_TABLE_NAME, TableSchema.fromBean(SessionItem.class));
+        long expiry = Instant.now().plus(1, ChronoUnit.DAYS).getEpochSecond();
+
+        Files.createDirectories(SESSIONS_FILE.toAbsolutePath().getParent());
+        try (PrintWriter writer =
+                new PrintWriter(Files.newBufferedWriter(SESSIONS_FILE, StandardCharsets.UTF_8))) {
+            writer.println("session_id,access_token");
+            for (int i = 0; i < SESSION_COUNT; i++) {
+                UUID sessionId = UUID.randomUUID();
+                String accessToken = UUID.randomUUID().toString();
+
+                SessionItem sessionItem = new SessionItem();
+                sessionItem.setSessionId(sessionId);
+                sessionItem.setClientId(CLIENT_ID);
+                sessionItem.setSubject("urn:fdc:gov.uk:2022:" + sessionId);
+                sessionItem.setAccessToken("Bearer " + accessToken);
+                sessionItem.setExpiryDate(expiry);
+                sessionItem.setAccessTokenExpiryDate(expiry);
+                sessionTable.putItem(sessionItem);
+
+                writer.println(sessionId + "," + accessToken);
+            }
+        }
+        LOGGER.info("Seeded {} sessions into {}", SESSION_COUNT, SESSIONS_FILE.toAbsolutePath());
+    }
+
+    private Map<String, String> createParameters() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("SessionTableName", SESSION_TABLE_NAME);
+        parameters.put("OrdnanceSurveyAPIKey", "local-api-key");
+        for (String profile : ordnanceSurveyServer.getProfileNames()) {
+            parameters.put(
+                    "OrdnanceSurveyAPIUrl/" + profile,
+                    ordnanceSurveyServer.getPostcodeUri(profile).toString());
+        }
+        parameters.put(
+                "OrdnanceSurveyAPIUrl/" + DEFAULT_CLIENT_ID,
+                ordnanceSurveyServer.getPostcodeUri(OS_PROFILE).toString());
+        return parameters;
+    }
+
+    private LambdaHttpHandler route(
+            String path,
+            String functionName,
+            RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler) {
+        LambdaHttpHandler httpHandler = new LambdaHttpHandler(functionName, handler);
+        server.createContext(path, httpHandler);
+        return httpHandler;
+    }
+
+    private AddressHandler createAddressHandler() {
+        ObjectMapper objectMapper =
+                createObjectMapper()
+                        .registerModule(
+                                new SimpleModule()
+                                        .addDeserializer(
+                                                CanonicalAddress.class,
+                                                new PiiRedactingDeserializer<>(
+                                                        CanonicalAddress.class)));
+
+        return new AddressHandler(
+                new SessionService(configurationService, enhancedClient),
+                new AddressService(objectMapper, enhancedClient),
+                eventProbe,
+                configurationService);
+    }
+
+    private PostcodeLookupHandler createPostcodeLookupHandler() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, String> environment = System.getenv();
+        HttpClient httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofSeconds(CONNECTION_TIMEOUT_SECONDS))
+                        .build();
+        PostcodeLookupService postcodeLookupService =
+                new PostcodeLookupService(
+                        configurationService,
+                        httpClient,
+                        LogManager.getLogger(PostcodeLookupService.class),
+                        eventProbe,
+                        objectMapper,
+                        PostcodeLookupOptions.fromEnvironment(
+                                        environment,
+                                        configurationService,
+                                        eventProbe,
+                                        tableName ->
+                                                new DataStore<>(
+                                                        tableName,
+                                                        PostcodeCacheItem.class,
+                                                        enhancedClient),
+                                        Executors.newVirtualThreadPerTaskExecutor())
+                                .build());
+
+        AuditEventFactory auditEventFactory =
+                new AuditEventFactory(configurationService, Clock.systemUTC());
+        return new PostcodeLookupHandler(
+                postcodeLookupService,
+                new SessionService(configurationService, enhancedClient),
+                eventProbe,
+                new AuditService(sqsClient, configurationService, objectMapper, auditEventFactory),
+                AuditEventDispatcher.fromEnvironment(
+                        environment, sqsClient, objectMapper, auditEventFactory, eventProbe),
+                ResponseCaching.fromEnvironment(environment, eventProbe),
+                ResponseCompression.fromEnvironment(environment, eventProbe));
+    }
+
+    private IssueCredentialHandler createIssueCredentialHandler() {
+        ObjectMapper objectMapper = createObjectMapper();
+        Map<String, String> environment = System.getenv();
+        KMSSigner kmsSigner = new KMSSigner(LocalConfiguration.KMS_SIGNING_KEY_ID, kmsClient);
+
+        VerifiableCredentialService verifiableCredentialService =
+                new VerifiableCredentialService(
+                        new SignedJWTFactory(kmsSigner),
+                        configurationService,
+                        getMapperWithCustomSerializers(),
+                        new VerifiableCredentialClaimsSetBuilder(
+                                configurationService, Clock.systemUTC()),
+                        VerifiableCredentialSignatureVerifier.fromEnvironment(
+                                environment,
+                                kmsClient,
+                                LocalConfiguration.KMS_SIGNING_KEY_ID,
+                                eventProbe),
+                        eventProbe);
+
+        AuditEventFactory auditEventFactory =
+                new AuditEventFactory(configurationService, Clock.systemUTC());
+        return new IssueCredentialHandler(
+                verifiableCredentialService,
+                new AddressService(objectMapper, enhancedClient),
+                new SessionService(configurationService, enhancedClient),
+                eventProbe,
+                new AuditService(sqsClient, configurationService, objectMapper, auditEventFactory),
+                AuditEventDispatcher.fromEnvironment(
+                        environment, sqsClient, objectMapper, auditEventFactory, eventProbe));
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new Jdk8Module())
+                .registerModule(new JavaTimeModule());
+    }
+
+    private static String getEnv(String name, String defaultValue) {
+        return Optional.ofNullable(System.getenv(name)).orElse(defaultValue);
+    }
+
+    private static int getIntEnv(String name, int defaultValue) {
+        return Integer.parseInt(getEnv(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,218 @@
+package uk.gov.di.ipv.cri.address.runtime.aws;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link DynamoDbClient} backed by maps, covering the single item reads and writes, updates and
+ * equality queries the enhanced client issues for the session, address and postcode cache tables.
+ *
+ * <p>Tables are keyed on a single partition key and must be created up front. Update expressions
+ * support {@code SET} and {@code REMOVE}; condition expressions are not evaluated. Queries on an
+ * index scan the whole table, which is fine for the few thousand items a local run seeds.
+ */
+public class InMemoryDynamoDbClient implements DynamoDbClient {
+    private static final Pattern CLAUSE_KEYWORD = Pattern.compile("\\b(SET|REMOVE|ADD|DELETE)\\s");
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    public void createTable(String tableName, String partitionKey) {
+        tables.put(tableName, new Table(partitionKey, new ConcurrentHashMap<>()));
+    }
+
+    public int itemCount(String tableName) {
+        return getTable(tableName).items.size();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        Table table = getTable(request.tableName());
+        Map<String, AttributeValue> item = table.items.get(table.keyOf(request.key()));
+
+        return GetItemResponse.builder().item(item).build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        Table table = getTable(request.tableName());
+        Map<String, AttributeValue> item = Map.copyOf(request.item());
+        Map<String, AttributeValue> previous = table.items.put(table.keyOf(item), item);
+
+        PutItemResponse.Builder response = PutItemResponse.builder();
+        if (request.returnValues() == ReturnValue.ALL_OLD && previous != null) {
+            response.attributes(previous);
+        }
+        return response.build();
+    }
+
+    @Override
+    public UpdateItemResponse updateItem(UpdateItemRequest request) {
+        Table table = getTable(request.tableName());
+        AttributeValue key = table.keyOf(request.key());
+
+        Map<String, AttributeValue> updated =
+                table.items.compute(
+                        key,
+                        (ignored, existing) -> {
+                            Map<String, AttributeValue> item =
+                                    new HashMap<>(existing == null ? request.key() : existing);
+                            applyUpdateExpression(item, request);
+                            return Map.copyOf(item);
+                        });
+
+        UpdateItemResponse.Builder response = UpdateItemResponse.builder();
+        if (request.returnValues() == ReturnValue.ALL_NEW) {
+            response.attributes(updated);
+        }
+        return response.build();
+    }
+
+    @Override
+    public DeleteItemResponse deleteItem(DeleteItemRequest request) {
+        Table table = getTable(request.tableName());
+        Map<String, AttributeValue> previous = table.items.remove(table.keyOf(request.key()));
+
+        DeleteItemResponse.Builder response = DeleteItemResponse.builder();
+        if (request.returnValues() == ReturnValue.ALL_OLD && previous != null) {
+            response.attributes(previous);
+        }
+        return response.build();
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        Table table = getTable(request.tableName());
+        Map<String, AttributeValue> conditions = new HashMap<>();
+        for (String condition : AND.split(request.keyConditionExpression().trim())) {
+            String[] operands = condition.split("=");
+            if (operands.length != 2) {
+                throw new UnsupportedOperationException(
+                        "Only equality key conditions are supported: " + condition);
+            }
+            conditions.put(
+                    resolveName(operands[0], request.expressionAttributeNames()),
+                    resolveValue(operands[1], request.expressionAttributeValues()));
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (Map<String, AttributeValue> item : table.items.values()) {
+            if (matches(item, conditions)) {
+                items.add(item);
+            }
+        }
+
+        return QueryResponse.builder().items(items).count(items.size()).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    private Table getTable(String tableName) {
+        Table table = tables.get(tableName);
+        if (table == null) {
+            throw ResourceNotFoundException.builder()
+                    .message("Requested resource not found: Table: " + tableName + " not found")
+                    .build();
+        }
+        return table;
+    }
+
+    private static boolean matches(
+            Map<String, AttributeValue> item, Map<String, AttributeValue> conditions) {
+        for (Map.Entry<String, AttributeValue> condition : conditions.entrySet()) {
+            if (!condition.getValue().equals(item.get(condition.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void applyUpdateExpression(
+            Map<String, AttributeValue> item, UpdateItemRequest request) {
+        String expression = request.updateExpression();
+        if (expression == null) {
+            return;
+        }
+
+        Matcher matcher = CLAUSE_KEYWORD.matcher(expression);
+        List<int[]> clauses = new ArrayList<>();
+        while (matcher.find()) {
+            clauses.add(new int[] {matcher.start(), matcher.end()});
+        }
+        for (int i = 0; i < clauses.size(); i++) {
+            String keyword = expression.substring(clauses.get(i)[0], clauses.get(i)[1]).trim();
+            int end = i + 1 < clauses.size() ? clauses.get(i + 1)[0] : expression.length();
+            String[] actions = expression.substring(clauses.get(i)[1], end).split(",");
+
+            for (String action : actions) {
+                switch (keyword) {
+                    case "SET" -> {
+                        String[] operands = action.split("=");
+                        item.put(
+                                resolveName(operands[0], request.expressionAttributeNames()),
+                                resolveValue(operands[1], request.expressionAttributeValues()));
+                    }
+                    case "REMOVE" ->
+                            item.remove(resolveName(action, request.expressionAttributeNames()));
+                    default ->
+                            throw new UnsupportedOperationException(
+                                    "Unsupported update expression clause: " + keyword);
+                }
+            }
+        }
+    }
+
+    private static String resolveName(String path, Map<String, String> names) {
+        String name = path.trim();
+        return name.startsWith("#") ? names.get(name) : name;
+    }
+
+    private static AttributeValue resolveValue(String operand, Map<String, AttributeValue> values) {
+        String placeholder = operand.trim();
+        AttributeValue value = values.get(placeholder);
+        if (value == null) {
+            throw new UnsupportedOperationException(
+                    "Only expression attribute values are supported: " + placeholder);
+        }
+        return value;
+    }
+
+    private record Table(
+            String partitionKey, Map<AttributeValue, Map<String, AttributeValue>> items) {
+        private AttributeValue keyOf(Map<String, AttributeValue> item) {
+            AttributeValue key = item.get(partitionKey);
+            if (key == null) {
+                throw new IllegalArgumentException("Missing partition key " + partitionKey);
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package uk.gov.di.ipv.cri.address.runtime.aws;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link SqsClient} that accepts audit events and counts them instead of sending them, so the
+ * audit path runs in full without a queue.
+ */
+public class InMemorySqsClient implements SqsClient {
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    @Override
+    public SendMessageResponse sendMessage(SendMessageRequest request) {
+        messagesSent.incrementAndGet();
+        return SendMessageResponse.builder().messageId(UUID.randomUUID().toString()).build();
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+        messagesSent.addAndGet(request.entries().size());
+        List<SendMessageBatchResultEntry> results =
+                request.entries().stream()
+                        .map(
+                                entry ->
+                                        SendMessageBatchResultEntry.builder()
+                                                .id(entry.id())
+                                                .messageId(UUID.randomUUID().toString())
+                                                .build())
+                        .toList();
+
+        return SendMessageBatchResponse.builder().successful(results).build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.di.ipv.cri.address.runtime.aws;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.GetPublicKeyRequest;
+import software.amazon.awssdk.services.kms.model.GetPublicKeyResponse;
+import software.amazon.awssdk.services.kms.model.KeySpec;
+import software.amazon.awssdk.services.kms.model.KeyUsageType;
+import software.amazon.awssdk.services.kms.model.KmsInternalException;
+import software.amazon.awssdk.services.kms.model.MessageType;
+import software.amazon.awssdk.services.kms.model.SignRequest;
+import software.amazon.awssdk.services.kms.model.SignResponse;
+import software.amazon.awssdk.services.kms.model.SigningAlgorithmSpec;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * A {@link KmsClient} holding a single in-process P-256 key, signing the way KMS does for {@code
+ * ECDSA_SHA_256}: DER encoded signatures over either a SHA-256 digest or the raw message. The
+ * public key is returned X.509 encoded, as {@code GetPublicKey} does.
+ */
+public class LocalKmsClient implements KmsClient {
+    private final KeyPair keyPair;
+
+    public LocalKmsClient() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            this.keyPair = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate the local signing key", e);
+        }
+    }
+
+    @Override
+    public SignResponse sign(SignRequest request) {
+        String algorithm =
+                request.messageType() == MessageType.DIGEST ? "NONEwithECDSA" : "SHA256withECDSA";
+        try {
+            Signature signature = Signature.getInstance(algorithm);
+            signature.initSign(keyPair.getPrivate());
+            signature.update(request.message().asByteArray());
+
+            return SignResponse.builder()
+                    .keyId(request.keyId())
+                    .signingAlgorithm(SigningAlgorithmSpec.ECDSA_SHA_256)
+                    .signature(SdkBytes.fromByteArray(signature.sign()))
+                    .build();
+        } catch (GeneralSecurityException e) {
+            throw KmsInternalException.builder().message(e.getMessage()).cause(e).build();
+        }
+    }
+
+    @Override
+    public GetPublicKeyResponse getPublicKey(GetPublicKeyRequest request) {
+        return GetPublicKeyResponse.builder()
+                .keyId(request.keyId())
+                .keySpec(KeySpec.ECC_NIST_P256)
+                .keyUsage(KeyUsageType.SIGN_VERIFY)
+                .signingAlgorithms(SigningAlgorithmSpec.ECDSA_SHA_256)
+                .publicKey(SdkBytes.fromByteArray(keyPair.getPublic().getEncoded()))
+                .build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
@@ -0,0 +1,58 @@
+package uk.gov.di.ipv.cri.address.runtime.ordnancesurvey;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * How long the stub waits before answering. Written in profiles as {@code fixed:<ms>}, {@code
+ * uniform:<min ms>:<max ms>} or {@code lognormal:<median ms>:<p99 ms>}; the log-normal form gives
+ * the long right tail real upstream latencies have.
+ */
+@FunctionalInterface
+interface LatencyDistribution {
+    // The 99th percentile of the standard normal distribution
+    double Z_99 = 2.3263478740408408;
+    Duration MAX_LATENCY = Duration.ofMinutes(1);
+
+    Duration next(RandomGenerator random);
+
+    static LatencyDistribution parse(String specification) {
+        String[] parts = specification.trim().split(":");
+        try {
+            return switch (parts[0]) {
+                case "fixed" -> fixed(Long.parseLong(parts[1]));
+                case "uniform" -> uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "lognormal" -> logNormal(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                default ->
+                        throw new IllegalArgumentException(
+                                "Unknown latency distribution: " + specification);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + specification, e);
+        }
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        Duration latency = Duration.ofMillis(millis);
+        return random -> latency;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("Maximum latency is below the minimum");
+        }
+        return random -> Duration.ofMillis(random.nextLong(minMillis, maxMillis + 1));
+    }
+
+    static LatencyDistribution logNormal(long medianMillis, long p99Millis) {
+        if (medianMillis <= 0 || p99Millis < medianMillis) {
+            throw new IllegalArgumentException("Median must be positive and no more than the p99");
+        }
+        double mu = Math.log(medianMillis);
+        double sigma = Math.log((double) p99Millis / medianMillis) / Z_99;
+        return random -> {
+            long millis = Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            return Duration.ofMillis(Math.min(millis, MAX_LATENCY.toMillis()));
+        };
+    }
+}
@@ -0,0 +1,240 @@
+package uk.gov.di.ipv.cri.address.runtime.ordnancesurvey;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * A local stand-in for the OS Places postcode API. Each {@link StubProfile} is served under its
+ * own path, {@code /<profile>/search/places/v1/postcode}, so pointing a client's {@code
+ * OrdnanceSurveyAPIUrl/<clientId>} parameter at a profile decides how lookups for that client
+ * behave: how slow they are, how often OS errors or rate limits, whether bodies arrive slowly and
+ * whether connections are dropped.
+ *
+ * <p>Profiles come from {@code ordnance-survey-stub.properties} on the classpath, or from the file
+ * named by {@code LOCAL_OS_PROFILES_FILE}.
+ */
+public class OrdnanceSurveyStubServer {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String POSTCODE_PATH = "/search/places/v1/postcode";
+    private static final String POSTCODE_PARAMETER = "postcode=";
+    private static final String PROFILES_RESOURCE = "/ordnance-survey-stub.properties";
+    private static final int SLOW_DRIP_CHUNKS = 20;
+
+    private final HttpServer server;
+    private final Map<String, StubProfile> profiles;
+    private final PostcodeResponseGenerator responseGenerator;
+    private final Map<String, Map<StubOutcome, LongAdder>> outcomeCounts = new TreeMap<>();
+
+    public OrdnanceSurveyStubServer(int port) throws IOException {
+        this(port, loadProfiles(), new ObjectMapper());
+    }
+
+    OrdnanceSurveyStubServer(int port, Map<String, StubProfile> profiles, ObjectMapper objectMapper)
+            throws IOException {
+        this.profiles = profiles;
+        this.responseGenerator = new PostcodeResponseGenerator(objectMapper);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        profiles.forEach(
+                (name, profile) -> {
+                    Map<StubOutcome, LongAdder> counts = new EnumMap<>(StubOutcome.class);
+                    for (StubOutcome outcome : StubOutcome.values()) {
+                        counts.put(outcome, new LongAdder());
+                    }
+                    outcomeCounts.put(name, counts);
+                    server.createContext(
+                            "/" + name + POSTCODE_PATH, exchange -> handle(profile, exchange));
+                });
+    }
+
+    public static void main(String[] args) throws IOException {
+        OrdnanceSurveyStubServer stubServer =
+                new OrdnanceSurveyStubServer(
+                        Integer.parseInt(
+                                Optional.ofNullable(System.getenv("LOCAL_OS_PORT"))
+                                        .orElse("8090")));
+        stubServer.start();
+        stubServer
+                .getProfileNames()
+                .forEach(
+                        name ->
+                                LOGGER.info(
+                                        "Profile {} at {}", name, stubServer.getPostcodeUri(name)));
+        Runtime.getRuntime()
+                .addShutdownHook(
+                        new Thread(
+                                () -> {
+                                    stubServer.stop();
+                                    System.out.println(stubServer.summary());
+                                }));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public Set<String> getProfileNames() {
+        return profiles.keySet();
+    }
+
+    public URI getPostcodeUri(String profile) {
+        if (!profiles.containsKey(profile)) {
+            throw new IllegalArgumentException("Unknown Ordnance Survey stub profile: " + profile);
+        }
+        return URI.create(
+                "http://localhost:%d/%s%s"
+                        .formatted(server.getAddress().getPort(), profile, POSTCODE_PATH));
+    }
+
+    /** How many requests each profile has answered with each outcome. */
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Ordnance Survey stub outcomes:");
+        outcomeCounts.forEach(
+                (profile, counts) -> {
+                    summary.append(System.lineSeparator()).append("  ").append(profile);
+                    counts.forEach(
+                            (outcome, count) ->
+                                    summary.append(' ')
+                                            .append(outcome.getPropertyName())
+                                            .append('=')
+                                            .append(count.sum()));
+                });
+        return summary.toString();
+    }
+
+    private void handle(StubProfile profile, HttpExchange exchange) throws IOException {
+        try {
+            RandomGenerator random = ThreadLocalRandom.current();
+            sleep(profile.latency().next(random));
+
+            String postcode = getPostcode(exchange.getRequestURI().getRawQuery());
+            StubOutcome outcome = profile.nextOutcome(random);
+            if (outcome == StubOutcome.OK && postcode.isEmpty()) {
+                outcome = StubOutcome.BAD_REQUEST;
+            }
+            outcomeCounts.get(profile.name()).get(outcome).increment();
+
+            switch (outcome) {
+                case CONNECTION_RESET -> {
+                    // Closing before the response headers are sent drops the connection
+                }
+                case OK -> {
+                    byte[] body = responseGenerator.createResponse(postcode, profile.maxResults());
+                    if (profile.shouldSlowDrip(random)) {
+                        slowDrip(exchange, body, profile.slowDripDuration());
+                    } else {
+                        send(exchange, outcome.getStatusCode(), body);
+                    }
+                }
+                default ->
+                        send(
+                                exchange,
+                                outcome.getStatusCode(),
+                                outcome.createErrorBody(postcode)
+                                        .getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static Map<String, StubProfile> loadProfiles() throws IOException {
+        Properties properties = new Properties();
+        String profilesFile = System.getenv("LOCAL_OS_PROFILES_FILE");
+        if (profilesFile != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(profilesFile))) {
+                properties.load(reader);
+            }
+        } else {
+            try (InputStream resource =
+                    OrdnanceSurveyStubServer.class.getResourceAsStream(PROFILES_RESOURCE)) {
+                properties.load(resource);
+            }
+        }
+        return StubProfile.load(properties);
+    }
+
+    // Keeps only the characters a postcode can contain, so the value is safe to echo into JSON
+    private static String getPostcode(String query) {
+        if (query == null) {
+            return "";
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(POSTCODE_PARAMETER)) {
+                String postcode = pair.substring(POSTCODE_PARAMETER.length());
+                return URLDecoder.decode(postcode, StandardCharsets.UTF_8)
+                        .toUpperCase(Locale.ROOT)
+                        .replaceAll("[^A-Z0-9 ]", "")
+                        .trim();
+            }
+        }
+        return "";
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    // The full length is declared up front and the body then trickles out over the duration
+    private static void slowDrip(HttpExchange exchange, byte[] body, Duration duration)
+            throws IOException {
+        int chunkSize = Math.max(1, body.length / SLOW_DRIP_CHUNKS);
+        Duration pause = duration.dividedBy(SLOW_DRIP_CHUNKS);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(StubOutcome.OK.getStatusCode(), body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            for (int offset = 0; offset < body.length; offset += chunkSize) {
+                responseBody.write(body, offset, Math.min(chunkSize, body.length - offset));
+                responseBody.flush();
+                sleep(pause);
+            }
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
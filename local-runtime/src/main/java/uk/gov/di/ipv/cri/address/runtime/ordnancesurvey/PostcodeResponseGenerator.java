@@ -0,0 +1,153 @@
+package uk.gov.di.ipv.cri.address.runtime.ordnancesurvey;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates OS Places postcode responses with the fields and shape of the real API. The postcode
+ * seeds the generator, so a postcode always gets the same addresses, and generated bodies are
+ * kept so repeat lookups cost the stub nothing.
+ */
+class PostcodeResponseGenerator {
+    private static final int MAX_CACHED_RESPONSES = 10_000;
+    private static final String[] STREETS = {
+        "HADLEY ROAD", "GRANGE FIELDS WAY", "BAKER STREET", "BURNS CRESCENT", "STATION ROAD",
+        "CHURCH LANE", "MILL STREET", "VICTORIA ROAD", "THE AVENUE", "PARK VIEW"
+    };
+    private static final String[] TOWNS = {
+        "BATH", "LEEDS", "LONDON", "EDINBURGH", "CARDIFF", "BELFAST", "NORWICH", "YORK"
+    };
+    private static final String[] BUILDING_NAMES = {
+        "THE LODGE", "ROSE COTTAGE", "OAK HOUSE", "THE OLD VICARAGE", "MILLBROOK COURT"
+    };
+    private static final String[] ORGANISATIONS = {
+        "THE CORNER SHOP", "VILLAGE SURGERY", "ST MARY'S PRIMARY SCHOOL", "THE RED LION"
+    };
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+
+    PostcodeResponseGenerator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    byte[] createResponse(String postcode, int maxResults) throws JsonProcessingException {
+        String key = maxResults + ":" + postcode;
+        byte[] response = responses.get(key);
+        if (response == null) {
+            response = objectMapper.writeValueAsBytes(generate(postcode, maxResults));
+            if (responses.size() < MAX_CACHED_RESPONSES) {
+                responses.put(key, response);
+            }
+        }
+        return response;
+    }
+
+    private static Map<String, Object> generate(String postcode, int maxResults) {
+        Random random = new Random(postcode.hashCode());
+        int resultCount = 1 + random.nextInt(maxResults);
+        String street = pick(random, STREETS);
+        String town = pick(random, TOWNS);
+        long baseUprn = 100_000_000_000L + random.nextInt(900_000_000);
+        double easting = 100_000 + random.nextInt(500_000);
+        double northing = 100_000 + random.nextInt(800_000);
+
+        List<Map<String, Object>> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            Map<String, Object> dpa = new LinkedHashMap<>();
+            long uprn = baseUprn + i;
+            String organisation = random.nextInt(10) == 0 ? pick(random, ORGANISATIONS) : null;
+            String subBuilding = random.nextInt(5) == 0 ? "FLAT " + (i % 4 + 1) : null;
+            String buildingName = random.nextInt(6) == 0 ? pick(random, BUILDING_NAMES) : null;
+            String buildingNumber = buildingName == null ? String.valueOf(i + 1) : null;
+
+            dpa.put("UPRN", String.valueOf(uprn));
+            dpa.put("UDPRN", String.valueOf(uprn / 10));
+            dpa.put(
+                    "ADDRESS",
+                    join(
+                            organisation,
+                            subBuilding,
+                            buildingName,
+                            buildingNumber == null ? street : buildingNumber + " " + street,
+                            town,
+                            postcode));
+            putIfPresent(dpa, "ORGANISATION_NAME", organisation);
+            putIfPresent(dpa, "SUB_BUILDING_NAME", subBuilding);
+            putIfPresent(dpa, "BUILDING_NAME", buildingName);
+            putIfPresent(dpa, "BUILDING_NUMBER", buildingNumber);
+            dpa.put("THOROUGHFARE_NAME", street);
+            dpa.put("POST_TOWN", town);
+            dpa.put("POSTCODE", postcode);
+            dpa.put("RPC", "1");
+            dpa.put("X_COORDINATE", easting + i * 7.5);
+            dpa.put("Y_COORDINATE", northing + i * 3.25);
+            dpa.put("STATUS", "APPROVED");
+            dpa.put("LOGICAL_STATUS_CODE", "1");
+            dpa.put("CLASSIFICATION_CODE", organisation == null ? "RD03" : "CR");
+            dpa.put(
+                    "CLASSIFICATION_CODE_DESCRIPTION",
+                    organisation == null ? "Semi-Detached" : "Retail");
+            dpa.put("LOCAL_CUSTODIAN_CODE", 1000 + random.nextInt(9000));
+            dpa.put("LOCAL_CUSTODIAN_CODE_DESCRIPTION", town);
+            dpa.put("COUNTRY_CODE", "E");
+            dpa.put("COUNTRY_CODE_DESCRIPTION", "This record is within England");
+            dpa.put("POSTAL_ADDRESS_CODE", "D");
+            dpa.put("POSTAL_ADDRESS_CODE_DESCRIPTION", "A record which is linked to PAF");
+            dpa.put("BLPU_STATE_CODE_DESCRIPTION", "Unknown/Not applicable");
+            dpa.put("TOPOGRAPHY_LAYER_TOID", "osgb" + (1_000_000_000_000L + uprn));
+            dpa.put("LAST_UPDATE_DATE", "10/02/2016");
+            dpa.put("ENTRY_DATE", "12/01/2000");
+            dpa.put("LANGUAGE", "EN");
+            dpa.put("MATCH", 1.0);
+            dpa.put("MATCH_DESCRIPTION", "EXACT");
+            dpa.put("DELIVERY_POINT_SUFFIX", (i % 9 + 1) + "A");
+            results.add(Map.of("DPA", dpa));
+        }
+
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("uri", "https://api.os.uk/search/places/v1/postcode");
+        header.put("query", "postcode=" + postcode);
+        header.put("offset", 0);
+        header.put("totalresults", resultCount);
+        header.put("format", "JSON");
+        header.put("dataset", "DPA");
+        header.put("lr", "EN,CY");
+        header.put("maxresults", 100);
+        header.put("epoch", "90");
+        header.put("output_srs", "EPSG:27700");
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("header", header);
+        response.put("results", results);
+        return response;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void putIfPresent(Map<String, Object> dpa, String field, String value) {
+        if (value != null) {
+            dpa.put(field, value);
+        }
+    }
+
+    private static String join(String... parts) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (String part : parts) {
+            if (part != null) {
+                joiner.add(part);
+            }
+        }
+        return joiner.toString();
+    }
+}
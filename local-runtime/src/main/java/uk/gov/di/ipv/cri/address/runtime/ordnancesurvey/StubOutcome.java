@@ -0,0 +1,53 @@
+package uk.gov.di.ipv.cri.address.runtime.ordnancesurvey;
+
+import java.util.Locale;
+
+/** What the stub does with a request once its latency has elapsed. */
+enum StubOutcome {
+    OK(200, null),
+    BAD_REQUEST(
+            400,
+            """
+            {"error":{"statuscode":400,"message":"Requested postcode must contain a minimum of \
+            the sector plus 1 digit of the district e.g. SO1. Requested postcode was %s"}}"""),
+    NOT_FOUND(
+            404,
+            """
+            {"error":{"statuscode":404,"message":"Resource not found"}}"""),
+    TOO_MANY_REQUESTS(
+            429,
+            """
+            {"fault":{"faultstring":"Rate limit quota violation. Quota limit exceeded.",\
+            "detail":{"errorcode":"policies.ratelimit.QuotaViolation"}}}"""),
+    SERVER_ERROR(
+            500,
+            """
+            {"error":{"statuscode":500,"message":"Internal server error"}}"""),
+    SERVICE_UNAVAILABLE(
+            503,
+            """
+            {"error":{"statuscode":503,"message":"Service temporarily unavailable"}}"""),
+    // The connection is closed before any response is written
+    CONNECTION_RESET(0, null);
+
+    private final int statusCode;
+    private final String bodyTemplate;
+
+    StubOutcome(int statusCode, String bodyTemplate) {
+        this.statusCode = statusCode;
+        this.bodyTemplate = bodyTemplate;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    String createErrorBody(String postcode) {
+        return bodyTemplate.formatted(postcode);
+    }
+
+    /** The name used for the outcome's rate in a profile, e.g. {@code too_many_requests}. */
+    String getPropertyName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
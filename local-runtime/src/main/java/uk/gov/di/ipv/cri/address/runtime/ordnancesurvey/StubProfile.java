@@ -0,0 +1,121 @@
+package uk.gov.di.ipv.cri.address.runtime.ordnancesurvey;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * One named behaviour of the Ordnance Survey stub, read from properties of the form {@code
+ * <profile>.<setting>}:
+ *
+ * <ul>
+ *   <li>{@code latency}: a {@link LatencyDistribution}, default {@code fixed:0}
+ *   <li>{@code maxResults}: the most addresses generated for a postcode, default 30
+ *   <li>{@code rate.<outcome>}: the fraction of requests answered with that {@link StubOutcome},
+ *       e.g. {@code rate.too_many_requests=0.05}
+ *   <li>{@code slowDrip.rate} and {@code slowDrip.duration}: the fraction of successful responses
+ *       whose body is trickled out, and how many milliseconds that takes
+ * </ul>
+ */
+record StubProfile(
+        String name,
+        LatencyDistribution latency,
+        int maxResults,
+        Map<StubOutcome, Double> outcomeRates,
+        double slowDripRate,
+        Duration slowDripDuration) {
+    private static final String LATENCY = "latency";
+    private static final String MAX_RESULTS = "maxResults";
+    private static final String RATE_PREFIX = "rate.";
+    private static final String SLOW_DRIP_RATE = "slowDrip.rate";
+    private static final String SLOW_DRIP_DURATION = "slowDrip.duration";
+
+    static Map<String, StubProfile> load(Properties properties) {
+        Map<String, Set<String>> settingsByProfile = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.indexOf('.');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected <profile>.<setting> but got " + key);
+            }
+            settingsByProfile
+                    .computeIfAbsent(key.substring(0, separator), name -> new HashSet<>())
+                    .add(key.substring(separator + 1));
+        }
+
+        Map<String, StubProfile> profiles = new TreeMap<>();
+        settingsByProfile.forEach(
+                (name, settings) -> profiles.put(name, create(name, settings, properties)));
+        return profiles;
+    }
+
+    StubOutcome nextOutcome(RandomGenerator random) {
+        double roll = random.nextDouble();
+        double cumulativeRate = 0;
+        for (Map.Entry<StubOutcome, Double> outcomeRate : outcomeRates.entrySet()) {
+            cumulativeRate += outcomeRate.getValue();
+            if (roll < cumulativeRate) {
+                return outcomeRate.getKey();
+            }
+        }
+        return StubOutcome.OK;
+    }
+
+    boolean shouldSlowDrip(RandomGenerator random) {
+        return slowDripRate > 0 && random.nextDouble() < slowDripRate;
+    }
+
+    private static StubProfile create(String name, Set<String> settings, Properties properties) {
+        Set<String> unknownSettings = new HashSet<>(settings);
+        unknownSettings.removeAll(Set.of(LATENCY, MAX_RESULTS, SLOW_DRIP_RATE, SLOW_DRIP_DURATION));
+
+        Map<StubOutcome, Double> outcomeRates = new EnumMap<>(StubOutcome.class);
+        double totalRate = 0;
+        for (StubOutcome outcome : StubOutcome.values()) {
+            if (outcome == StubOutcome.OK) {
+                continue;
+            }
+            String setting = RATE_PREFIX + outcome.getPropertyName();
+            unknownSettings.remove(setting);
+            double rate = getRate(properties, name + "." + setting);
+            if (rate > 0) {
+                outcomeRates.put(outcome, rate);
+                totalRate += rate;
+            }
+        }
+        if (!unknownSettings.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Unknown settings for profile " + name + ": " + unknownSettings);
+        }
+        int maxResults = Integer.parseInt(properties.getProperty(name + "." + MAX_RESULTS, "30"));
+        if (maxResults < 1) {
+            throw new IllegalArgumentException(name + "." + MAX_RESULTS + " must be at least 1");
+        }
+        if (totalRate > 1) {
+            throw new IllegalArgumentException(
+                    "Outcome rates for profile " + name + " add up to more than 1");
+        }
+
+        return new StubProfile(
+                name,
+                LatencyDistribution.parse(properties.getProperty(name + "." + LATENCY, "fixed:0")),
+                maxResults,
+                outcomeRates,
+                getRate(properties, name + "." + SLOW_DRIP_RATE),
+                Duration.ofMillis(
+                        Long.parseLong(
+                                properties.getProperty(name + "." + SLOW_DRIP_DURATION, "0"))));
+    }
+
+    private static double getRate(Properties properties, String key) {
+        double rate = Double.parseDouble(properties.getProperty(key, "0"));
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException(key + " must be between 0 and 1");
+        }
+        return rate;
+    }
+}